@@ -60,7 +60,8 @@ public class CorsConfig implements WebMvcConfigurer {
             "Access-Control-Allow-Origin",
             "Access-Control-Allow-Credentials",
             "Authorization",
-            "Content-Disposition"
+            "Content-Disposition",
+            "ETag"
         ));
         
         // Cache de preflight (em segundos)
@@ -0,0 +1,30 @@
+package com.marciliojr.pirangueiro.config;
+
+import com.marciliojr.pirangueiro.service.VersaoDadosService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registra o {@link RespostaCondicionalFilter} nas consultas muito repetidas pelo frontend.
+ * Os trabalhos de relatório e as exportações ficam de fora: mudam sem escrita nos dados ou
+ * são enviados aos poucos.
+ */
+@Configuration
+public class RespostaCondicionalConfig {
+
+    @Bean
+    public FilterRegistrationBean<RespostaCondicionalFilter> respostaCondicionalFilter(VersaoDadosService versaoDadosService) {
+        FilterRegistrationBean<RespostaCondicionalFilter> registro =
+                new FilterRegistrationBean<>(new RespostaCondicionalFilter(versaoDadosService));
+        registro.addUrlPatterns(
+                "/api/graficos/*",
+                "/api/relatorios/gerencial",
+                "/api/relatorios/gerencial/resumo",
+                "/api/relatorios/gerencial/comparativo",
+                "/api/categorias/*",
+                "/api/contas/*",
+                "/api/cartoes/*");
+        return registro;
+    }
+}
@@ -0,0 +1,143 @@
+package com.marciliojr.pirangueiro.config;
+
+import com.marciliojr.pirangueiro.service.VersaoDadosService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Requisições condicionais e compressão das consultas de leitura.
+ *
+ * <p>O ETag é forte e vem da versão global dos dados ({@link VersaoDadosService}), do dia atual
+ * (vários gráficos dependem do mês corrente e as faturas fecham por data) e da inicialização da
+ * aplicação, pois as versões recomeçam a cada reinício. Quando o cliente já tem a versão atual a
+ * resposta é 304 antes de chegar ao controller, sem nenhuma consulta.</p>
+ *
+ * <p>O Tomcat não comprime respostas com ETag forte, então a compressão dessas respostas é feita
+ * aqui: a versão gzip tem um ETag próprio, com o sufixo {@code -gzip}.</p>
+ */
+public class RespostaCondicionalFilter extends OncePerRequestFilter {
+
+    static final int TAMANHO_MINIMO_COMPRESSAO = 1024;
+
+    private static final String SUFIXO_GZIP = "-gzip";
+
+    private final VersaoDadosService versaoDadosService;
+
+    private final String inicializacao = Long.toString(System.currentTimeMillis(), 36);
+
+    public RespostaCondicionalFilter(VersaoDadosService versaoDadosService) {
+        this.versaoDadosService = versaoDadosService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Versão lida antes da consulta: uma escrita concorrente gera no máximo um 200 a mais
+        String etag = inicializacao + "-" + versaoDadosService.versao(null, null) + "-" + LocalDate.now();
+        boolean aceitaGzip = aceitaGzip(request);
+
+        String etagCliente = etagDoCliente(request, etag, aceitaGzip);
+        if (etagCliente != null) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etagCliente);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return;
+        }
+
+        ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, resposta);
+
+        // Erros não recebem ETag nem são comprimidos aqui
+        if (resposta.getStatus() != HttpServletResponse.SC_OK) {
+            resposta.copyBodyToResponse();
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (aceitaGzip && compressivel(resposta)) {
+            byte[] comprimido = comprimir(resposta.getContentAsByteArray());
+            response.setHeader(HttpHeaders.ETAG, aspas(etag + SUFIXO_GZIP));
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(comprimido.length);
+            response.getOutputStream().write(comprimido);
+        } else {
+            response.setHeader(HttpHeaders.ETAG, aspas(etag));
+            resposta.copyBodyToResponse();
+        }
+    }
+
+    // ETag enviado pelo cliente que ainda corresponde aos dados atuais, ou nulo
+    private static String etagDoCliente(HttpServletRequest request, String etag, boolean aceitaGzip) {
+        List<String> valores = Collections.list(request.getHeaders(HttpHeaders.IF_NONE_MATCH));
+        for (String valor : valores) {
+            for (String candidato : valor.split(",")) {
+                String recebido = candidato.trim();
+                if (recebido.equals(aspas(etag))) {
+                    return recebido;
+                }
+                if (aceitaGzip && recebido.equals(aspas(etag + SUFIXO_GZIP))) {
+                    return recebido;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean aceitaGzip(HttpServletRequest request) {
+        for (String valor : Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING))) {
+            for (String codificacao : valor.split(",")) {
+                String[] partes = codificacao.trim().split(";");
+                if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                    return partes.length == 1 || !partes[1].replace(" ", "").equals("q=0");
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean compressivel(ContentCachingResponseWrapper resposta) {
+        if (resposta.getContentSize() < TAMANHO_MINIMO_COMPRESSAO || resposta.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+        String tipo = resposta.getContentType();
+        if (tipo == null) {
+            return false;
+        }
+        MediaType mediaType = MediaType.parseMediaType(tipo);
+        return mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                || mediaType.getSubtype().endsWith("+json")
+                || mediaType.getType().equals("text");
+    }
+
+    private static byte[] comprimir(byte[] conteudo) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(conteudo.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(conteudo);
+        }
+        return saida.toByteArray();
+    }
+
+    private static String aspas(String valor) {
+        return "\"" + valor + "\"";
+    }
+}
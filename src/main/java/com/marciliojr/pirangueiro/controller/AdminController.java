@@ -1,6 +1,18 @@
 package com.marciliojr.pirangueiro.controller;
 
 import com.marciliojr.pirangueiro.repository.*;
+import com.marciliojr.pirangueiro.service.ArmazemColunarService;
+import com.marciliojr.pirangueiro.service.CacheGraficosService;
+import com.marciliojr.pirangueiro.service.CheckpointSaldoService;
+import com.marciliojr.pirangueiro.service.CuboAnaliticoService;
+import com.marciliojr.pirangueiro.service.DadosReferenciaService;
+import com.marciliojr.pirangueiro.service.HistoricoService;
+import com.marciliojr.pirangueiro.service.PrevisaoGastosService;
+import com.marciliojr.pirangueiro.service.RelatorioJobService;
+import com.marciliojr.pirangueiro.service.ResumoMensalService;
+import com.marciliojr.pirangueiro.service.SaldoContasService;
+import com.marciliojr.pirangueiro.service.SnapshotRelatorioService;
+import com.marciliojr.pirangueiro.service.VersaoDadosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -40,9 +52,54 @@ public class AdminController {
 
     @Autowired
     private HistoricoRepository historicoRepository;
+
+    @Autowired
+    private HistoricoService historicoService;
     
     @Autowired
     private NotificacaoRepository notificacaoRepository;
+
+    @Autowired
+    private FaturaRepository faturaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @Autowired
+    private CuboAnaliticoService cuboAnaliticoService;
+
+    @Autowired
+    private PrevisaoGastosService previsaoGastosService;
+
+    @Autowired
+    private ArmazemColunarService armazemColunarService;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    @Autowired
+    private CacheGraficosService cacheGraficosService;
+
+    @Autowired
+    private SaldoContasService saldoContasService;
+
+    @Autowired
+    private CheckpointSaldoService checkpointSaldoService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private RelatorioJobService relatorioJobService;
+
+    @Autowired
+    private SnapshotRelatorioRepository snapshotRelatorioRepository;
+
+    @Autowired
+    private SnapshotRelatorioService snapshotRelatorioService;
     
     @Autowired
     private DespesaRepository despesaRepository;
@@ -123,6 +180,9 @@ public class AdminController {
                 return ResponseEntity.badRequest().body(response);
             }
             
+            // Registros do histórico ainda na fila seriam gravados depois da limpeza
+            historicoService.descarregar();
+
             // Contar total antes da exclusão
             long totalGeral = historicoRepository.count() + 
                              notificacaoRepository.count() + 
@@ -140,7 +200,10 @@ public class AdminController {
             historicoRepository.deleteAll();
             notificacaoRepository.deleteAll();
             despesaRepository.deleteAll();
+            faturaRepository.deleteAll();
             receitaRepository.deleteAll();
+            resumoMensalRepository.deleteAllInBatch();
+            snapshotRelatorioRepository.deleteAllInBatch();
             limiteGastosRepository.deleteAll();
             execucaoTarefaRepository.deleteAll();
             graficosRepository.deleteAll();
@@ -148,6 +211,15 @@ public class AdminController {
             contaRepository.deleteAll();
             categoriaRepository.deleteAll();
             usuarioRepository.deleteAll();
+            cuboAnaliticoService.invalidar();
+            previsaoGastosService.invalidar();
+            armazemColunarService.invalidar();
+            dadosReferenciaService.invalidarTudo();
+            cacheGraficosService.invalidarTudo();
+            saldoContasService.invalidarTudo();
+            checkpointSaldoService.invalidarTodos();
+            versaoDadosService.invalidarTudo();
+            relatorioJobService.descartarObsoletos();
             
             response.put("sucesso", true);
             response.put("mensagem", "Base de dados limpa com sucesso!");
@@ -162,6 +234,95 @@ public class AdminController {
             return ResponseEntity.internalServerError().body(response);
         }
     }
-    
 
-} 
\ No newline at end of file
+    /**
+     * Recalcula os resumos mensais de despesas e receitas a partir dos lançamentos.
+     *
+     * <p>Os resumos são mantidos a cada escrita de lançamento; este endpoint serve para
+     * corrigir divergências após alterações feitas diretamente na base de dados.</p>
+     *
+     * @return ResponseEntity com a quantidade de linhas de resumo geradas
+     */
+    @Operation(
+        summary = "Reconstruir resumos mensais",
+        description = "Recalcula os resumos mensais usados pelos gráficos e relatórios a partir das despesas e receitas."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Resumos mensais reconstruídos com sucesso"
+        ),
+        @ApiResponse(
+            responseCode = "500",
+            description = "Erro interno durante a reconstrução"
+        )
+    })
+    @PostMapping("/resumos-mensais/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirResumosMensais() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            int linhas = resumoMensalService.reconstruir();
+            cuboAnaliticoService.invalidar();
+            previsaoGastosService.invalidar();
+            cacheGraficosService.invalidarTudo();
+            saldoContasService.invalidarTudo();
+            checkpointSaldoService.invalidarTodos();
+            versaoDadosService.invalidarTudo();
+            relatorioJobService.descartarObsoletos();
+            snapshotRelatorioService.invalidarTodos();
+
+            response.put("sucesso", true);
+            response.put("mensagem", "Resumos mensais reconstruídos com sucesso!");
+            response.put("linhasGeradas", linhas);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            response.put("sucesso", false);
+            response.put("mensagem", "Erro durante a reconstrução dos resumos mensais");
+
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Estatísticas do cache de categorias, contas e cartões.
+     *
+     * @return ResponseEntity com acertos, faltas, taxa de acerto e tamanho do cache
+     */
+    @Operation(
+        summary = "Estatísticas do cache de dados de referência",
+        description = "Retorna acertos, faltas, taxa de acerto, cargas e entradas do cache de categorias, contas e cartões."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Estatísticas retornadas com sucesso"
+        )
+    })
+    @GetMapping("/cache/dados-referencia")
+    public ResponseEntity<Map<String, Object>> estatisticasCacheDadosReferencia() {
+        return ResponseEntity.ok(dadosReferenciaService.estatisticas());
+    }
+
+    /**
+     * Estatísticas do cache de respostas dos gráficos e do dashboard.
+     *
+     * @return ResponseEntity com acertos, faltas, taxa de acerto e tamanho do cache
+     */
+    @Operation(
+        summary = "Estatísticas do cache de gráficos",
+        description = "Retorna acertos, faltas, taxa de acerto e entradas do cache de respostas dos gráficos e do dashboard."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Estatísticas retornadas com sucesso"
+        )
+    })
+    @GetMapping("/cache/graficos")
+    public ResponseEntity<Map<String, Object>> estatisticasCacheGraficos() {
+        return ResponseEntity.ok(cacheGraficosService.estatisticas());
+    }
+}
@@ -0,0 +1,61 @@
+package com.marciliojr.pirangueiro.controller;
+
+import com.marciliojr.pirangueiro.dto.ConsultaPivotDTO;
+import com.marciliojr.pirangueiro.dto.ResultadoPivotDTO;
+import com.marciliojr.pirangueiro.service.ArmazemColunarService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller de consultas analíticas ad hoc sobre despesas e receitas.
+ *
+ * <p>As consultas são respondidas pelo armazém colunar em memória, sem acesso ao banco,
+ * agrupando os lançamentos pelas dimensões pedidas.</p>
+ */
+@Tag(name = "Análises", description = "APIs de consultas analíticas ad hoc")
+@RestController
+@RequestMapping("/api/analytics")
+public class AnaliseController {
+
+    @Autowired
+    private ArmazemColunarService armazemColunarService;
+
+    /**
+     * Agrupa os lançamentos pelas dimensões informadas e calcula as medidas pedidas.
+     *
+     * @param consulta tipo de lançamento, dimensões, medidas e filtros
+     * @return ResponseEntity com uma linha por grupo
+     */
+    @Operation(
+        summary = "Consulta pivot",
+        description = "Agrupa despesas ou receitas por até 4 dimensões (ano, mês, mês do ano, dia da semana, " +
+                     "categoria, conta, cartão e situação de pagamento) e calcula soma, quantidade, média, " +
+                     "mínimo e máximo. Aceita filtros por período, categorias, contas, cartões e pagamento."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Consulta executada com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ResultadoPivotDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Consulta inválida",
+            content = @Content
+        )
+    })
+    @PostMapping("/pivot")
+    public ResponseEntity<ResultadoPivotDTO> consultarPivot(@RequestBody ConsultaPivotDTO consulta) {
+        return ResponseEntity.ok(armazemColunarService.consultar(consulta));
+    }
+}
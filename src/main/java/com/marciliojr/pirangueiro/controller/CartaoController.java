@@ -2,8 +2,12 @@ package com.marciliojr.pirangueiro.controller;
 
 import com.marciliojr.pirangueiro.service.CartaoService;
 import com.marciliojr.pirangueiro.service.DespesaService;
+import com.marciliojr.pirangueiro.service.FaturaService;
+import com.marciliojr.pirangueiro.service.UtilizacaoCartaoService;
+import com.marciliojr.pirangueiro.dto.CartaoLimiteDTO;
 import com.marciliojr.pirangueiro.dto.CartaoDTO;
 import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.dto.FaturaDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -24,7 +28,8 @@ import java.util.List;
  * <ul>
  *   <li>Busca por nome</li>
  *   <li>Consulta de despesas por período de fatura</li>
- *   <li>Cálculo de limite disponível</li>
+ *   <li>Consulta das faturas por ciclo de fechamento</li>
+ *   <li>Cálculo de limite disponível e utilização dos cartões</li>
  *   <li>Exclusão com opção de manter despesas</li>
  * </ul>
  * 
@@ -52,6 +57,18 @@ public class CartaoController {
     @Autowired
     private DespesaService despesaService;
 
+    /**
+     * Serviço responsável pelas faturas dos cartões.
+     */
+    @Autowired
+    private FaturaService faturaService;
+
+    /**
+     * Serviço de consulta da utilização do limite dos cartões.
+     */
+    @Autowired
+    private UtilizacaoCartaoService utilizacaoCartaoService;
+
     /**
      * Lista todos os cartões cadastrados no sistema.
      * 
@@ -248,6 +265,78 @@ public class CartaoController {
         return ResponseEntity.ok(despesaService.buscarDespesasPorCartaoEPeriodoFatura(id, mes, ano));
     }
 
+    /**
+     * Lista as faturas de um cartão, da mais recente para a mais antiga.
+     * 
+     * @param id ID do cartão
+     * @return ResponseEntity contendo a lista de faturas do cartão
+     */
+    @Operation(
+        summary = "Listar faturas do cartão",
+        description = "Retorna as faturas do cartão com período, vencimento, total, total pago e situação " +
+                     "(ABERTA, FECHADA ou PAGA). Os totais são mantidos a cada alteração de despesa."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Faturas retornadas com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = FaturaDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Cartão não encontrado",
+            content = @Content
+        )
+    })
+    @GetMapping("/{id}/faturas")
+    public ResponseEntity<List<FaturaDTO>> listarFaturas(
+            @Parameter(description = "ID do cartão", required = true)
+            @PathVariable Long id) {
+        return ResponseEntity.ok(faturaService.listarPorCartao(id));
+    }
+
+    /**
+     * Busca a fatura de um cartão pelo mês e ano de fechamento.
+     * 
+     * @param id ID do cartão
+     * @param ano Ano de fechamento da fatura
+     * @param mes Mês de fechamento da fatura (1-12)
+     * @return ResponseEntity contendo a fatura
+     */
+    @Operation(
+        summary = "Buscar fatura por referência",
+        description = "Retorna a fatura do cartão que fecha no mês e ano informados. " +
+                     "Se o ciclo ainda não possui despesas, retorna a fatura zerada com o período calculado."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Fatura retornada com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = FaturaDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Cartão não encontrado ou mês de referência inválido",
+            content = @Content
+        )
+    })
+    @GetMapping("/{id}/faturas/{ano}/{mes}")
+    public ResponseEntity<FaturaDTO> buscarFatura(
+            @Parameter(description = "ID do cartão", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Ano de fechamento da fatura", required = true)
+            @PathVariable int ano,
+            @Parameter(description = "Mês de fechamento da fatura (1-12)", required = true)
+            @PathVariable int mes) {
+        return ResponseEntity.ok(faturaService.buscarPorReferencia(id, mes, ano));
+    }
+
     /**
      * Remove um cartão do sistema.
      * 
@@ -313,4 +402,29 @@ public class CartaoController {
             @PathVariable Long id) {
         return ResponseEntity.ok(cartaoService.calcularLimiteDisponivel(id));
     }
-} 
\ No newline at end of file
+
+    /**
+     * Consulta a utilização do limite de todos os cartões.
+     *
+     * @return ResponseEntity com limite, usado, disponível e percentual de cada cartão
+     */
+    @Operation(
+        summary = "Consultar utilização dos cartões",
+        description = "Retorna o limite total, o limite usado, o limite disponível e o percentual " +
+                     "utilizado de todos os cartões."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Utilização dos cartões retornada com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CartaoLimiteDTO.class)
+            )
+        )
+    })
+    @GetMapping("/utilizacao")
+    public ResponseEntity<List<CartaoLimiteDTO>> consultarUtilizacao() {
+        return ResponseEntity.ok(utilizacaoCartaoService.listarUtilizacoes());
+    }
+}
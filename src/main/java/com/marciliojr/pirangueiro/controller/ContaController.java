@@ -1,20 +1,27 @@
 package com.marciliojr.pirangueiro.controller;
 
+import com.marciliojr.pirangueiro.service.CheckpointSaldoService;
 import com.marciliojr.pirangueiro.service.ContaService;
 import com.marciliojr.pirangueiro.dto.ContaDTO;
 import com.marciliojr.pirangueiro.dto.SaldoContaDTO;
+import com.marciliojr.pirangueiro.dto.SaldoEmDataDTO;
+import com.marciliojr.pirangueiro.dto.SaldoMensalDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 /**
@@ -47,6 +54,9 @@ public class ContaController {
     @Autowired
     private ContaService contaService;
 
+    @Autowired
+    private CheckpointSaldoService checkpointSaldoService;
+
     /**
      * Lista todas as contas cadastradas no sistema.
      * 
@@ -290,4 +300,124 @@ public class ContaController {
             @RequestParam(required = false) Integer ano) {
         return ResponseEntity.ok(contaService.calcularSaldoConta(id, mes, ano));
     }
-} 
\ No newline at end of file
+
+    /**
+     * Calcula o saldo de todas as contas de uma vez.
+     * 
+     * @param mes Mês opcional para filtro (1-12)
+     * @param ano Ano opcional para filtro
+     * @return ResponseEntity contendo a lista de SaldoContaDTO
+     */
+    @Operation(
+        summary = "Calcular saldos de todas as contas",
+        description = "Calcula o saldo de todas as contas em uma única consulta, considerando receitas e despesas. " +
+                     "Pode ser filtrado por mês e ano específicos."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Saldos calculados com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                array = @ArraySchema(schema = @Schema(implementation = SaldoContaDTO.class))
+            )
+        )
+    })
+    @GetMapping("/saldos")
+    public ResponseEntity<List<SaldoContaDTO>> listarSaldos(
+            @Parameter(description = "Mês para filtro (1-12)")
+            @RequestParam(required = false) Integer mes,
+            @Parameter(description = "Ano para filtro")
+            @RequestParam(required = false) Integer ano) {
+        return ResponseEntity.ok(contaService.listarSaldos(mes, ano));
+    }
+
+    /**
+     * Calcula o saldo de uma conta ao fim de uma data.
+     * 
+     * @param id ID da conta
+     * @param data Data do saldo (yyyy-MM-dd)
+     * @return ResponseEntity contendo o SaldoEmDataDTO
+     */
+    @Operation(
+        summary = "Calcular saldo da conta em uma data",
+        description = "Calcula o saldo da conta ao fim da data informada: receitas menos despesas lançadas na conta " +
+                     "até a data. Usa o saldo de fechamento do mês anterior e soma apenas os lançamentos do mês."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Saldo calculado com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = SaldoEmDataDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Conta não encontrada",
+            content = @Content
+        )
+    })
+    @GetMapping("/{id}/saldo-em")
+    public ResponseEntity<SaldoEmDataDTO> calcularSaldoEm(
+            @Parameter(description = "ID da conta", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Data do saldo (yyyy-MM-dd)", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        return ResponseEntity.ok(checkpointSaldoService.calcularSaldoEm(id, data));
+    }
+
+    /**
+     * Lista o saldo de uma conta ao fim de cada mês de um período.
+     * 
+     * @param id ID da conta
+     * @param mesInicio Mês inicial (1-12)
+     * @param anoInicio Ano inicial
+     * @param mesFim Mês final (1-12)
+     * @param anoFim Ano final
+     * @return ResponseEntity contendo a lista de SaldoMensalDTO
+     */
+    @Operation(
+        summary = "Listar saldos mensais da conta",
+        description = "Retorna o saldo de fechamento da conta em cada mês do período, inclusive meses sem lançamentos."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Saldos calculados com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                array = @ArraySchema(schema = @Schema(implementation = SaldoMensalDTO.class))
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Período inválido",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Conta não encontrada",
+            content = @Content
+        )
+    })
+    @GetMapping("/{id}/saldos-mensais")
+    public ResponseEntity<List<SaldoMensalDTO>> listarSaldosMensais(
+            @Parameter(description = "ID da conta", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Mês inicial (1-12)", required = true)
+            @RequestParam Integer mesInicio,
+            @Parameter(description = "Ano inicial", required = true)
+            @RequestParam Integer anoInicio,
+            @Parameter(description = "Mês final (1-12)", required = true)
+            @RequestParam Integer mesFim,
+            @Parameter(description = "Ano final", required = true)
+            @RequestParam Integer anoFim) {
+        if (mesInicio < 1 || mesInicio > 12 || mesFim < 1 || mesFim > 12) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(checkpointSaldoService.listarSaldosMensais(id,
+                YearMonth.of(anoInicio, mesInicio), YearMonth.of(anoFim, mesFim)));
+    }
+}
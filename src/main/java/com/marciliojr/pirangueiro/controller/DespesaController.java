@@ -1,8 +1,14 @@
 package com.marciliojr.pirangueiro.controller;
 
+import com.lowagie.text.DocumentException;
+import com.marciliojr.pirangueiro.service.ExportacaoPlanilhaService;
+import com.marciliojr.pirangueiro.service.ExportacaoRelatorioService;
 import com.marciliojr.pirangueiro.service.DespesaService;
 import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.dto.ResultadoOperacaoLoteDTO;
+import com.marciliojr.pirangueiro.dto.SelecaoDespesasDTO;
 import com.marciliojr.pirangueiro.util.PDFGenerator;
+import com.marciliojr.pirangueiro.util.PlanilhaGenerator.Formato;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,8 +23,12 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Controller responsável por gerenciar operações relacionadas às despesas do sistema.
@@ -28,7 +38,9 @@ import java.util.List;
  * <ul>
  *   <li>Busca com filtros e paginação</li>
  *   <li>Geração de relatórios em PDF</li>
+ *   <li>Exportação em CSV e XLSX</li>
  *   <li>Marcação de despesas como pagas</li>
+ *   <li>Operações em lote (pagamento, exclusão, recategorização e troca de conta)</li>
  *   <li>Cálculo de totais</li>
  *   <li>Busca por múltiplos critérios (conta, cartão, data, etc.)</li>
  * </ul>
@@ -54,6 +66,18 @@ public class DespesaController {
     @Autowired
     private PDFGenerator pdfGenerator;
 
+    /**
+     * Leitura por cursor dos lançamentos usada no PDF.
+     */
+    @Autowired
+    private ExportacaoRelatorioService exportacaoRelatorioService;
+
+    /**
+     * Exportação de planilhas por cursor.
+     */
+    @Autowired
+    private ExportacaoPlanilhaService exportacaoPlanilhaService;
+
     /**
      * Lista todas as despesas cadastradas no sistema.
      * 
@@ -323,6 +347,144 @@ public class DespesaController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Marca um conjunto de despesas como pagas ou pendentes em uma única operação.
+     * 
+     * @param pago Nova situação das despesas selecionadas
+     * @param selecao Lista de IDs ou filtro que identifica as despesas
+     * @return ResponseEntity com a quantidade de despesas afetadas
+     */
+    @Operation(
+        summary = "Atualizar situação de pagamento em lote",
+        description = "Marca como pagas (ou pendentes) todas as despesas da lista de IDs ou que atendem ao filtro, " +
+                     "como no pagamento de uma fatura de cartão."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Despesas atualizadas com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ResultadoOperacaoLoteDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Seleção sem IDs e sem filtro",
+            content = @Content
+        )
+    })
+    @PutMapping("/lote/pago")
+    public ResponseEntity<ResultadoOperacaoLoteDTO> atualizarPagoEmLote(
+            @Parameter(description = "Nova situação de pagamento", required = true)
+            @RequestParam boolean pago,
+            @Parameter(description = "IDs ou filtro das despesas", required = true)
+            @RequestBody SelecaoDespesasDTO selecao) {
+        return ResponseEntity.ok(despesaService.atualizarPagoEmLote(selecao, pago));
+    }
+
+    /**
+     * Altera a categoria de um conjunto de despesas.
+     * 
+     * @param categoriaId ID da nova categoria
+     * @param selecao Lista de IDs ou filtro que identifica as despesas
+     * @return ResponseEntity com a quantidade de despesas afetadas
+     */
+    @Operation(
+        summary = "Alterar categoria em lote",
+        description = "Altera a categoria de todas as despesas da lista de IDs ou que atendem ao filtro."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Despesas recategorizadas com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ResultadoOperacaoLoteDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Categoria não encontrada ou seleção inválida",
+            content = @Content
+        )
+    })
+    @PutMapping("/lote/categoria/{categoriaId}")
+    public ResponseEntity<ResultadoOperacaoLoteDTO> alterarCategoriaEmLote(
+            @Parameter(description = "ID da nova categoria", required = true)
+            @PathVariable Long categoriaId,
+            @Parameter(description = "IDs ou filtro das despesas", required = true)
+            @RequestBody SelecaoDespesasDTO selecao) {
+        return ResponseEntity.ok(despesaService.alterarCategoriaEmLote(selecao, categoriaId));
+    }
+
+    /**
+     * Altera a conta de um conjunto de despesas.
+     * 
+     * @param contaId ID da nova conta
+     * @param selecao Lista de IDs ou filtro que identifica as despesas
+     * @return ResponseEntity com a quantidade de despesas afetadas
+     */
+    @Operation(
+        summary = "Alterar conta em lote",
+        description = "Altera a conta de todas as despesas da lista de IDs ou que atendem ao filtro."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Despesas atualizadas com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ResultadoOperacaoLoteDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Conta não encontrada ou seleção inválida",
+            content = @Content
+        )
+    })
+    @PutMapping("/lote/conta/{contaId}")
+    public ResponseEntity<ResultadoOperacaoLoteDTO> alterarContaEmLote(
+            @Parameter(description = "ID da nova conta", required = true)
+            @PathVariable Long contaId,
+            @Parameter(description = "IDs ou filtro das despesas", required = true)
+            @RequestBody SelecaoDespesasDTO selecao) {
+        return ResponseEntity.ok(despesaService.alterarContaEmLote(selecao, contaId));
+    }
+
+    /**
+     * Remove um conjunto de despesas do sistema.
+     * 
+     * @param selecao Lista de IDs ou filtro que identifica as despesas
+     * @return ResponseEntity com a quantidade de despesas excluídas
+     */
+    @Operation(
+        summary = "Excluir despesas em lote",
+        description = "Remove todas as despesas da lista de IDs ou que atendem ao filtro."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Despesas excluídas com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ResultadoOperacaoLoteDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Seleção sem IDs e sem filtro",
+            content = @Content
+        )
+    })
+    @PostMapping("/lote/excluir")
+    public ResponseEntity<ResultadoOperacaoLoteDTO> excluirEmLote(
+            @Parameter(description = "IDs ou filtro das despesas", required = true)
+            @RequestBody SelecaoDespesasDTO selecao) {
+        return ResponseEntity.ok(despesaService.excluirEmLote(selecao));
+    }
+
     /**
      * Calcula o valor total de todas as despesas.
      * 
@@ -348,6 +510,115 @@ public class DespesaController {
         return ok;
     }
 
+    /**
+     * Gera o relatório de despesas em PDF, escrito diretamente na resposta.
+     * 
+     * @param mes Mês opcional para filtro (1-12), considerado apenas com o ano
+     * @param ano Ano opcional para filtro
+     * @return ResponseEntity com o PDF das despesas
+     */
+    @Operation(
+        summary = "Gerar PDF de despesas",
+        description = "Gera o relatório de despesas do período em PDF. As despesas são lidas do banco e " +
+                     "escritas no documento em blocos, sem carregar a lista inteira em memória."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "PDF gerado com sucesso",
+            content = @Content(mediaType = "application/pdf")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Parâmetros inválidos",
+            content = @Content
+        )
+    })
+    @GetMapping("/pdf")
+    public ResponseEntity<StreamingResponseBody> gerarPDF(
+            @Parameter(description = "Mês para filtro (1-12)")
+            @RequestParam(required = false) Integer mes,
+            @Parameter(description = "Ano para filtro")
+            @RequestParam(required = false) Integer ano) {
+        if (mes != null && (mes < 1 || mes > 12)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String titulo = "Relatório de Despesas";
+        String nomeArquivo = "despesas";
+        if (mes != null && ano != null) {
+            titulo += String.format(" - %02d/%04d", mes, ano);
+            nomeArquivo += String.format("_%02d_%04d", mes, ano);
+        } else if (ano != null) {
+            titulo += " - " + ano;
+            nomeArquivo += "_" + ano;
+        }
+        String tituloDocumento = titulo;
+
+        StreamingResponseBody corpo = saida -> {
+            try (Stream<DespesaDTO> despesas = exportacaoRelatorioService.lerDespesas(mes, ano)) {
+                pdfGenerator.escreverPDFDespesas(despesas::iterator, tituloDocumento, saida);
+            } catch (DocumentException e) {
+                throw new IOException("Erro ao gerar PDF de despesas", e);
+            }
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", nomeArquivo + ".pdf");
+        return ResponseEntity.ok().headers(headers).body(corpo);
+    }
+
+    /**
+     * Exporta as despesas em CSV ou XLSX, escritos diretamente na resposta.
+     * 
+     * @param formato Formato do arquivo: csv (padrão) ou xlsx
+     * @param descricao Filtro opcional por descrição da despesa
+     * @param mes Filtro opcional por mês (1-12)
+     * @param ano Filtro opcional por ano
+     * @return ResponseEntity com a planilha
+     */
+    @Operation(
+        summary = "Exportar as despesas em CSV ou XLSX",
+        description = "Exporta as despesas com os mesmos filtros da busca, das mais recentes para as mais antigas. Os registros são lidos " +
+                     "do banco por cursor e escritos na planilha um a um, sem carregar a lista em memória."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Planilha gerada com sucesso",
+            content = {
+                @Content(mediaType = "text/csv"),
+                @Content(mediaType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+            }
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Formato ou mês inválido",
+            content = @Content
+        )
+    })
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @Parameter(description = "Formato do arquivo: csv ou xlsx")
+            @RequestParam(defaultValue = "csv") String formato,
+            @Parameter(description = "Descrição da despesa para filtro")
+            @RequestParam(required = false) String descricao,
+            @Parameter(description = "Mês para filtro (1-12)")
+            @RequestParam(required = false) Integer mes,
+            @Parameter(description = "Ano para filtro")
+            @RequestParam(required = false) Integer ano) {
+        Formato tipo = exportacaoPlanilhaService.validar(formato, mes);
+        StreamingResponseBody corpo = saida ->
+                exportacaoPlanilhaService.exportarDespesas(tipo, descricao, mes, ano, saida);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(tipo.getTipoConteudo()));
+        headers.setContentDispositionFormData("attachment",
+                exportacaoPlanilhaService.nomeArquivo("despesas", mes, ano, tipo));
+        return ResponseEntity.ok().headers(headers).body(corpo);
+    }
+
     /**
      * Limpa caracteres de formatação de uma string.
      * 
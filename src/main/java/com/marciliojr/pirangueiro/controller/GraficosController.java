@@ -3,10 +3,13 @@ package com.marciliojr.pirangueiro.controller;
 import com.marciliojr.pirangueiro.dto.DashboardFinanceiroDTO;
 import com.marciliojr.pirangueiro.dto.GraficoReceitasDespesasCategoriaDTO;
 import com.marciliojr.pirangueiro.dto.GraficoDespesasCartaoDTO;
+import com.marciliojr.pirangueiro.dto.GraficoPrevisaoGastosDTO;
 import com.marciliojr.pirangueiro.dto.GraficoSazonalidadeGastosDTO;
 import com.marciliojr.pirangueiro.dto.GraficoTendenciaGastosDTO;
 import com.marciliojr.pirangueiro.dto.GraficoReceitasDespesasResponseDTO;
+import com.marciliojr.pirangueiro.dto.GraficosBundleDTO;
 import com.marciliojr.pirangueiro.service.GraficosService;
+import com.marciliojr.pirangueiro.service.PrevisaoGastosService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -33,6 +36,7 @@ import java.time.LocalDate;
  *   <li>Análise de sazonalidade de gastos</li>
  *   <li>Tendências de gastos</li>
  *   <li>Comparativo de receitas e despesas por período</li>
+ *   <li>Todos os gráficos acima em uma única requisição</li>
  * </ul>
  * 
  * <p>Todos os endpoints são projetados para fornecer dados prontos para
@@ -53,6 +57,12 @@ public class GraficosController {
     @Autowired
     private GraficosService graficosService;
 
+    /**
+     * Serviço que mantém os modelos de previsão dos gastos.
+     */
+    @Autowired
+    private PrevisaoGastosService previsaoGastosService;
+
     /**
      * Busca dados para gráfico de receitas vs despesas por categoria.
      * 
@@ -161,7 +171,8 @@ public class GraficosController {
     @Operation(
         summary = "Análise de sazonalidade dos gastos",
         description = "Retorna análise dos padrões sazonais de gastos, identificando " +
-                     "períodos de maior e menor movimentação financeira ao longo do ano."
+                     "períodos de maior e menor movimentação financeira ao longo do ano. Para cada mês, " +
+                     "traz a média, a mediana e o desvio padrão do total gasto nesse mês em cada ano."
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -203,6 +214,41 @@ public class GraficosController {
         return ResponseEntity.ok(graficosService.buscarTendenciaGastos());
     }
 
+    /**
+     * Busca a previsão dos gastos dos próximos meses.
+     * 
+     * @param meses Quantidade de meses previstos, a partir do mês atual (1 a 24)
+     * @return ResponseEntity contendo as previsões do total, das categorias e dos cartões
+     */
+    @Operation(
+        summary = "Previsão dos gastos",
+        description = "Retorna, em uma única chamada, a previsão mensal com faixa de confiança de 95% " +
+                     "do total de despesas, de cada categoria e de cada cartão. Usa Holt-Winters com dois " +
+                     "anos de histórico, sazonal ingênuo com um ano e média simples com menos. Os modelos " +
+                     "são mantidos atualizados a cada alteração de despesas."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Previsões retornadas com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GraficoPrevisaoGastosDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Quantidade de meses inválida",
+            content = @Content
+        )
+    })
+    @GetMapping("/previsao-gastos")
+    public ResponseEntity<GraficoPrevisaoGastosDTO> buscarPrevisaoGastos(
+            @Parameter(description = "Quantidade de meses previstos (1 a 24)")
+            @RequestParam(defaultValue = "6") Integer meses) {
+        return ResponseEntity.ok(previsaoGastosService.buscarPrevisaoGastos(meses));
+    }
+
     /**
      * Busca dados de receitas vs despesas por período customizado.
      * 
@@ -247,4 +293,55 @@ public class GraficosController {
             return ResponseEntity.badRequest().build();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Busca todos os gráficos do dashboard em uma única requisição.
+     * 
+     * @param mes Mês do dashboard financeiro e das categorias (1-12)
+     * @param ano Ano do dashboard financeiro e das categorias
+     * @param mesesAtras Quantidade de meses do gráfico de cartões (padrão: 12)
+     * @param mesesPrevisao Quantidade de meses da previsão de gastos (padrão: 6)
+     * @param dataInicio Data de início do comparativo de receitas e despesas (opcional)
+     * @param dataFim Data de fim do comparativo de receitas e despesas (opcional)
+     * @return ResponseEntity contendo todos os gráficos
+     */
+    @Operation(
+        summary = "Todos os gráficos do dashboard",
+        description = "Retorna em uma única resposta os dados de todos os gráficos, calculados em paralelo. " +
+                     "Totais usados por mais de um gráfico são calculados uma única vez. Gráficos que falharem " +
+                     "ou excederem o tempo limite vêm nulos e são listados em graficosIndisponiveis."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Gráficos retornados com sucesso",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = GraficosBundleDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Período ou quantidade de meses inválidos",
+            content = @Content
+        )
+    })
+    @GetMapping("/bundle")
+    public ResponseEntity<GraficosBundleDTO> buscarBundle(
+            @Parameter(description = "Mês para análise (1-12)", required = true)
+            @RequestParam Integer mes,
+            @Parameter(description = "Ano para análise", required = true)
+            @RequestParam Integer ano,
+            @Parameter(description = "Quantidade de meses do gráfico de cartões (padrão: 12)")
+            @RequestParam(defaultValue = "12") Integer mesesAtras,
+            @Parameter(description = "Quantidade de meses previstos (1 a 24)")
+            @RequestParam(defaultValue = "6") Integer mesesPrevisao,
+            @Parameter(description = "Data de início do comparativo (formato: YYYY-MM-DD)")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @Parameter(description = "Data de fim do comparativo (formato: YYYY-MM-DD)")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim) {
+        return ResponseEntity.ok(graficosService.buscarBundle(mes, ano, mesesAtras, mesesPrevisao, dataInicio, dataFim));
+    }
+}
@@ -2,7 +2,9 @@ package com.marciliojr.pirangueiro.controller;
 
 import com.marciliojr.pirangueiro.dto.HistoricoDTO;
 import com.marciliojr.pirangueiro.model.Historico;
+import com.marciliojr.pirangueiro.service.ExportacaoPlanilhaService;
 import com.marciliojr.pirangueiro.service.HistoricoService;
+import com.marciliojr.pirangueiro.util.PlanilhaGenerator.Formato;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,8 +13,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -24,6 +29,7 @@ import java.util.stream.Collectors;
  * realizadas no sistema, incluindo funcionalidades como:</p>
  * <ul>
  *   <li>Auditoria de operações CRUD</li>
+ *   <li>Exportação do histórico em CSV ou XLSX</li>
  * </ul>
  * 
  * <p>O histórico é fundamental para auditoria e rastreabilidade das operações
@@ -44,6 +50,62 @@ public class HistoricoController {
     @Autowired
     private HistoricoService historicoService;
 
+    /**
+     * Exportação de planilhas por cursor.
+     */
+    @Autowired
+    private ExportacaoPlanilhaService exportacaoPlanilhaService;
+
+    /**
+     * Exporta o histórico de operações em CSV ou XLSX, escritos diretamente na resposta.
+     * 
+     * @param formato Formato do arquivo: csv (padrão) ou xlsx
+     * @param descricao Filtro opcional por texto das informações da operação
+     * @param mes Filtro opcional por mês (1-12)
+     * @param ano Filtro opcional por ano
+     * @return ResponseEntity com a planilha
+     */
+    @Operation(
+        summary = "Exportar o histórico de operações em CSV ou XLSX",
+        description = "Exporta o histórico de operações com os filtros de texto e período, das operações mais recentes para as mais antigas. Os registros são lidos " +
+                     "do banco por cursor e escritos na planilha um a um, sem carregar a lista em memória."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Planilha gerada com sucesso",
+            content = {
+                @Content(mediaType = "text/csv"),
+                @Content(mediaType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+            }
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Formato ou mês inválido",
+            content = @Content
+        )
+    })
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @Parameter(description = "Formato do arquivo: csv ou xlsx")
+            @RequestParam(defaultValue = "csv") String formato,
+            @Parameter(description = "Texto das informações para filtro")
+            @RequestParam(required = false) String descricao,
+            @Parameter(description = "Mês para filtro (1-12)")
+            @RequestParam(required = false) Integer mes,
+            @Parameter(description = "Ano para filtro")
+            @RequestParam(required = false) Integer ano) {
+        Formato tipo = exportacaoPlanilhaService.validar(formato, mes);
+        StreamingResponseBody corpo = saida ->
+                exportacaoPlanilhaService.exportarHistoricos(tipo, descricao, mes, ano, saida);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(tipo.getTipoConteudo()));
+        headers.setContentDispositionFormData("attachment",
+                exportacaoPlanilhaService.nomeArquivo("historico", mes, ano, tipo));
+        return ResponseEntity.ok().headers(headers).body(corpo);
+    }
+
     /**
      * Converte uma entidade Historico para HistoricoDTO.
      * 
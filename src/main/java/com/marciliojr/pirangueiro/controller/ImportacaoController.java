@@ -0,0 +1,103 @@
+package com.marciliojr.pirangueiro.controller;
+
+import com.marciliojr.pirangueiro.dto.ParametrosImportacaoDTO;
+import com.marciliojr.pirangueiro.dto.ResultadoImportacaoDTO;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.service.ImportacaoExtratoService;
+import com.marciliojr.pirangueiro.service.ImportacaoExtratoService.FormatoExtrato;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Controller responsável pela importação em lote de lançamentos a partir de extratos bancários.
+ *
+ * <p>Aceita arquivos CSV (colunas data, descricao, valor e, opcionalmente, tipo, categoria,
+ * conta, cartao e observacao) e OFX. Os lançamentos já cadastrados são ignorados.</p>
+ *
+ * @author Marcilio Jr
+ * @version 1.0
+ * @since 1.0
+ */
+@Tag(name = "Importação de Extratos", description = "APIs para importação em lote de despesas e receitas")
+@RestController
+@RequestMapping("/api/importacoes")
+public class ImportacaoController {
+
+    @Autowired
+    private ImportacaoExtratoService importacaoExtratoService;
+
+    @Operation(
+            summary = "Importar extrato bancário",
+            description = "Importa um extrato CSV ou OFX, gerando despesas para débitos e receitas para créditos. " +
+                    "Lançamentos com mesma data, valor e descrição de um já existente são ignorados."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Extrato importado com sucesso",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ResultadoImportacaoDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Arquivo ou parâmetros inválidos"),
+            @ApiResponse(responseCode = "500", description = "Erro interno do servidor")
+    })
+    @PostMapping(value = "/extrato", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResultadoImportacaoDTO> importarExtrato(
+            @Parameter(description = "Arquivo do extrato (.csv ou .ofx)", required = true)
+            @RequestParam("arquivo") MultipartFile arquivo,
+            @Parameter(description = "Formato do arquivo (CSV ou OFX). Se omitido, é deduzido pela extensão")
+            @RequestParam(required = false) String formato,
+            @Parameter(description = "ID da conta padrão dos lançamentos")
+            @RequestParam(required = false) Long contaId,
+            @Parameter(description = "ID do cartão, quando o arquivo for uma fatura de cartão")
+            @RequestParam(required = false) Long cartaoId,
+            @Parameter(description = "ID da categoria padrão das despesas")
+            @RequestParam(required = false) Long categoriaDespesaId,
+            @Parameter(description = "ID da categoria padrão das receitas")
+            @RequestParam(required = false) Long categoriaReceitaId,
+            @Parameter(description = "Situação das despesas importadas. Se omitido, despesas de cartão ficam pendentes")
+            @RequestParam(required = false) Boolean pago,
+            @Parameter(description = "Inverte o sinal dos valores (faturas que trazem compras como positivas)")
+            @RequestParam(defaultValue = "false") boolean inverterSinal,
+            @Parameter(description = "Codificação do arquivo", example = "UTF-8")
+            @RequestParam(defaultValue = "UTF-8") String charset) throws IOException {
+
+        if (arquivo == null || arquivo.isEmpty()) {
+            throw new NegocioException("Arquivo não informado ou vazio");
+        }
+
+        FormatoExtrato formatoExtrato;
+        try {
+            formatoExtrato = formato != null
+                    ? FormatoExtrato.valueOf(formato.toUpperCase(Locale.ROOT))
+                    : FormatoExtrato.deNomeArquivo(arquivo.getOriginalFilename());
+        } catch (IllegalArgumentException e) {
+            throw new NegocioException("Formato de extrato inválido: " + formato);
+        }
+
+        ParametrosImportacaoDTO parametros = new ParametrosImportacaoDTO();
+        parametros.setContaId(contaId);
+        parametros.setCartaoId(cartaoId);
+        parametros.setCategoriaDespesaId(categoriaDespesaId);
+        parametros.setCategoriaReceitaId(categoriaReceitaId);
+        parametros.setPago(pago);
+        parametros.setInverterSinal(inverterSinal);
+        parametros.setCharset(charset);
+
+        try (InputStream entrada = arquivo.getInputStream()) {
+            return ResponseEntity.ok(importacaoExtratoService.importar(
+                    entrada, arquivo.getOriginalFilename(), formatoExtrato, parametros));
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.marciliojr.pirangueiro.controller;
 
+import com.lowagie.text.DocumentException;
+import com.marciliojr.pirangueiro.service.ExportacaoPlanilhaService;
+import com.marciliojr.pirangueiro.service.ExportacaoRelatorioService;
 import com.marciliojr.pirangueiro.service.ReceitaService;
 import com.marciliojr.pirangueiro.dto.ReceitaDTO;
 import com.marciliojr.pirangueiro.util.PDFGenerator;
+import com.marciliojr.pirangueiro.util.PlanilhaGenerator.Formato;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,7 +20,11 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Controller responsável por gerenciar operações relacionadas às receitas do sistema.
@@ -26,6 +34,7 @@ import java.util.List;
  * <ul>
  *   <li>Busca com filtros e paginação</li>
  *   <li>Geração de relatórios em PDF</li>
+ *   <li>Exportação em CSV e XLSX</li>
  *   <li>Busca por descrição</li>
  *   <li>Cálculo de totais</li>
  *   <li>Busca por mês e ano específicos</li>
@@ -52,6 +61,18 @@ public class ReceitaController {
     @Autowired
     private PDFGenerator pdfGenerator;
 
+    /**
+     * Leitura por cursor dos lançamentos usada no PDF.
+     */
+    @Autowired
+    private ExportacaoRelatorioService exportacaoRelatorioService;
+
+    /**
+     * Exportação de planilhas por cursor.
+     */
+    @Autowired
+    private ExportacaoPlanilhaService exportacaoPlanilhaService;
+
     /**
      * Lista todas as receitas cadastradas no sistema.
      * 
@@ -338,4 +359,113 @@ public class ReceitaController {
     public ResponseEntity<Double> buscarTotalReceitas() {
         return ResponseEntity.ok(receitaService.buscarTotalReceitas());
     }
-} 
\ No newline at end of file
+
+    /**
+     * Gera o relatório de receitas em PDF, escrito diretamente na resposta.
+     * 
+     * @param mes Mês opcional para filtro (1-12), considerado apenas com o ano
+     * @param ano Ano opcional para filtro
+     * @return ResponseEntity com o PDF das receitas
+     */
+    @Operation(
+        summary = "Gerar PDF de receitas",
+        description = "Gera o relatório de receitas do período em PDF. As receitas são lidas do banco e " +
+                     "escritas no documento em blocos, sem carregar a lista inteira em memória."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "PDF gerado com sucesso",
+            content = @Content(mediaType = "application/pdf")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Parâmetros inválidos",
+            content = @Content
+        )
+    })
+    @GetMapping("/pdf")
+    public ResponseEntity<StreamingResponseBody> gerarPDF(
+            @Parameter(description = "Mês para filtro (1-12)")
+            @RequestParam(required = false) Integer mes,
+            @Parameter(description = "Ano para filtro")
+            @RequestParam(required = false) Integer ano) {
+        if (mes != null && (mes < 1 || mes > 12)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String titulo = "Relatório de Receitas";
+        String nomeArquivo = "receitas";
+        if (mes != null && ano != null) {
+            titulo += String.format(" - %02d/%04d", mes, ano);
+            nomeArquivo += String.format("_%02d_%04d", mes, ano);
+        } else if (ano != null) {
+            titulo += " - " + ano;
+            nomeArquivo += "_" + ano;
+        }
+        String tituloDocumento = titulo;
+
+        StreamingResponseBody corpo = saida -> {
+            try (Stream<ReceitaDTO> receitas = exportacaoRelatorioService.lerReceitas(mes, ano)) {
+                pdfGenerator.escreverPDFReceitas(receitas::iterator, tituloDocumento, saida);
+            } catch (DocumentException e) {
+                throw new IOException("Erro ao gerar PDF de receitas", e);
+            }
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", nomeArquivo + ".pdf");
+        return ResponseEntity.ok().headers(headers).body(corpo);
+    }
+
+    /**
+     * Exporta as receitas em CSV ou XLSX, escritos diretamente na resposta.
+     * 
+     * @param formato Formato do arquivo: csv (padrão) ou xlsx
+     * @param descricao Filtro opcional por descrição da receita
+     * @param mes Filtro opcional por mês (1-12)
+     * @param ano Filtro opcional por ano
+     * @return ResponseEntity com a planilha
+     */
+    @Operation(
+        summary = "Exportar as receitas em CSV ou XLSX",
+        description = "Exporta as receitas com os mesmos filtros da busca, das mais recentes para as mais antigas. Os registros são lidos " +
+                     "do banco por cursor e escritos na planilha um a um, sem carregar a lista em memória."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Planilha gerada com sucesso",
+            content = {
+                @Content(mediaType = "text/csv"),
+                @Content(mediaType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+            }
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Formato ou mês inválido",
+            content = @Content
+        )
+    })
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @Parameter(description = "Formato do arquivo: csv ou xlsx")
+            @RequestParam(defaultValue = "csv") String formato,
+            @Parameter(description = "Descrição da receita para filtro")
+            @RequestParam(required = false) String descricao,
+            @Parameter(description = "Mês para filtro (1-12)")
+            @RequestParam(required = false) Integer mes,
+            @Parameter(description = "Ano para filtro")
+            @RequestParam(required = false) Integer ano) {
+        Formato tipo = exportacaoPlanilhaService.validar(formato, mes);
+        StreamingResponseBody corpo = saida ->
+                exportacaoPlanilhaService.exportarReceitas(tipo, descricao, mes, ano, saida);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(tipo.getTipoConteudo()));
+        headers.setContentDispositionFormData("attachment",
+                exportacaoPlanilhaService.nomeArquivo("receitas", mes, ano, tipo));
+        return ResponseEntity.ok().headers(headers).body(corpo);
+    }
+}
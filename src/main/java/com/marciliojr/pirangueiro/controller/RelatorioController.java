@@ -1,18 +1,28 @@
 package com.marciliojr.pirangueiro.controller;
 
+import com.marciliojr.pirangueiro.dto.ComparativoRelatorioDTO;
 import com.marciliojr.pirangueiro.dto.RelatorioGerencialDTO;
+import com.marciliojr.pirangueiro.dto.RelatorioJobDTO;
+import com.marciliojr.pirangueiro.dto.SolicitacaoRelatorioDTO;
+import com.marciliojr.pirangueiro.service.ExportacaoRelatorioService;
 import com.marciliojr.pirangueiro.service.RelatorioGerencialService;
+import com.marciliojr.pirangueiro.service.RelatorioJobService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller responsável por gerar relatórios gerenciais completos das finanças
@@ -21,19 +31,33 @@ import java.util.Map;
 @RequestMapping("/api/relatorios")
 public class RelatorioController {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 500;
+
     @Autowired
     private RelatorioGerencialService relatorioGerencialService;
 
+    @Autowired
+    private ExportacaoRelatorioService exportacaoRelatorioService;
+
+    @Autowired
+    private RelatorioJobService relatorioJobService;
+
     /**
      * Gera relatório gerencial completo das finanças
      * @param mes Mês para filtrar (opcional, de 1 a 12)
      * @param ano Ano para filtrar (opcional, ex: 2024)
+     * @param incluirDetalhes Inclui uma página dos lançamentos do período (padrão: false)
+     * @param pagina Página dos lançamentos (padrão: 0)
+     * @param tamanhoPagina Tamanho da página dos lançamentos (padrão: 50, máximo: 500)
      * @return Relatório detalhado com todas as informações financeiras organizadas
      */
     @GetMapping("/gerencial")
     public ResponseEntity<Map<String, Object>> gerarRelatorioGerencial(
             @RequestParam(required = false) Integer mes,
-            @RequestParam(required = false) Integer ano) {
+            @RequestParam(required = false) Integer ano,
+            @RequestParam(defaultValue = "false") boolean incluirDetalhes,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "50") int tamanhoPagina) {
         try {
             // Validar parâmetros
             if (mes != null && (mes < 1 || mes > 12)) {
@@ -50,7 +74,14 @@ public class RelatorioController {
                 return ResponseEntity.badRequest().body(erro);
             }
 
-            RelatorioGerencialDTO relatorio = relatorioGerencialService.gerarRelatorioCompleto(mes, ano);
+            if (!paginacaoValida(pagina, tamanhoPagina)) {
+                Map<String, Object> erro = new HashMap<>();
+                erro.put("erro", "Paginação inválida. A página não pode ser negativa e o tamanho deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA);
+                erro.put("timestamp", LocalDateTime.now());
+                return ResponseEntity.badRequest().body(erro);
+            }
+
+            RelatorioGerencialDTO relatorio = gerarRelatorio(mes, ano, incluirDetalhes, pagina, tamanhoPagina);
             
             // Estrutura organizada do relatório para o frontend
             Map<String, Object> relatorioFormatado = estruturarRelatorioParaFrontend(relatorio);
@@ -83,15 +114,19 @@ public class RelatorioController {
     }
 
     /**
-     * Gera relatório gerencial em formato JSON para exportação
+     * Gera relatório gerencial em formato JSON para exportação.
+     * O resumo e as seções agregadas são enviados primeiro; os lançamentos, quando incluídos,
+     * são lidos e enviados aos poucos, sem montar o relatório inteiro em memória.
      * @param mes Mês para filtrar (opcional, de 1 a 12)
      * @param ano Ano para filtrar (opcional, ex: 2024)
+     * @param incluirDetalhes Inclui todas as despesas e receitas do período (padrão: false)
      * @return Arquivo JSON com o relatório completo
      */
     @GetMapping("/gerencial/export/json")
-    public ResponseEntity<RelatorioGerencialDTO> exportarRelatorioJson(
+    public ResponseEntity<StreamingResponseBody> exportarRelatorioJson(
             @RequestParam(required = false) Integer mes,
-            @RequestParam(required = false) Integer ano) {
+            @RequestParam(required = false) Integer ano,
+            @RequestParam(defaultValue = "false") boolean incluirDetalhes) {
         try {
             // Validar parâmetros
             if (mes != null && (mes < 1 || mes > 12)) {
@@ -102,6 +137,7 @@ public class RelatorioController {
                 return ResponseEntity.badRequest().build();
             }
 
+            // As seções agregadas são calculadas antes da resposta para que falhas ainda virem status 500
             RelatorioGerencialDTO relatorio = relatorioGerencialService.gerarRelatorioCompleto(mes, ano);
             
             String nomeArquivo = "relatorio_gerencial";
@@ -116,9 +152,11 @@ public class RelatorioController {
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.setContentDispositionFormData("attachment", nomeArquivo);
             
+            StreamingResponseBody corpo = saida ->
+                    exportacaoRelatorioService.escreverJson(relatorio, mes, ano, incluirDetalhes, saida);
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(relatorio);
+                    .body(corpo);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -173,6 +211,7 @@ public class RelatorioController {
             
             resumo.put("resumoExecutivo", relatorio.getResumoExecutivo());
             resumo.put("indicadoresPrincipais", extrairIndicadoresPrincipais(relatorio));
+            resumo.put("secoesIndisponiveis", relatorio.getSecoesIndisponiveis());
             
             return ResponseEntity.ok(resumo);
         } catch (Exception e) {
@@ -185,6 +224,117 @@ public class RelatorioController {
         }
     }
 
+    /**
+     * Compara o mês com o mesmo mês do ano anterior
+     * @param mes Mês a comparar (de 1 a 12)
+     * @param ano Ano a comparar (ex: 2024)
+     * @return Totais dos dois períodos e as variações percentuais
+     */
+    @GetMapping("/gerencial/comparativo")
+    public ResponseEntity<Map<String, Object>> compararComAnoAnterior(
+            @RequestParam Integer mes,
+            @RequestParam Integer ano) {
+        try {
+            // Validar parâmetros
+            if (mes < 1 || mes > 12) {
+                Map<String, Object> erro = new HashMap<>();
+                erro.put("erro", "Mês inválido. Deve estar entre 1 e 12");
+                erro.put("timestamp", LocalDateTime.now());
+                return ResponseEntity.badRequest().body(erro);
+            }
+            
+            if (ano < 1901 || ano > 2100) {
+                Map<String, Object> erro = new HashMap<>();
+                erro.put("erro", "Ano inválido. Deve estar entre 1901 e 2100");
+                erro.put("timestamp", LocalDateTime.now());
+                return ResponseEntity.badRequest().body(erro);
+            }
+
+            ComparativoRelatorioDTO comparativo = relatorioGerencialService.compararComAnoAnterior(mes, ano);
+            
+            Map<String, Object> resposta = new HashMap<>();
+            resposta.put("timestamp", LocalDateTime.now());
+            resposta.put("comparativo", comparativo);
+            
+            return ResponseEntity.ok(resposta);
+        } catch (Exception e) {
+            Map<String, Object> erro = new HashMap<>();
+            erro.put("erro", "Falha ao gerar comparativo com o ano anterior");
+            erro.put("detalhes", e.getMessage());
+            erro.put("timestamp", LocalDateTime.now());
+            
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(erro);
+        }
+    }
+
+    /**
+     * Solicita a geração de um relatório em segundo plano
+     * @param solicitacao Tipo do relatório, período e se inclui os lançamentos
+     * @return Pedido registrado, ou o pedido igual já existente para os mesmos dados
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<RelatorioJobDTO> solicitarRelatorio(@RequestBody SolicitacaoRelatorioDTO solicitacao) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(relatorioJobService.solicitar(solicitacao));
+    }
+
+    /**
+     * Consulta a situação de um relatório solicitado
+     * @param id Identificador do pedido
+     * @return Situação do pedido
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<RelatorioJobDTO> buscarRelatorio(@PathVariable String id) {
+        return relatorioJobService.buscar(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Acompanha a situação de um relatório solicitado por eventos (SSE) até o fim da geração
+     * @param id Identificador do pedido
+     * @return Eventos "status" com a situação do pedido
+     */
+    @GetMapping(value = "/jobs/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> acompanharRelatorio(@PathVariable String id) {
+        return relatorioJobService.acompanhar(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Baixa o arquivo de um relatório concluído
+     * @param id Identificador do pedido
+     * @return Arquivo do relatório; 409 enquanto não estiver disponível
+     */
+    @GetMapping("/jobs/{id}/arquivo")
+    public ResponseEntity<Resource> baixarRelatorio(@PathVariable String id) {
+        Optional<RelatorioJobDTO> job = relatorioJobService.buscar(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return relatorioJobService.buscarArtefato(id)
+                .map(artefato -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setContentType(MediaType.parseMediaType(artefato.tipoConteudo()));
+                    headers.setContentDispositionFormData("attachment", artefato.nomeArquivo());
+                    return ResponseEntity.ok()
+                            .headers(headers)
+                            .<Resource>body(new FileSystemResource(artefato.arquivo()));
+                })
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    private RelatorioGerencialDTO gerarRelatorio(Integer mes, Integer ano, boolean incluirDetalhes,
+                                                 int pagina, int tamanhoPagina) {
+        return incluirDetalhes
+                ? relatorioGerencialService.gerarRelatorioComDetalhes(mes, ano, pagina, tamanhoPagina)
+                : relatorioGerencialService.gerarRelatorioCompleto(mes, ano);
+    }
+
+    private static boolean paginacaoValida(int pagina, int tamanhoPagina) {
+        return pagina >= 0 && tamanhoPagina >= 1 && tamanhoPagina <= TAMANHO_MAXIMO_PAGINA;
+    }
+
     /**
      * Estrutura o relatório de forma organizada e visualmente atrativa para o frontend
      */
@@ -221,6 +371,7 @@ public class RelatorioController {
         secaoReceitas.put("quantidade", relatorio.getSecaoReceitas().getQuantidadeReceitas());
         secaoReceitas.put("media", relatorio.getSecaoReceitas().getValorMedioReceitas());
         secaoReceitas.put("detalhes", relatorio.getSecaoReceitas().getTodasReceitas());
+        secaoReceitas.put("paginacao", relatorio.getSecaoReceitas().getPaginacaoDetalhes());
         relatorioEstruturado.put("secaoReceitas", secaoReceitas);
 
         // Seção Despesas (Cor Vermelha)
@@ -232,6 +383,7 @@ public class RelatorioController {
         secaoDespesas.put("quantidade", relatorio.getSecaoDespesas().getQuantidadeDespesas());
         secaoDespesas.put("media", relatorio.getSecaoDespesas().getValorMedioDespesas());
         secaoDespesas.put("detalhes", relatorio.getSecaoDespesas().getTodasDespesas());
+        secaoDespesas.put("paginacao", relatorio.getSecaoDespesas().getPaginacaoDetalhes());
         relatorioEstruturado.put("secaoDespesas", secaoDespesas);
 
         // Seção Saldos das Contas (Cor Azul)
@@ -269,6 +421,7 @@ public class RelatorioController {
         relatorioEstruturado.put("secaoCategoria", secaoCategoria);
 
         // Adicionar informações gerais
+        relatorioEstruturado.put("secoesIndisponiveis", relatorio.getSecoesIndisponiveis());
         relatorioEstruturado.put("dataGeracao", relatorio.getDataGeracao());
         relatorioEstruturado.put("versao", relatorio.getVersao());
         
@@ -4,6 +4,7 @@ import lombok.Data;
 
 @Data
 public class CartaoLimiteDTO {
+    private Long cartaoId;
     private String nomeCartao;
     private Double limiteTotal;
     private Double limiteUsado;
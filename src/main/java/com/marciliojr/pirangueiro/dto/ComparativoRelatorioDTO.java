@@ -0,0 +1,32 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+
+/**
+ * Comparação de um mês com o mesmo mês do ano anterior. As variações são percentuais e ficam
+ * nulas quando o valor do ano anterior é zero.
+ */
+@Data
+public class ComparativoRelatorioDTO {
+
+    private Integer mes;
+    private Integer ano;
+    private Integer anoAnterior;
+
+    private PeriodoComparado atual;
+    private PeriodoComparado anterior;
+
+    private Double variacaoReceitas;
+    private Double variacaoDespesas;
+    private Double variacaoSaldo;
+
+    @Data
+    public static class PeriodoComparado {
+        private Double receitaTotal;
+        private Double despesaTotal;
+        private Double saldo;
+        private Integer quantidadeReceitas;
+        private Integer quantidadeDespesas;
+        private String categoriaMaiorDespesa;
+    }
+}
@@ -0,0 +1,46 @@
+package com.marciliojr.pirangueiro.dto;
+
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consulta ad hoc sobre os lançamentos: agrupa por dimensões, aplica filtros e calcula medidas.
+ * Filtros nulos ou vazios não restringem a consulta.
+ */
+@Data
+public class ConsultaPivotDTO {
+    private TipoLancamento tipo;
+    private List<Dimensao> dimensoes = new ArrayList<>();
+    private List<Medida> medidas = new ArrayList<>(); // Se vazio: SOMA e QUANTIDADE
+
+    // Filtros
+    private LocalDate dataInicio;
+    private LocalDate dataFim;
+    private List<Long> categoriaIds;
+    private List<Long> contaIds;
+    private List<Long> cartaoIds;
+    private Boolean pago; // Apenas despesas; receitas nunca são pagas
+
+    public enum Dimensao {
+        ANO,
+        MES, // Mês e ano (yyyy-MM)
+        MES_DO_ANO, // 1 a 12, somando todos os anos
+        DIA_DA_SEMANA, // 1 (segunda) a 7 (domingo)
+        CATEGORIA,
+        CONTA,
+        CARTAO,
+        PAGO
+    }
+
+    public enum Medida {
+        SOMA,
+        QUANTIDADE,
+        MEDIA,
+        MINIMO,
+        MAXIMO
+    }
+}
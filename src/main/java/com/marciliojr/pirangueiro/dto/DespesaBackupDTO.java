@@ -21,4 +21,5 @@ public class DespesaBackupDTO {
     private Integer numeroParcela;
     private Integer totalParcelas;
     private Boolean pago;
+    private String hashImportacao; // Deduplicação da importação de extratos
 } 
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.marciliojr.pirangueiro.dto;
+
+import com.marciliojr.pirangueiro.model.Fatura;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class FaturaDTO {
+    private Long id;
+    private Long cartaoId;
+    private String nomeCartao;
+    private Integer mes;
+    private Integer ano;
+    private LocalDate dataInicio;
+    private LocalDate dataFechamento;
+    private LocalDate dataVencimento;
+    private Double valorTotal;
+    private Double valorPago;
+    private Double valorPendente;
+    private Integer quantidadeDespesas;
+    private Fatura.StatusFatura status;
+}
@@ -0,0 +1,23 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class GraficoPrevisaoGastosDTO {
+    private List<String> meses; // Meses previstos no formato "MM/YYYY", a partir do mês atual
+    private Double nivelConfianca; // Nível de confiança das faixas (0.95)
+    private List<SeriePrevisaoDTO> series; // Total de despesas, depois categorias e cartões
+
+    @Data
+    public static class SeriePrevisaoDTO {
+        private String tipo; // "TOTAL", "CATEGORIA" ou "CARTAO"
+        private Long id; // ID da categoria ou do cartão; nulo no total
+        private String nome;
+        private String modelo; // "HOLT_WINTERS", "SAZONAL_INGENUO" ou "MEDIA"
+        private Integer mesesHistorico; // Meses completos usados no ajuste
+        private List<Double> valores; // Valores previstos para cada mês
+        private List<Double> limitesInferiores; // Limite inferior da faixa de confiança
+        private List<Double> limitesSuperiores; // Limite superior da faixa de confiança
+    }
+}
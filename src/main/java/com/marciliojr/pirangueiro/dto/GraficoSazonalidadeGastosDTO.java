@@ -6,9 +6,12 @@ import java.util.List;
 @Data
 public class GraficoSazonalidadeGastosDTO {
     private List<String> meses; // Lista dos 12 meses
-    private List<Double> mediasGastos; // Média de gastos para cada mês
+    private List<Double> mediasGastos; // Média dos totais do mês entre os anos
+    private List<Double> medianasGastos; // Mediana dos totais do mês entre os anos
+    private List<Double> desviosPadraoGastos; // Desvio padrão dos totais do mês entre os anos
+    private List<Integer> quantidadesAnos; // Quantidade de anos considerados em cada mês
     private Double maiorMedia; // Maior média mensal
     private Double menorMedia; // Menor média mensal
     private String mesMaiorGasto; // Mês com maior gasto médio
     private String mesMenorGasto; // Mês com menor gasto médio
-} 
\ No newline at end of file
+}
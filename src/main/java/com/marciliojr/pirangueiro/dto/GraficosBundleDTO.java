@@ -0,0 +1,19 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class GraficosBundleDTO {
+    private DashboardFinanceiroDTO dashboardFinanceiro;
+    private GraficoReceitasDespesasCategoriaDTO receitasDespesasCategoria;
+    private GraficoDespesasCartaoDTO despesasPorCartao;
+    private GraficoSazonalidadeGastosDTO sazonalidadeGastos;
+    private GraficoTendenciaGastosDTO tendenciaGastos;
+    private GraficoPrevisaoGastosDTO previsaoGastos;
+    private GraficoReceitasDespesasResponseDTO receitasDespesas;
+
+    // Gráficos que falharam ou excederam o tempo limite, com o motivo; os demais são retornados normalmente
+    private Map<String, String> graficosIndisponiveis;
+}
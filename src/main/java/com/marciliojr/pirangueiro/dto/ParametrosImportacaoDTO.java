@@ -0,0 +1,19 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+
+/**
+ * Parâmetros opcionais de uma importação de extrato.
+ * Os valores informados aqui são usados quando a linha do extrato não identifica
+ * a conta, o cartão ou a categoria.
+ */
+@Data
+public class ParametrosImportacaoDTO {
+    private Long contaId;
+    private Long cartaoId;
+    private Long categoriaDespesaId;
+    private Long categoriaReceitaId;
+    private Boolean pago; // Se nulo: despesas de conta entram pagas e de cartão entram pendentes
+    private boolean inverterSinal; // Para extratos de cartão que listam compras com valor positivo
+    private String charset = "UTF-8";
+}
@@ -17,4 +17,5 @@ public class ReceitaBackupDTO {
     private Long categoriaId; // Referência para Categoria
     private String anexo;
     private String observacao;
+    private String hashImportacao; // Deduplicação da importação de extratos
 } 
\ No newline at end of file
@@ -33,9 +33,14 @@ public class RelatorioGerencialDTO {
     // Resumo Executivo
     private ResumoExecutivo resumoExecutivo;
     
+    // Seções que falharam ou excederam o tempo limite, com o motivo; vazio quando o relatório está completo
+    private Map<String, String> secoesIndisponiveis;
+    
     @Data
     public static class SecaoDespesas {
+        // Preenchida apenas quando os detalhes são solicitados, uma página por vez
         private List<DespesaDTO> todasDespesas;
+        private PaginacaoDetalhes paginacaoDetalhes;
         private Double totalDespesas;
         private Integer quantidadeDespesas;
         private Double valorMedioDespesas;
@@ -43,12 +48,22 @@ public class RelatorioGerencialDTO {
     
     @Data
     public static class SecaoReceitas {
+        // Preenchida apenas quando os detalhes são solicitados, uma página por vez
         private List<ReceitaDTO> todasReceitas;
+        private PaginacaoDetalhes paginacaoDetalhes;
         private Double totalReceitas;
         private Integer quantidadeReceitas;
         private Double valorMedioReceitas;
     }
     
+    @Data
+    public static class PaginacaoDetalhes {
+        private Integer pagina;
+        private Integer tamanhoPagina;
+        private Long totalElementos;
+        private Integer totalPaginas;
+    }
+    
     @Data
     public static class SecaoSaldosContas {
         private List<SaldoContaDetalhado> saldosDetalhados;
@@ -86,7 +101,7 @@ public class RelatorioGerencialDTO {
         private Double limiteDisponivel;
         private Double percentualUtilizacao;
         private String statusUtilizacao; // "BAIXA", "MEDIA", "ALTA", "CRITICA"
-        private List<DespesaDTO> despesasNaoPagas;
+        private List<DespesaDTO> despesasNaoPagas; // apenas com os detalhes solicitados
     }
     
     @Data
@@ -112,7 +127,7 @@ public class RelatorioGerencialDTO {
     @Data
     public static class ResumoExecutivo {
         private Double saldoGeral;
-        private String situacaoFinanceira; // "SAUDAVEL", "ATENCAO", "CRITICA"
+        private String situacaoFinanceira; // "SAUDAVEL", "ATENCAO", "CRITICA", "INDISPONIVEL"
         private Double receitaTotal;
         private Double despesaTotal;
         private Double percentualEconomia; // (receita - despesa) / receita * 100
@@ -0,0 +1,54 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Situação de um relatório gerado em segundo plano.
+ */
+@Data
+public class RelatorioJobDTO {
+    private String id;
+    private TipoRelatorio tipo;
+    private Integer mes;
+    private Integer ano;
+    private Boolean incluirDetalhes;
+    private StatusJob status;
+    private String mensagemErro;
+    private String nomeArquivo;
+    private Long tamanhoBytes;
+    private LocalDateTime dataCriacao;
+    private LocalDateTime dataConclusao;
+
+    public enum TipoRelatorio {
+        PDF_DESPESAS("application/pdf", ".pdf"),
+        PDF_RECEITAS("application/pdf", ".pdf"),
+        RELATORIO_GERENCIAL_JSON("application/json", ".json");
+
+        private final String tipoConteudo;
+        private final String extensao;
+
+        TipoRelatorio(String tipoConteudo, String extensao) {
+            this.tipoConteudo = tipoConteudo;
+            this.extensao = extensao;
+        }
+
+        public String getTipoConteudo() {
+            return tipoConteudo;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+    }
+
+    public enum StatusJob {
+        PENDENTE,
+        EM_ANDAMENTO,
+        CONCLUIDO,
+        ERRO,
+        // Os dados do período mudaram depois da geração e o arquivo foi descartado
+        EXPIRADO
+    }
+}
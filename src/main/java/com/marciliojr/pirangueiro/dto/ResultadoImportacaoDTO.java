@@ -0,0 +1,24 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO com o resumo de uma importação de extrato (CSV/OFX).
+ */
+@Data
+public class ResultadoImportacaoDTO {
+    private String nomeArquivo;
+    private String formato;
+    private Integer linhasLidas = 0;
+    private Integer despesasImportadas = 0;
+    private Integer receitasImportadas = 0;
+    private Integer duplicadasIgnoradas = 0; // Já existiam na base ou repetidas no próprio arquivo
+    private Integer linhasIgnoradas = 0; // Linhas inválidas ou sem correspondência (ex: pagamento de fatura)
+    private Double totalDespesas = 0.0;
+    private Double totalReceitas = 0.0;
+    private List<String> erros = new ArrayList<>(); // Apenas as primeiras ocorrências
+    private Long tempoProcessamentoMs;
+}
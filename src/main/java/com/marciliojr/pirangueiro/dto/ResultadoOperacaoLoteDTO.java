@@ -0,0 +1,14 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoOperacaoLoteDTO {
+    private String operacao;
+    private Integer quantidadeAfetada;
+    private Double valorTotal;
+}
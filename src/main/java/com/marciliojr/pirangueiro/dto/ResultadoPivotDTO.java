@@ -0,0 +1,28 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de uma consulta pivot. Cada linha traz o valor de cada dimensão agrupada
+ * (nome do cadastro, mês, etc.) e as medidas calculadas, em reais ou em quantidade.
+ */
+@Data
+public class ResultadoPivotDTO {
+    private List<ConsultaPivotDTO.Dimensao> dimensoes;
+    private List<ConsultaPivotDTO.Medida> medidas;
+    private List<LinhaPivotDTO> linhas = new ArrayList<>();
+    private Long lancamentosConsiderados = 0L;
+    private Long lancamentosLidos = 0L;
+    private Long tempoProcessamentoMicros;
+
+    @Data
+    public static class LinhaPivotDTO {
+        private Map<String, Object> dimensoes = new LinkedHashMap<>();
+        private Map<String, Double> medidas = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,16 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Saldo de uma conta ao fim de um dia: receitas menos despesas lançadas na conta até a data.
+ */
+@Data
+public class SaldoEmDataDTO {
+    private Long contaId;
+    private String nomeConta;
+    private LocalDate data;
+    private Double saldo;
+}
@@ -0,0 +1,17 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Saldo de uma conta ao fim de um mês, ponto da série de saldos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoMensalDTO {
+    private Integer ano;
+    private Integer mes;
+    private Double saldoFinal;
+}
@@ -0,0 +1,36 @@
+package com.marciliojr.pirangueiro.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Seleção de despesas para operações em lote: uma lista de IDs ou um filtro.
+ * Quando {@code ids} é informado, os demais campos são ignorados.
+ */
+@Data
+public class SelecaoDespesasDTO {
+    private List<Long> ids;
+
+    // Filtro (ao menos um critério deve ser informado quando não houver ids)
+    private String descricao;
+    private Integer mes;
+    private Integer ano;
+    private LocalDate dataInicio;
+    private LocalDate dataFim;
+    private Long contaId;
+    private Long cartaoId;
+    private Long categoriaId;
+    private Boolean pago;
+
+    public boolean possuiIds() {
+        return ids != null && !ids.isEmpty();
+    }
+
+    public boolean possuiFiltro() {
+        return (descricao != null && !descricao.isBlank()) || mes != null || ano != null
+                || dataInicio != null || dataFim != null || contaId != null || cartaoId != null
+                || categoriaId != null || pago != null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.marciliojr.pirangueiro.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Situação de uma despesa ou receita antes ou depois de uma alteração, com o ID do lançamento e
+ * os campos que compõem as faturas e os resumos mensais. Receitas não têm cartão nem situação de
+ * pagamento.
+ */
+public record SituacaoLancamentoDTO(Long id, Long contaId, Long cartaoId, Long categoriaId,
+                                    LocalDate data, Double valor, Boolean pago) {
+
+    public SituacaoLancamentoDTO comPago(Boolean novoPago) {
+        return new SituacaoLancamentoDTO(id, contaId, cartaoId, categoriaId, data, valor, novoPago);
+    }
+
+    public SituacaoLancamentoDTO comConta(Long novaContaId) {
+        return new SituacaoLancamentoDTO(id, novaContaId, cartaoId, categoriaId, data, valor, pago);
+    }
+
+    public SituacaoLancamentoDTO comCategoria(Long novaCategoriaId) {
+        return new SituacaoLancamentoDTO(id, contaId, cartaoId, novaCategoriaId, data, valor, pago);
+    }
+}
@@ -0,0 +1,16 @@
+package com.marciliojr.pirangueiro.dto;
+
+import com.marciliojr.pirangueiro.dto.RelatorioJobDTO.TipoRelatorio;
+import lombok.Data;
+
+/**
+ * Pedido de geração de um relatório em segundo plano. Mês e ano são opcionais; o mês só filtra
+ * junto com o ano. Os lançamentos entram no relatório gerencial apenas com incluirDetalhes.
+ */
+@Data
+public class SolicitacaoRelatorioDTO {
+    private TipoRelatorio tipo;
+    private Integer mes;
+    private Integer ano;
+    private Boolean incluirDetalhes;
+}
@@ -0,0 +1,27 @@
+package com.marciliojr.pirangueiro.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Evento disparado quando um cadastro de referência (categoria, conta ou cartão) é criado,
+ * alterado ou excluído, para que os dados mantidos em memória sejam atualizados.
+ */
+@Getter
+public class CadastroAlteradoEvent extends ApplicationEvent {
+
+    private final TipoCadastro tipoCadastro;
+    private final Long id;
+
+    public CadastroAlteradoEvent(Object source, TipoCadastro tipoCadastro, Long id) {
+        super(source);
+        this.tipoCadastro = tipoCadastro;
+        this.id = id;
+    }
+
+    public enum TipoCadastro {
+        CATEGORIA,
+        CONTA,
+        CARTAO
+    }
+}
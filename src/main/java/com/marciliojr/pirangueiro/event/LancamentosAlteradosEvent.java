@@ -0,0 +1,34 @@
+package com.marciliojr.pirangueiro.event;
+
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Collection;
+
+/**
+ * Evento disparado na escrita de despesas ou receitas com a situação anterior e a nova dos
+ * lançamentos alterados. Inclusões informam apenas a situação nova e exclusões apenas a anterior.
+ *
+ * <p>É publicado dentro da transação da escrita: os ouvintes síncronos (faturas e resumos mensais)
+ * o recebem como {@link LancamentosNaTransacaoEvent} e participam dela, e os ouvintes de pós-commit
+ * (cubo analítico) só veem alterações confirmadas.</p>
+ *
+ * <p>Imediatamente antes do commit o evento recebe o número da confirmação
+ * ({@link com.marciliojr.pirangueiro.service.VersaoDadosService#confirmacoes()}), usado pelas
+ * estruturas em memória para saber se a alteração pode já estar nos dados que carregaram.</p>
+ */
+@Getter
+public class LancamentosAlteradosEvent extends LancamentosNaTransacaoEvent {
+
+    // Zero enquanto a transação não chegou ao commit
+    @Setter
+    private volatile long confirmacao;
+
+    public LancamentosAlteradosEvent(Object source, TipoLancamento tipo,
+                                     Collection<SituacaoLancamentoDTO> anteriores,
+                                     Collection<SituacaoLancamentoDTO> novas) {
+        super(source, tipo, anteriores, novas);
+    }
+}
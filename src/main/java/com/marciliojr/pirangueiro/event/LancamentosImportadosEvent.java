@@ -0,0 +1,35 @@
+package com.marciliojr.pirangueiro.event;
+
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Evento disparado uma vez ao final de uma importação de extrato, com o resumo do que foi
+ * gravado: os tipos de lançamento, os meses, os cartões e o mês mais antigo de cada conta.
+ *
+ * <p>Os lançamentos em si não são informados, então o tamanho do evento não depende do tamanho do
+ * extrato. Os ouvintes de pós-commit descartam o que guardam em memória para esses meses, cartões e
+ * contas, em vez de aplicar as alterações linha a linha.</p>
+ */
+@Getter
+public class LancamentosImportadosEvent extends ApplicationEvent {
+
+    private final Set<TipoLancamento> tipos;
+    private final Set<YearMonth> meses;
+    private final Set<Long> cartoes;
+    private final Map<Long, YearMonth> primeiroMesPorConta;
+
+    public LancamentosImportadosEvent(Object source, Set<TipoLancamento> tipos, Set<YearMonth> meses,
+                                      Set<Long> cartoes, Map<Long, YearMonth> primeiroMesPorConta) {
+        super(source);
+        this.tipos = tipos;
+        this.meses = meses;
+        this.cartoes = cartoes;
+        this.primeiroMesPorConta = primeiroMesPorConta;
+    }
+}
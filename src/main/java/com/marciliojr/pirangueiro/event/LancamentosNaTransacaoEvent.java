@@ -0,0 +1,36 @@
+package com.marciliojr.pirangueiro.event;
+
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Despesas ou receitas gravadas na transação corrente, com a situação anterior e a nova dos
+ * lançamentos. Inclusões informam apenas a situação nova e exclusões apenas a anterior.
+ *
+ * <p>É recebido apenas pelos ouvintes síncronos, que atualizam na mesma transação as tabelas
+ * derivadas (faturas, resumos mensais, snapshots e checkpoints). A importação de extratos o publica
+ * a cada lote, para que os lançamentos não fiquem retidos até o commit, e avisa as estruturas em
+ * memória uma única vez com {@link LancamentosImportadosEvent}. As demais escritas publicam
+ * {@link LancamentosAlteradosEvent}, que também chega aos ouvintes de pós-commit.</p>
+ */
+@Getter
+public class LancamentosNaTransacaoEvent extends ApplicationEvent {
+
+    private final TipoLancamento tipo;
+    private final Collection<SituacaoLancamentoDTO> anteriores;
+    private final Collection<SituacaoLancamentoDTO> novas;
+
+    public LancamentosNaTransacaoEvent(Object source, TipoLancamento tipo,
+                                       Collection<SituacaoLancamentoDTO> anteriores,
+                                       Collection<SituacaoLancamentoDTO> novas) {
+        super(source);
+        this.tipo = tipo;
+        this.anteriores = anteriores != null ? anteriores : List.of();
+        this.novas = novas != null ? novas : List.of();
+    }
+}
@@ -0,0 +1,40 @@
+package com.marciliojr.pirangueiro.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Saldo de uma conta ao fim de um mês: receitas menos despesas lançadas na conta desde o
+ * primeiro lançamento até o último dia do mês.
+ *
+ * <p>Os checkpoints de uma conta formam uma sequência contínua de meses, criada sob demanda a
+ * partir do último checkpoint e dos resumos mensais
+ * ({@link com.marciliojr.pirangueiro.service.CheckpointSaldoService}). Uma escrita de lançamento
+ * remove os checkpoints da conta a partir do mês alterado.</p>
+ */
+@Entity
+@Table(name = "checkpoint_saldo", uniqueConstraints = @UniqueConstraint(name = "uk_checkpoint_saldo_conta_mes",
+        columnNames = {"conta_id", "indice_mes"}))
+@Data
+public class CheckpointSaldo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conta_id", nullable = false)
+    private Long contaId;
+
+    @Column(nullable = false)
+    private Integer ano;
+
+    @Column(nullable = false)
+    private Integer mes;
+
+    // ano * 12 + mes, como nos períodos dos resumos mensais
+    @Column(name = "indice_mes", nullable = false)
+    private Integer indiceMes;
+
+    @Column(nullable = false)
+    private Double saldoFinal;
+}
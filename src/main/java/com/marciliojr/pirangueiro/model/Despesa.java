@@ -9,6 +9,10 @@ import java.time.LocalDate;
  * Entidade que representa uma despesa financeira.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_despesa_hash_importacao", columnList = "hash_importacao"),
+        @Index(name = "idx_despesa_conta_data", columnList = "conta_id, data")
+})
 @Data
 public class Despesa {
     @Id
@@ -50,6 +54,10 @@ public class Despesa {
 
     private String extensaoAnexo;
 
+    // Hash de (data, valor, descricao) usado para deduplicar importações de extrato
+    @Column(name = "hash_importacao", length = 64)
+    private String hashImportacao;
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,82 @@
+package com.marciliojr.pirangueiro.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidade que representa a fatura de um cartão em um ciclo de fechamento.
+ *
+ * <p>Os totais são mantidos de forma incremental a cada alteração das despesas do cartão
+ * ({@link com.marciliojr.pirangueiro.service.FaturaService}). Quando o ciclo fecha, a fatura
+ * é reconciliada com as despesas do período e passa para FECHADA, ou PAGA quando todas as
+ * despesas já foram pagas.</p>
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_fatura_cartao_referencia", columnNames = {"cartao_id", "ano", "mes"}),
+       indexes = @Index(name = "idx_fatura_data_vencimento", columnList = "data_vencimento"))
+@Data
+public class Fatura {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cartao_id", nullable = false)
+    private Cartao cartao;
+
+    // Mês/ano de referência: mês em que a fatura fecha
+    @Column(nullable = false)
+    private Integer mes;
+
+    @Column(nullable = false)
+    private Integer ano;
+
+    @Column(nullable = false)
+    private LocalDate dataInicio;
+
+    @Column(nullable = false)
+    private LocalDate dataFechamento;
+
+    @Column(nullable = false)
+    private LocalDate dataVencimento;
+
+    @Column(nullable = false)
+    private Double valorTotal = 0.0;
+
+    @Column(nullable = false)
+    private Double valorPago = 0.0;
+
+    @Column(nullable = false)
+    private Integer quantidadeDespesas = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, columnDefinition = "VARCHAR(20)")
+    private StatusFatura status = StatusFatura.ABERTA;
+
+    private LocalDateTime dataAtualizacao;
+
+    public enum StatusFatura {
+        ABERTA,
+        FECHADA,
+        PAGA
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Fatura{");
+        sb.append("id=").append(id);
+        sb.append(", referencia=").append(mes).append('/').append(ano);
+        sb.append(", dataInicio=").append(dataInicio);
+        sb.append(", dataFechamento=").append(dataFechamento);
+        sb.append(", dataVencimento=").append(dataVencimento);
+        sb.append(", valorTotal=").append(valorTotal);
+        sb.append(", valorPago=").append(valorPago);
+        sb.append(", status=").append(status);
+        sb.append('}');
+        return sb.toString();
+    }
+}
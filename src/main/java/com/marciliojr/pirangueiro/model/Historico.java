@@ -71,6 +71,9 @@ public class Historico {
         EXCLUSAO_USUARIO,
         EXCLUSAO_PENSAMENTOS,
         EXCLUSAO_LIMITE_GASTOS,
-        EXCLUSAO_NOTIFICACAO
+        EXCLUSAO_NOTIFICACAO,
+
+        // Operações em lote
+        IMPORTACAO_EXTRATO
     }
 } 
\ No newline at end of file
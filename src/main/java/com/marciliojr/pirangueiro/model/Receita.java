@@ -8,6 +8,10 @@ import java.time.LocalDate;
  * Entidade que representa uma receita financeira.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_receita_hash_importacao", columnList = "hash_importacao"),
+        @Index(name = "idx_receita_conta_data", columnList = "conta_id, data")
+})
 @Data
 public class Receita {
     @Id
@@ -35,6 +39,10 @@ public class Receita {
 
     private String extensaoAnexo;
 
+    // Hash de (data, valor, descricao) usado para deduplicar importações de extrato
+    @Column(name = "hash_importacao", length = 64)
+    private String hashImportacao;
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,66 @@
+package com.marciliojr.pirangueiro.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Resumo mensal de despesas ou receitas: soma e quantidade dos lançamentos de um mês
+ * por categoria, conta, cartão e situação de pagamento.
+ *
+ * <p>É mantido de forma incremental pelas escritas de despesas e receitas
+ * ({@link com.marciliojr.pirangueiro.service.ResumoMensalService}) e serve os gráficos,
+ * o dashboard e o relatório gerencial sem reagregar as tabelas de lançamentos.</p>
+ *
+ * <p>Os campos da chave não aceitam nulo para que a restrição de unicidade funcione:
+ * lançamentos sem categoria, conta ou cartão usam {@link #SEM_REFERENCIA}.</p>
+ */
+@Entity
+@Table(name = "resumo_mensal", uniqueConstraints = @UniqueConstraint(name = "uk_resumo_mensal_chave",
+        columnNames = {"tipo", "ano", "mes", "categoria_id", "conta_id", "cartao_id", "pago"}))
+@Data
+public class ResumoMensal {
+
+    public static final long SEM_REFERENCIA = 0L;
+
+    public static final int NAO_PAGO = 0;
+    public static final int PAGO = 1;
+    // Receitas e despesas com o campo pago nulo
+    public static final int PAGO_NAO_INFORMADO = -1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, columnDefinition = "VARCHAR(10)")
+    private TipoLancamento tipo;
+
+    @Column(nullable = false)
+    private Integer ano;
+
+    @Column(nullable = false)
+    private Integer mes;
+
+    @Column(nullable = false)
+    private Long categoriaId;
+
+    @Column(nullable = false)
+    private Long contaId;
+
+    @Column(nullable = false)
+    private Long cartaoId;
+
+    @Column(nullable = false)
+    private Integer pago;
+
+    @Column(nullable = false)
+    private Double total;
+
+    @Column(nullable = false)
+    private Long quantidade;
+
+    public enum TipoLancamento {
+        DESPESA,
+        RECEITA
+    }
+}
@@ -0,0 +1,43 @@
+package com.marciliojr.pirangueiro.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Relatório gerencial já calculado de um mês encerrado, guardado em JSON.
+ *
+ * <p>Guarda as seções que dependem apenas dos lançamentos do mês: despesas, receitas, saldos das
+ * contas e análise por categoria. É marcado como sujo pela mesma transação que altera um lançamento
+ * do mês ({@link com.marciliojr.pirangueiro.service.SnapshotRelatorioService}) e recalculado na
+ * próxima consulta. O contador de alterações impede que um cálculo iniciado antes de uma escrita
+ * seja gravado como atualizado.</p>
+ */
+@Entity
+@Table(name = "snapshot_relatorio", uniqueConstraints = @UniqueConstraint(name = "uk_snapshot_relatorio_periodo",
+        columnNames = {"ano", "mes"}))
+@Data
+public class SnapshotRelatorio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer ano;
+
+    @Column(nullable = false)
+    private Integer mes;
+
+    @Lob
+    private String conteudo;
+
+    @Column(nullable = false)
+    private Boolean sujo = true;
+
+    @Column(nullable = false)
+    private Long alteracoes = 0L;
+
+    private LocalDateTime dataGeracao;
+}
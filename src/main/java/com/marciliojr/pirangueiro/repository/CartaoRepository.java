@@ -1,13 +1,23 @@
 package com.marciliojr.pirangueiro.repository;
 
 import com.marciliojr.pirangueiro.model.Cartao;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.Optional;
 
 public interface CartaoRepository extends JpaRepository<Cartao, Long> {
     List<Cartao> findByNomeContainingIgnoreCase(String nome);
+
+    // SELECT ... FOR UPDATE: usado pela reconciliação, que recalcula a soma com o cartão bloqueado
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cartao c WHERE c.id = :id")
+    Optional<Cartao> findByIdForUpdate(@Param("id") Long id);
     
     @Query("SELECT COALESCE(SUM(d.valor), 0) FROM Despesa d WHERE d.cartao.id = :cartaoId AND d.pago = false")
     Double calcularTotalDespesasPorCartao(@Param("cartaoId") Long cartaoId);
@@ -15,4 +25,28 @@ public interface CartaoRepository extends JpaRepository<Cartao, Long> {
     @Query("SELECT COUNT(d) > 0 FROM Despesa d WHERE d.cartao.id = :cartaoId AND d.pago = false")
     boolean existeDespesasPorCartao(@Param("cartaoId") Long cartaoId);
 
-} 
\ No newline at end of file
+    @Query("SELECT d.cartao.id, COALESCE(SUM(d.valor), 0) FROM Despesa d WHERE d.cartao IS NOT NULL AND d.pago = false GROUP BY d.cartao.id")
+    List<Object[]> calcularTotalDespesasNaoPagasAgrupadoPorCartao();
+
+    // Limite e limite usado lidos do banco; consultas escalares não passam pelo contexto de persistência
+    @Query("SELECT c.limite, c.limiteUsado FROM Cartao c WHERE c.id = :cartaoId")
+    List<Object[]> buscarLimites(@Param("cartaoId") Long cartaoId);
+
+    // Reserva limite de forma atômica: só atualiza se o novo valor usado couber no limite do cartão
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cartao c SET c.limiteUsado = COALESCE(c.limiteUsado, 0) + :valor " +
+           "WHERE c.id = :cartaoId AND COALESCE(c.limiteUsado, 0) + :valor <= c.limite")
+    int reservarLimite(@Param("cartaoId") Long cartaoId, @Param("valor") Double valor);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cartao c SET c.limiteUsado = COALESCE(c.limiteUsado, 0) + :valor WHERE c.id = :cartaoId")
+    int ajustarLimiteUsado(@Param("cartaoId") Long cartaoId, @Param("valor") Double valor);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cartao c SET c.limiteUsado = :limiteUsado WHERE c.id = :cartaoId")
+    int definirLimiteUsado(@Param("cartaoId") Long cartaoId, @Param("limiteUsado") Double limiteUsado);
+
+}
@@ -0,0 +1,23 @@
+package com.marciliojr.pirangueiro.repository;
+
+import com.marciliojr.pirangueiro.model.CheckpointSaldo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CheckpointSaldoRepository extends JpaRepository<CheckpointSaldo, Long> {
+
+    // Último checkpoint da conta até o mês informado
+    Optional<CheckpointSaldo> findFirstByContaIdAndIndiceMesLessThanEqualOrderByIndiceMesDesc(Long contaId,
+                                                                                              Integer indiceMes);
+
+    List<CheckpointSaldo> findByContaIdAndIndiceMesBetweenOrderByIndiceMes(Long contaId, Integer inicio, Integer fim);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CheckpointSaldo c WHERE c.contaId = :contaId AND c.indiceMes >= :indiceMes")
+    int removerAPartirDe(@Param("contaId") Long contaId, @Param("indiceMes") Integer indiceMes);
+}
@@ -3,7 +3,9 @@ package com.marciliojr.pirangueiro.repository;
 import com.marciliojr.pirangueiro.model.Despesa;
 import com.marciliojr.pirangueiro.model.Categoria;
 import com.marciliojr.pirangueiro.dto.DespesaMensalDTO;
+import com.marciliojr.pirangueiro.model.Conta;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
@@ -58,7 +60,7 @@ public interface DespesaRepository extends JpaRepository<Despesa, Long> {
            "LEFT JOIN FETCH d.categoria " +
            "LEFT JOIN FETCH d.cartao " +
            "WHERE d.cartao.id = :cartaoId " +
-           "AND d.data > :dataInicio " +
+           "AND d.data >= :dataInicio " +
            "AND d.data <= :dataFim " +
            "ORDER BY d.data")
     List<Despesa> buscarDespesasPorCartaoEPeriodoFatura(
@@ -125,6 +127,19 @@ public interface DespesaRepository extends JpaRepository<Despesa, Long> {
             @Param("ano") Integer ano,
             Pageable pageable);
 
+    // Despesas de cartão ainda não pagas do período, para o detalhe do relatório gerencial
+    @Query("SELECT d FROM Despesa d " +
+           "LEFT JOIN FETCH d.conta " +
+           "LEFT JOIN FETCH d.categoria " +
+           "JOIN FETCH d.cartao " +
+           "WHERE (d.pago = false OR d.pago IS NULL) " +
+           "AND (:mes IS NULL OR MONTH(d.data) = :mes) " +
+           "AND (:ano IS NULL OR YEAR(d.data) = :ano) " +
+           "ORDER BY d.data DESC")
+    List<Despesa> findNaoPagasDeCartaoPorPeriodo(
+            @Param("mes") Integer mes,
+            @Param("ano") Integer ano);
+
     @Query("SELECT COALESCE(SUM(d.valor), 0) FROM Despesa d")
     Double buscarTotalDespesas();
 
@@ -134,6 +149,12 @@ public interface DespesaRepository extends JpaRepository<Despesa, Long> {
     @Query("SELECT COALESCE(SUM(d.valor), 0) FROM Despesa d WHERE MONTH(d.data) = :mes AND YEAR(d.data) = :ano")
     Double buscarTotalDespesasPorMesAno(@Param("mes") Integer mes, @Param("ano") Integer ano);
 
+    @Query("SELECT COALESCE(SUM(d.valor), 0) FROM Despesa d " +
+           "WHERE d.conta.id = :contaId AND d.data BETWEEN :dataInicio AND :dataFim")
+    Double somarPorContaEPeriodo(@Param("contaId") Long contaId,
+                                 @Param("dataInicio") LocalDate dataInicio,
+                                 @Param("dataFim") LocalDate dataFim);
+
     // Query para gráfico: todas as despesas agrupadas por mês (não considera campo pago)
     @Query("SELECT YEAR(d.data) as ano, MONTH(d.data) as mes, COALESCE(SUM(d.valor), 0.0) as total " +
            "FROM Despesa d " +
@@ -157,4 +178,63 @@ public interface DespesaRepository extends JpaRepository<Despesa, Long> {
     List<DespesaMensalDTO> buscarDespesasAgrupadasPorMes(
             @Param("dataInicio") LocalDate dataInicio,
             @Param("dataFim") LocalDate dataFim);
-} 
\ No newline at end of file
+
+    // ==================== OPERAÇÕES EM LOTE ====================
+
+    @Query("SELECT d.id FROM Despesa d " +
+           "LEFT JOIN d.conta c " +
+           "LEFT JOIN d.cartao cc " +
+           "LEFT JOIN d.categoria cat " +
+           "WHERE (:descricao IS NULL OR LOWER(d.descricao) LIKE LOWER(CONCAT('%', :descricao, '%'))) " +
+           "AND (:mes IS NULL OR MONTH(d.data) = :mes) " +
+           "AND (:ano IS NULL OR YEAR(d.data) = :ano) " +
+           "AND (:dataInicio IS NULL OR d.data >= :dataInicio) " +
+           "AND (:dataFim IS NULL OR d.data <= :dataFim) " +
+           "AND (:contaId IS NULL OR c.id = :contaId) " +
+           "AND (:cartaoId IS NULL OR cc.id = :cartaoId) " +
+           "AND (:categoriaId IS NULL OR cat.id = :categoriaId) " +
+           "AND (:pago IS NULL OR COALESCE(d.pago, false) = :pago)")
+    List<Long> buscarIdsPorFiltro(
+            @Param("descricao") String descricao,
+            @Param("mes") Integer mes,
+            @Param("ano") Integer ano,
+            @Param("dataInicio") LocalDate dataInicio,
+            @Param("dataFim") LocalDate dataFim,
+            @Param("contaId") Long contaId,
+            @Param("cartaoId") Long cartaoId,
+            @Param("categoriaId") Long categoriaId,
+            @Param("pago") Boolean pago);
+
+    @Query("SELECT d.id FROM Despesa d WHERE d.id IN :ids")
+    List<Long> buscarIdsExistentes(@Param("ids") List<Long> ids);
+
+    @Query("SELECT COALESCE(SUM(d.valor), 0) FROM Despesa d WHERE d.id IN :ids")
+    Double somarValorPorIds(@Param("ids") List<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Despesa d SET d.pago = :pago WHERE d.id IN :ids")
+    int atualizarPagoEmLote(@Param("ids") List<Long> ids, @Param("pago") Boolean pago);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Despesa d SET d.categoria = :categoria WHERE d.id IN :ids")
+    int atualizarCategoriaEmLote(@Param("ids") List<Long> ids, @Param("categoria") Categoria categoria);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Despesa d SET d.conta = :conta WHERE d.id IN :ids")
+    int atualizarContaEmLote(@Param("ids") List<Long> ids, @Param("conta") Conta conta);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Despesa d WHERE d.id IN :ids")
+    int excluirEmLote(@Param("ids") List<Long> ids);
+
+    /**
+     * Leitura com bloqueio (SELECT ... FOR UPDATE) da situação das despesas, em ordem de ID.
+     * Por ser uma leitura bloqueante, retorna sempre o valor mais recente mesmo em
+     * REPEATABLE READ, e impede que a despesa mude até o fim da transação.
+     * Retorna [id, cartao_id, valor, pago, data, conta_id, categoria_id].
+     */
+    @Query(value = "SELECT id, cartao_id, valor, pago, data, conta_id, categoria_id FROM despesa " +
+                   "WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> bloquearSituacaoCartao(@Param("ids") List<Long> ids);
+}
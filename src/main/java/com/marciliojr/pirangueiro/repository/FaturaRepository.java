@@ -0,0 +1,54 @@
+package com.marciliojr.pirangueiro.repository;
+
+import com.marciliojr.pirangueiro.model.Fatura;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface FaturaRepository extends JpaRepository<Fatura, Long> {
+
+    @Query("SELECT f FROM Fatura f WHERE f.cartao.id = :cartaoId ORDER BY f.ano DESC, f.mes DESC")
+    List<Fatura> listarPorCartao(@Param("cartaoId") Long cartaoId);
+
+    @Query("SELECT f FROM Fatura f WHERE f.cartao.id = :cartaoId AND f.ano = :ano AND f.mes = :mes")
+    Optional<Fatura> buscarPorReferencia(@Param("cartaoId") Long cartaoId, @Param("ano") int ano, @Param("mes") int mes);
+
+    @Query("SELECT f FROM Fatura f WHERE f.cartao.id = :cartaoId AND f.dataVencimento = :dataVencimento")
+    Optional<Fatura> buscarPorVencimento(@Param("cartaoId") Long cartaoId, @Param("dataVencimento") LocalDate dataVencimento);
+
+    @Query("SELECT f.id FROM Fatura f WHERE f.status = :status AND f.dataFechamento < :data ORDER BY f.id")
+    List<Long> buscarIdsPorStatusFechadasAntesDe(@Param("status") Fatura.StatusFatura status, @Param("data") LocalDate data);
+
+    // SELECT ... FOR UPDATE: o fechamento não perde incrementos feitos por transações concorrentes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Fatura f JOIN FETCH f.cartao WHERE f.id = :id")
+    Optional<Fatura> findByIdForUpdate(@Param("id") Long id);
+
+    // Retorna [total, total pago, quantidade] das despesas do cartão no período
+    @Query("SELECT COALESCE(SUM(d.valor), 0), " +
+           "COALESCE(SUM(CASE WHEN d.pago = true THEN d.valor ELSE 0 END), 0), COUNT(d) " +
+           "FROM Despesa d WHERE d.cartao.id = :cartaoId AND d.valor IS NOT NULL " +
+           "AND d.data >= :dataInicio AND d.data <= :dataFim")
+    List<Object[]> somarDespesasDoPeriodo(@Param("cartaoId") Long cartaoId,
+                                          @Param("dataInicio") LocalDate dataInicio,
+                                          @Param("dataFim") LocalDate dataFim);
+
+    // Retorna [cartao_id, data, total, total pago, quantidade] por dia; cartaoId nulo considera todos os cartões
+    @Query("SELECT d.cartao.id, d.data, SUM(d.valor), " +
+           "COALESCE(SUM(CASE WHEN d.pago = true THEN d.valor ELSE 0 END), 0), COUNT(d) " +
+           "FROM Despesa d WHERE d.cartao IS NOT NULL AND d.valor IS NOT NULL AND d.data IS NOT NULL " +
+           "AND (:cartaoId IS NULL OR d.cartao.id = :cartaoId) " +
+           "GROUP BY d.cartao.id, d.data")
+    List<Object[]> somarDespesasPorCartaoEDia(@Param("cartaoId") Long cartaoId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Fatura f WHERE f.cartao.id = :cartaoId")
+    int excluirPorCartao(@Param("cartaoId") Long cartaoId);
+}
@@ -54,6 +54,12 @@ public interface ReceitaRepository extends JpaRepository<Receita, Long> {
     @Query("SELECT COALESCE(SUM(r.valor), 0) FROM Receita r WHERE MONTH(r.data) = :mes AND YEAR(r.data) = :ano")
     Double buscarTotalReceitasPorMesAno(@Param("mes") Integer mes, @Param("ano") Integer ano);
 
+    @Query("SELECT COALESCE(SUM(r.valor), 0) FROM Receita r " +
+           "WHERE r.conta.id = :contaId AND r.data BETWEEN :dataInicio AND :dataFim")
+    Double somarPorContaEPeriodo(@Param("contaId") Long contaId,
+                                 @Param("dataInicio") LocalDate dataInicio,
+                                 @Param("dataFim") LocalDate dataFim);
+
     @Query(value = "SELECT DISTINCT r FROM Receita r " +
            "LEFT JOIN FETCH r.conta " +
            "LEFT JOIN FETCH r.categoria " +
@@ -93,4 +99,14 @@ public interface ReceitaRepository extends JpaRepository<Receita, Long> {
     List<ReceitaMensalDTO> buscarReceitasAgrupadasPorMes(
             @Param("dataInicio") LocalDate dataInicio,
             @Param("dataFim") LocalDate dataFim);
-} 
\ No newline at end of file
+
+    /**
+     * Leitura com bloqueio (SELECT ... FOR UPDATE) da situação das receitas, em ordem de ID,
+     * para que edições e exclusões concorrentes não apliquem a mesma variação duas vezes.
+     * Retorna [id, conta_id, categoria_id, data, valor].
+     */
+    @Query(value = "SELECT id, conta_id, categoria_id, data, valor FROM receita " +
+                   "WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> bloquearSituacao(@Param("ids") List<Long> ids);
+}
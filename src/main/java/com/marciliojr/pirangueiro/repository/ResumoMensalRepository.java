@@ -0,0 +1,66 @@
+package com.marciliojr.pirangueiro.repository;
+
+import com.marciliojr.pirangueiro.model.ResumoMensal;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Consultas sobre os resumos mensais. Filtros de mês e ano nulos consideram todo o histórico.
+ * Os períodos em meses usam o índice {@code ano * 12 + mes}.
+ */
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, Long> {
+
+    // Retorna [total, quantidade]
+    @Query("SELECT COALESCE(SUM(r.total), 0), COALESCE(SUM(r.quantidade), 0) FROM ResumoMensal r " +
+           "WHERE r.tipo = :tipo AND (:ano IS NULL OR r.ano = :ano) AND (:mes IS NULL OR r.mes = :mes)")
+    List<Object[]> somarPorPeriodo(@Param("tipo") TipoLancamento tipo,
+                                   @Param("ano") Integer ano,
+                                   @Param("mes") Integer mes);
+
+    // Retorna [categoria_id, nome, cor, total, quantidade], do maior para o menor total
+    @Query("SELECT c.id, c.nome, c.cor, SUM(r.total), SUM(r.quantidade) " +
+           "FROM ResumoMensal r, Categoria c " +
+           "WHERE c.id = r.categoriaId AND r.tipo = :tipo AND r.quantidade > 0 " +
+           "AND (:ano IS NULL OR r.ano = :ano) AND (:mes IS NULL OR r.mes = :mes) " +
+           "GROUP BY c.id, c.nome, c.cor " +
+           "ORDER BY SUM(r.total) DESC")
+    List<Object[]> somarPorCategoria(@Param("tipo") TipoLancamento tipo,
+                                     @Param("ano") Integer ano,
+                                     @Param("mes") Integer mes);
+
+    // Retorna [ano, mes, total] dos meses com lançamentos
+    @Query("SELECT r.ano, r.mes, SUM(r.total) FROM ResumoMensal r " +
+           "WHERE r.tipo = :tipo AND r.quantidade > 0 " +
+           "AND r.ano * 12 + r.mes BETWEEN :inicio AND :fim " +
+           "GROUP BY r.ano, r.mes ORDER BY r.ano, r.mes")
+    List<Object[]> somarPorMes(@Param("tipo") TipoLancamento tipo,
+                               @Param("inicio") int inicio,
+                               @Param("fim") int fim);
+
+    // Retorna [tipo, conta_id, total, total de despesas de cartão não pagas] por tipo e conta
+    @Query("SELECT r.tipo, r.contaId, SUM(r.total), " +
+           "SUM(CASE WHEN r.cartaoId <> 0 AND r.pago = 0 THEN r.total ELSE 0 END) FROM ResumoMensal r " +
+           "WHERE (:ano IS NULL OR r.ano = :ano) AND (:mes IS NULL OR r.mes = :mes) " +
+           "GROUP BY r.tipo, r.contaId")
+    List<Object[]> somarPorTipoEConta(@Param("ano") Integer ano,
+                                      @Param("mes") Integer mes);
+
+    // Retorna [ano, mes, tipo, total] dos meses com lançamentos da conta
+    @Query("SELECT r.ano, r.mes, r.tipo, SUM(r.total) FROM ResumoMensal r " +
+           "WHERE r.contaId = :contaId AND r.quantidade > 0 " +
+           "AND r.ano * 12 + r.mes BETWEEN :inicio AND :fim " +
+           "GROUP BY r.ano, r.mes, r.tipo")
+    List<Object[]> somarPorContaEMes(@Param("contaId") Long contaId,
+                                     @Param("inicio") int inicio,
+                                     @Param("fim") int fim);
+
+    // Retorna [ano, mes, categoria_id, cartao_id, total, quantidade] dos lançamentos do tipo
+    @Query("SELECT r.ano, r.mes, r.categoriaId, r.cartaoId, SUM(r.total), SUM(r.quantidade) FROM ResumoMensal r " +
+           "WHERE r.tipo = :tipo AND r.quantidade > 0 " +
+           "GROUP BY r.ano, r.mes, r.categoriaId, r.cartaoId")
+    List<Object[]> somarPorMesCategoriaECartao(@Param("tipo") TipoLancamento tipo);
+}
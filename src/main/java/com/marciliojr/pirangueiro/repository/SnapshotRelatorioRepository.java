@@ -0,0 +1,33 @@
+package com.marciliojr.pirangueiro.repository;
+
+import com.marciliojr.pirangueiro.model.SnapshotRelatorio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface SnapshotRelatorioRepository extends JpaRepository<SnapshotRelatorio, Long> {
+
+    Optional<SnapshotRelatorio> findByAnoAndMes(Integer ano, Integer mes);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE SnapshotRelatorio s SET s.sujo = true, s.alteracoes = s.alteracoes + 1 " +
+           "WHERE s.ano = :ano AND s.mes = :mes")
+    int marcarSujo(@Param("ano") Integer ano, @Param("mes") Integer mes);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE SnapshotRelatorio s SET s.sujo = true, s.alteracoes = s.alteracoes + 1")
+    int marcarTodosSujos();
+
+    // Só grava se nenhuma escrita marcou o mês desde a leitura do contador
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE SnapshotRelatorio s SET s.conteudo = :conteudo, s.sujo = false, s.dataGeracao = :dataGeracao " +
+           "WHERE s.id = :id AND s.alteracoes = :alteracoes")
+    int gravar(@Param("id") Long id,
+               @Param("conteudo") String conteudo,
+               @Param("dataGeracao") LocalDateTime dataGeracao,
+               @Param("alteracoes") Long alteracoes);
+}
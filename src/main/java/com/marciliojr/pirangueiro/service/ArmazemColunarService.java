@@ -0,0 +1,653 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.ConsultaPivotDTO;
+import com.marciliojr.pirangueiro.dto.ConsultaPivotDTO.Dimensao;
+import com.marciliojr.pirangueiro.dto.ConsultaPivotDTO.Medida;
+import com.marciliojr.pirangueiro.dto.ResultadoPivotDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cópia colunar em memória das despesas e receitas para consultas ad hoc ({@link #consultar}).
+ *
+ * <p>Cada lançamento é uma linha de vetores primitivos: data em dias desde 1970 ({@code int}),
+ * valor em centavos ({@code long}), categoria, conta e cartão codificados por dicionário
+ * ({@code short}) e a situação de pagamento em um {@link BitSet}. As consultas percorrem os vetores
+ * em um único laço, aplicando os filtros e acumulando as medidas por grupo.</p>
+ *
+ * <p>Os vetores são carregados na subida da aplicação e atualizados após o commit de cada escrita
+ * ({@link LancamentosAlteradosEvent}). Um índice do ID do lançamento para a posição da linha
+ * permite remover a situação anterior sem percorrer a tabela. Uma alteração confirmada antes do
+ * fim da carga dos vetores pode já estar neles; nesse caso os vetores são descartados em vez de
+ * receberem a alteração de novo.</p>
+ */
+@Service
+@Slf4j
+public class ArmazemColunarService {
+
+    private static final String SQL_DESPESAS =
+            "SELECT data, valor, categoria_id, conta_id, cartao_id, pago, id FROM despesa " +
+            "WHERE data IS NOT NULL AND valor IS NOT NULL";
+
+    private static final String SQL_RECEITAS =
+            "SELECT data, valor, categoria_id, conta_id, id FROM receita " +
+            "WHERE data IS NOT NULL AND valor IS NOT NULL";
+
+    private static final int TAMANHO_LEITURA = 5000;
+
+    private static final int MAXIMO_DIMENSOES = 4;
+
+    // Acima disso os grupos são acumulados em mapa em vez de vetores densos (quatro long[] por consulta)
+    private static final long LIMITE_GRUPOS_DENSOS = 1 << 16;
+
+    // Vetores densos só compensam quando os lançamentos ocupam boa parte dos grupos possíveis
+    private static final long GRUPOS_DENSOS_POR_LANCAMENTO = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegido por lock; nulo até a primeira carga ou após falha na atualização
+    private Armazem armazem;
+
+    // ==================== CONSULTA PIVOT ====================
+
+    public ResultadoPivotDTO consultar(ConsultaPivotDTO consulta) {
+        validar(consulta);
+        long inicio = System.nanoTime();
+
+        List<Dimensao> dimensoes = consulta.getDimensoes() != null ? consulta.getDimensoes() : List.of();
+        List<Medida> medidas = consulta.getMedidas() == null || consulta.getMedidas().isEmpty()
+                ? List.of(Medida.SOMA, Medida.QUANTIDADE) : consulta.getMedidas();
+
+        ResultadoPivotDTO resultado = new ResultadoPivotDTO();
+        resultado.setDimensoes(dimensoes);
+        resultado.setMedidas(medidas);
+
+        Map<Dimensao, Map<Long, String>> nomes = buscarNomes(dimensoes);
+
+        boolean executada = false;
+        lock.readLock().lock();
+        try {
+            if (armazem != null) {
+                new Varredura(armazem, consulta.getTipo(), dimensoes, medidas, consulta, nomes).executar(resultado);
+                executada = true;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (!executada) {
+            lock.writeLock().lock();
+            try {
+                if (armazem == null) {
+                    armazem = montar();
+                }
+                new Varredura(armazem, consulta.getTipo(), dimensoes, medidas, consulta, nomes).executar(resultado);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        resultado.setTempoProcessamentoMicros((System.nanoTime() - inicio) / 1000);
+        return resultado;
+    }
+
+    private void validar(ConsultaPivotDTO consulta) {
+        if (consulta == null || consulta.getTipo() == null) {
+            throw new NegocioException("Consulta inválida", "422", "Informe o tipo de lançamento (DESPESA ou RECEITA).");
+        }
+        List<Dimensao> dimensoes = consulta.getDimensoes() != null ? consulta.getDimensoes() : List.of();
+        if (dimensoes.size() > MAXIMO_DIMENSOES) {
+            throw new NegocioException("Consulta inválida", "422",
+                    "Informe no máximo " + MAXIMO_DIMENSOES + " dimensões.");
+        }
+        if (dimensoes.stream().anyMatch(Objects::isNull) || new HashSet<>(dimensoes).size() != dimensoes.size()) {
+            throw new NegocioException("Consulta inválida", "422", "As dimensões não podem ser nulas nem repetidas.");
+        }
+        if (consulta.getDataInicio() != null && consulta.getDataFim() != null
+                && consulta.getDataInicio().isAfter(consulta.getDataFim())) {
+            throw new NegocioException("Consulta inválida", "422", "Data de início deve ser menor ou igual à data final.");
+        }
+    }
+
+    // Nomes dos cadastros agrupados, lidos antes da varredura
+    private Map<Dimensao, Map<Long, String>> buscarNomes(List<Dimensao> dimensoes) {
+        Map<Dimensao, Map<Long, String>> nomes = new EnumMap<>(Dimensao.class);
+        if (dimensoes.contains(Dimensao.CATEGORIA)) {
+            Map<Long, String> categorias = new HashMap<>();
+            dadosReferenciaService.listarCategorias().forEach(categoria -> categorias.put(categoria.getId(), categoria.getNome()));
+            nomes.put(Dimensao.CATEGORIA, categorias);
+        }
+        if (dimensoes.contains(Dimensao.CONTA)) {
+            Map<Long, String> contas = new HashMap<>();
+            dadosReferenciaService.listarContas().forEach(conta -> contas.put(conta.getId(), conta.getNome()));
+            nomes.put(Dimensao.CONTA, contas);
+        }
+        if (dimensoes.contains(Dimensao.CARTAO)) {
+            Map<Long, String> cartoes = new HashMap<>();
+            dadosReferenciaService.listarCartoes().forEach(cartao -> cartoes.put(cartao.getId(), cartao.getNome()));
+            nomes.put(Dimensao.CARTAO, cartoes);
+        }
+        return nomes;
+    }
+
+    // ==================== CARGA E ATUALIZAÇÃO ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void inicializarArmazem() {
+        try {
+            recarregar();
+        } catch (Exception e) {
+            log.error("Erro ao carregar armazém colunar: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recarrega os vetores a partir das tabelas de despesas e receitas.
+     */
+    public void recarregar() {
+        lock.writeLock().lock();
+        try {
+            armazem = montar();
+            log.info("Armazém colunar carregado: {} despesas, {} receitas",
+                    armazem.tabela(TipoLancamento.DESPESA).tamanho, armazem.tabela(TipoLancamento.RECEITA).tamanho);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Descarta os vetores; a próxima consulta os recarrega.
+     */
+    public void invalidar() {
+        lock.writeLock().lock();
+        try {
+            armazem = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosAlterados(LancamentosAlteradosEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (armazem == null) {
+                return;
+            }
+            if (versaoDadosService.podeEstarNaCarga(event, armazem.confirmacoes)) {
+                // Vetores carregados entre o commit e este ouvinte: a próxima consulta os recarrega
+                armazem = null;
+                return;
+            }
+            TabelaFatos tabela = armazem.tabela(event.getTipo());
+            for (SituacaoLancamentoDTO situacao : event.getAnteriores()) {
+                if (valida(situacao) && (situacao.id() == null || !tabela.remover(situacao.id()))) {
+                    // Divergência com a base: a próxima consulta recarrega tudo
+                    log.warn("Lançamento removido não encontrado no armazém colunar, ele será recarregado");
+                    armazem = null;
+                    return;
+                }
+            }
+            for (SituacaoLancamentoDTO situacao : event.getNovas()) {
+                if (valida(situacao) && (situacao.id() == null || !tabela.adicionar(situacao.id(), armazem.linha(situacao)))) {
+                    log.warn("Lançamento incluído sem ID ou já presente no armazém colunar, ele será recarregado");
+                    armazem = null;
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Erro ao atualizar armazém colunar, ele será recarregado na próxima consulta: {}", e.getMessage(), e);
+            armazem = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        invalidar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidar();
+        }
+    }
+
+    private static boolean valida(SituacaoLancamentoDTO situacao) {
+        return situacao != null && situacao.data() != null && situacao.valor() != null;
+    }
+
+    private Armazem montar() {
+        Armazem novo = new Armazem();
+        carregarTabela(novo, SQL_DESPESAS, TipoLancamento.DESPESA);
+        carregarTabela(novo, SQL_RECEITAS, TipoLancamento.RECEITA);
+        // Lido depois das tabelas: alterações numeradas depois disso não estão nos vetores
+        novo.confirmacoes = versaoDadosService.confirmacoes();
+        return novo;
+    }
+
+    private void carregarTabela(Armazem destino, String sql, TipoLancamento tipo) {
+        TabelaFatos tabela = destino.tabela(tipo);
+        boolean despesa = tipo == TipoLancamento.DESPESA;
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(TAMANHO_LEITURA);
+            return ps;
+        }, rs -> {
+            Long categoriaId = rs.getLong(3);
+            if (rs.wasNull()) {
+                categoriaId = null;
+            }
+            Long contaId = rs.getLong(4);
+            if (rs.wasNull()) {
+                contaId = null;
+            }
+            Long cartaoId = null;
+            boolean pago = false;
+            if (despesa) {
+                cartaoId = rs.getLong(5);
+                if (rs.wasNull()) {
+                    cartaoId = null;
+                }
+                pago = rs.getBoolean(6);
+            }
+            tabela.adicionar(rs.getLong(despesa ? 7 : 5), destino.linha(rs.getDate(1).toLocalDate(), rs.getDouble(2),
+                    categoriaId, contaId, cartaoId, pago));
+        });
+    }
+
+    // ==================== ESTRUTURAS ====================
+
+    /**
+     * Dicionário de IDs de cadastro. O código 0 representa lançamentos sem o cadastro.
+     */
+    private static final class Dicionario {
+        private final Map<Long, Short> codigos = new HashMap<>();
+        private long[] ids = new long[16];
+        private int tamanho = 1;
+
+        private short codificar(Long id) {
+            if (id == null) {
+                return 0;
+            }
+            Short codigo = codigos.get(id);
+            if (codigo != null) {
+                return codigo;
+            }
+            if (tamanho > Short.MAX_VALUE) {
+                throw new IllegalStateException("Limite de cadastros do armazém colunar excedido");
+            }
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[tamanho] = id;
+            codigos.put(id, (short) tamanho);
+            return (short) tamanho++;
+        }
+
+        // Código existente ou -1, sem incluir no dicionário
+        private int codigo(Long id) {
+            if (id == null) {
+                return 0;
+            }
+            Short codigo = codigos.get(id);
+            return codigo != null ? codigo : -1;
+        }
+
+        private Long id(int codigo) {
+            return codigo == 0 ? null : ids[codigo];
+        }
+    }
+
+    private record Linha(int data, int mes, long centavos, short categoria, short conta, short cartao, boolean pago) {
+    }
+
+    private static final class Armazem {
+        private final Dicionario categorias = new Dicionario();
+        private final Dicionario contas = new Dicionario();
+        private final Dicionario cartoes = new Dicionario();
+        private final TabelaFatos despesas = new TabelaFatos();
+        private final TabelaFatos receitas = new TabelaFatos();
+        private long confirmacoes;
+
+        private TabelaFatos tabela(TipoLancamento tipo) {
+            return tipo == TipoLancamento.DESPESA ? despesas : receitas;
+        }
+
+        private Linha linha(SituacaoLancamentoDTO situacao) {
+            return linha(situacao.data(), situacao.valor(), situacao.categoriaId(), situacao.contaId(),
+                    situacao.cartaoId(), Boolean.TRUE.equals(situacao.pago()));
+        }
+
+        private Linha linha(LocalDate data, double valor, Long categoriaId, Long contaId, Long cartaoId, boolean pago) {
+            return new Linha((int) data.toEpochDay(), data.getYear() * 12 + data.getMonthValue() - 1,
+                    Math.round(valor * 100), categorias.codificar(categoriaId), contas.codificar(contaId),
+                    cartoes.codificar(cartaoId), pago);
+        }
+    }
+
+    private static final class TabelaFatos {
+        private int tamanho;
+        private long[] ids = new long[1024];
+        private final Map<Long, Integer> posicoes = new HashMap<>();
+        private int[] datas = new int[1024];
+        private int[] meses = new int[1024];
+        private long[] centavos = new long[1024];
+        private short[] categorias = new short[1024];
+        private short[] contas = new short[1024];
+        private short[] cartoes = new short[1024];
+        private final BitSet pagos = new BitSet();
+        private int menorMes = Integer.MAX_VALUE;
+        private int maiorMes = Integer.MIN_VALUE;
+
+        // Falso se o lançamento já está na tabela
+        private boolean adicionar(long id, Linha linha) {
+            if (posicoes.putIfAbsent(id, tamanho) != null) {
+                return false;
+            }
+            if (tamanho == datas.length) {
+                int capacidade = datas.length + (datas.length >> 1);
+                ids = Arrays.copyOf(ids, capacidade);
+                datas = Arrays.copyOf(datas, capacidade);
+                meses = Arrays.copyOf(meses, capacidade);
+                centavos = Arrays.copyOf(centavos, capacidade);
+                categorias = Arrays.copyOf(categorias, capacidade);
+                contas = Arrays.copyOf(contas, capacidade);
+                cartoes = Arrays.copyOf(cartoes, capacidade);
+            }
+            ids[tamanho] = id;
+            datas[tamanho] = linha.data();
+            meses[tamanho] = linha.mes();
+            centavos[tamanho] = linha.centavos();
+            categorias[tamanho] = linha.categoria();
+            contas[tamanho] = linha.conta();
+            cartoes[tamanho] = linha.cartao();
+            pagos.set(tamanho, linha.pago());
+            menorMes = Math.min(menorMes, linha.mes());
+            maiorMes = Math.max(maiorMes, linha.mes());
+            tamanho++;
+            return true;
+        }
+
+        // Remove a linha do lançamento, trazendo a última para o seu lugar; falso se ele não está na tabela
+        private boolean remover(long id) {
+            Integer posicao = posicoes.remove(id);
+            if (posicao == null) {
+                return false;
+            }
+            int i = posicao;
+            int ultima = --tamanho;
+            if (i != ultima) {
+                ids[i] = ids[ultima];
+                datas[i] = datas[ultima];
+                meses[i] = meses[ultima];
+                centavos[i] = centavos[ultima];
+                categorias[i] = categorias[ultima];
+                contas[i] = contas[ultima];
+                cartoes[i] = cartoes[ultima];
+                pagos.set(i, pagos.get(ultima));
+                posicoes.put(ids[i], i);
+            }
+            pagos.clear(ultima);
+            return true;
+        }
+    }
+
+    /**
+     * Execução de uma consulta: cada dimensão vira um código inteiro por linha e os códigos são
+     * combinados em uma chave de grupo (base mista), usada como posição nos acumuladores.
+     */
+    private static final class Varredura {
+        private static final int ANO = 0, MES = 1, MES_DO_ANO = 2, DIA_DA_SEMANA = 3,
+                CATEGORIA = 4, CONTA = 5, CARTAO = 6, PAGO = 7;
+
+        private final Armazem armazem;
+        private final TabelaFatos tabela;
+        private final List<Dimensao> dimensoes;
+        private final List<Medida> medidas;
+        private final ConsultaPivotDTO consulta;
+        private final Map<Dimensao, Map<Long, String>> nomes;
+        private final int[] tipos;
+        private final int[] cardinalidades;
+        private final int menorAno;
+
+        private Varredura(Armazem armazem, TipoLancamento tipo, List<Dimensao> dimensoes, List<Medida> medidas,
+                          ConsultaPivotDTO consulta, Map<Dimensao, Map<Long, String>> nomes) {
+            this.armazem = armazem;
+            this.tabela = armazem.tabela(tipo);
+            this.dimensoes = dimensoes;
+            this.medidas = medidas;
+            this.consulta = consulta;
+            this.nomes = nomes;
+            this.tipos = new int[dimensoes.size()];
+            this.cardinalidades = new int[dimensoes.size()];
+            boolean vazia = tabela.tamanho == 0;
+            this.menorAno = vazia ? 0 : Math.floorDiv(tabela.menorMes, 12);
+            for (int d = 0; d < dimensoes.size(); d++) {
+                tipos[d] = dimensoes.get(d).ordinal();
+                cardinalidades[d] = switch (dimensoes.get(d)) {
+                    case ANO -> vazia ? 1 : Math.floorDiv(tabela.maiorMes, 12) - menorAno + 1;
+                    case MES -> vazia ? 1 : tabela.maiorMes - tabela.menorMes + 1;
+                    case MES_DO_ANO -> 12;
+                    case DIA_DA_SEMANA -> 7;
+                    case CATEGORIA -> armazem.categorias.tamanho;
+                    case CONTA -> armazem.contas.tamanho;
+                    case CARTAO -> armazem.cartoes.tamanho;
+                    case PAGO -> 2;
+                };
+            }
+        }
+
+        private int codigo(int tipo, int linha) {
+            return switch (tipo) {
+                case ANO -> Math.floorDiv(tabela.meses[linha], 12) - menorAno;
+                case MES -> tabela.meses[linha] - tabela.menorMes;
+                case MES_DO_ANO -> Math.floorMod(tabela.meses[linha], 12);
+                case DIA_DA_SEMANA -> Math.floorMod(tabela.datas[linha] + 3, 7); // 01/01/1970 foi uma quinta-feira
+                case CATEGORIA -> tabela.categorias[linha];
+                case CONTA -> tabela.contas[linha];
+                case CARTAO -> tabela.cartoes[linha];
+                default -> tabela.pagos.get(linha) ? 1 : 0;
+            };
+        }
+
+        private void executar(ResultadoPivotDTO resultado) {
+            int dataMinima = consulta.getDataInicio() != null ? (int) consulta.getDataInicio().toEpochDay() : Integer.MIN_VALUE;
+            int dataMaxima = consulta.getDataFim() != null ? (int) consulta.getDataFim().toEpochDay() : Integer.MAX_VALUE;
+            boolean[] categoriasPermitidas = permitidos(armazem.categorias, consulta.getCategoriaIds());
+            boolean[] contasPermitidas = permitidos(armazem.contas, consulta.getContaIds());
+            boolean[] cartoesPermitidos = permitidos(armazem.cartoes, consulta.getCartaoIds());
+            Boolean pago = consulta.getPago();
+
+            long limiteDenso = Math.min(LIMITE_GRUPOS_DENSOS, tabela.tamanho * GRUPOS_DENSOS_POR_LANCAMENTO);
+            long totalGrupos = 1;
+            for (int cardinalidade : cardinalidades) {
+                totalGrupos *= cardinalidade;
+                if (totalGrupos > limiteDenso) {
+                    break;
+                }
+            }
+            Acumuladores acumuladores = totalGrupos <= limiteDenso
+                    ? new AcumuladoresDensos((int) totalGrupos) : new AcumuladoresEsparsos();
+
+            int[] datas = tabela.datas;
+            long[] centavos = tabela.centavos;
+            short[] categorias = tabela.categorias;
+            short[] contas = tabela.contas;
+            short[] cartoes = tabela.cartoes;
+            long considerados = 0;
+            for (int i = 0, n = tabela.tamanho; i < n; i++) {
+                int data = datas[i];
+                if (data < dataMinima || data > dataMaxima
+                        || (categoriasPermitidas != null && !categoriasPermitidas[categorias[i]])
+                        || (contasPermitidas != null && !contasPermitidas[contas[i]])
+                        || (cartoesPermitidos != null && !cartoesPermitidos[cartoes[i]])
+                        || (pago != null && tabela.pagos.get(i) != pago)) {
+                    continue;
+                }
+                long chave = 0;
+                for (int d = 0; d < tipos.length; d++) {
+                    chave = chave * cardinalidades[d] + codigo(tipos[d], i);
+                }
+                acumuladores.acumular(chave, centavos[i]);
+                considerados++;
+            }
+
+            resultado.setLancamentosLidos((long) tabela.tamanho);
+            resultado.setLancamentosConsiderados(considerados);
+            acumuladores.paraCada((valores, chave) -> resultado.getLinhas().add(linha(chave, valores)));
+        }
+
+        private static boolean[] permitidos(Dicionario dicionario, List<Long> ids) {
+            if (ids == null || ids.isEmpty()) {
+                return null;
+            }
+            boolean[] permitidos = new boolean[dicionario.tamanho];
+            for (Long id : ids) {
+                int codigo = dicionario.codigo(id);
+                if (codigo >= 0) {
+                    permitidos[codigo] = true;
+                }
+            }
+            return permitidos;
+        }
+
+        // valores = [soma, quantidade, mínimo, máximo] em centavos
+        private ResultadoPivotDTO.LinhaPivotDTO linha(long chave, long[] valores) {
+            ResultadoPivotDTO.LinhaPivotDTO linha = new ResultadoPivotDTO.LinhaPivotDTO();
+            int[] codigos = new int[tipos.length];
+            for (int d = tipos.length - 1; d >= 0; d--) {
+                codigos[d] = (int) (chave % cardinalidades[d]);
+                chave /= cardinalidades[d];
+            }
+            for (int d = 0; d < tipos.length; d++) {
+                linha.getDimensoes().put(dimensoes.get(d).name(), rotulo(dimensoes.get(d), codigos[d]));
+            }
+            for (Medida medida : medidas) {
+                double valor = switch (medida) {
+                    case SOMA -> valores[0] / 100.0;
+                    case QUANTIDADE -> valores[1];
+                    case MEDIA -> valores[0] / 100.0 / valores[1];
+                    case MINIMO -> valores[2] / 100.0;
+                    case MAXIMO -> valores[3] / 100.0;
+                };
+                linha.getMedidas().put(medida.name(), valor);
+            }
+            return linha;
+        }
+
+        private Object rotulo(Dimensao dimensao, int codigo) {
+            return switch (dimensao) {
+                case ANO -> menorAno + codigo;
+                case MES -> {
+                    int mes = tabela.menorMes + codigo;
+                    yield String.format("%04d-%02d", Math.floorDiv(mes, 12), Math.floorMod(mes, 12) + 1);
+                }
+                case MES_DO_ANO, DIA_DA_SEMANA -> codigo + 1;
+                case CATEGORIA -> nome(dimensao, armazem.categorias.id(codigo));
+                case CONTA -> nome(dimensao, armazem.contas.id(codigo));
+                case CARTAO -> nome(dimensao, armazem.cartoes.id(codigo));
+                case PAGO -> codigo == 1;
+            };
+        }
+
+        private String nome(Dimensao dimensao, Long id) {
+            return id != null ? nomes.get(dimensao).getOrDefault(id, "#" + id) : null;
+        }
+    }
+
+    private interface Acumuladores {
+        void acumular(long chave, long centavos);
+
+        // Percorre os grupos com lançamentos em ordem de chave
+        void paraCada(java.util.function.ObjLongConsumer<long[]> consumidor);
+    }
+
+    private static final class AcumuladoresDensos implements Acumuladores {
+        private final long[] somas;
+        private final long[] quantidades;
+        private final long[] minimos;
+        private final long[] maximos;
+
+        private AcumuladoresDensos(int grupos) {
+            somas = new long[grupos];
+            quantidades = new long[grupos];
+            minimos = new long[grupos];
+            maximos = new long[grupos];
+            Arrays.fill(minimos, Long.MAX_VALUE);
+            Arrays.fill(maximos, Long.MIN_VALUE);
+        }
+
+        @Override
+        public void acumular(long chave, long centavos) {
+            int grupo = (int) chave;
+            somas[grupo] += centavos;
+            quantidades[grupo]++;
+            if (centavos < minimos[grupo]) {
+                minimos[grupo] = centavos;
+            }
+            if (centavos > maximos[grupo]) {
+                maximos[grupo] = centavos;
+            }
+        }
+
+        @Override
+        public void paraCada(java.util.function.ObjLongConsumer<long[]> consumidor) {
+            for (int grupo = 0; grupo < somas.length; grupo++) {
+                if (quantidades[grupo] > 0) {
+                    consumidor.accept(new long[]{somas[grupo], quantidades[grupo], minimos[grupo], maximos[grupo]}, grupo);
+                }
+            }
+        }
+    }
+
+    private static final class AcumuladoresEsparsos implements Acumuladores {
+        private final Map<Long, long[]> grupos = new TreeMap<>();
+
+        @Override
+        public void acumular(long chave, long centavos) {
+            long[] valores = grupos.computeIfAbsent(chave, c -> new long[]{0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+            valores[0] += centavos;
+            valores[1]++;
+            valores[2] = Math.min(valores[2], centavos);
+            valores[3] = Math.max(valores[3], centavos);
+        }
+
+        @Override
+        public void paraCada(java.util.function.ObjLongConsumer<long[]> consumidor) {
+            grupos.forEach((chave, valores) -> consumidor.accept(valores, chave));
+        }
+    }
+}
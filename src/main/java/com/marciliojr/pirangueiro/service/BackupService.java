@@ -6,12 +6,14 @@ import com.marciliojr.pirangueiro.dto.*;
 import com.marciliojr.pirangueiro.model.*;
 import com.marciliojr.pirangueiro.repository.*;
 import com.marciliojr.pirangueiro.model.StatusImportacao;
+import com.marciliojr.pirangueiro.util.HashLancamentoUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -57,9 +59,18 @@ public class BackupService {
     
     @Autowired
     private NotificacaoRepository notificacaoRepository;
+
+    @Autowired
+    private FaturaRepository faturaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
     
     @Autowired
     private HistoricoRepository historicoRepository;
+
+    @Autowired
+    private HistoricoService historicoService;
     
     @Autowired
     private StatusImportacaoRepository statusImportacaoRepository;
@@ -187,6 +198,9 @@ public class BackupService {
      * Gera um backup completo de todas as entidades do sistema.
      */
     public BackupDTO gerarBackupCompleto() {
+        // O histórico ainda na fila de gravação entra no backup
+        historicoService.descarregar();
+
         BackupDTO backup = new BackupDTO();
         
         // Metadados
@@ -277,11 +291,16 @@ public class BackupService {
      */
     @Transactional
     public void limparTodasTabelas() {
+        // Registros ainda na fila seriam gravados depois da limpeza
+        historicoService.descarregar();
+
         // Primeiro: entidades com relacionamentos
         historicoRepository.deleteAll();
         notificacaoRepository.deleteAll();
         receitaRepository.deleteAll();
         despesaRepository.deleteAll();
+        faturaRepository.deleteAll();
+        resumoMensalRepository.deleteAllInBatch();
         
         // Depois: entidades independentes
         execucaoTarefaRepository.deleteAll();
@@ -432,6 +451,7 @@ public class BackupService {
         dto.setNumeroParcela(despesa.getNumeroParcela());
         dto.setTotalParcelas(despesa.getTotalParcelas());
         dto.setPago(despesa.getPago());
+        dto.setHashImportacao(despesa.getHashImportacao());
         return dto;
     }
     
@@ -450,6 +470,7 @@ public class BackupService {
         dto.setContaId(receita.getConta() != null ? receita.getConta().getId() : null);
         dto.setCategoriaId(receita.getCategoria() != null ? receita.getCategoria().getId() : null);
         dto.setObservacao(receita.getObservacao());
+        dto.setHashImportacao(receita.getHashImportacao());
         return dto;
     }
     
@@ -681,6 +702,7 @@ public class BackupService {
             despesa.setNumeroParcela(dto.getNumeroParcela());
             despesa.setTotalParcelas(dto.getTotalParcelas());
             despesa.setPago(dto.getPago());
+            despesa.setHashImportacao(hashImportacao(dto.getHashImportacao(), dto.getData(), dto.getValor(), dto.getDescricao()));
             despesaRepository.save(despesa);
         }
     }
@@ -705,9 +727,15 @@ public class BackupService {
             }
             
             receita.setObservacao(dto.getObservacao());
+            receita.setHashImportacao(hashImportacao(dto.getHashImportacao(), dto.getData(), dto.getValor(), dto.getDescricao()));
             receitaRepository.save(receita);
         }
     }
+
+    // Backups anteriores ao hash não o trazem: vale o mesmo do cadastro manual
+    private static String hashImportacao(String hash, LocalDate data, Double valor, String descricao) {
+        return hash != null ? hash : HashLancamentoUtil.calcular(data, valor, descricao);
+    }
     
     private void restaurarNotificacoesComMapeamento(List<NotificacaoBackupDTO> notificacoes, Map<Long, Long> mapaCartoes) {
         if (notificacoes == null) return;
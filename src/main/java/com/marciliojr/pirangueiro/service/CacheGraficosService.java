@@ -0,0 +1,185 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent.TipoCadastro;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache das respostas dos gráficos e do dashboard, por gráfico e parâmetros.
+ *
+ * <p>Cada resposta guarda o escopo dos dados que usou: os tipos de lançamento, o intervalo de
+ * meses e se depende do limite usado dos cartões. Após o commit de uma escrita de lançamentos
+ * ({@link LancamentosAlteradosEvent}) são descartadas apenas as respostas cujo escopo inclui algum
+ * mês alterado. Alterações de categorias e cartões (nomes, limites) e a restauração de backup
+ * descartam tudo.</p>
+ *
+ * <p>Os descartes rodam depois da atualização do cubo analítico e do cache de cadastros. Uma
+ * resposta calculada enquanto um descarte acontecia não é guardada, pois pode ter lido os dados
+ * anteriores à escrita.</p>
+ */
+@Service
+public class CacheGraficosService {
+
+    private static final long TAMANHO_MAXIMO = 500;
+
+    private final Cache<Chave, Entrada> cache = Caffeine.newBuilder()
+            .maximumSize(TAMANHO_MAXIMO)
+            .recordStats()
+            .build();
+
+    // Incrementada a cada descarte
+    private final AtomicLong geracao = new AtomicLong();
+
+    private record Chave(String grafico, List<Object> parametros) {
+    }
+
+    private record Entrada(Escopo escopo, Object valor) {
+    }
+
+    /**
+     * Dados usados por uma resposta. Meses nulos indicam todo o histórico.
+     */
+    public record Escopo(Set<TipoLancamento> tipos, YearMonth inicio, YearMonth fim, boolean limitesCartao) {
+
+        public static Escopo meses(Set<TipoLancamento> tipos, YearMonth inicio, YearMonth fim) {
+            return new Escopo(tipos, inicio, fim, false);
+        }
+
+        public static Escopo mes(Set<TipoLancamento> tipos, YearMonth mes) {
+            return new Escopo(tipos, mes, mes, false);
+        }
+
+        public Escopo comLimitesCartao() {
+            return new Escopo(tipos, inicio, fim, true);
+        }
+
+        private boolean inclui(TipoLancamento tipo, YearMonth mes) {
+            return tipos.contains(tipo)
+                    && (inicio == null || !mes.isBefore(inicio))
+                    && (fim == null || !mes.isAfter(fim));
+        }
+    }
+
+    /**
+     * Devolve a resposta guardada para o gráfico e os parâmetros ou a calcula e guarda.
+     * As respostas são compartilhadas entre as requisições e não devem ser alteradas.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obter(String grafico, List<Object> parametros, Escopo escopo, Supplier<T> calcular) {
+        Chave chave = new Chave(grafico, parametros);
+        Entrada entrada = cache.getIfPresent(chave);
+        if (entrada != null) {
+            return (T) entrada.valor();
+        }
+
+        long geracaoInicial = geracao.get();
+        T valor = calcular.get();
+        if (valor != null && geracao.get() == geracaoInicial) {
+            cache.put(chave, new Entrada(escopo, valor));
+        }
+        return valor;
+    }
+
+    // ==================== INVALIDAÇÃO ====================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onLancamentosAlterados(LancamentosAlteradosEvent event) {
+        Set<YearMonth> meses = new HashSet<>();
+        boolean cartaoAlterado = adicionarMeses(event.getAnteriores(), meses);
+        cartaoAlterado |= adicionarMeses(event.getNovas(), meses);
+        boolean limitesAlterados = cartaoAlterado && event.getTipo() == TipoLancamento.DESPESA;
+
+        descartar(entrada -> (limitesAlterados && entrada.escopo().limitesCartao())
+                || meses.stream().anyMatch(mes -> entrada.escopo().inclui(event.getTipo(), mes)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        boolean limitesAlterados = !event.getCartoes().isEmpty() && event.getTipos().contains(TipoLancamento.DESPESA);
+        descartar(entrada -> (limitesAlterados && entrada.escopo().limitesCartao())
+                || event.getTipos().stream().anyMatch(tipo ->
+                        event.getMeses().stream().anyMatch(mes -> entrada.escopo().inclui(tipo, mes))));
+    }
+
+    private static boolean adicionarMeses(Collection<SituacaoLancamentoDTO> situacoes, Set<YearMonth> meses) {
+        boolean cartao = false;
+        if (situacoes == null) {
+            return false;
+        }
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao == null) {
+                continue;
+            }
+            if (situacao.data() != null) {
+                meses.add(YearMonth.from(situacao.data()));
+            }
+            cartao |= situacao.cartaoId() != null;
+        }
+        return cartao;
+    }
+
+    /**
+     * Nomes de categorias e cartões e limites aparecem nas respostas; contas não.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCadastroAlterado(CadastroAlteradoEvent event) {
+        if (event.getTipoCadastro() != TipoCadastro.CONTA) {
+            invalidarTudo();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidarTudo();
+        }
+    }
+
+    private void descartar(Predicate<Entrada> afetada) {
+        geracao.incrementAndGet();
+        cache.asMap().values().removeIf(afetada);
+    }
+
+    public void invalidarTudo() {
+        geracao.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Estatísticas acumuladas do cache desde a subida da aplicação.
+     */
+    public Map<String, Object> estatisticas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("entradas", cache.estimatedSize());
+        estatisticas.put("tamanhoMaximo", TAMANHO_MAXIMO);
+        estatisticas.put("requisicoes", stats.requestCount());
+        estatisticas.put("acertos", stats.hitCount());
+        estatisticas.put("faltas", stats.missCount());
+        estatisticas.put("taxaAcerto", stats.hitRate());
+        estatisticas.put("remocoesPorTamanho", stats.evictionCount());
+        return estatisticas;
+    }
+}
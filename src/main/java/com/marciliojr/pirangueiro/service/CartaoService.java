@@ -1,12 +1,16 @@
 package com.marciliojr.pirangueiro.service;
 
 import com.marciliojr.pirangueiro.dto.CartaoDTO;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent.TipoCadastro;
 import com.marciliojr.pirangueiro.exception.NegocioException;
 import com.marciliojr.pirangueiro.model.Cartao;
 import com.marciliojr.pirangueiro.model.Despesa;
 import com.marciliojr.pirangueiro.repository.CartaoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,21 +29,42 @@ public class CartaoService {
     @Autowired
     private HistoricoService historicoService;
 
+    @Autowired
+    private FaturaService faturaService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    @Autowired
+    private UtilizacaoCartaoService utilizacaoCartaoService;
+
     public List<CartaoDTO> listarTodos() {
-        return cartaoRepository.findAll().stream().map(this::converterParaDTO).collect(Collectors.toList());
+        return dadosReferenciaService.listarCartoes().stream().map(this::converterParaDTO).collect(Collectors.toList());
     }
 
     public CartaoDTO buscarPorId(Long id) {
-        return cartaoRepository.findById(id).map(this::converterParaDTO).orElseThrow(() -> new RuntimeException("Cartão não encontrado"));
+        return dadosReferenciaService.buscarCartao(id).map(this::converterParaDTO).orElseThrow(() -> new RuntimeException("Cartão não encontrado"));
     }
 
     public List<CartaoDTO> buscarPorNome(String nome) {
         return cartaoRepository.findByNomeContainingIgnoreCase(nome).stream().map(this::converterParaDTO).collect(Collectors.toList());
     }
 
+    @Transactional
     public CartaoDTO salvar(CartaoDTO cartaoDTO) {
         Cartao cartao = converterParaEntidade(cartaoDTO);
+        Cartao atual = cartao.getId() != null ? bloquear(cartao.getId()) : null;
+        boolean cicloAlterado = atual != null && cicloAlterado(atual, cartao);
+        // O limite usado é mantido pelas despesas e não vem do cliente
+        cartao.setLimiteUsado(atual != null ? limiteUsado(atual) : 0.0);
         Cartao salvo = cartaoRepository.save(cartao);
+        if (cicloAlterado) {
+            faturaService.reconstruir(salvo.getId());
+        }
+        eventPublisher.publishEvent(new CadastroAlteradoEvent(this, TipoCadastro.CARTAO, salvo.getId()));
         
         // Registrar no histórico
         try {
@@ -58,9 +83,13 @@ public class CartaoService {
         return converterParaDTO(salvo);
     }
 
+    @Transactional
     public CartaoDTO atualizar(CartaoDTO cartaoDTO) {
         Cartao cartao = converterParaEntidade(cartaoDTO);
-        Double limiteUsado = calcularLimiteUsado(cartao.getId());
+        // Bloqueia o cartão: uma compra concorrente não pode consumir limite entre a validação e o save
+        Cartao atual = bloquear(cartao.getId());
+        Double limiteUsado = limiteUsado(atual);
+        boolean cicloAlterado = cicloAlterado(atual, cartao);
 
         if (cartao.getLimite() == null || cartao.getLimite() <= 0) {
             throw new NegocioException("Erro ao Atualizar", "422", "Limite do cartão deve ser maior que zero.");
@@ -70,7 +99,14 @@ public class CartaoService {
             throw new NegocioException("Erro ao Atualizar", "422", "Limite do cartão não pode ser menor que o limite usado.");
         }
 
+        cartao.setLimiteUsado(limiteUsado);
+
         Cartao salvo = cartaoRepository.save(cartao);
+        if (cicloAlterado) {
+            // Novo dia de fechamento ou vencimento: as despesas mudam de ciclo
+            faturaService.reconstruir(salvo.getId());
+        }
+        eventPublisher.publishEvent(new CadastroAlteradoEvent(this, TipoCadastro.CARTAO, salvo.getId()));
         
         // Registrar edição no histórico
         try {
@@ -118,7 +154,9 @@ public class CartaoService {
                 validarExclusao(id);
             }
             
+            faturaService.excluirPorCartao(id);
             cartaoRepository.deleteById(id);
+            eventPublisher.publishEvent(new CadastroAlteradoEvent(this, TipoCadastro.CARTAO, id));
             
             // Registrar exclusão no histórico
             if (cartao != null) {
@@ -139,14 +177,25 @@ public class CartaoService {
     }
 
     public Double calcularLimiteDisponivel(Long id) {
-        Cartao cartao = cartaoRepository.findById(id).orElseThrow(() -> new RuntimeException("Cartão não encontrado"));
-        Double totalDespesas = cartaoRepository.calcularTotalDespesasPorCartao(id);
-        return cartao.getLimite() - totalDespesas;
+        return utilizacaoCartaoService.buscarUtilizacao(id).getLimiteDisponivel();
     }
 
     public Double calcularLimiteUsado(Long id) {
-        Cartao cartao = cartaoRepository.findById(id).orElseThrow(() -> new RuntimeException("Cartão não encontrado"));
-        return cartaoRepository.calcularTotalDespesasPorCartao(id);
+        return utilizacaoCartaoService.buscarUtilizacao(id).getLimiteUsado();
+    }
+
+    private Cartao bloquear(Long id) {
+        return cartaoRepository.findByIdForUpdate(id).orElseThrow(() -> new RuntimeException("Cartão não encontrado"));
+    }
+
+    private static boolean cicloAlterado(Cartao atual, Cartao novo) {
+        return !Objects.equals(atual.getDiaFechamento(), novo.getDiaFechamento())
+                || !Objects.equals(atual.getDiaVencimento(), novo.getDiaVencimento());
+    }
+
+    // Limite usado mantido incrementalmente pelo LimiteCartaoService
+    private Double limiteUsado(Cartao cartao) {
+        return cartao.getLimiteUsado() != null ? cartao.getLimiteUsado() : 0.0;
     }
 
     private CartaoDTO converterParaDTO(Cartao cartao) {
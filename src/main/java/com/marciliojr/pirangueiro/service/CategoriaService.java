@@ -1,9 +1,12 @@
 package com.marciliojr.pirangueiro.service;
 
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent.TipoCadastro;
 import com.marciliojr.pirangueiro.model.Categoria;
 import com.marciliojr.pirangueiro.repository.CategoriaRepository;
 import com.marciliojr.pirangueiro.dto.CategoriaDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Comparator;
@@ -19,15 +22,21 @@ public class CategoriaService {
     @Autowired
     private HistoricoService historicoService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
     public List<CategoriaDTO> listarTodas() {
-        return categoriaRepository.findAll().stream()
+        return dadosReferenciaService.listarCategorias().stream()
                 .sorted(Comparator.comparing(Categoria::getTipoReceita).reversed())
                 .map(this::converterParaDTO)
                 .collect(Collectors.toList());
     }
 
     public CategoriaDTO buscarPorId(Long id) {
-        return categoriaRepository.findById(id)
+        return dadosReferenciaService.buscarCategoria(id)
                 .map(this::converterParaDTO)
                 .orElseThrow(() -> new RuntimeException("Categoria não encontrada"));
     }
@@ -41,6 +50,7 @@ public class CategoriaService {
     public CategoriaDTO salvar(CategoriaDTO categoriaDTO) {
         Categoria categoria = converterParaEntidade(categoriaDTO);
         Categoria salva = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(new CadastroAlteradoEvent(this, TipoCadastro.CATEGORIA, salva.getId()));
         
         // Registrar no histórico
         try {
@@ -65,6 +75,7 @@ public class CategoriaService {
             Categoria categoria = categoriaRepository.findById(id).orElse(null);
             
             categoriaRepository.deleteById(id);
+            eventPublisher.publishEvent(new CadastroAlteradoEvent(this, TipoCadastro.CATEGORIA, id));
             
             // Registrar exclusão no histórico
             if (categoria != null) {
@@ -0,0 +1,298 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.SaldoEmDataDTO;
+import com.marciliojr.pirangueiro.dto.SaldoMensalDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosNaTransacaoEvent;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.CheckpointSaldo;
+import com.marciliojr.pirangueiro.model.Conta;
+import com.marciliojr.pirangueiro.model.ResumoMensal;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.repository.CheckpointSaldoRepository;
+import com.marciliojr.pirangueiro.repository.DespesaRepository;
+import com.marciliojr.pirangueiro.repository.ReceitaRepository;
+import com.marciliojr.pirangueiro.repository.ResumoMensalRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saldo de uma conta em qualquer data a partir de checkpoints mensais.
+ *
+ * <p>O saldo de uma data é o checkpoint do mês anterior somado às receitas e despesas da conta
+ * do primeiro dia do mês até a data. Os checkpoints que faltam são criados a partir do último
+ * existente e dos resumos mensais da conta, então uma consulta não volta ao início do histórico
+ * depois da primeira vez.</p>
+ *
+ * <p>Aqui o saldo considera apenas os lançamentos da conta. Diferente de
+ * {@link SaldoContasService}, as despesas de cartão não pagas não entram.</p>
+ *
+ * <p>Uma escrita de lançamentos remove, na própria transação, os checkpoints das contas afetadas
+ * a partir do mês mais antigo alterado. Depois do commit a remoção é repetida e a geração muda,
+ * para que um checkpoint calculado com os dados anteriores não seja gravado.</p>
+ */
+@Service
+@Slf4j
+public class CheckpointSaldoService {
+
+    // Limite de meses de uma série de saldos
+    public static final int MAXIMO_MESES_SERIE = 600;
+
+    @Autowired
+    private CheckpointSaldoRepository checkpointSaldoRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private ReceitaRepository receitaRepository;
+
+    @Autowired
+    private DespesaRepository despesaRepository;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Transação própria: as remoções depois do commit não podem participar da transação já encerrada
+    private TransactionTemplate transacaoPropria;
+
+    // Incrementada a cada remoção feita depois do commit de uma escrita
+    private final AtomicLong geracao = new AtomicLong();
+
+    @PostConstruct
+    void configurarTransacao() {
+        transacaoPropria = new TransactionTemplate(transactionManager);
+        transacaoPropria.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public SaldoEmDataDTO calcularSaldoEm(Long contaId, LocalDate data) {
+        if (data == null) {
+            throw new NegocioException("A data é obrigatória");
+        }
+        Conta conta = buscarConta(contaId);
+
+        double saldoMesAnterior = saldoFinal(contaId, indice(YearMonth.from(data)) - 1);
+        LocalDate inicioMes = data.withDayOfMonth(1);
+        double receitas = receitaRepository.somarPorContaEPeriodo(contaId, inicioMes, data);
+        double despesas = despesaRepository.somarPorContaEPeriodo(contaId, inicioMes, data);
+
+        SaldoEmDataDTO saldo = new SaldoEmDataDTO();
+        saldo.setContaId(contaId);
+        saldo.setNomeConta(conta.getNome());
+        saldo.setData(data);
+        saldo.setSaldo(saldoMesAnterior + receitas - despesas);
+        return saldo;
+    }
+
+    /**
+     * Saldo ao fim de cada mês do intervalo, inclusive os meses sem lançamentos.
+     */
+    public List<SaldoMensalDTO> listarSaldosMensais(Long contaId, YearMonth inicio, YearMonth fim) {
+        if (inicio == null || fim == null || inicio.isAfter(fim)) {
+            throw new NegocioException("Período inválido: o mês inicial deve ser anterior ou igual ao final");
+        }
+        int indiceInicio = indice(inicio);
+        int indiceFim = indice(fim);
+        if (indiceFim - indiceInicio + 1 > MAXIMO_MESES_SERIE) {
+            throw new NegocioException("Período muito longo: máximo de " + MAXIMO_MESES_SERIE + " meses");
+        }
+        buscarConta(contaId);
+
+        // Garante a sequência de checkpoints até o último mês; antes do primeiro o saldo é zero
+        saldoFinal(contaId, indiceFim);
+        Map<Integer, Double> saldos = new HashMap<>();
+        for (CheckpointSaldo checkpoint : checkpointSaldoRepository
+                .findByContaIdAndIndiceMesBetweenOrderByIndiceMes(contaId, indiceInicio, indiceFim)) {
+            saldos.put(checkpoint.getIndiceMes(), checkpoint.getSaldoFinal());
+        }
+        // Checkpoints não gravados ou removidos por uma escrita concorrente: soma os resumos
+        if (!saldos.containsKey(indiceFim)) {
+            saldos.clear();
+            saldos.putAll(calcularSaldosFinais(contaId, indiceInicio, indiceFim));
+        }
+
+        List<SaldoMensalDTO> serie = new ArrayList<>();
+        double saldo = 0.0;
+        for (YearMonth mes = inicio; !mes.isAfter(fim); mes = mes.plusMonths(1)) {
+            saldo = saldos.getOrDefault(indice(mes), saldo);
+            serie.add(new SaldoMensalDTO(mes.getYear(), mes.getMonthValue(), saldo));
+        }
+        return serie;
+    }
+
+    private Conta buscarConta(Long contaId) {
+        return dadosReferenciaService.buscarConta(contaId)
+                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
+    }
+
+    // ==================== CHECKPOINTS ====================
+
+    /**
+     * Saldo da conta ao fim do mês, criando os checkpoints que faltam até ele.
+     */
+    private double saldoFinal(Long contaId, int indiceMes) {
+        Optional<CheckpointSaldo> anterior = checkpointSaldoRepository
+                .findFirstByContaIdAndIndiceMesLessThanEqualOrderByIndiceMesDesc(contaId, indiceMes);
+        if (anterior.isPresent() && anterior.get().getIndiceMes() == indiceMes) {
+            return anterior.get().getSaldoFinal();
+        }
+
+        long geracaoInicial = geracao.get();
+        int inicio = anterior.map(checkpoint -> checkpoint.getIndiceMes() + 1).orElse(0);
+        Map<Integer, Double> variacoes = variacoesMensais(contaId, inicio, indiceMes);
+        if (anterior.isEmpty()) {
+            // Sem checkpoint: a sequência começa no primeiro mês com lançamentos
+            inicio = variacoes.keySet().stream().min(Integer::compare).orElse(indiceMes);
+        }
+
+        double saldo = anterior.map(CheckpointSaldo::getSaldoFinal).orElse(0.0);
+        List<CheckpointSaldo> novos = new ArrayList<>();
+        for (int indice = inicio; indice <= indiceMes; indice++) {
+            saldo += variacoes.getOrDefault(indice, 0.0);
+            novos.add(novoCheckpoint(contaId, indice, saldo));
+        }
+
+        if (geracao.get() == geracaoInicial) {
+            gravar(novos);
+        }
+        return saldo;
+    }
+
+    private Map<Integer, Double> calcularSaldosFinais(Long contaId, int indiceInicio, int indiceFim) {
+        Map<Integer, Double> variacoes = variacoesMensais(contaId, 0, indiceFim);
+        Map<Integer, Double> saldos = new HashMap<>();
+        double saldo = variacoes.entrySet().stream()
+                .filter(variacao -> variacao.getKey() < indiceInicio)
+                .mapToDouble(Map.Entry::getValue)
+                .sum();
+        for (int indice = indiceInicio; indice <= indiceFim; indice++) {
+            saldo += variacoes.getOrDefault(indice, 0.0);
+            saldos.put(indice, saldo);
+        }
+        return saldos;
+    }
+
+    // Receitas menos despesas da conta por mês, a partir dos resumos mensais
+    private Map<Integer, Double> variacoesMensais(Long contaId, int inicio, int fim) {
+        Map<Integer, Double> variacoes = new HashMap<>();
+        for (Object[] linha : resumoMensalRepository.somarPorContaEMes(contaId, inicio, fim)) {
+            int indice = ((Number) linha[0]).intValue() * 12 + ((Number) linha[1]).intValue();
+            double total = ((Number) linha[3]).doubleValue();
+            variacoes.merge(indice, linha[2] == TipoLancamento.RECEITA ? total : -total, Double::sum);
+        }
+        return variacoes;
+    }
+
+    private void gravar(List<CheckpointSaldo> novos) {
+        try {
+            transacaoPropria.executeWithoutResult(status -> checkpointSaldoRepository.saveAll(novos));
+        } catch (DataIntegrityViolationException e) {
+            // Outra consulta gravou os mesmos meses ao mesmo tempo
+            log.debug("Checkpoints de saldo já gravados por outra consulta: {}", e.getMessage());
+        }
+    }
+
+    private static CheckpointSaldo novoCheckpoint(Long contaId, int indiceMes, double saldoFinal) {
+        // Dezembro tem índice múltiplo de 12
+        int ano = (indiceMes - 1) / 12;
+        int mes = indiceMes - ano * 12;
+        CheckpointSaldo checkpoint = new CheckpointSaldo();
+        checkpoint.setContaId(contaId);
+        checkpoint.setAno(ano);
+        checkpoint.setMes(mes);
+        checkpoint.setIndiceMes(indiceMes);
+        checkpoint.setSaldoFinal(saldoFinal);
+        return checkpoint;
+    }
+
+    private static int indice(YearMonth mes) {
+        return mes.getYear() * 12 + mes.getMonthValue();
+    }
+
+    // ==================== INVALIDAÇÃO ====================
+
+    /**
+     * Participa da transação da escrita dos lançamentos.
+     */
+    @EventListener
+    @Order(4)
+    @Transactional
+    public void onLancamentosAlterados(LancamentosNaTransacaoEvent event) {
+        mesesAlteradosPorConta(event).forEach(checkpointSaldoRepository::removerAPartirDe);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosConfirmados(LancamentosAlteradosEvent event) {
+        Map<Long, Integer> meses = mesesAlteradosPorConta(event);
+        if (meses.isEmpty()) {
+            return;
+        }
+        geracao.incrementAndGet();
+        transacaoPropria.executeWithoutResult(status -> meses.forEach(checkpointSaldoRepository::removerAPartirDe));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        Map<Long, Integer> meses = new HashMap<>();
+        event.getPrimeiroMesPorConta().forEach((contaId, mes) -> meses.put(contaId, indice(mes)));
+        if (meses.isEmpty()) {
+            return;
+        }
+        geracao.incrementAndGet();
+        transacaoPropria.executeWithoutResult(status -> meses.forEach(checkpointSaldoRepository::removerAPartirDe));
+    }
+
+    // Mês mais antigo alterado de cada conta afetada
+    private static Map<Long, Integer> mesesAlteradosPorConta(LancamentosNaTransacaoEvent event) {
+        Map<Long, Integer> meses = new HashMap<>();
+        adicionarMeses(event.getAnteriores(), meses);
+        adicionarMeses(event.getNovas(), meses);
+        return meses;
+    }
+
+    private static void adicionarMeses(Collection<SituacaoLancamentoDTO> situacoes, Map<Long, Integer> meses) {
+        if (situacoes == null) {
+            return;
+        }
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao != null && situacao.data() != null && situacao.contaId() != null
+                    && situacao.contaId() != ResumoMensal.SEM_REFERENCIA) {
+                meses.merge(situacao.contaId(), indice(YearMonth.from(situacao.data())), Math::min);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidarTodos();
+        }
+    }
+
+    public void invalidarTodos() {
+        geracao.incrementAndGet();
+        transacaoPropria.executeWithoutResult(status -> checkpointSaldoRepository.deleteAllInBatch());
+    }
+}
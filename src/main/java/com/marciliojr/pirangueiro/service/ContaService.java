@@ -2,10 +2,13 @@ package com.marciliojr.pirangueiro.service;
 
 import com.marciliojr.pirangueiro.dto.ContaDTO;
 import com.marciliojr.pirangueiro.dto.SaldoContaDTO;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent.TipoCadastro;
 import com.marciliojr.pirangueiro.exception.NegocioException;
 import com.marciliojr.pirangueiro.model.Conta;
 import com.marciliojr.pirangueiro.repository.ContaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -21,14 +24,23 @@ public class ContaService {
     @Autowired
     private HistoricoService historicoService;
 
+    @Autowired
+    private SaldoContasService saldoContasService;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<ContaDTO> listarTodas() {
-        return contaRepository.findAll().stream()
+        return dadosReferenciaService.listarContas().stream()
                 .map(this::converterParaDTO)
                 .collect(Collectors.toList());
     }
 
     public ContaDTO buscarPorId(Long id) {
-        return contaRepository.findById(id)
+        return dadosReferenciaService.buscarConta(id)
                 .map(this::converterParaDTO)
                 .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
     }
@@ -48,6 +60,7 @@ public class ContaService {
             
             Conta conta = converterParaEntidade(contaDTO);
             Conta salva = contaRepository.save(conta);
+            eventPublisher.publishEvent(new CadastroAlteradoEvent(this, TipoCadastro.CONTA, salva.getId()));
             
             // Registrar no histórico
             try {
@@ -84,6 +97,7 @@ public class ContaService {
             Conta conta = contaRepository.findById(id).orElse(null);
             
             contaRepository.deleteById(id);
+            eventPublisher.publishEvent(new CadastroAlteradoEvent(this, TipoCadastro.CONTA, id));
             
             // Registrar exclusão no histórico
             if (conta != null) {
@@ -106,46 +120,11 @@ public class ContaService {
      * @return DTO com informações detalhadas do saldo
      */
     public SaldoContaDTO calcularSaldoConta(Long contaId, Integer mes, Integer ano) {
-        Conta conta = contaRepository.findById(contaId)
-                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
-
-        Double totalReceitas;
-        Double totalDespesas;
-        Double totalDespesasCartao;
-
-        if (mes == null || ano == null) {
-            // Se não informar mês e ano, calcula o total geral
-            totalReceitas = contaRepository.calcularTotalReceitasPorConta(contaId);
-            totalDespesas = contaRepository.calcularTotalDespesasPorConta(contaId);
-            totalDespesasCartao = contaRepository.calcularTotalDespesasCartaoNaoPagas();
-        } else {
-            // Se informar mês e ano, calcula apenas do período específico
-            totalReceitas = contaRepository.calcularTotalReceitasPorContaEMes(contaId, mes, ano);
-            totalDespesas = contaRepository.calcularTotalDespesasPorContaEMes(contaId, mes, ano);
-            totalDespesasCartao = contaRepository.calcularTotalDespesasCartaoNaoPagasPorMesAno(mes, ano);
-        }
+        return saldoContasService.buscarSaldo(contaId, mes, ano);
+    }
 
-        // Garantir que os valores não sejam null
-        totalReceitas = totalReceitas != null ? totalReceitas : 0.0;
-        totalDespesas = totalDespesas != null ? totalDespesas : 0.0;
-        totalDespesasCartao = totalDespesasCartao != null ? totalDespesasCartao : 0.0;
-
-        // Somar despesas diretas da conta + despesas de cartão não pagas
-        Double totalDespesasCompleto = totalDespesas + totalDespesasCartao;
-        Double saldo = totalReceitas - totalDespesasCompleto;
-
-        SaldoContaDTO saldoDTO = new SaldoContaDTO();
-        saldoDTO.setContaId(contaId);
-        saldoDTO.setNomeConta(conta.getNome());
-        saldoDTO.setTotalReceitas(totalReceitas);
-        saldoDTO.setTotalDespesas(totalDespesasCompleto);
-        saldoDTO.setTotalDespesasConta(totalDespesas);
-        saldoDTO.setTotalDespesasCartao(totalDespesasCartao);
-        saldoDTO.setSaldo(saldo);
-        saldoDTO.setMes(mes);
-        saldoDTO.setAno(ano);
-
-        return saldoDTO;
+    public List<SaldoContaDTO> listarSaldos(Integer mes, Integer ano) {
+        return saldoContasService.listarSaldos(mes, ano);
     }
 
     public boolean existeDespesaAssociadaConta(Long contaId) {
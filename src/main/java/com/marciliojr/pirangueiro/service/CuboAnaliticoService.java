@@ -0,0 +1,533 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.model.ResumoMensal;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.repository.CartaoRepository;
+import com.marciliojr.pirangueiro.repository.CategoriaRepository;
+import com.marciliojr.pirangueiro.repository.ContaRepository;
+import com.marciliojr.pirangueiro.repository.ResumoMensalRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Cubo analítico em memória com os totais de despesas e receitas por mês, categoria, cartão e conta.
+ *
+ * <p>Cada tipo de lançamento guarda dois vetores densos ({@code double[]}), de total e de quantidade,
+ * indexados por (mês × categoria × cartão × conta). O cubo é carregado dos resumos mensais na subida
+ * da aplicação e atualizado após o commit de cada escrita de lançamentos
+ * ({@link LancamentosAlteradosEvent}), de modo que os gráficos são respondidos sem consultar o banco.</p>
+ *
+ * <p>Lançamentos com mês, categoria, cartão ou conta fora das dimensões atuais, alterações de
+ * cadastros e a restauração de backup fazem o cubo ser recarregado por inteiro. Uma alteração
+ * confirmada antes do fim da carga do cubo pode já estar nos resumos lidos; nesse caso o cubo é
+ * descartado em vez de somá-la de novo.</p>
+ */
+@Service
+@Slf4j
+public class CuboAnaliticoService {
+
+    // Meses reservados antes e depois do período com lançamentos, para que novas datas não exijam recarga
+    private static final int FOLGA_MESES = 24;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CartaoRepository cartaoRepository;
+
+    @Autowired
+    private ContaRepository contaRepository;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegido por lock; nulo até a primeira carga ou após falha na atualização
+    private Cubo cubo;
+
+    public record TotalCategoria(Long categoriaId, String nome, double total, long quantidade) {
+    }
+
+    public record TotalMes(YearMonth mes, double total, long quantidade) {
+    }
+
+    /**
+     * Totais de um mês do ano (1 a 12) em cada ano do histórico, do mais antigo para o mais recente.
+     */
+    public record TotaisMesDoAno(int mes, List<Double> totaisAnuais) {
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Totais das categorias com lançamentos no mês, do maior para o menor total.
+     * Com {@code mes} nulo, considera todo o histórico.
+     */
+    public List<TotalCategoria> totaisPorCategoria(TipoLancamento tipo, YearMonth mes) {
+        return consultar(c -> c.totaisPorCategoria(tipo, mes));
+    }
+
+    /**
+     * Total e quantidade de lançamentos do mês. Com {@code mes} nulo, considera todo o histórico.
+     */
+    public TotalMes totalDoMes(TipoLancamento tipo, YearMonth mes) {
+        return consultar(c -> c.totalDoMes(tipo, mes));
+    }
+
+    /**
+     * Totais dos meses do período que possuem lançamentos, em ordem cronológica.
+     */
+    public List<TotalMes> totaisPorMes(TipoLancamento tipo, YearMonth inicio, YearMonth fim) {
+        return consultar(c -> c.totaisPorMes(tipo, inicio, fim));
+    }
+
+    /**
+     * Total de cada mês do ano (janeiro a dezembro) em cada ano, para estatísticas de sazonalidade.
+     * Entram os meses entre o primeiro com lançamentos e o último com lançamentos que não seja
+     * futuro; nesse intervalo, meses sem lançamentos contam com total zero. Meses do ano que não
+     * ocorrem no intervalo ficam de fora.
+     */
+    public List<TotaisMesDoAno> totaisAnuaisPorMesDoAno(TipoLancamento tipo) {
+        int mesAtual = indiceMes(YearMonth.now());
+        return consultar(c -> c.totaisAnuaisPorMesDoAno(tipo, mesAtual));
+    }
+
+    /**
+     * Despesas de cada cartão mês a mês no período, por nome do cartão. Cartões sem despesas no
+     * período não aparecem.
+     */
+    public Map<String, double[]> despesasPorCartao(YearMonth inicio, YearMonth fim) {
+        return consultar(c -> c.despesasPorCartao(inicio, fim));
+    }
+
+    private <T> T consultar(Function<Cubo, T> consulta) {
+        lock.readLock().lock();
+        try {
+            if (cubo != null) {
+                return consulta.apply(cubo);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (cubo == null) {
+                cubo = montar();
+            }
+            return consulta.apply(cubo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== CARGA E ATUALIZAÇÃO ====================
+
+    /**
+     * Carrega o cubo depois que os resumos mensais foram gerados na subida da aplicação.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void inicializarCubo() {
+        try {
+            recarregar();
+        } catch (Exception e) {
+            log.error("Erro ao carregar cubo analítico: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recarrega o cubo a partir dos resumos mensais.
+     */
+    public void recarregar() {
+        lock.writeLock().lock();
+        try {
+            cubo = montar();
+            log.info("Cubo analítico carregado: {} meses, {} categorias, {} cartões, {} contas",
+                    cubo.quantidadeMeses, cubo.categorias.length, cubo.cartoes.length, cubo.quantidadeContas);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica as variações dos lançamentos confirmados. Se algum lançamento cair fora das dimensões
+     * do cubo, recarrega tudo dos resumos mensais, que já contêm a alteração.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosAlterados(LancamentosAlteradosEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (cubo == null) {
+                // A próxima consulta carrega o cubo já com a alteração
+                return;
+            }
+            if (versaoDadosService.podeEstarNaCarga(event, cubo.confirmacoes)) {
+                // Cubo montado entre o commit e este ouvinte: a próxima consulta o recarrega
+                cubo = null;
+                return;
+            }
+            if (cubo.contem(event.getTipo(), event.getAnteriores()) && cubo.contem(event.getTipo(), event.getNovas())) {
+                cubo.aplicar(event.getTipo(), event.getAnteriores(), -1);
+                cubo.aplicar(event.getTipo(), event.getNovas(), 1);
+            } else {
+                cubo = montar();
+            }
+        } catch (Exception e) {
+            log.error("Erro ao atualizar cubo analítico, ele será recarregado na próxima consulta: {}", e.getMessage(), e);
+            cubo = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Novas categorias e cartões entram como dimensões e nomes alterados precisam ser refletidos.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCadastroAlterado(CadastroAlteradoEvent event) {
+        invalidar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        invalidar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidar();
+        }
+    }
+
+    /**
+     * Descarta o cubo; a próxima consulta o recarrega dos resumos mensais.
+     */
+    public void invalidar() {
+        lock.writeLock().lock();
+        try {
+            cubo = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Cubo montar() {
+        List<ResumoMensal> resumos = resumoMensalRepository.findAll();
+
+        TreeMap<Long, String> categorias = new TreeMap<>();
+        categorias.put(ResumoMensal.SEM_REFERENCIA, null);
+        categoriaRepository.findAll().forEach(categoria -> categorias.put(categoria.getId(), categoria.getNome()));
+
+        TreeMap<Long, String> cartoes = new TreeMap<>();
+        cartoes.put(ResumoMensal.SEM_REFERENCIA, null);
+        cartaoRepository.findAll().forEach(cartao -> cartoes.put(cartao.getId(), cartao.getNome()));
+
+        TreeSet<Long> contas = new TreeSet<>();
+        contas.add(ResumoMensal.SEM_REFERENCIA);
+        contaRepository.listarIdsENomes().forEach(conta -> contas.add((Long) conta[0]));
+
+        int atual = indiceMes(YearMonth.now());
+        int primeiroMes = atual - FOLGA_MESES;
+        int ultimoMes = atual + FOLGA_MESES;
+        for (ResumoMensal resumo : resumos) {
+            int mes = resumo.getAno() * 12 + resumo.getMes() - 1;
+            primeiroMes = Math.min(primeiroMes, mes - FOLGA_MESES);
+            ultimoMes = Math.max(ultimoMes, mes + FOLGA_MESES);
+            // Lançamentos de cadastros já excluídos continuam somando nos totais
+            categorias.putIfAbsent(resumo.getCategoriaId(), null);
+            cartoes.putIfAbsent(resumo.getCartaoId(), null);
+            contas.add(resumo.getContaId());
+        }
+
+        Cubo novo = new Cubo(primeiroMes, ultimoMes - primeiroMes + 1, categorias, cartoes, contas);
+        for (ResumoMensal resumo : resumos) {
+            novo.somar(resumo.getTipo(), resumo.getAno() * 12 + resumo.getMes() - 1, resumo.getCategoriaId(),
+                    resumo.getCartaoId(), resumo.getContaId(), resumo.getTotal(), resumo.getQuantidade());
+        }
+        // Lido depois dos resumos: alterações numeradas depois disso não estão no cubo
+        novo.confirmacoes = versaoDadosService.confirmacoes();
+        return novo;
+    }
+
+    private static int indiceMes(YearMonth mes) {
+        return mes.getYear() * 12 + mes.getMonthValue() - 1;
+    }
+
+    private static YearMonth mesDoIndice(int indice) {
+        return YearMonth.of(Math.floorDiv(indice, 12), Math.floorMod(indice, 12) + 1);
+    }
+
+    private static long referencia(Long id) {
+        return id != null ? id : ResumoMensal.SEM_REFERENCIA;
+    }
+
+    /**
+     * Vetores do cubo. Posição de uma célula: ((mês × categorias + categoria) × cartões + cartão) × contas + conta.
+     * Receitas não têm cartão, então usam uma única posição nessa dimensão.
+     */
+    private static final class Cubo {
+
+        private final int primeiroMes;
+        private final int quantidadeMeses;
+        private final long[] categorias;
+        private final String[] nomesCategorias;
+        private final long[] cartoes;
+        private final String[] nomesCartoes;
+        private final int quantidadeContas;
+        private final Map<Long, Integer> indiceCategorias = new HashMap<>();
+        private final Map<Long, Integer> indiceCartoes = new HashMap<>();
+        private final Map<Long, Integer> indiceContas = new HashMap<>();
+        private final Map<TipoLancamento, double[]> totais = new EnumMap<>(TipoLancamento.class);
+        private final Map<TipoLancamento, double[]> quantidades = new EnumMap<>(TipoLancamento.class);
+        private long confirmacoes;
+
+        private Cubo(int primeiroMes, int quantidadeMeses, SortedMap<Long, String> categorias,
+                     SortedMap<Long, String> cartoes, SortedSet<Long> contas) {
+            this.primeiroMes = primeiroMes;
+            this.quantidadeMeses = quantidadeMeses;
+            this.categorias = new long[categorias.size()];
+            this.nomesCategorias = new String[categorias.size()];
+            this.cartoes = new long[cartoes.size()];
+            this.nomesCartoes = new String[cartoes.size()];
+            this.quantidadeContas = contas.size();
+
+            int i = 0;
+            for (Map.Entry<Long, String> categoria : categorias.entrySet()) {
+                this.categorias[i] = categoria.getKey();
+                this.nomesCategorias[i] = categoria.getValue();
+                indiceCategorias.put(categoria.getKey(), i++);
+            }
+            i = 0;
+            for (Map.Entry<Long, String> cartao : cartoes.entrySet()) {
+                this.cartoes[i] = cartao.getKey();
+                this.nomesCartoes[i] = cartao.getValue();
+                indiceCartoes.put(cartao.getKey(), i++);
+            }
+            i = 0;
+            for (Long conta : contas) {
+                indiceContas.put(conta, i++);
+            }
+
+            for (TipoLancamento tipo : TipoLancamento.values()) {
+                int celulas = quantidadeMeses * bloco(tipo);
+                totais.put(tipo, new double[celulas]);
+                quantidades.put(tipo, new double[celulas]);
+            }
+        }
+
+        private int cartoes(TipoLancamento tipo) {
+            return tipo == TipoLancamento.DESPESA ? cartoes.length : 1;
+        }
+
+        // Células de um mês
+        private int bloco(TipoLancamento tipo) {
+            return categorias.length * cartoes(tipo) * quantidadeContas;
+        }
+
+        private boolean contemMes(int mes) {
+            return mes >= primeiroMes && mes < primeiroMes + quantidadeMeses;
+        }
+
+        private boolean contem(TipoLancamento tipo, Collection<SituacaoLancamentoDTO> situacoes) {
+            for (SituacaoLancamentoDTO situacao : situacoes) {
+                if (situacao == null || situacao.data() == null || situacao.valor() == null) {
+                    continue;
+                }
+                if (!contemMes(indiceMes(YearMonth.from(situacao.data())))
+                        || !indiceCategorias.containsKey(referencia(situacao.categoriaId()))
+                        || !indiceContas.containsKey(referencia(situacao.contaId()))
+                        || (tipo == TipoLancamento.DESPESA && !indiceCartoes.containsKey(referencia(situacao.cartaoId())))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void aplicar(TipoLancamento tipo, Collection<SituacaoLancamentoDTO> situacoes, int sinal) {
+            for (SituacaoLancamentoDTO situacao : situacoes) {
+                if (situacao == null || situacao.data() == null || situacao.valor() == null) {
+                    continue;
+                }
+                somar(tipo, indiceMes(YearMonth.from(situacao.data())), referencia(situacao.categoriaId()),
+                        referencia(situacao.cartaoId()), referencia(situacao.contaId()),
+                        sinal * situacao.valor(), sinal);
+            }
+        }
+
+        private void somar(TipoLancamento tipo, int mes, long categoriaId, long cartaoId, long contaId,
+                           double total, long quantidade) {
+            int cartao = tipo == TipoLancamento.DESPESA ? indiceCartoes.get(cartaoId) : 0;
+            int posicao = ((mes - primeiroMes) * categorias.length + indiceCategorias.get(categoriaId))
+                    * cartoes(tipo) + cartao;
+            posicao = posicao * quantidadeContas + indiceContas.get(contaId);
+            totais.get(tipo)[posicao] += total;
+            quantidades.get(tipo)[posicao] += quantidade;
+        }
+
+        // Intervalo [primeiro, último] de índices de mês consultados; nulo para todo o histórico
+        private int[] meses(YearMonth inicio, YearMonth fim) {
+            int primeiro = inicio != null ? Math.max(indiceMes(inicio), primeiroMes) : primeiroMes;
+            int ultimo = fim != null ? Math.min(indiceMes(fim), primeiroMes + quantidadeMeses - 1)
+                    : primeiroMes + quantidadeMeses - 1;
+            return new int[]{primeiro, ultimo};
+        }
+
+        private List<TotalCategoria> totaisPorCategoria(TipoLancamento tipo, YearMonth mes) {
+            double[] total = new double[categorias.length];
+            double[] quantidade = new double[categorias.length];
+            double[] vetorTotais = totais.get(tipo);
+            double[] vetorQuantidades = quantidades.get(tipo);
+            int celulasCategoria = cartoes(tipo) * quantidadeContas;
+
+            int[] meses = meses(mes, mes);
+            for (int m = meses[0]; m <= meses[1]; m++) {
+                int posicao = (m - primeiroMes) * bloco(tipo);
+                for (int c = 0; c < categorias.length; c++) {
+                    for (int fim = posicao + celulasCategoria; posicao < fim; posicao++) {
+                        total[c] += vetorTotais[posicao];
+                        quantidade[c] += vetorQuantidades[posicao];
+                    }
+                }
+            }
+
+            List<TotalCategoria> resultado = new ArrayList<>();
+            for (int c = 0; c < categorias.length; c++) {
+                if (quantidade[c] > 0 && nomesCategorias[c] != null) {
+                    resultado.add(new TotalCategoria(categorias[c], nomesCategorias[c], total[c], (long) quantidade[c]));
+                }
+            }
+            resultado.sort(Comparator.comparingDouble(TotalCategoria::total).reversed());
+            return resultado;
+        }
+
+        private TotalMes totalDoMes(TipoLancamento tipo, YearMonth mes) {
+            double total = 0;
+            double quantidade = 0;
+            int[] meses = meses(mes, mes);
+            for (int m = meses[0]; m <= meses[1]; m++) {
+                double[] soma = somarMes(tipo, m);
+                total += soma[0];
+                quantidade += soma[1];
+            }
+            return new TotalMes(mes, total, (long) quantidade);
+        }
+
+        private List<TotalMes> totaisPorMes(TipoLancamento tipo, YearMonth inicio, YearMonth fim) {
+            List<TotalMes> resultado = new ArrayList<>();
+            int[] meses = meses(inicio, fim);
+            for (int m = meses[0]; m <= meses[1]; m++) {
+                double[] soma = somarMes(tipo, m);
+                if (soma[1] > 0) {
+                    resultado.add(new TotalMes(mesDoIndice(m), soma[0], (long) soma[1]));
+                }
+            }
+            return resultado;
+        }
+
+        private List<TotaisMesDoAno> totaisAnuaisPorMesDoAno(TipoLancamento tipo, int mesAtual) {
+            double[] totaisMeses = new double[quantidadeMeses];
+            int primeiroComLancamentos = -1;
+            int ultimoComLancamentos = -1;
+            for (int m = primeiroMes; m < primeiroMes + quantidadeMeses && m <= mesAtual; m++) {
+                double[] soma = somarMes(tipo, m);
+                totaisMeses[m - primeiroMes] = soma[0];
+                if (soma[1] > 0) {
+                    if (primeiroComLancamentos < 0) {
+                        primeiroComLancamentos = m;
+                    }
+                    ultimoComLancamentos = m;
+                }
+            }
+
+            List<List<Double>> totaisPorMesDoAno = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                totaisPorMesDoAno.add(new ArrayList<>());
+            }
+            if (primeiroComLancamentos >= 0) {
+                for (int m = primeiroComLancamentos; m <= ultimoComLancamentos; m++) {
+                    totaisPorMesDoAno.get(Math.floorMod(m, 12)).add(totaisMeses[m - primeiroMes]);
+                }
+            }
+
+            List<TotaisMesDoAno> resultado = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                if (!totaisPorMesDoAno.get(i).isEmpty()) {
+                    resultado.add(new TotaisMesDoAno(i + 1, totaisPorMesDoAno.get(i)));
+                }
+            }
+            return resultado;
+        }
+
+        // Retorna [total, quantidade] do mês
+        private double[] somarMes(TipoLancamento tipo, int mes) {
+            double[] vetorTotais = totais.get(tipo);
+            double[] vetorQuantidades = quantidades.get(tipo);
+            double total = 0;
+            double quantidade = 0;
+            int inicio = (mes - primeiroMes) * bloco(tipo);
+            for (int posicao = inicio, fim = inicio + bloco(tipo); posicao < fim; posicao++) {
+                total += vetorTotais[posicao];
+                quantidade += vetorQuantidades[posicao];
+            }
+            return new double[]{total, quantidade};
+        }
+
+        private Map<String, double[]> despesasPorCartao(YearMonth inicio, YearMonth fim) {
+            int totalMeses = indiceMes(fim) - indiceMes(inicio) + 1;
+            double[][] valores = new double[cartoes.length][Math.max(totalMeses, 0)];
+            double[] quantidade = new double[cartoes.length];
+            double[] vetorTotais = totais.get(TipoLancamento.DESPESA);
+            double[] vetorQuantidades = quantidades.get(TipoLancamento.DESPESA);
+
+            int[] meses = meses(inicio, fim);
+            for (int m = meses[0]; m <= meses[1]; m++) {
+                int coluna = m - indiceMes(inicio);
+                int posicao = (m - primeiroMes) * bloco(TipoLancamento.DESPESA);
+                for (int c = 0; c < categorias.length; c++) {
+                    for (int k = 0; k < cartoes.length; k++) {
+                        for (int fimContas = posicao + quantidadeContas; posicao < fimContas; posicao++) {
+                            valores[k][coluna] += vetorTotais[posicao];
+                            quantidade[k] += vetorQuantidades[posicao];
+                        }
+                    }
+                }
+            }
+
+            // Cartões com o mesmo nome aparecem juntos no gráfico
+            Map<String, double[]> resultado = new TreeMap<>();
+            for (int k = 0; k < cartoes.length; k++) {
+                if (quantidade[k] > 0 && nomesCartoes[k] != null) {
+                    double[] serie = resultado.computeIfAbsent(nomesCartoes[k], nome -> new double[valores[0].length]);
+                    for (int i = 0; i < serie.length; i++) {
+                        serie[i] += valores[k][i];
+                    }
+                }
+            }
+            return resultado;
+        }
+    }
+}
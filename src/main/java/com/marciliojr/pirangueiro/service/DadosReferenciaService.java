@@ -0,0 +1,176 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent.TipoCadastro;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.model.Cartao;
+import com.marciliojr.pirangueiro.model.Categoria;
+import com.marciliojr.pirangueiro.model.Conta;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.repository.CartaoRepository;
+import com.marciliojr.pirangueiro.repository.CategoriaRepository;
+import com.marciliojr.pirangueiro.repository.ContaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache em memória dos cadastros de referência: categorias, contas e cartões.
+ *
+ * <p>São tabelas pequenas e raramente alteradas, lidas a cada listagem, dashboard e relatório.
+ * O cache guarda a lista completa e os registros buscados por ID de cada cadastro. Após o commit
+ * de uma alteração ({@link CadastroAlteradoEvent}) são descartadas apenas a lista e o registro
+ * alterados; a restauração de backup descarta tudo.</p>
+ *
+ * <p>O limite usado dos cartões muda a cada despesa de cartão, então as despesas também
+ * descartam os cartões afetados. As entidades devolvidas são compartilhadas entre as requisições
+ * e não devem ser alteradas.</p>
+ */
+@Service
+@Slf4j
+public class DadosReferenciaService {
+
+    private static final long TAMANHO_MAXIMO = 2000;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ContaRepository contaRepository;
+
+    @Autowired
+    private CartaoRepository cartaoRepository;
+
+    private final Cache<Chave, Object> cache = Caffeine.newBuilder()
+            .maximumSize(TAMANHO_MAXIMO)
+            .recordStats()
+            .build();
+
+    // id nulo: lista completa do cadastro
+    private record Chave(TipoCadastro tipo, Long id) {
+    }
+
+    public List<Categoria> listarCategorias() {
+        return lista(TipoCadastro.CATEGORIA, categoriaRepository::findAll);
+    }
+
+    public Optional<Categoria> buscarCategoria(Long id) {
+        return registro(TipoCadastro.CATEGORIA, id, categoriaRepository::findById);
+    }
+
+    public List<Conta> listarContas() {
+        return lista(TipoCadastro.CONTA, contaRepository::findAll);
+    }
+
+    public Optional<Conta> buscarConta(Long id) {
+        return registro(TipoCadastro.CONTA, id, contaRepository::findById);
+    }
+
+    public List<Cartao> listarCartoes() {
+        return lista(TipoCadastro.CARTAO, cartaoRepository::findAll);
+    }
+
+    public Optional<Cartao> buscarCartao(Long id) {
+        return registro(TipoCadastro.CARTAO, id, cartaoRepository::findById);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> lista(TipoCadastro tipo, Supplier<List<T>> carregar) {
+        return (List<T>) cache.get(new Chave(tipo, null), chave -> List.copyOf(carregar.get()));
+    }
+
+    // Registros inexistentes não ficam no cache
+    @SuppressWarnings("unchecked")
+    private <T> Optional<T> registro(TipoCadastro tipo, Long id, Function<Long, Optional<T>> carregar) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable((T) cache.get(new Chave(tipo, id), chave -> carregar.apply(id).orElse(null)));
+    }
+
+    // ==================== INVALIDAÇÃO ====================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCadastroAlterado(CadastroAlteradoEvent event) {
+        invalidar(event.getTipoCadastro(), event.getId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosAlterados(LancamentosAlteradosEvent event) {
+        if (event.getTipo() != TipoLancamento.DESPESA) {
+            return;
+        }
+        Set<Long> cartoes = new HashSet<>();
+        adicionarCartoes(event.getAnteriores(), cartoes);
+        adicionarCartoes(event.getNovas(), cartoes);
+        cartoes.forEach(cartaoId -> invalidar(TipoCadastro.CARTAO, cartaoId));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        event.getCartoes().forEach(cartaoId -> invalidar(TipoCadastro.CARTAO, cartaoId));
+    }
+
+    private static void adicionarCartoes(Collection<SituacaoLancamentoDTO> situacoes, Set<Long> cartoes) {
+        if (situacoes == null) {
+            return;
+        }
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao != null && situacao.cartaoId() != null) {
+                cartoes.add(situacao.cartaoId());
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidarTudo();
+        }
+    }
+
+    /**
+     * Descarta a lista do cadastro e, se informado, o registro alterado.
+     */
+    public void invalidar(TipoCadastro tipo, Long id) {
+        cache.invalidate(new Chave(tipo, null));
+        if (id != null) {
+            cache.invalidate(new Chave(tipo, id));
+        }
+    }
+
+    public void invalidarTudo() {
+        cache.invalidateAll();
+        log.info("Cache de dados de referência descartado");
+    }
+
+    /**
+     * Estatísticas acumuladas do cache desde a subida da aplicação.
+     */
+    public Map<String, Object> estatisticas() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("entradas", cache.estimatedSize());
+        estatisticas.put("tamanhoMaximo", TAMANHO_MAXIMO);
+        estatisticas.put("requisicoes", stats.requestCount());
+        estatisticas.put("acertos", stats.hitCount());
+        estatisticas.put("faltas", stats.missCount());
+        estatisticas.put("taxaAcerto", stats.hitRate());
+        estatisticas.put("carregamentos", stats.loadCount());
+        estatisticas.put("tempoMedioCargaMicros", stats.averageLoadPenalty() / 1000);
+        estatisticas.put("remocoesPorTamanho", stats.evictionCount());
+        return estatisticas;
+    }
+}
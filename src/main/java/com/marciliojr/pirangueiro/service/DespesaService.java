@@ -4,22 +4,38 @@ import com.marciliojr.pirangueiro.dto.CartaoDTO;
 import com.marciliojr.pirangueiro.dto.CategoriaDTO;
 import com.marciliojr.pirangueiro.dto.ContaDTO;
 import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.dto.FaturaDTO;
+import com.marciliojr.pirangueiro.dto.ResultadoOperacaoLoteDTO;
+import com.marciliojr.pirangueiro.dto.SelecaoDespesasDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
 import com.marciliojr.pirangueiro.exception.NegocioException;
 import com.marciliojr.pirangueiro.model.Cartao;
 import com.marciliojr.pirangueiro.model.Categoria;
 import com.marciliojr.pirangueiro.model.Conta;
 import com.marciliojr.pirangueiro.model.Despesa;
+import com.marciliojr.pirangueiro.model.Historico;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
 import com.marciliojr.pirangueiro.repository.CartaoRepository;
+import com.marciliojr.pirangueiro.repository.CategoriaRepository;
+import com.marciliojr.pirangueiro.repository.ContaRepository;
 import com.marciliojr.pirangueiro.repository.DespesaRepository;
+import com.marciliojr.pirangueiro.util.HashLancamentoUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,9 +47,27 @@ public class DespesaService {
     @Autowired
     private CartaoRepository cartaoRepository;
 
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ContaRepository contaRepository;
+
     @Autowired
     private HistoricoService historicoService;
 
+    @Autowired
+    private LimiteCartaoService limiteCartaoService;
+
+    @Autowired
+    private FaturaService faturaService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Limite de IDs por cláusula IN nas operações em lote
+    private static final int TAMANHO_LOTE_IDS = 1000;
+
     public List<DespesaDTO> listarTodas() {
         return despesaRepository.findAllWithRelationships().stream()
                 .map(this::converterParaDTO)
@@ -58,16 +92,20 @@ public class DespesaService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public DespesaDTO salvar(DespesaDTO despesaDTO) {
 
-        validarLimiteCartaoDeCredito(despesaDTO);
+        List<SituacaoLancamentoDTO> situacaoAnterior = despesaDTO.getId() != null
+                ? bloquearSituacoes(List.of(despesaDTO.getId())) : List.of();
+        atualizarLimiteCartaoDeCredito(despesaDTO, situacaoAnterior);
 
         if (despesaDTO.getQuantidadeParcelas() != null && despesaDTO.getQuantidadeParcelas() > 1) {
-            return salvarDespesaParcelada(despesaDTO);
+            return salvarDespesaParcelada(despesaDTO, situacaoAnterior);
         }
         
         Despesa despesa = converterParaEntidade(despesaDTO);
         Despesa salva = despesaRepository.save(despesa);
+        registrarAlteracao(situacaoAnterior, List.of(situacao(salva)));
         
         // Registrar no histórico
         try {
@@ -86,17 +124,24 @@ public class DespesaService {
         return converterParaDTO(salva);
     }
 
+    @Transactional
     public void salvar(Despesa despesa) {
-        despesaRepository.save(despesa);
+        Despesa salva = despesaRepository.save(despesa);
+        registrarAlteracao(List.of(), List.of(situacao(salva)));
     }
 
 
+    @Transactional
     public void excluir(Long id) {
         try {
+            List<SituacaoLancamentoDTO> situacaoAnterior = bloquearSituacoes(List.of(id));
+
             // Buscar a despesa antes de excluir para registrar no histórico
             Despesa despesa = despesaRepository.findById(id).orElse(null);
             
             despesaRepository.deleteById(id);
+            limiteCartaoService.aplicarVariacoes(calcularVariacaoLimite(situacaoAnterior, null));
+            registrarAlteracao(situacaoAnterior, List.of());
             
             // Registrar exclusão no histórico
             if (despesa != null) {
@@ -112,14 +157,10 @@ public class DespesaService {
 
 
     public List<DespesaDTO> buscarDespesasPorCartaoEPeriodoFatura(Long cartaoId, int mes, int ano) {
-        // Buscar o cartão para obter o dia de fechamento
-        Cartao cartao = cartaoRepository.findById(cartaoId)
-                .orElseThrow(() -> new RuntimeException("Cartão não encontrado"));
-
-        // Calcular as datas de início e fim do período da fatura
-        LocalDate dataReferencia = LocalDate.of(ano, mes, cartao.getDiaFechamento());
-        LocalDate dataFim = dataReferencia;
-        LocalDate dataInicio = dataReferencia.minusMonths(1).plusDays(1);
+        // Período da fatura de referência: do dia seguinte ao fechamento anterior até o fechamento
+        FaturaDTO fatura = faturaService.buscarPorReferencia(cartaoId, mes, ano);
+        LocalDate dataInicio = fatura.getDataInicio();
+        LocalDate dataFim = fatura.getDataFechamento();
 
         return despesaRepository.buscarDespesasPorCartaoEPeriodoFatura(cartaoId, dataInicio, dataFim).stream()
                 .map(this::converterParaDTO)
@@ -153,6 +194,12 @@ public class DespesaService {
                 .collect(Collectors.toList());
     }
 
+    public List<DespesaDTO> buscarNaoPagasDeCartao(Integer mes, Integer ano) {
+        return despesaRepository.findNaoPagasDeCartaoPorPeriodo(mes, ano).stream()
+                .map(this::converterParaDTO)
+                .collect(Collectors.toList());
+    }
+
     public List<Despesa> buscarDespesasPorCartao(
             Long cartaoId) {
         return despesaRepository.buscarDespesasPorCartao(cartaoId);
@@ -168,50 +215,243 @@ public class DespesaService {
 
 
 
-    private void validarLimiteCartaoDeCredito(DespesaDTO despesaDTO) {
-        if (despesaDTO.getCartao() != null) {
-            Long cartaoId = despesaDTO.getCartao().getId();
+    // ==================== OPERAÇÕES EM LOTE ====================
+
+    @Transactional
+    public ResultadoOperacaoLoteDTO atualizarPagoEmLote(SelecaoDespesasDTO selecao, boolean pago) {
+        List<Long> ids = resolverSelecao(selecao);
+        double valorTotal = somarValor(ids);
+        List<SituacaoLancamentoDTO> situacaoAnterior = bloquearSituacoes(ids);
+        // Pagar libera o limite dos cartões; voltar para pendente volta a consumi-lo
+        limiteCartaoService.aplicarVariacoes(calcularVariacaoLimite(situacaoAnterior, pago));
+        for (List<Long> lote : particionar(ids)) {
+            despesaRepository.atualizarPagoEmLote(lote, pago);
+        }
+        registrarAlteracao(situacaoAnterior, situacaoAnterior.stream()
+                .map(situacao -> situacao.comPago(pago))
+                .collect(Collectors.toList()));
+        String operacao = pago ? "MARCAR_PAGO" : "MARCAR_PENDENTE";
+        registrarHistoricoLote(Historico.TipoOperacao.EDICAO_DESPESA, ids, "Lote{operacao=" + operacao + "}");
+        return new ResultadoOperacaoLoteDTO(operacao, ids.size(), valorTotal);
+    }
+
+    @Transactional
+    public ResultadoOperacaoLoteDTO alterarCategoriaEmLote(SelecaoDespesasDTO selecao, Long categoriaId) {
+        Categoria categoria = categoriaRepository.findById(categoriaId)
+                .orElseThrow(() -> new NegocioException("Categoria não encontrada"));
+        List<Long> ids = resolverSelecao(selecao);
+        double valorTotal = somarValor(ids);
+        List<SituacaoLancamentoDTO> situacaoAnterior = bloquearSituacoes(ids);
+        for (List<Long> lote : particionar(ids)) {
+            despesaRepository.atualizarCategoriaEmLote(lote, categoria);
+        }
+        registrarAlteracao(situacaoAnterior, situacaoAnterior.stream()
+                .map(situacao -> situacao.comCategoria(categoria.getId()))
+                .collect(Collectors.toList()));
+        registrarHistoricoLote(Historico.TipoOperacao.EDICAO_DESPESA, ids,
+                "Lote{operacao=ALTERAR_CATEGORIA, categoria='" + categoria.getNome() + "'}");
+        return new ResultadoOperacaoLoteDTO("ALTERAR_CATEGORIA", ids.size(), valorTotal);
+    }
+
+    @Transactional
+    public ResultadoOperacaoLoteDTO alterarContaEmLote(SelecaoDespesasDTO selecao, Long contaId) {
+        Conta conta = contaRepository.findById(contaId)
+                .orElseThrow(() -> new NegocioException("Conta não encontrada"));
+        List<Long> ids = resolverSelecao(selecao);
+        double valorTotal = somarValor(ids);
+        List<SituacaoLancamentoDTO> situacaoAnterior = bloquearSituacoes(ids);
+        for (List<Long> lote : particionar(ids)) {
+            despesaRepository.atualizarContaEmLote(lote, conta);
+        }
+        registrarAlteracao(situacaoAnterior, situacaoAnterior.stream()
+                .map(situacao -> situacao.comConta(conta.getId()))
+                .collect(Collectors.toList()));
+        registrarHistoricoLote(Historico.TipoOperacao.EDICAO_DESPESA, ids,
+                "Lote{operacao=ALTERAR_CONTA, conta='" + conta.getNome() + "'}");
+        return new ResultadoOperacaoLoteDTO("ALTERAR_CONTA", ids.size(), valorTotal);
+    }
+
+    @Transactional
+    public ResultadoOperacaoLoteDTO excluirEmLote(SelecaoDespesasDTO selecao) {
+        List<Long> ids = resolverSelecao(selecao);
+        double valorTotal = somarValor(ids);
+        List<SituacaoLancamentoDTO> situacaoAnterior = bloquearSituacoes(ids);
+        limiteCartaoService.aplicarVariacoes(calcularVariacaoLimite(situacaoAnterior, null));
+        for (List<Long> lote : particionar(ids)) {
+            despesaRepository.excluirEmLote(lote);
+        }
+        registrarAlteracao(situacaoAnterior, List.of());
+        registrarHistoricoLote(Historico.TipoOperacao.EXCLUSAO_DESPESA, ids, "Lote{operacao=EXCLUIR}");
+        return new ResultadoOperacaoLoteDTO("EXCLUIR", ids.size(), valorTotal);
+    }
+
+    /**
+     * Resolve a seleção em uma lista de IDs existentes. Um filtro vazio é rejeitado
+     * para que uma requisição incompleta não altere todas as despesas.
+     */
+    private List<Long> resolverSelecao(SelecaoDespesasDTO selecao) {
+        if (selecao == null || (!selecao.possuiIds() && !selecao.possuiFiltro())) {
+            throw new NegocioException("Seleção inválida", "422",
+                    "Informe a lista de IDs ou ao menos um critério de filtro.");
+        }
+
+        List<Long> ids = new ArrayList<>();
+        if (selecao.possuiIds()) {
+            for (List<Long> lote : particionar(new ArrayList<>(new TreeSet<>(selecao.getIds())))) {
+                ids.addAll(despesaRepository.buscarIdsExistentes(lote));
+            }
+        } else {
+            String descricao = selecao.getDescricao() != null && !selecao.getDescricao().isBlank()
+                    ? selecao.getDescricao().trim() : null;
+            ids.addAll(despesaRepository.buscarIdsPorFiltro(descricao, selecao.getMes(), selecao.getAno(),
+                    selecao.getDataInicio(), selecao.getDataFim(), selecao.getContaId(), selecao.getCartaoId(),
+                    selecao.getCategoriaId(), selecao.getPago()));
+        }
+        // Ordem crescente de ID: os bloqueios das despesas seguem sempre a mesma ordem
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * Bloqueia as despesas (SELECT ... FOR UPDATE) e retorna a situação atual de cada uma,
+     * usada para calcular as variações do limite usado, das faturas e dos resumos mensais.
+     */
+    private List<SituacaoLancamentoDTO> bloquearSituacoes(List<Long> ids) {
+        List<SituacaoLancamentoDTO> situacoes = new ArrayList<>(ids.size());
+        for (List<Long> lote : particionar(ids)) {
+            for (Object[] linha : despesaRepository.bloquearSituacaoCartao(lote)) {
+                situacoes.add(new SituacaoLancamentoDTO(
+                        id(linha[0]),
+                        id(linha[5]),
+                        id(linha[1]),
+                        id(linha[6]),
+                        data(linha[4]),
+                        linha[2] != null ? ((Number) linha[2]).doubleValue() : null,
+                        pago(linha[3])));
+            }
+        }
+        return situacoes;
+    }
+
+    /**
+     * Calcula a variação do limite usado de cada cartão caso as despesas passem para a
+     * situação {@code pagoFinal}. {@code null} indica exclusão.
+     */
+    private static Map<Long, Double> calcularVariacaoLimite(List<SituacaoLancamentoDTO> situacoes, Boolean pagoFinal) {
+        Map<Long, Double> variacoes = new HashMap<>();
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao.cartaoId() == null || situacao.valor() == null) {
+                continue;
+            }
+            double antes = Boolean.FALSE.equals(situacao.pago()) ? situacao.valor() : 0.0;
+            double depois = Boolean.FALSE.equals(pagoFinal) ? situacao.valor() : 0.0;
+            if (antes != depois) {
+                variacoes.merge(situacao.cartaoId(), depois - antes, Double::sum);
+            }
+        }
+        return variacoes;
+    }
+
+    // Coluna "pago" lida por SQL nativo: Boolean ou BIT numérico, conforme o banco
+    private static Boolean pago(Object pago) {
+        if (pago instanceof Number numero) {
+            return numero.intValue() != 0;
+        }
+        return (Boolean) pago;
+    }
+
+    // Coluna "data" lida por SQL nativo: LocalDate ou java.sql.Date, conforme o driver
+    private static LocalDate data(Object data) {
+        if (data instanceof java.sql.Date dataSql) {
+            return dataSql.toLocalDate();
+        }
+        return (LocalDate) data;
+    }
+
+    private static Long id(Object id) {
+        return id != null ? ((Number) id).longValue() : null;
+    }
 
-            Cartao cartao = cartaoRepository.findById(cartaoId)
-                    .orElseThrow(() -> new NegocioException("Cartão não encontrado"));
+    private static SituacaoLancamentoDTO situacao(Despesa despesa) {
+        return new SituacaoLancamentoDTO(
+                despesa.getId(),
+                despesa.getConta() != null ? despesa.getConta().getId() : null,
+                despesa.getCartao() != null ? despesa.getCartao().getId() : null,
+                despesa.getCategoria() != null ? despesa.getCategoria().getId() : null,
+                despesa.getData(), despesa.getValor(), despesa.getPago());
+    }
 
-            Double totalCompras = cartaoRepository.calcularTotalDespesasPorCartao(cartaoId);
+    // Faturas e resumos mensais são atualizados pelos ouvintes na mesma transação da escrita
+    private void registrarAlteracao(List<SituacaoLancamentoDTO> anteriores, List<SituacaoLancamentoDTO> novas) {
+        eventPublisher.publishEvent(new LancamentosAlteradosEvent(this, TipoLancamento.DESPESA, anteriores, novas));
+    }
 
-            if (despesaDTO.getId() != null) {
-                Despesa despesaExistente = despesaRepository.findById(despesaDTO.getId())
-                        .orElseThrow(() -> new NegocioException("Despesa não encontrada para edição"));
+    private double somarValor(List<Long> ids) {
+        double total = 0.0;
+        for (List<Long> lote : particionar(ids)) {
+            total += despesaRepository.somarValorPorIds(lote);
+        }
+        return total;
+    }
 
-                Long cartaoIdDespesaExistente = despesaExistente.getCartao() != null
-                        ? despesaExistente.getCartao().getId()
-                        : null;
+    private List<List<Long>> particionar(List<Long> ids) {
+        List<List<Long>> lotes = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += TAMANHO_LOTE_IDS) {
+            lotes.add(ids.subList(i, Math.min(i + TAMANHO_LOTE_IDS, ids.size())));
+        }
+        return lotes;
+    }
+
+    private void registrarHistoricoLote(Historico.TipoOperacao tipoOperacao, List<Long> ids, String info) {
+        try {
+            historicoService.registrarOperacoesEmLote(tipoOperacao, "DESPESA", ids, info, null);
+        } catch (Exception e) {
+            // Log do erro mas não falha a operação principal
+            System.err.println("Erro ao registrar histórico: " + e.getMessage());
+        }
+    }
 
-                // Subtrai valor antigo apenas se for o mesmo cartão e despesa ainda estiver pendente
-                if (cartaoId.equals(cartaoIdDespesaExistente) && !despesaExistente.getPago()) {
-                    totalCompras -= despesaExistente.getValor();
-                }
+    /**
+     * Atualiza o limite usado do cartão com a diferença entre a contribuição anterior da despesa
+     * (quando for edição) e a nova. A reserva é condicional e falha se o limite for excedido.
+     */
+    private void atualizarLimiteCartaoDeCredito(DespesaDTO despesaDTO, List<SituacaoLancamentoDTO> situacaoAnterior) {
+        Long cartaoAnteriorId = null;
+        double valorAnterior = 0.0;
+
+        if (despesaDTO.getId() != null) {
+            if (situacaoAnterior.isEmpty() && despesaDTO.getCartao() != null) {
+                throw new NegocioException("Despesa não encontrada para edição");
+            }
+            if (!situacaoAnterior.isEmpty() && situacaoAnterior.get(0).cartaoId() != null) {
+                SituacaoLancamentoDTO anterior = situacaoAnterior.get(0);
+                cartaoAnteriorId = anterior.cartaoId();
+                valorAnterior = anterior.valor() != null && Boolean.FALSE.equals(anterior.pago()) ? anterior.valor() : 0.0;
             }
+        }
 
-            if (totalCompras + despesaDTO.getValor() > cartao.getLimite()) {
-                throw new NegocioException(
-                        "Limite do cartão excedido",
-                        "422",
-                        String.format(
-                                "O Limite atual do cartão é: %.2f, o total atual de compras é: %.2f, e o total disponível para compras é: %.2f",
-                                cartao.getLimite(),
-                                totalCompras,
-                                cartao.getLimite() - totalCompras
-                        )
-                );
+        Long cartaoNovoId = null;
+        double valorNovo = 0.0;
+        if (despesaDTO.getCartao() != null) {
+            cartaoNovoId = despesaDTO.getCartao().getId();
+            if (!cartaoRepository.existsById(cartaoNovoId)) {
+                throw new NegocioException("Cartão não encontrado");
+            }
+            if (Boolean.FALSE.equals(despesaDTO.getPago()) && despesaDTO.getValor() != null) {
+                valorNovo = despesaDTO.getValor();
             }
         }
+
+        limiteCartaoService.substituir(cartaoAnteriorId, valorAnterior, cartaoNovoId, valorNovo);
     }
 
 
-    private DespesaDTO salvarDespesaParcelada(DespesaDTO despesaDTO) {
+    private DespesaDTO salvarDespesaParcelada(DespesaDTO despesaDTO, List<SituacaoLancamentoDTO> situacaoAnterior) {
         int quantidadeParcelas = despesaDTO.getQuantidadeParcelas();
         double valorParcela = despesaDTO.getValor() / quantidadeParcelas;
         LocalDate dataBase = despesaDTO.getData();
         DespesaDTO primeiraParcela = null;
+        List<SituacaoLancamentoDTO> parcelas = new ArrayList<>(quantidadeParcelas);
 
         for (int i = 1; i <= quantidadeParcelas; i++) {
             DespesaDTO parcela = new DespesaDTO();
@@ -231,11 +471,13 @@ public class DespesaService {
 
             Despesa despesa = converterParaEntidade(parcela);
             Despesa salva = despesaRepository.save(despesa);
+            parcelas.add(situacao(salva));
 
             if (i == 1) {
                 primeiraParcela = converterParaDTO(salva);
             }
         }
+        registrarAlteracao(situacaoAnterior, parcelas);
 
         return primeiraParcela;
     }
@@ -332,6 +574,7 @@ public class DespesaService {
         despesa.setExtensaoAnexo(dto.getExtensaoAnexo());
         despesa.setAnexo(dto.getAnexo());
         despesa.setObservacao(dto.getObservacao());
+        despesa.setHashImportacao(HashLancamentoUtil.calcular(dto.getData(), dto.getValor(), dto.getDescricao()));
         return despesa;
     }
 } 
\ No newline at end of file
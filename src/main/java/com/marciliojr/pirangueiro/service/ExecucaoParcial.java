@@ -0,0 +1,85 @@
+package com.marciliojr.pirangueiro.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Cálculo em paralelo das partes independentes de uma resposta, como as seções do relatório
+ * gerencial e os gráficos do bundle.
+ *
+ * <p>Cada parte roda em uma thread virtual e todas compartilham o mesmo prazo, contado a partir de
+ * {@link #iniciar}. Uma parte que falha ou não termina no prazo é cancelada, registrada com o motivo
+ * no mapa de partes indisponíveis e substituída pelo valor vazio informado; as demais continuam.</p>
+ */
+@Component
+@Slf4j
+public class ExecucaoParcial {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Inicia uma execução cujo prazo começa a contar agora.
+     *
+     * @param descricao nome da resposta nos logs, por exemplo "relatório gerencial"
+     * @param timeoutSegundos prazo para todas as partes
+     */
+    public Execucao iniciar(String descricao, int timeoutSegundos) {
+        return new Execucao(descricao, timeoutSegundos);
+    }
+
+    public final class Execucao {
+
+        private final String descricao;
+        private final int timeoutSegundos;
+        private final long prazo;
+
+        private Execucao(String descricao, int timeoutSegundos) {
+            this.descricao = descricao;
+            this.timeoutSegundos = timeoutSegundos;
+            this.prazo = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSegundos);
+        }
+
+        public <T> Future<T> calcular(Supplier<T> parte) {
+            return executor.submit(parte::get);
+        }
+
+        /**
+         * Resultado da parte, ou nulo quando ela está indisponível.
+         */
+        public <T> T aguardar(String nome, Future<T> parte, Map<String, String> indisponiveis) {
+            return aguardar(nome, parte, indisponiveis, () -> null);
+        }
+
+        /**
+         * Resultado da parte, ou o valor vazio quando ela falhou, passou do prazo ou a espera foi
+         * interrompida. Nesses casos o motivo é registrado em {@code indisponiveis}.
+         */
+        public <T> T aguardar(String nome, Future<T> parte, Map<String, String> indisponiveis, Supplier<T> vazia) {
+            try {
+                return parte.get(Math.max(0, prazo - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                parte.cancel(true);
+                log.warn("Parte '{}' do {} não terminou em {}s", nome, descricao, timeoutSegundos);
+                indisponiveis.put(nome, "Tempo limite de " + timeoutSegundos + "s excedido");
+            } catch (ExecutionException e) {
+                log.error("Erro ao calcular a parte '{}' do {}", nome, descricao, e.getCause());
+                indisponiveis.put(nome, "Erro ao calcular: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                parte.cancel(true);
+                indisponiveis.put(nome, "Cálculo do " + descricao + " interrompido");
+            }
+            return vazia.get();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.dto.HistoricoDTO;
+import com.marciliojr.pirangueiro.dto.ReceitaDTO;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.util.PlanilhaGenerator;
+import com.marciliojr.pirangueiro.util.PlanilhaGenerator.Coluna;
+import com.marciliojr.pirangueiro.util.PlanilhaGenerator.Formato;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Exportação de despesas, receitas e histórico em CSV ou XLSX.
+ *
+ * <p>As linhas vêm de um cursor do banco e são escritas na saída à medida que são lidas, com os
+ * mesmos filtros das buscas: o consumo de memória não depende da quantidade de registros.</p>
+ */
+@Service
+public class ExportacaoPlanilhaService {
+
+    private static final List<Coluna<DespesaDTO>> COLUNAS_DESPESAS = List.of(
+            new Coluna<>("ID", DespesaDTO::getId),
+            new Coluna<>("Descrição", DespesaDTO::getDescricao),
+            new Coluna<>("Valor", DespesaDTO::getValor),
+            new Coluna<>("Data", DespesaDTO::getData),
+            new Coluna<>("Categoria", despesa -> despesa.getCategoria() != null ? despesa.getCategoria().getNome() : null),
+            new Coluna<>("Conta", despesa -> despesa.getConta() != null ? despesa.getConta().getNome() : null),
+            new Coluna<>("Cartão", despesa -> despesa.getCartao() != null ? despesa.getCartao().getNome() : null),
+            new Coluna<>("Parcela", despesa -> despesa.getNumeroParcela() != null && despesa.getTotalParcelas() != null
+                    ? despesa.getNumeroParcela() + "/" + despesa.getTotalParcelas() : null),
+            new Coluna<>("Pago", DespesaDTO::getPago),
+            new Coluna<>("Observação", DespesaDTO::getObservacao));
+
+    private static final List<Coluna<ReceitaDTO>> COLUNAS_RECEITAS = List.of(
+            new Coluna<>("ID", ReceitaDTO::getId),
+            new Coluna<>("Descrição", ReceitaDTO::getDescricao),
+            new Coluna<>("Valor", ReceitaDTO::getValor),
+            new Coluna<>("Data", ReceitaDTO::getData),
+            new Coluna<>("Categoria", receita -> receita.getCategoria() != null ? receita.getCategoria().getNome() : null),
+            new Coluna<>("Conta", receita -> receita.getConta() != null ? receita.getConta().getNome() : null),
+            new Coluna<>("Observação", ReceitaDTO::getObservacao));
+
+    private static final List<Coluna<HistoricoDTO>> COLUNAS_HISTORICOS = List.of(
+            new Coluna<>("ID", HistoricoDTO::getId),
+            new Coluna<>("Data e hora", HistoricoDTO::getDataHora),
+            new Coluna<>("Operação", HistoricoDTO::getTipoOperacao),
+            new Coluna<>("Entidade", HistoricoDTO::getEntidade),
+            new Coluna<>("ID da entidade", HistoricoDTO::getEntidadeId),
+            new Coluna<>("Usuário", HistoricoDTO::getUsuarioNome),
+            new Coluna<>("Informações", HistoricoDTO::getInfo));
+
+    @Autowired
+    private ExportacaoRelatorioService exportacaoRelatorioService;
+
+    @Autowired
+    private PlanilhaGenerator planilhaGenerator;
+
+    /**
+     * Valida os parâmetros antes de iniciar a escrita da resposta e devolve o formato pedido.
+     */
+    public Formato validar(String formato, Integer mes) {
+        if (mes != null && (mes < 1 || mes > 12)) {
+            throw new NegocioException("Mês inválido: " + mes);
+        }
+        if (formato == null) {
+            return Formato.CSV;
+        }
+        try {
+            return Formato.valueOf(formato.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new NegocioException("Formato de exportação inválido: " + formato + ". Use csv ou xlsx");
+        }
+    }
+
+    public String nomeArquivo(String prefixo, Integer mes, Integer ano, Formato formato) {
+        String nome = prefixo;
+        if (mes != null) {
+            nome += String.format("_%02d", mes);
+        }
+        if (ano != null) {
+            nome += String.format("_%04d", ano);
+        }
+        return nome + formato.getExtensao();
+    }
+
+    public void exportarDespesas(Formato formato, String descricao, Integer mes, Integer ano, OutputStream saida)
+            throws IOException {
+        try (Stream<DespesaDTO> despesas = exportacaoRelatorioService.lerDespesas(descricao, mes, ano)) {
+            planilhaGenerator.escrever(formato, "Despesas", COLUNAS_DESPESAS, despesas::iterator, saida);
+        }
+    }
+
+    public void exportarReceitas(Formato formato, String descricao, Integer mes, Integer ano, OutputStream saida)
+            throws IOException {
+        try (Stream<ReceitaDTO> receitas = exportacaoRelatorioService.lerReceitas(descricao, mes, ano)) {
+            planilhaGenerator.escrever(formato, "Receitas", COLUNAS_RECEITAS, receitas::iterator, saida);
+        }
+    }
+
+    public void exportarHistoricos(Formato formato, String descricao, Integer mes, Integer ano, OutputStream saida)
+            throws IOException {
+        try (Stream<HistoricoDTO> historicos = exportacaoRelatorioService.lerHistoricos(descricao, mes, ano)) {
+            planilhaGenerator.escrever(formato, "Histórico", COLUNAS_HISTORICOS, historicos::iterator, saida);
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.model.Cartao;
+import com.marciliojr.pirangueiro.model.Categoria;
+import com.marciliojr.pirangueiro.model.Conta;
+import com.marciliojr.pirangueiro.model.Historico;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Exportação do relatório gerencial em JSON escrita diretamente na resposta.
+ *
+ * <p>Primeiro são escritos o resumo executivo e as seções agregadas, já calculados pelo
+ * {@link RelatorioGerencialService}. Depois, se solicitados, os lançamentos do período são lidos
+ * por cursor e escritos um a um nas listas {@code todasDespesas} e {@code todasReceitas}, sem montar
+ * a lista em memória. Os campos seguem o {@link RelatorioGerencialDTO}; os anexos e os logos das
+ * contas não são exportados.</p>
+ *
+ * <p>As leituras por cursor também alimentam os PDFs e as planilhas de lançamentos e histórico.</p>
+ */
+@Service
+public class ExportacaoRelatorioService {
+
+    private static final String SQL_DESPESAS =
+            "SELECT id, descricao, valor, data, conta_id, cartao_id, categoria_id, observacao, " +
+            "numero_parcela, total_parcelas, pago, extensao_anexo FROM despesa";
+
+    private static final String SQL_RECEITAS =
+            "SELECT id, descricao, valor, data, conta_id, categoria_id, observacao, extensao_anexo FROM receita";
+
+    private static final String SQL_HISTORICOS =
+            "SELECT h.id, h.tipo_operacao, h.entidade, h.entidade_id, h.usuario_id, u.nome AS usuario_nome, " +
+            "h.info, h.data_hora FROM historico h LEFT JOIN usuario u ON u.id = h.usuario_id";
+
+    private static final String ORDENACAO = " ORDER BY data DESC, id DESC";
+
+    private static final String ORDENACAO_HISTORICOS = " ORDER BY h.data_hora DESC, h.id DESC";
+
+    private static final int TAMANHO_LEITURA = 500;
+
+    // Lançamentos escritos entre cada envio ao cliente
+    private static final int LANCAMENTOS_POR_ENVIO = 500;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Escreve o relatório agregado e, se solicitado, os lançamentos do período.
+     */
+    public void escreverJson(RelatorioGerencialDTO relatorio, Integer mes, Integer ano, boolean incluirLancamentos,
+                             OutputStream saida) throws IOException {
+        try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            gerador.writeStartObject();
+            gerador.writeObjectField("dataGeracao", relatorio.getDataGeracao());
+            gerador.writeObjectField("versao", relatorio.getVersao());
+            gerador.writeObjectField("resumoExecutivo", relatorio.getResumoExecutivo());
+            gerador.writeObjectField("secoesIndisponiveis", relatorio.getSecoesIndisponiveis());
+            gerador.writeObjectField("secaoSaldosContas", relatorio.getSecaoSaldosContas());
+            gerador.writeObjectField("secaoCartoes", relatorio.getSecaoCartoes());
+            gerador.writeObjectField("secaoAnaliseCategoria", relatorio.getSecaoAnaliseCategoria());
+            gerador.flush();
+
+            Periodo periodo = Periodo.de(mes, ano);
+            escreverSecao(gerador, "secaoDespesas", relatorio.getSecaoDespesas(), "todasDespesas",
+                    incluirLancamentos ? () -> escreverDespesas(gerador, periodo) : null);
+            escreverSecao(gerador, "secaoReceitas", relatorio.getSecaoReceitas(), "todasReceitas",
+                    incluirLancamentos ? () -> escreverReceitas(gerador, periodo) : null);
+            gerador.writeEndObject();
+        }
+    }
+
+    // Escreve os campos agregados da seção e, depois deles, a lista de lançamentos
+    private void escreverSecao(JsonGenerator gerador, String nome, Object secao, String campoLancamentos,
+                               Runnable lancamentos) throws IOException {
+        ObjectNode campos = objectMapper.valueToTree(secao);
+        campos.remove(campoLancamentos);
+        campos.remove("paginacaoDetalhes");
+
+        gerador.writeObjectFieldStart(nome);
+        var iterador = campos.fields();
+        while (iterador.hasNext()) {
+            var campo = iterador.next();
+            gerador.writeFieldName(campo.getKey());
+            gerador.writeTree(campo.getValue());
+        }
+        if (lancamentos != null) {
+            gerador.writeArrayFieldStart(campoLancamentos);
+            try {
+                lancamentos.run();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            gerador.writeEndArray();
+        }
+        gerador.writeEndObject();
+        gerador.flush();
+    }
+
+    // ==================== LANÇAMENTOS ====================
+
+    private void escreverDespesas(JsonGenerator gerador, Periodo periodo) {
+        try (Stream<DespesaDTO> despesas = ler(SQL_DESPESAS, periodo, mapeadorDespesas())) {
+            escrever(gerador, despesas);
+        }
+    }
+
+    private void escreverReceitas(JsonGenerator gerador, Periodo periodo) {
+        try (Stream<ReceitaDTO> receitas = ler(SQL_RECEITAS, periodo, mapeadorReceitas())) {
+            escrever(gerador, receitas);
+        }
+    }
+
+    private static <T> void escrever(JsonGenerator gerador, Stream<T> lancamentos) {
+        int escritos = 0;
+        for (T lancamento : (Iterable<T>) lancamentos::iterator) {
+            try {
+                gerador.writeObject(lancamento);
+                if (++escritos % LANCAMENTOS_POR_ENVIO == 0) {
+                    gerador.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Despesas do período lidas por cursor, da mais recente para a mais antiga, sem anexos.
+     * O stream mantém a conexão aberta e precisa ser fechado.
+     */
+    public Stream<DespesaDTO> lerDespesas(Integer mes, Integer ano) {
+        return ler(SQL_DESPESAS, Periodo.de(mes, ano), mapeadorDespesas());
+    }
+
+    /**
+     * Receitas do período lidas por cursor, da mais recente para a mais antiga, sem anexos.
+     * O stream mantém a conexão aberta e precisa ser fechado.
+     */
+    public Stream<ReceitaDTO> lerReceitas(Integer mes, Integer ano) {
+        return ler(SQL_RECEITAS, Periodo.de(mes, ano), mapeadorReceitas());
+    }
+
+    /**
+     * Despesas lidas por cursor com os mesmos filtros da busca de despesas: descrição contida,
+     * sem diferenciar maiúsculas, e mês e ano independentes. O stream precisa ser fechado.
+     */
+    public Stream<DespesaDTO> lerDespesas(String descricao, Integer mes, Integer ano) {
+        return ler(SQL_DESPESAS, Filtro.de(descricao, mes, ano, "descricao", "data"), ORDENACAO, mapeadorDespesas());
+    }
+
+    /**
+     * Receitas lidas por cursor com os mesmos filtros da busca de receitas. O stream precisa ser fechado.
+     */
+    public Stream<ReceitaDTO> lerReceitas(String descricao, Integer mes, Integer ano) {
+        return ler(SQL_RECEITAS, Filtro.de(descricao, mes, ano, "descricao", "data"), ORDENACAO, mapeadorReceitas());
+    }
+
+    /**
+     * Histórico de operações lido por cursor, do mais recente para o mais antigo. A descrição filtra
+     * o texto das informações e o mês e o ano filtram a data da operação. O stream precisa ser fechado.
+     */
+    public Stream<HistoricoDTO> lerHistoricos(String descricao, Integer mes, Integer ano) {
+        return ler(SQL_HISTORICOS, Filtro.de(descricao, mes, ano, "h.info", "h.data_hora"), ORDENACAO_HISTORICOS,
+                mapeadorHistoricos());
+    }
+
+    private RowMapper<DespesaDTO> mapeadorDespesas() {
+        Referencias referencias = new Referencias();
+        return (rs, linha) -> {
+            DespesaDTO despesa = new DespesaDTO();
+            despesa.setId(rs.getLong("id"));
+            despesa.setDescricao(rs.getString("descricao"));
+            despesa.setValor(getDouble(rs, "valor"));
+            despesa.setData(getData(rs));
+            despesa.setConta(referencias.conta(getLong(rs, "conta_id")));
+            despesa.setCartao(referencias.cartao(getLong(rs, "cartao_id")));
+            despesa.setCategoria(referencias.categoria(getLong(rs, "categoria_id")));
+            despesa.setObservacao(rs.getString("observacao"));
+            despesa.setNumeroParcela(getInteger(rs, "numero_parcela"));
+            despesa.setTotalParcelas(getInteger(rs, "total_parcelas"));
+            boolean pago = rs.getBoolean("pago");
+            despesa.setPago(rs.wasNull() ? null : pago);
+            despesa.setExtensaoAnexo(rs.getString("extensao_anexo"));
+            return despesa;
+        };
+    }
+
+    private RowMapper<ReceitaDTO> mapeadorReceitas() {
+        Referencias referencias = new Referencias();
+        return (rs, linha) -> {
+            ReceitaDTO receita = new ReceitaDTO();
+            receita.setId(rs.getLong("id"));
+            receita.setDescricao(rs.getString("descricao"));
+            receita.setValor(getDouble(rs, "valor"));
+            receita.setData(getData(rs));
+            receita.setConta(referencias.conta(getLong(rs, "conta_id")));
+            receita.setCategoria(referencias.categoria(getLong(rs, "categoria_id")));
+            receita.setObservacao(rs.getString("observacao"));
+            receita.setExtensaoAnexo(rs.getString("extensao_anexo"));
+            return receita;
+        };
+    }
+
+    private RowMapper<HistoricoDTO> mapeadorHistoricos() {
+        return (rs, linha) -> {
+            HistoricoDTO historico = new HistoricoDTO();
+            historico.setId(rs.getLong("id"));
+            String tipoOperacao = rs.getString("tipo_operacao");
+            historico.setTipoOperacao(tipoOperacao != null ? Historico.TipoOperacao.valueOf(tipoOperacao) : null);
+            historico.setEntidade(rs.getString("entidade"));
+            historico.setEntidadeId(getLong(rs, "entidade_id"));
+            historico.setUsuarioId(getLong(rs, "usuario_id"));
+            historico.setUsuarioNome(rs.getString("usuario_nome"));
+            historico.setInfo(rs.getString("info"));
+            Timestamp dataHora = rs.getTimestamp("data_hora");
+            historico.setDataHora(dataHora != null ? dataHora.toLocalDateTime() : null);
+            return historico;
+        };
+    }
+
+    private <T> Stream<T> ler(String sql, Periodo periodo, RowMapper<T> mapeador) {
+        Filtro filtro = periodo != null
+                ? new Filtro(" WHERE data >= ? AND data < ?", List.of(periodo.inicio(), periodo.fim()))
+                : Filtro.NENHUM;
+        return ler(sql, filtro, ORDENACAO, mapeador);
+    }
+
+    // Cursor somente para frente, lido em blocos de TAMANHO_LEITURA linhas
+    private <T> Stream<T> ler(String sql, Filtro filtro, String ordenacao, RowMapper<T> mapeador) {
+        String consulta = sql + filtro.condicao() + ordenacao;
+        return jdbcTemplate.queryForStream(con -> {
+            PreparedStatement ps = con.prepareStatement(consulta);
+            ps.setFetchSize(TAMANHO_LEITURA);
+            for (int i = 0; i < filtro.parametros().size(); i++) {
+                Object parametro = filtro.parametros().get(i);
+                ps.setObject(i + 1, parametro instanceof LocalDate data ? Date.valueOf(data) : parametro);
+            }
+            return ps;
+        }, mapeador);
+    }
+
+    private static Double getDouble(ResultSet rs, String coluna) throws SQLException {
+        double valor = rs.getDouble(coluna);
+        return rs.wasNull() ? null : valor;
+    }
+
+    private static Long getLong(ResultSet rs, String coluna) throws SQLException {
+        long valor = rs.getLong(coluna);
+        return rs.wasNull() ? null : valor;
+    }
+
+    private static Integer getInteger(ResultSet rs, String coluna) throws SQLException {
+        int valor = rs.getInt(coluna);
+        return rs.wasNull() ? null : valor;
+    }
+
+    private static LocalDate getData(ResultSet rs) throws SQLException {
+        Date data = rs.getDate("data");
+        return data != null ? data.toLocalDate() : null;
+    }
+
+    /**
+     * Intervalo [inicio, fim) do filtro; nulo quando o relatório cobre todo o histórico.
+     * O mês só filtra quando acompanhado do ano.
+     */
+    private record Periodo(LocalDate inicio, LocalDate fim) {
+        static Periodo de(Integer mes, Integer ano) {
+            if (ano == null) {
+                return null;
+            }
+            if (mes == null) {
+                return new Periodo(LocalDate.of(ano, 1, 1), LocalDate.of(ano + 1, 1, 1));
+            }
+            LocalDate inicio = LocalDate.of(ano, mes, 1);
+            return new Periodo(inicio, inicio.plusMonths(1));
+        }
+    }
+
+    /**
+     * Condição SQL e parâmetros de uma leitura.
+     */
+    private record Filtro(String condicao, List<Object> parametros) {
+        static final Filtro NENHUM = new Filtro("", List.of());
+
+        /**
+         * Filtros da busca de lançamentos. Com o ano, o filtro é um intervalo de datas que usa o
+         * índice; o mês sem ano compara o mês de qualquer ano.
+         */
+        static Filtro de(String descricao, Integer mes, Integer ano, String colunaTexto, String colunaData) {
+            List<String> condicoes = new ArrayList<>();
+            List<Object> parametros = new ArrayList<>();
+            if (descricao != null) {
+                condicoes.add("LOWER(" + colunaTexto + ") LIKE ?");
+                parametros.add("%" + descricao.toLowerCase() + "%");
+            }
+            if (ano != null) {
+                LocalDate inicio = LocalDate.of(ano, mes != null ? mes : 1, 1);
+                condicoes.add(colunaData + " >= ? AND " + colunaData + " < ?");
+                parametros.add(inicio);
+                parametros.add(mes != null ? inicio.plusMonths(1) : inicio.plusYears(1));
+            } else if (mes != null) {
+                condicoes.add("MONTH(" + colunaData + ") = ?");
+                parametros.add(mes);
+            }
+            if (condicoes.isEmpty()) {
+                return NENHUM;
+            }
+            return new Filtro(" WHERE " + String.join(" AND ", condicoes), parametros);
+        }
+    }
+
+    /**
+     * Contas, cartões e categorias convertidos uma vez por exportação, a partir do cache de cadastros.
+     */
+    private class Referencias {
+        private final Map<Long, ContaDTO> contas = new HashMap<>();
+        private final Map<Long, CartaoDTO> cartoes = new HashMap<>();
+        private final Map<Long, CategoriaDTO> categorias = new HashMap<>();
+
+        ContaDTO conta(Long id) {
+            if (id == null) {
+                return null;
+            }
+            return contas.computeIfAbsent(id, chave -> {
+                ContaDTO dto = new ContaDTO();
+                dto.setId(chave);
+                dadosReferenciaService.buscarConta(chave).ifPresent((Conta conta) -> {
+                    dto.setNome(conta.getNome());
+                    dto.setTipo(conta.getTipo());
+                });
+                return dto;
+            });
+        }
+
+        CartaoDTO cartao(Long id) {
+            if (id == null) {
+                return null;
+            }
+            return cartoes.computeIfAbsent(id, chave -> {
+                CartaoDTO dto = new CartaoDTO();
+                dto.setId(chave);
+                dadosReferenciaService.buscarCartao(chave).ifPresent((Cartao cartao) -> {
+                    dto.setNome(cartao.getNome());
+                    dto.setLimite(cartao.getLimite());
+                    dto.setDiaFechamento(cartao.getDiaFechamento());
+                    dto.setDiaVencimento(cartao.getDiaVencimento());
+                });
+                return dto;
+            });
+        }
+
+        CategoriaDTO categoria(Long id) {
+            if (id == null) {
+                return null;
+            }
+            return categorias.computeIfAbsent(id, chave -> {
+                CategoriaDTO dto = new CategoriaDTO();
+                dto.setId(chave);
+                dadosReferenciaService.buscarCategoria(chave).ifPresent((Categoria categoria) -> {
+                    dto.setNome(categoria.getNome());
+                    dto.setCor(categoria.getCor());
+                    dto.setTipoReceita(categoria.getTipoReceita());
+                });
+                return dto;
+            });
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.FaturaDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosNaTransacaoEvent;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.Cartao;
+import com.marciliojr.pirangueiro.model.Fatura;
+import com.marciliojr.pirangueiro.model.Fatura.StatusFatura;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.repository.CartaoRepository;
+import com.marciliojr.pirangueiro.repository.FaturaRepository;
+import com.marciliojr.pirangueiro.util.CicloFaturaUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Serviço responsável pelas faturas dos cartões ({@link Fatura}).
+ *
+ * <p>As faturas são materializadas por cartão e ciclo de fechamento e atualizadas de forma
+ * incremental: quem altera despesas publica a situação anterior e a nova de cada uma
+ * ({@link LancamentosNaTransacaoEvent}), e apenas a diferença é somada às faturas afetadas, com UPDATEs
+ * atômicos. A fatura é criada na primeira despesa do ciclo.</p>
+ *
+ * <p>Um job diário fecha os ciclos encerrados, reconciliando cada fatura com a soma das despesas
+ * do período. As faturas são reconstruídas a partir das despesas na primeira subida da aplicação,
+ * após a restauração de backup e quando o dia de fechamento ou de vencimento do cartão muda.</p>
+ *
+ * <p>A fatura é sempre a soma das despesas do ciclo, também depois de FECHADA ou PAGA: uma despesa
+ * incluída, editada ou excluída num ciclo encerrado altera o total dessa fatura (e não a do ciclo
+ * seguinte), e o status é recalculado, de forma que uma fatura PAGA volta a FECHADA se ganhar uma
+ * despesa não paga. Isso mantém a manutenção incremental igual à reconstrução e ao fechamento,
+ * que recalculam tudo a partir das despesas, e permite lançar despesas antigas.</p>
+ */
+@Service
+@Slf4j
+public class FaturaService {
+
+    private static final double TOLERANCIA = 0.005;
+
+    // Sem filtro de status: faturas fechadas e pagas continuam acompanhando as despesas do ciclo
+    private static final String SQL_INCREMENTAR =
+            "UPDATE fatura SET valor_total = valor_total + ?, valor_pago = valor_pago + ?, " +
+            "quantidade_despesas = quantidade_despesas + ?, data_atualizacao = ? " +
+            "WHERE cartao_id = ? AND ano = ? AND mes = ?";
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO fatura (cartao_id, ano, mes, data_inicio, data_fechamento, data_vencimento, " +
+            "valor_total, valor_pago, quantidade_despesas, status, data_atualizacao) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Fatura fechada passa a PAGA quando o valor pago cobre o total, e volta a FECHADA se um pagamento for desfeito
+    private static final String SQL_ATUALIZAR_STATUS =
+            "UPDATE fatura SET status = CASE WHEN valor_pago >= valor_total - ? THEN 'PAGA' ELSE 'FECHADA' END " +
+            "WHERE cartao_id = ? AND ano = ? AND mes = ? AND status <> 'ABERTA'";
+
+    @Autowired
+    private FaturaRepository faturaRepository;
+
+    @Autowired
+    private CartaoRepository cartaoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    // ==================== CONSULTAS ====================
+
+    public List<FaturaDTO> listarPorCartao(Long cartaoId) {
+        Cartao cartao = buscarCartao(cartaoId);
+        return faturaRepository.listarPorCartao(cartaoId).stream()
+                .map(fatura -> converterParaDTO(fatura, cartao))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retorna a fatura de referência (mês/ano de fechamento) do cartão. Se o ciclo ainda não
+     * tem despesas, retorna uma fatura zerada com o período calculado.
+     */
+    public FaturaDTO buscarPorReferencia(Long cartaoId, int mes, int ano) {
+        Cartao cartao = buscarCartao(cartaoId);
+        YearMonth referencia = referencia(mes, ano);
+        return faturaRepository.buscarPorReferencia(cartaoId, ano, mes)
+                .map(fatura -> converterParaDTO(fatura, cartao))
+                .orElseGet(() -> converterParaDTO(novaFatura(cartao, referencia, LocalDate.now()), cartao));
+    }
+
+    public static YearMonth referencia(int mes, int ano) {
+        try {
+            return YearMonth.of(ano, mes);
+        } catch (DateTimeException e) {
+            throw new NegocioException("Mês de referência inválido", "422", "Informe um mês entre 1 e 12.");
+        }
+    }
+
+    // ==================== MANUTENÇÃO INCREMENTAL ====================
+
+    /**
+     * Participa da transação da escrita das despesas. Roda antes dos resumos mensais para que
+     * as linhas sejam sempre bloqueadas na mesma ordem (faturas e depois resumos).
+     */
+    @EventListener
+    @Order(1)
+    public void onLancamentosAlterados(LancamentosNaTransacaoEvent event) {
+        if (event.getTipo() == TipoLancamento.DESPESA) {
+            registrarAlteracao(event.getAnteriores(), event.getNovas());
+        }
+    }
+
+    /**
+     * Aplica às faturas a troca da situação anterior das despesas pela nova. Inclusões informam
+     * apenas a situação nova e exclusões apenas a anterior. As variações são agrupadas por
+     * fatura e aplicadas em ordem de cartão e referência.
+     */
+    @Transactional
+    public void registrarAlteracao(Collection<SituacaoLancamentoDTO> anteriores, Collection<SituacaoLancamentoDTO> novas) {
+        Map<Long, Cartao> cartoes = new HashMap<>();
+        Map<Long, Map<YearMonth, double[]>> variacoes = new TreeMap<>();
+        acumular(anteriores, -1, cartoes, variacoes);
+        acumular(novas, 1, cartoes, variacoes);
+
+        LocalDateTime agora = LocalDateTime.now();
+        variacoes.forEach((cartaoId, porReferencia) -> porReferencia.forEach((referencia, variacao) -> {
+            if (Math.abs(variacao[0]) > 1e-9 || Math.abs(variacao[1]) > 1e-9 || variacao[2] != 0) {
+                aplicar(cartoes.get(cartaoId), referencia, variacao, agora);
+            }
+        }));
+    }
+
+    private void acumular(Collection<SituacaoLancamentoDTO> situacoes, int sinal, Map<Long, Cartao> cartoes,
+                          Map<Long, Map<YearMonth, double[]>> variacoes) {
+        if (situacoes == null) {
+            return;
+        }
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao == null || situacao.cartaoId() == null || situacao.data() == null || situacao.valor() == null) {
+                continue;
+            }
+            Cartao cartao = cartoes.computeIfAbsent(situacao.cartaoId(),
+                    id -> cartaoRepository.findById(id).orElse(null));
+            if (cartao == null) {
+                continue;
+            }
+            YearMonth referencia = CicloFaturaUtil.referenciaDaData(situacao.data(), cartao.getDiaFechamento());
+            double[] variacao = variacoes.computeIfAbsent(cartao.getId(), id -> new TreeMap<>())
+                    .computeIfAbsent(referencia, r -> new double[3]);
+            variacao[0] += sinal * situacao.valor();
+            variacao[1] += Boolean.TRUE.equals(situacao.pago()) ? sinal * situacao.valor() : 0.0;
+            variacao[2] += sinal;
+        }
+    }
+
+    private void aplicar(Cartao cartao, YearMonth referencia, double[] variacao, LocalDateTime agora) {
+        if (incrementar(cartao.getId(), referencia, variacao, agora) == 0) {
+            Fatura fatura = novaFatura(cartao, referencia, agora.toLocalDate());
+            try {
+                jdbcTemplate.update(SQL_INSERIR, cartao.getId(), referencia.getYear(), referencia.getMonthValue(),
+                        Date.valueOf(fatura.getDataInicio()), Date.valueOf(fatura.getDataFechamento()),
+                        Date.valueOf(fatura.getDataVencimento()), variacao[0], variacao[1], (int) variacao[2],
+                        fatura.getStatus().name(), Timestamp.valueOf(agora));
+            } catch (DuplicateKeyException e) {
+                // Criada por uma transação concorrente entre o UPDATE e o INSERT
+                incrementar(cartao.getId(), referencia, variacao, agora);
+            }
+        }
+        jdbcTemplate.update(SQL_ATUALIZAR_STATUS, TOLERANCIA, cartao.getId(),
+                referencia.getYear(), referencia.getMonthValue());
+    }
+
+    private int incrementar(Long cartaoId, YearMonth referencia, double[] variacao, LocalDateTime agora) {
+        return jdbcTemplate.update(SQL_INCREMENTAR, variacao[0], variacao[1], (int) variacao[2],
+                Timestamp.valueOf(agora), cartaoId, referencia.getYear(), referencia.getMonthValue());
+    }
+
+    // ==================== FECHAMENTO E RECONSTRUÇÃO ====================
+
+    /**
+     * Fecha as faturas abertas cujo fechamento já passou. Cada fatura é bloqueada e reconciliada
+     * com a soma das despesas do período na própria transação, de forma que um incremento
+     * concorrente é aplicado antes ou depois da reconciliação, nunca perdido.
+     * @return quantidade de faturas fechadas
+     */
+    public int fecharCiclosEncerrados() {
+        int fechadas = 0;
+        for (Long faturaId : faturaRepository.buscarIdsPorStatusFechadasAntesDe(StatusFatura.ABERTA, LocalDate.now())) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> fechar(faturaId)))) {
+                fechadas++;
+            }
+        }
+        if (fechadas > 0) {
+            // O fechamento muda o status das faturas sem nenhuma escrita de lançamentos
+            versaoDadosService.invalidarTudo();
+        }
+        return fechadas;
+    }
+
+    private boolean fechar(Long faturaId) {
+        Fatura fatura = faturaRepository.findByIdForUpdate(faturaId).orElse(null);
+        if (fatura == null || fatura.getStatus() != StatusFatura.ABERTA) {
+            return false;
+        }
+        Object[] totais = faturaRepository.somarDespesasDoPeriodo(
+                fatura.getCartao().getId(), fatura.getDataInicio(), fatura.getDataFechamento()).get(0);
+        double total = ((Number) totais[0]).doubleValue();
+        double pago = ((Number) totais[1]).doubleValue();
+        if (Math.abs(total - fatura.getValorTotal()) > TOLERANCIA || Math.abs(pago - fatura.getValorPago()) > TOLERANCIA) {
+            log.warn("Fatura {} reconciliada no fechamento: total {} -> {}, pago {} -> {}",
+                    faturaId, fatura.getValorTotal(), total, fatura.getValorPago(), pago);
+        }
+        fatura.setValorTotal(total);
+        fatura.setValorPago(pago);
+        fatura.setQuantidadeDespesas(((Number) totais[2]).intValue());
+        fatura.setStatus(calcularStatus(fatura.getDataFechamento(), total, pago, LocalDate.now()));
+        fatura.setDataAtualizacao(LocalDateTime.now());
+        faturaRepository.save(fatura);
+        return true;
+    }
+
+    /**
+     * Recria as faturas a partir das despesas. {@code cartaoId} nulo reconstrói todos os cartões.
+     * @return quantidade de faturas geradas
+     */
+    @Transactional
+    public int reconstruir(Long cartaoId) {
+        List<Cartao> cartoes;
+        if (cartaoId != null) {
+            faturaRepository.excluirPorCartao(cartaoId);
+            cartoes = cartaoRepository.findById(cartaoId).stream().toList();
+        } else {
+            faturaRepository.deleteAllInBatch();
+            cartoes = cartaoRepository.findAll();
+        }
+        Map<Long, Cartao> cartoesPorId = cartoes.stream().collect(Collectors.toMap(Cartao::getId, c -> c));
+
+        Map<Long, Map<YearMonth, double[]>> totais = new TreeMap<>();
+        for (Object[] linha : faturaRepository.somarDespesasPorCartaoEDia(cartaoId)) {
+            Cartao cartao = cartoesPorId.get(((Number) linha[0]).longValue());
+            if (cartao == null) {
+                continue;
+            }
+            YearMonth referencia = CicloFaturaUtil.referenciaDaData((LocalDate) linha[1], cartao.getDiaFechamento());
+            double[] total = totais.computeIfAbsent(cartao.getId(), id -> new TreeMap<>())
+                    .computeIfAbsent(referencia, r -> new double[3]);
+            total[0] += ((Number) linha[2]).doubleValue();
+            total[1] += ((Number) linha[3]).doubleValue();
+            total[2] += ((Number) linha[4]).doubleValue();
+        }
+
+        LocalDate hoje = LocalDate.now();
+        LocalDateTime agora = LocalDateTime.now();
+        List<Fatura> faturas = new ArrayList<>();
+        totais.forEach((id, porReferencia) -> porReferencia.forEach((referencia, total) -> {
+            Fatura fatura = novaFatura(cartoesPorId.get(id), referencia, hoje);
+            fatura.setValorTotal(total[0]);
+            fatura.setValorPago(total[1]);
+            fatura.setQuantidadeDespesas((int) total[2]);
+            fatura.setStatus(calcularStatus(fatura.getDataFechamento(), total[0], total[1], hoje));
+            fatura.setDataAtualizacao(agora);
+            faturas.add(fatura);
+        }));
+        faturaRepository.saveAll(faturas);
+        return faturas.size();
+    }
+
+    @Transactional
+    public void excluirPorCartao(Long cartaoId) {
+        faturaRepository.excluirPorCartao(cartaoId);
+    }
+
+    /**
+     * Fechamento diário das faturas. Executa todos os dias às 0h05.
+     */
+    @Scheduled(cron = "${cartao.fatura.fechamento.cron:0 5 0 * * *}")
+    public void executarFechamentoAgendado() {
+        try {
+            int fechadas = fecharCiclosEncerrados();
+            log.info("Fechamento de faturas concluído - Faturas fechadas: {}", fechadas);
+        } catch (Exception e) {
+            log.error("Erro no fechamento de faturas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gera as faturas de bases anteriores à materialização e fecha os ciclos encerrados
+     * enquanto a aplicação estava parada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarFaturas() {
+        try {
+            if (faturaRepository.count() == 0) {
+                Integer geradas = transactionTemplate.execute(status -> reconstruir(null));
+                log.info("Faturas geradas a partir das despesas existentes: {}", geradas);
+            }
+        } catch (Exception e) {
+            log.error("Erro ao gerar faturas: {}", e.getMessage(), e);
+        }
+        executarFechamentoAgendado();
+    }
+
+    /**
+     * A restauração de backup recria cartões e despesas, então as faturas são reconstruídas.
+     */
+    @EventListener
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            int geradas = reconstruir(null);
+            log.info("Faturas reconstruídas após restauração de backup: {}", geradas);
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private Cartao buscarCartao(Long cartaoId) {
+        return cartaoRepository.findById(cartaoId)
+                .orElseThrow(() -> new NegocioException("Cartão não encontrado"));
+    }
+
+    private Fatura novaFatura(Cartao cartao, YearMonth referencia, LocalDate hoje) {
+        Fatura fatura = new Fatura();
+        fatura.setCartao(cartao);
+        fatura.setAno(referencia.getYear());
+        fatura.setMes(referencia.getMonthValue());
+        fatura.setDataInicio(CicloFaturaUtil.dataInicio(referencia, cartao.getDiaFechamento()));
+        fatura.setDataFechamento(CicloFaturaUtil.dataFechamento(referencia, cartao.getDiaFechamento()));
+        fatura.setDataVencimento(CicloFaturaUtil.dataVencimento(
+                referencia, cartao.getDiaFechamento(), cartao.getDiaVencimento()));
+        fatura.setStatus(calcularStatus(fatura.getDataFechamento(), 0.0, 0.0, hoje));
+        return fatura;
+    }
+
+    private static StatusFatura calcularStatus(LocalDate dataFechamento, double total, double pago, LocalDate hoje) {
+        if (!dataFechamento.isBefore(hoje)) {
+            return StatusFatura.ABERTA;
+        }
+        return pago >= total - TOLERANCIA ? StatusFatura.PAGA : StatusFatura.FECHADA;
+    }
+
+    private FaturaDTO converterParaDTO(Fatura fatura, Cartao cartao) {
+        FaturaDTO dto = new FaturaDTO();
+        dto.setId(fatura.getId());
+        dto.setCartaoId(cartao.getId());
+        dto.setNomeCartao(cartao.getNome());
+        dto.setMes(fatura.getMes());
+        dto.setAno(fatura.getAno());
+        dto.setDataInicio(fatura.getDataInicio());
+        dto.setDataFechamento(fatura.getDataFechamento());
+        dto.setDataVencimento(fatura.getDataVencimento());
+        dto.setValorTotal(fatura.getValorTotal());
+        dto.setValorPago(fatura.getValorPago());
+        dto.setValorPendente(fatura.getValorTotal() - fatura.getValorPago());
+        dto.setQuantidadeDespesas(fatura.getQuantidadeDespesas());
+        dto.setStatus(fatura.getStatus());
+        return dto;
+    }
+}
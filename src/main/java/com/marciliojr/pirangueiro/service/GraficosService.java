@@ -1,12 +1,17 @@
 package com.marciliojr.pirangueiro.service;
 
 import com.marciliojr.pirangueiro.dto.*;
-import com.marciliojr.pirangueiro.model.Cartao;
-import com.marciliojr.pirangueiro.repository.CartaoRepository;
-import com.marciliojr.pirangueiro.repository.GraficosRepository;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
 import com.marciliojr.pirangueiro.repository.DespesaRepository;
 import com.marciliojr.pirangueiro.repository.ReceitaRepository;
+import com.marciliojr.pirangueiro.service.CacheGraficosService.Escopo;
+import com.marciliojr.pirangueiro.service.CuboAnaliticoService.TotalCategoria;
+import com.marciliojr.pirangueiro.service.CuboAnaliticoService.TotalMes;
+import com.marciliojr.pirangueiro.service.CuboAnaliticoService.TotaisMesDoAno;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -14,17 +19,32 @@ import java.time.Month;
 import java.time.YearMonth;
 import java.time.format.TextStyle;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 @Service
+@Slf4j
 public class GraficosService {
 
+    @Value("${graficos.bundle.timeout-segundos:30}")
+    private int timeoutBundleSegundos;
+
+    @Autowired
+    private ExecucaoParcial execucaoParcial;
+
     @Autowired
-    private GraficosRepository graficosRepository;
+    private CuboAnaliticoService cuboAnaliticoService;
 
     @Autowired
-    private CartaoRepository cartaoRepository;
+    private PrevisaoGastosService previsaoGastosService;
+
+    @Autowired
+    private UtilizacaoCartaoService utilizacaoCartaoService;
+
+    @Autowired
+    private CacheGraficosService cacheGraficosService;
 
     @Autowired
     private DespesaRepository despesaRepository;
@@ -32,12 +52,109 @@ public class GraficosService {
     @Autowired
     private ReceitaRepository receitaRepository;
 
+    private static final Set<TipoLancamento> DESPESAS = EnumSet.of(TipoLancamento.DESPESA);
+    private static final Set<TipoLancamento> RECEITAS_E_DESPESAS = EnumSet.allOf(TipoLancamento.class);
+
+    /**
+     * Todos os gráficos em uma única resposta. Cada gráfico é calculado em sua própria thread virtual e os
+     * totais do cubo usados por mais de um deles (totais do mês, série mensal de despesas) são lidos uma vez só.
+     */
+    public GraficosBundleDTO buscarBundle(Integer mes, Integer ano, Integer mesesAtras, Integer mesesPrevisao,
+                                          LocalDate dataInicio, LocalDate dataFim) {
+        // Parâmetros inválidos recusam a requisição inteira, como nos endpoints de cada gráfico
+        if (dataInicio != null && dataFim != null && dataInicio.isAfter(dataFim)) {
+            throw new NegocioException("Data de início deve ser menor ou igual à data final");
+        }
+        referencia(mes, ano);
+        PrevisaoGastosService.validarHorizonte(mesesPrevisao);
+
+        Agregados agregados = new Agregados();
+        ExecucaoParcial.Execucao execucao = execucaoParcial.iniciar("bundle de gráficos", timeoutBundleSegundos);
+
+        Future<DashboardFinanceiroDTO> dashboard = execucao.calcular(() -> getDashboardFinanceiro(mes, ano, agregados));
+        Future<GraficoReceitasDespesasCategoriaDTO> categorias =
+                execucao.calcular(() -> buscarDadosGraficoReceitasDespesasCategoria(mes, ano, agregados));
+        Future<GraficoDespesasCartaoDTO> cartoes = execucao.calcular(() -> buscarDespesasPorCartaoAoLongoDoTempo(mesesAtras));
+        Future<GraficoSazonalidadeGastosDTO> sazonalidade = execucao.calcular(this::buscarSazonalidadeGastos);
+        Future<GraficoTendenciaGastosDTO> tendencia = execucao.calcular(() -> buscarTendenciaGastos(agregados));
+        Future<GraficoPrevisaoGastosDTO> previsao = execucao.calcular(() -> previsaoGastosService.buscarPrevisaoGastos(mesesPrevisao));
+        Future<GraficoReceitasDespesasResponseDTO> receitasDespesas =
+                execucao.calcular(() -> buscarGraficoReceitasDespesasPorMes(dataInicio, dataFim, agregados));
+
+        Map<String, String> indisponiveis = new LinkedHashMap<>();
+        GraficosBundleDTO bundle = new GraficosBundleDTO();
+        bundle.setDashboardFinanceiro(execucao.aguardar("dashboardFinanceiro", dashboard, indisponiveis));
+        bundle.setReceitasDespesasCategoria(execucao.aguardar("receitasDespesasCategoria", categorias, indisponiveis));
+        bundle.setDespesasPorCartao(execucao.aguardar("despesasPorCartao", cartoes, indisponiveis));
+        bundle.setSazonalidadeGastos(execucao.aguardar("sazonalidadeGastos", sazonalidade, indisponiveis));
+        bundle.setTendenciaGastos(execucao.aguardar("tendenciaGastos", tendencia, indisponiveis));
+        bundle.setPrevisaoGastos(execucao.aguardar("previsaoGastos", previsao, indisponiveis));
+        bundle.setReceitasDespesas(execucao.aguardar("receitasDespesas", receitasDespesas, indisponiveis));
+        bundle.setGraficosIndisponiveis(indisponiveis);
+        return bundle;
+    }
+
+    /**
+     * Leituras do cubo compartilhadas pelos gráficos de uma mesma requisição. A primeira thread que pede uma
+     * chave calcula o valor e as demais aguardam o mesmo resultado.
+     */
+    private final class Agregados {
+
+        private record TotalDoMes(TipoLancamento tipo, YearMonth mes) {
+        }
+
+        private record TotaisPorMes(TipoLancamento tipo, YearMonth inicio, YearMonth fim) {
+        }
+
+        private final Map<Object, CompletableFuture<Object>> valores = new ConcurrentHashMap<>();
+
+        TotalMes totalDoMes(TipoLancamento tipo, YearMonth mes) {
+            return obter(new TotalDoMes(tipo, mes), () -> cuboAnaliticoService.totalDoMes(tipo, mes));
+        }
+
+        List<TotalMes> totaisPorMes(TipoLancamento tipo, YearMonth inicio, YearMonth fim) {
+            return obter(new TotaisPorMes(tipo, inicio, fim), () -> cuboAnaliticoService.totaisPorMes(tipo, inicio, fim));
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T obter(Object chave, Supplier<T> calcular) {
+            CompletableFuture<Object> novo = new CompletableFuture<>();
+            CompletableFuture<Object> existente = valores.putIfAbsent(chave, novo);
+            if (existente != null) {
+                return (T) existente.join();
+            }
+            try {
+                T valor = calcular.get();
+                novo.complete(valor);
+                return valor;
+            } catch (Throwable e) {
+                // Inclusive Error: quem aguarda a mesma chave não pode ficar bloqueado
+                novo.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
     public GraficoReceitasDespesasCategoriaDTO buscarDadosGraficoReceitasDespesasCategoria(Integer mes, Integer ano) {
-        List<Object[]> dadosReceitas = graficosRepository.buscarReceitasPorCategoriaMesAno(mes, ano);
-        List<Object[]> dadosDespesas = graficosRepository.buscarDespesasPorCategoriaMesAno(mes, ano);
+        return buscarDadosGraficoReceitasDespesasCategoria(mes, ano, new Agregados());
+    }
+
+    private GraficoReceitasDespesasCategoriaDTO buscarDadosGraficoReceitasDespesasCategoria(Integer mes, Integer ano,
+                                                                                            Agregados agregados) {
+        YearMonth referencia = referencia(mes, ano);
+        return cacheGraficosService.obter("receitas-despesas-categoria", Arrays.asList(mes, ano),
+                Escopo.mes(RECEITAS_E_DESPESAS, referencia),
+                () -> calcularReceitasDespesasCategoria(mes, ano, referencia, agregados));
+    }
 
-        Double totalReceitas = graficosRepository.buscarTotalReceitasPorMesAno(mes, ano);
-        Double totalDespesas = graficosRepository.buscarTotalDespesasPorMesAno(mes, ano);
+    private GraficoReceitasDespesasCategoriaDTO calcularReceitasDespesasCategoria(Integer mes, Integer ano,
+                                                                                  YearMonth referencia,
+                                                                                  Agregados agregados) {
+        List<TotalCategoria> dadosReceitas = cuboAnaliticoService.totaisPorCategoria(TipoLancamento.RECEITA, referencia);
+        List<TotalCategoria> dadosDespesas = cuboAnaliticoService.totaisPorCategoria(TipoLancamento.DESPESA, referencia);
+
+        Double totalReceitas = agregados.totalDoMes(TipoLancamento.RECEITA, referencia).total();
+        Double totalDespesas = agregados.totalDoMes(TipoLancamento.DESPESA, referencia).total();
 
         List<DadosGraficoDTO> receitas = converterParaDadosGrafico(dadosReceitas, totalReceitas);
         List<DadosGraficoDTO> despesas = converterParaDadosGrafico(dadosDespesas, totalDespesas);
@@ -55,31 +172,58 @@ public class GraficosService {
     }
 
 
-    private List<DadosGraficoDTO> converterParaDadosGrafico(List<Object[]> dados, Double total) {
-        List<DadosGraficoDTO> resultado = new ArrayList<>();
+    private List<DadosGraficoDTO> converterParaDadosGrafico(List<TotalCategoria> dados, Double total) {
+        // Categorias com o mesmo nome aparecem juntas no gráfico
+        Map<String, Double> valoresPorCategoria = new LinkedHashMap<>();
+        for (TotalCategoria dado : dados) {
+            valoresPorCategoria.merge(dado.nome(), dado.total(), Double::sum);
+        }
 
-        for (Object[] dado : dados) {
-            Map<String, Object> map = (Map<String, Object>) dado[0];
-            String categoria = (String) map.get("categoria");
-            Double valor = (Double) map.get("valor");
+        List<DadosGraficoDTO> resultado = new ArrayList<>();
 
+        for (Map.Entry<String, Double> entry : valoresPorCategoria.entrySet()) {
             DadosGraficoDTO dadosGrafico = new DadosGraficoDTO();
-            dadosGrafico.setCategoria(categoria);
-            dadosGrafico.setValor(valor);
-            dadosGrafico.setPercentual((valor / total) * 100);
+            dadosGrafico.setCategoria(entry.getKey());
+            dadosGrafico.setValor(entry.getValue());
+            dadosGrafico.setPercentual((entry.getValue() / total) * 100);
 
             resultado.add(dadosGrafico);
         }
 
+        resultado.sort(Comparator.comparing(DadosGraficoDTO::getValor).reversed());
         return resultado;
     }
 
+    // Mês de referência dos filtros; sem mês e ano, considera todo o histórico
+    private static YearMonth referencia(Integer mes, Integer ano) {
+        return mes != null && ano != null ? FaturaService.referencia(mes, ano) : null;
+    }
+
+    private Map<String, Double> somarPorMes(TipoLancamento tipo, YearMonth inicio, YearMonth fim, Agregados agregados) {
+        Map<String, Double> totaisPorMes = new LinkedHashMap<>();
+        for (TotalMes dado : agregados.totaisPorMes(tipo, inicio, fim)) {
+            totaisPorMes.put(String.format("%04d-%02d", dado.mes().getYear(), dado.mes().getMonthValue()), dado.total());
+        }
+        return totaisPorMes;
+    }
+
     public DashboardFinanceiroDTO getDashboardFinanceiro(Integer mes, Integer ano) {
+        return getDashboardFinanceiro(mes, ano, new Agregados());
+    }
+
+    private DashboardFinanceiroDTO getDashboardFinanceiro(Integer mes, Integer ano, Agregados agregados) {
+        YearMonth referencia = referencia(mes, ano);
+        return cacheGraficosService.obter("dashboard-financeiro", Arrays.asList(mes, ano),
+                Escopo.mes(RECEITAS_E_DESPESAS, referencia).comLimitesCartao(),
+                () -> calcularDashboardFinanceiro(referencia, agregados));
+    }
+
+    private DashboardFinanceiroDTO calcularDashboardFinanceiro(YearMonth referencia, Agregados agregados) {
         DashboardFinanceiroDTO dashboard = new DashboardFinanceiroDTO();
 
         // Calcula o saldo atual (receitas - despesas)
-        Double totalReceitas = receitaRepository.buscarTotalReceitasPorMesAno(mes, ano);
-        Double totalDespesas = despesaRepository.buscarTotalDespesasPorMesAno(mes, ano);
+        Double totalReceitas = agregados.totalDoMes(TipoLancamento.RECEITA, referencia).total();
+        Double totalDespesas = agregados.totalDoMes(TipoLancamento.DESPESA, referencia).total();
         Double saldoAtual = totalReceitas - totalDespesas;
         dashboard.setSaldoAtual(saldoAtual);
 
@@ -87,88 +231,93 @@ public class GraficosService {
         Double taxaEconomia = totalReceitas > 0 ? ((totalReceitas - totalDespesas) / totalReceitas * 100) : 0.0;
         dashboard.setTaxaEconomiaMensal(taxaEconomia);
 
-        // Busca informações de limite dos cartões
-        List<CartaoLimiteDTO> limitesCartoes = new ArrayList<>();
-        List<Cartao> cartoes = cartaoRepository.findAll();
-
-        for (Cartao cartao : cartoes) {
-            CartaoLimiteDTO limiteDTO = new CartaoLimiteDTO();
-            limiteDTO.setNomeCartao(cartao.getNome());
-            limiteDTO.setLimiteTotal(cartao.getLimite());
-
-            // Calcula o limite usado (soma das despesas não pagas do cartão)
-            Double limiteUsado = cartaoRepository.calcularTotalDespesasPorCartao(cartao.getId());
-            limiteDTO.setLimiteUsado(limiteUsado);
-
-            // Calcula o limite disponível
-            Double limiteDisponivel = cartao.getLimite() - limiteUsado;
-            limiteDTO.setLimiteDisponivel(limiteDisponivel);
-
-            // Calcula o percentual utilizado
-            Double percentualUtilizado = (limiteUsado / cartao.getLimite()) * 100;
-            limiteDTO.setPercentualUtilizado(percentualUtilizado);
-
-            limitesCartoes.add(limiteDTO);
-        }
-
-        dashboard.setLimitesCartoes(limitesCartoes);
+        // Utilização do limite de cada cartão
+        dashboard.setLimitesCartoes(utilizacaoCartaoService.listarUtilizacoes());
 
         return dashboard;
     }
 
     public GraficoSazonalidadeGastosDTO buscarSazonalidadeGastos() {
-        // Busca os dados do banco
-        List<Object[]> dadosMedias = graficosRepository.buscarMediaHistoricaGastosPorMes();
+        return cacheGraficosService.obter("sazonalidade-gastos", List.of(),
+                Escopo.meses(DESPESAS, null, null), this::calcularSazonalidadeGastos);
+    }
+
+    /**
+     * Estatísticas de cada mês do ano sobre o total gasto nesse mês em cada ano: média, mediana e
+     * desvio padrão populacional. Os totais mensais vêm do cubo analítico e o resultado fica em
+     * cache até a próxima escrita de despesas.
+     */
+    private GraficoSazonalidadeGastosDTO calcularSazonalidadeGastos() {
+        List<TotaisMesDoAno> dadosMeses = cuboAnaliticoService.totaisAnuaisPorMesDoAno(TipoLancamento.DESPESA);
 
-        // Prepara a estrutura do DTO
         GraficoSazonalidadeGastosDTO dto = new GraficoSazonalidadeGastosDTO();
 
-        // Inicializa as listas
         List<String> meses = new ArrayList<>();
         List<Double> mediasGastos = new ArrayList<>();
+        List<Double> medianasGastos = new ArrayList<>();
+        List<Double> desviosPadraoGastos = new ArrayList<>();
+        List<Integer> quantidadesAnos = new ArrayList<>();
 
         // Variáveis para controlar máximos e mínimos
-        double maiorMedia = Double.MIN_VALUE;
-        double menorMedia = Double.MAX_VALUE;
+        Double maiorMedia = null;
+        Double menorMedia = null;
         String mesMaiorGasto = "";
         String mesMenorGasto = "";
 
-        // Processa os dados
-        for (Object[] dado : dadosMedias) {
-            Map<String, Object> map = (Map<String, Object>) dado[0];
-            Integer mesNumero = (Integer) map.get("mes");
-            Double mediaGastos = (Double) map.get("mediaGastos");
+        for (TotaisMesDoAno dado : dadosMeses) {
+            double[] totais = dado.totaisAnuais().stream().mapToDouble(Double::doubleValue).toArray();
+            double media = Arrays.stream(totais).average().orElse(0.0);
 
             // Obtém o nome do mês em português
-            String nomeMes = Month.of(mesNumero)
+            String nomeMes = Month.of(dado.mes())
                     .getDisplayName(TextStyle.FULL, new Locale("pt", "BR"))
                     .toUpperCase();
 
             meses.add(nomeMes);
-            mediasGastos.add(mediaGastos);
+            mediasGastos.add(media);
+            medianasGastos.add(mediana(totais));
+            desviosPadraoGastos.add(desvioPadrao(totais, media));
+            quantidadesAnos.add(totais.length);
 
             // Atualiza máximos e mínimos
-            if (mediaGastos > maiorMedia) {
-                maiorMedia = mediaGastos;
+            if (maiorMedia == null || media > maiorMedia) {
+                maiorMedia = media;
                 mesMaiorGasto = nomeMes;
             }
-            if (mediaGastos < menorMedia) {
-                menorMedia = mediaGastos;
+            if (menorMedia == null || media < menorMedia) {
+                menorMedia = media;
                 mesMenorGasto = nomeMes;
             }
         }
 
-        // Configura o DTO
         dto.setMeses(meses);
         dto.setMediasGastos(mediasGastos);
-        dto.setMaiorMedia(maiorMedia);
-        dto.setMenorMedia(menorMedia);
+        dto.setMedianasGastos(medianasGastos);
+        dto.setDesviosPadraoGastos(desviosPadraoGastos);
+        dto.setQuantidadesAnos(quantidadesAnos);
+        dto.setMaiorMedia(maiorMedia != null ? maiorMedia : 0.0);
+        dto.setMenorMedia(menorMedia != null ? menorMedia : 0.0);
         dto.setMesMaiorGasto(mesMaiorGasto);
         dto.setMesMenorGasto(mesMenorGasto);
 
         return dto;
     }
 
+    private static double mediana(double[] valores) {
+        double[] ordenados = valores.clone();
+        Arrays.sort(ordenados);
+        int meio = ordenados.length / 2;
+        return ordenados.length % 2 == 1 ? ordenados[meio] : (ordenados[meio - 1] + ordenados[meio]) / 2;
+    }
+
+    private static double desvioPadrao(double[] valores, double media) {
+        double somaQuadrados = 0;
+        for (double valor : valores) {
+            somaQuadrados += (valor - media) * (valor - media);
+        }
+        return Math.sqrt(somaQuadrados / valores.length);
+    }
+
     public GraficoDespesasCartaoDTO buscarDespesasPorCartaoAoLongoDoTempo(Integer mesesFiltro) {
 
         LocalDate dataFim;
@@ -182,53 +331,40 @@ public class GraficosService {
             dataInicio = LocalDate.now().minusMonths(mesesFiltro);
         }
 
-        // Busca os dados do banco
-        List<Object[]> dadosDespesas = graficosRepository.buscarDespesasPorCartaoNoPeriodo(dataInicio, dataFim);
+        YearMonth inicio = YearMonth.from(dataInicio);
+        YearMonth fim = YearMonth.from(dataFim);
+        return cacheGraficosService.obter("despesas-por-cartao", List.of(inicio, fim),
+                Escopo.meses(DESPESAS, inicio, fim), () -> calcularDespesasPorCartao(inicio, fim));
+    }
+
+    private GraficoDespesasCartaoDTO calcularDespesasPorCartao(YearMonth inicio, YearMonth fim) {
+        // Busca as séries de cada cartão no cubo analítico (meses inteiros do período)
+        Map<String, double[]> dadosPorCartao = cuboAnaliticoService.despesasPorCartao(inicio, fim);
 
         // Prepara a estrutura do DTO
         GraficoDespesasCartaoDTO dto = new GraficoDespesasCartaoDTO();
 
         // Gera a lista de meses para o período
         List<String> meses = new ArrayList<>();
-        YearMonth mesAtual = YearMonth.from(dataInicio);
-        while (!mesAtual.isAfter(YearMonth.from(dataFim))) {
+        YearMonth mesAtual = inicio;
+        while (!mesAtual.isAfter(fim)) {
             meses.add(mesAtual.getMonthValue() + "/" + mesAtual.getYear());
             mesAtual = mesAtual.plusMonths(1);
         }
         dto.setMeses(meses);
 
-        // Organiza os dados por cartão
-        Map<String, Map<String, Double>> dadosPorCartao = new HashMap<>();
-        Double valorTotalPeriodo = 0.0;
-
-        for (Object[] dado : dadosDespesas) {
-            Map<String, Object> map = (Map<String, Object>) dado[0];
-            String mes = (String) map.get("mes");
-            String cartao = (String) map.get("cartao");
-            Double valor = (Double) map.get("valor");
-
-            dadosPorCartao.computeIfAbsent(cartao, k -> new HashMap<>());
-            dadosPorCartao.get(cartao).put(mes, valor);
-            valorTotalPeriodo += valor;
-        }
-
-        // Converte os dados para o formato das séries
+        // Converte os dados para o formato das séries; meses sem despesas ficam com 0.0
         List<GraficoDespesasCartaoDTO.SerieCartaoDTO> series = new ArrayList<>();
-        for (Map.Entry<String, Map<String, Double>> entry : dadosPorCartao.entrySet()) {
+        Double valorTotalPeriodo = 0.0;
+        for (Map.Entry<String, double[]> entry : dadosPorCartao.entrySet()) {
             GraficoDespesasCartaoDTO.SerieCartaoDTO serie = new GraficoDespesasCartaoDTO.SerieCartaoDTO();
             serie.setNomeCartao(entry.getKey());
-
-            // Preenche os valores mensais, usando 0.0 para meses sem despesas
-            List<Double> valores = meses.stream()
-                    .map(mes -> entry.getValue().getOrDefault(mes, 0.0))
-                    .collect(Collectors.toList());
-            serie.setValores(valores);
+            serie.setValores(Arrays.stream(entry.getValue()).boxed().collect(Collectors.toList()));
 
             // Calcula o total do cartão
-            Double totalCartao = entry.getValue().values().stream()
-                    .mapToDouble(Double::doubleValue)
-                    .sum();
+            Double totalCartao = Arrays.stream(entry.getValue()).sum();
             serie.setValorTotal(totalCartao);
+            valorTotalPeriodo += totalCartao;
 
             series.add(serie);
         }
@@ -240,12 +376,20 @@ public class GraficosService {
     }
 
     public GraficoTendenciaGastosDTO buscarTendenciaGastos() {
+        return buscarTendenciaGastos(new Agregados());
+    }
+
+    private GraficoTendenciaGastosDTO buscarTendenciaGastos(Agregados agregados) {
         // Calcula o período de análise (últimos 12 meses)
-        LocalDate dataFim = LocalDate.now();
-        LocalDate dataInicio = dataFim.minusMonths(11); // Para incluir o mês atual
+        YearMonth mesFim = YearMonth.now();
+        YearMonth mesInicio = mesFim.minusMonths(11); // Para incluir o mês atual
+        return cacheGraficosService.obter("tendencia-gastos", List.of(mesFim),
+                Escopo.meses(DESPESAS, mesInicio, mesFim), () -> calcularTendenciaGastos(mesInicio, mesFim, agregados));
+    }
 
-        // Busca os dados do banco
-        List<Object[]> dadosDespesas = graficosRepository.buscarDespesasUltimos12Meses(dataInicio, dataFim);
+    private GraficoTendenciaGastosDTO calcularTendenciaGastos(YearMonth mesInicio, YearMonth mesFim, Agregados agregados) {
+        // Busca os dados dos resumos mensais
+        List<TotalMes> dadosDespesas = agregados.totaisPorMes(TipoLancamento.DESPESA, mesInicio, mesFim);
 
         // Prepara o DTO
         GraficoTendenciaGastosDTO dto = new GraficoTendenciaGastosDTO();
@@ -253,10 +397,9 @@ public class GraficosService {
         List<Double> valores = new ArrayList<>();
 
         // Processa os dados
-        for (Object[] dado : dadosDespesas) {
-            Map<String, Object> map = (Map<String, Object>) dado[0];
-            String mes = (String) map.get("mes");
-            Double valor = (Double) map.get("valor");
+        for (TotalMes dado : dadosDespesas) {
+            String mes = dado.mes().getMonthValue() + "/" + dado.mes().getYear();
+            Double valor = dado.total();
 
             meses.add(mes);
             valores.add(valor);
@@ -311,6 +454,11 @@ public class GraficosService {
 
     public GraficoReceitasDespesasResponseDTO buscarGraficoReceitasDespesasPorMes(
             LocalDate dataInicio, LocalDate dataFim) {
+        return buscarGraficoReceitasDespesasPorMes(dataInicio, dataFim, new Agregados());
+    }
+
+    private GraficoReceitasDespesasResponseDTO buscarGraficoReceitasDespesasPorMes(
+            LocalDate dataInicio, LocalDate dataFim, Agregados agregados) {
         
         // Valida os parâmetros
         if (dataInicio == null || dataFim == null) {
@@ -323,30 +471,48 @@ public class GraficosService {
         if (dataInicio.isAfter(dataFim)) {
             throw new IllegalArgumentException("Data de início deve ser menor ou igual à data final");
         }
-        
-        // Busca dados de receitas e despesas agrupados por mês
-        List<ReceitaMensalDTO> receitas;
-        List<DespesaMensalDTO> despesas;
-        
-        try {
-            // Tenta usar as queries com DTO primeiro
-            receitas = receitaRepository.buscarReceitasAgrupadasPorMes(dataInicio, dataFim);
-            despesas = despesaRepository.buscarDespesasAgrupadasPorMes(dataInicio, dataFim);
-        } catch (Exception e) {
-            // Se falhar, usa as queries raw como fallback
-            receitas = converterReceitasRawParaDTO(
-                receitaRepository.buscarReceitasAgrupadasPorMesRaw(dataInicio, dataFim));
-            despesas = converterDespesasRawParaDTO(
-                despesaRepository.buscarDespesasAgrupadasPorMesRaw(dataInicio, dataFim));
+
+        LocalDate inicio = dataInicio;
+        LocalDate fim = dataFim;
+        return cacheGraficosService.obter("receitas-despesas", List.of(inicio, fim),
+                Escopo.meses(RECEITAS_E_DESPESAS, YearMonth.from(inicio), YearMonth.from(fim)),
+                () -> calcularReceitasDespesasPorMes(inicio, fim, agregados));
+    }
+
+    private GraficoReceitasDespesasResponseDTO calcularReceitasDespesasPorMes(LocalDate dataInicio, LocalDate dataFim,
+                                                                             Agregados agregados) {
+        Map<String, Double> receitasPorMes;
+        Map<String, Double> despesasPorMes;
+
+        if (dataInicio.getDayOfMonth() == 1 && dataFim.getDayOfMonth() == dataFim.lengthOfMonth()) {
+            // Período de meses inteiros: usa o cubo analítico
+            receitasPorMes = somarPorMes(TipoLancamento.RECEITA, YearMonth.from(dataInicio), YearMonth.from(dataFim), agregados);
+            despesasPorMes = somarPorMes(TipoLancamento.DESPESA, YearMonth.from(dataInicio), YearMonth.from(dataFim), agregados);
+        } else {
+            // Meses parciais nas pontas: agrupa os lançamentos do período
+            List<ReceitaMensalDTO> receitas;
+            List<DespesaMensalDTO> despesas;
+
+            try {
+                // Tenta usar as queries com DTO primeiro
+                receitas = receitaRepository.buscarReceitasAgrupadasPorMes(dataInicio, dataFim);
+                despesas = despesaRepository.buscarDespesasAgrupadasPorMes(dataInicio, dataFim);
+            } catch (Exception e) {
+                // Se falhar, usa as queries raw como fallback
+                receitas = converterReceitasRawParaDTO(
+                    receitaRepository.buscarReceitasAgrupadasPorMesRaw(dataInicio, dataFim));
+                despesas = converterDespesasRawParaDTO(
+                    despesaRepository.buscarDespesasAgrupadasPorMesRaw(dataInicio, dataFim));
+            }
+
+            // Cria mapa para facilitar a busca
+            receitasPorMes = receitas.stream()
+                    .collect(Collectors.toMap(ReceitaMensalDTO::getMes, ReceitaMensalDTO::getTotal));
+
+            despesasPorMes = despesas.stream()
+                    .collect(Collectors.toMap(DespesaMensalDTO::getMes, DespesaMensalDTO::getTotal));
         }
         
-        // Cria mapa para facilitar a busca
-        Map<String, Double> receitasPorMes = receitas.stream()
-                .collect(Collectors.toMap(ReceitaMensalDTO::getMes, ReceitaMensalDTO::getTotal));
-        
-        Map<String, Double> despesasPorMes = despesas.stream()
-                .collect(Collectors.toMap(DespesaMensalDTO::getMes, DespesaMensalDTO::getTotal));
-        
         // Gera lista de todos os meses no período
         List<String> todosMeses = gerarListaMeses(dataInicio, dataFim);
         
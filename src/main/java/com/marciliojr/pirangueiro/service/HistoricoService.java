@@ -1,56 +1,267 @@
 package com.marciliojr.pirangueiro.service;
 
 import com.marciliojr.pirangueiro.model.Historico;
-import com.marciliojr.pirangueiro.model.Usuario;
-import com.marciliojr.pirangueiro.repository.HistoricoRepository;
-import com.marciliojr.pirangueiro.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-
-import java.util.List;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Registro do histórico de operações com gravação em segundo plano.
+ *
+ * <p>Quem altera os dados só coloca o registro em uma fila limitada, depois do commit da própria
+ * transação (uma operação desfeita não deixa histórico). Uma thread grava os registros da fila em
+ * lotes JDBC. Com a fila cheia, quem registra espera um pouco e, se ela continuar cheia, grava o
+ * próprio registro; assim nenhum registro é perdido e a fila não cresce sem limite.</p>
+ *
+ * <p>{@link #descarregar()} espera a gravação de tudo o que já estava na fila. É chamado antes da
+ * exportação de backup e antes das limpezas da base. No encerramento da aplicação novos registros
+ * passam a ser gravados por quem registra, a thread de gravação termina o lote em andamento e o
+ * que restou na fila é gravado pela thread que encerra.</p>
+ */
 @Service
+@Slf4j
 public class HistoricoService {
 
-    @Autowired
-    private HistoricoRepository historicoRepository;
+    private static final String SQL_INSERIR =
+            "INSERT INTO historico (tipo_operacao, entidade, entidade_id, usuario_id, info, data_hora) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Value("${historico.gravacao.capacidade-fila:10000}")
+    private int capacidadeFila;
+
+    @Value("${historico.gravacao.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Value("${historico.gravacao.espera-fila-ms:200}")
+    private long esperaFilaMs;
+
+    @Value("${historico.gravacao.timeout-descarga-segundos:30}")
+    private int timeoutDescargaSegundos;
 
     @Autowired
-    private UsuarioRepository usuarioRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    // Itens da fila: registros a gravar e marcas de descarga, atendidas na ordem em que chegaram
+    private sealed interface Pedido permits Registro, Descarga {
+    }
+
+    private record Registro(Historico.TipoOperacao tipoOperacao, String entidade, Long entidadeId, Long usuarioId,
+                            String info, LocalDateTime dataHora) implements Pedido {
+    }
+
+    private record Descarga(CompletableFuture<Void> concluida) implements Pedido {
+    }
+
+    private BlockingQueue<Pedido> fila;
 
+    private Thread gravador;
 
+    private volatile boolean encerrado;
+
+    @PostConstruct
+    void iniciarGravador() {
+        fila = new ArrayBlockingQueue<>(capacidadeFila);
+        gravador = Thread.ofPlatform().daemon().name("historico-gravador").start(this::gravarContinuamente);
+    }
+
+    @PreDestroy
+    void encerrar() {
+        // A partir daqui quem registra grava o próprio registro
+        encerrado = true;
+        try {
+            // Parada ociosa em até esperaFilaMs; a interrupção só é usada se a gravação travar
+            gravador.join(TimeUnit.SECONDS.toMillis(timeoutDescargaSegundos));
+            if (gravador.isAlive()) {
+                log.warn("Gravação do histórico não terminou em {}s; thread interrompida", timeoutDescargaSegundos);
+                gravador.interrupt();
+                gravador.join(esperaFilaMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drenarFila();
+    }
 
     /**
-     * Registra uma operação no histórico do sistema
+     * Registra uma operação no histórico do sistema. O registro é gravado em segundo plano,
+     * depois do commit da transação atual.
      * @param tipoOperacao Tipo da operação realizada
      * @param entidade Nome da entidade
      * @param entidadeId ID da entidade
      * @param entidadeInfo toString() da entidade para histórico completo
      * @param usuarioId ID do usuário que realizou a operação (pode ser null se não houver usuário logado)
-     * @return Historico salvo
      */
-    public Historico registrarOperacao(Historico.TipoOperacao tipoOperacao, String entidade, Long entidadeId, 
-                                      String entidadeInfo, Long usuarioId) {
-        Historico historico = new Historico();
-        historico.setTipoOperacao(tipoOperacao);
-        historico.setEntidade(entidade);
-        historico.setEntidadeId(entidadeId);
-        historico.setInfo(entidadeInfo);
-        
-        // Buscar e associar o usuário se o ID foi fornecido
-        if (usuarioId != null) {
-            Usuario usuario = usuarioRepository.findById(usuarioId).orElse(null);
-            historico.setUsuario(usuario);
+    public void registrarOperacao(Historico.TipoOperacao tipoOperacao, String entidade, Long entidadeId,
+                                  String entidadeInfo, Long usuarioId) {
+        registrarAposCommit(List.of(new Registro(tipoOperacao, entidade, entidadeId, usuarioId, entidadeInfo,
+                LocalDateTime.now())));
+    }
+
+    /**
+     * Registra a mesma operação para vários registros de uma entidade, gravados em lote,
+     * usado pelas operações em lote para não gerar um INSERT por registro afetado.
+     * @param tipoOperacao Tipo da operação realizada
+     * @param entidade Nome da entidade
+     * @param entidadeIds IDs dos registros afetados
+     * @param info Descrição da operação em lote
+     * @param usuarioId ID do usuário que realizou a operação (pode ser null)
+     */
+    public void registrarOperacoesEmLote(Historico.TipoOperacao tipoOperacao, String entidade, List<Long> entidadeIds,
+                                         String info, Long usuarioId) {
+        if (entidadeIds == null || entidadeIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime dataHora = LocalDateTime.now();
+        List<Registro> registros = new ArrayList<>(entidadeIds.size());
+        for (Long entidadeId : entidadeIds) {
+            registros.add(new Registro(tipoOperacao, entidade, entidadeId, usuarioId, info, dataHora));
         }
-        
-        return historicoRepository.save(historico);
+        registrarAposCommit(registros);
+    }
+
+    /**
+     * Espera a gravação de todos os registros que já estavam na fila.
+     */
+    public void descarregar() {
+        if (encerrado) {
+            return;
+        }
+        Descarga descarga = new Descarga(new CompletableFuture<>());
+        try {
+            if (!fila.offer(descarga, timeoutDescargaSegundos, TimeUnit.SECONDS)) {
+                log.warn("Fila do histórico continua cheia após {}s; descarga não realizada", timeoutDescargaSegundos);
+                return;
+            }
+            descarga.concluida().get(timeoutDescargaSegundos, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Histórico não terminou de ser gravado em {}s", timeoutDescargaSegundos);
+        }
+    }
+
+    private void registrarAposCommit(List<Registro> registros) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enfileirar(registros);
+                }
+            });
+        } else {
+            enfileirar(registros);
+        }
+    }
+
+    private void enfileirar(List<Registro> registros) {
+        int enfileirados = 0;
+        try {
+            while (enfileirados < registros.size() && !encerrado
+                    && fila.offer(registros.get(enfileirados), esperaFilaMs, TimeUnit.MILLISECONDS)) {
+                enfileirados++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (enfileirados < registros.size()) {
+            // Fila cheia ou aplicação encerrando: quem registrou grava o restante
+            gravar(registros.subList(enfileirados, registros.size()));
+        }
+        if (encerrado) {
+            // Enfileirado enquanto a aplicação encerrava, possivelmente depois da última drenagem
+            drenarFila();
+        }
+    }
+
+    private void gravarContinuamente() {
+        List<Pedido> pedidos = new ArrayList<>(tamanhoLote);
+        while (!encerrado) {
+            try {
+                Pedido primeiro = fila.poll(esperaFilaMs, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                pedidos.add(primeiro);
+            } catch (InterruptedException e) {
+                return;
+            }
+            fila.drainTo(pedidos, tamanhoLote - 1);
+            atender(pedidos);
+            pedidos.clear();
+        }
+    }
+
+    // Grava na thread atual o que restou na fila e libera quem espera uma descarga
+    private void drenarFila() {
+        List<Pedido> pedidos = new ArrayList<>();
+        while (fila.drainTo(pedidos, tamanhoLote) > 0) {
+            atender(pedidos);
+            pedidos.clear();
+        }
+    }
+
+    private void atender(List<Pedido> pedidos) {
+        List<Registro> lote = new ArrayList<>(pedidos.size());
+        for (Pedido pedido : pedidos) {
+            if (pedido instanceof Registro registro) {
+                lote.add(registro);
+            } else if (pedido instanceof Descarga descarga) {
+                gravar(lote);
+                lote.clear();
+                descarga.concluida().complete(null);
+            }
+        }
+        gravar(lote);
+    }
+
+    private void gravar(List<Registro> registros) {
+        if (registros.isEmpty()) {
+            return;
+        }
+        try {
+            // Usuários excluídos nesse meio tempo ficam sem associação, como antes da gravação em lote
+            Set<Long> usuarios = usuariosExistentes(registros);
+            List<Object[]> linhas = new ArrayList<>(registros.size());
+            for (Registro registro : registros) {
+                Long usuarioId = registro.usuarioId() != null && usuarios.contains(registro.usuarioId()) ? registro.usuarioId() : null;
+                linhas.add(new Object[]{registro.tipoOperacao().name(), registro.entidade(), registro.entidadeId(),
+                        usuarioId, registro.info(), Timestamp.valueOf(registro.dataHora())});
+            }
+            jdbcTemplate.batchUpdate(SQL_INSERIR, linhas);
+        } catch (RuntimeException e) {
+            log.error("Erro ao gravar {} registros do histórico: {}", registros.size(), registros, e);
+        }
+    }
+
+    private Set<Long> usuariosExistentes(List<Registro> registros) {
+        Set<Long> ids = registros.stream()
+                .map(Registro::usuarioId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        String parametros = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM usuario WHERE id IN (" + parametros + ")", Long.class, ids.toArray()));
     }
 
     /**
      * Versão simplificada que mantém compatibilidade com código existente
      */
-    public Historico registrarOperacao(Historico.TipoOperacao tipoOperacao, String entidade, Long entidadeId) {
-        return registrarOperacao(tipoOperacao, entidade, entidadeId, null, null);
+    public void registrarOperacao(Historico.TipoOperacao tipoOperacao, String entidade, Long entidadeId) {
+        registrarOperacao(tipoOperacao, entidade, entidadeId, null, null);
     }
 
     // ==================== MÉTODOS PARA DESPESAS ====================
@@ -214,4 +425,14 @@ public class HistoricoService {
     public void registrarExclusaoNotificacao(Long notificacaoId, String notificacaoInfo, Long usuarioId) {
         registrarOperacao(Historico.TipoOperacao.EXCLUSAO_NOTIFICACAO, "NOTIFICACAO", notificacaoId, notificacaoInfo, usuarioId);
     }
-} 
\ No newline at end of file
+
+    // ==================== MÉTODOS PARA IMPORTAÇÃO DE EXTRATO ====================
+
+    /**
+     * Registra uma importação de extrato como um único registro agregado,
+     * em vez de um registro por lançamento importado.
+     */
+    public void registrarImportacaoExtrato(String importacaoInfo, Long usuarioId) {
+        registrarOperacao(Historico.TipoOperacao.IMPORTACAO_EXTRATO, "IMPORTACAO_EXTRATO", 0L, importacaoInfo, usuarioId);
+    }
+}
@@ -0,0 +1,754 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.ParametrosImportacaoDTO;
+import com.marciliojr.pirangueiro.dto.ResultadoImportacaoDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosNaTransacaoEvent;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.Cartao;
+import com.marciliojr.pirangueiro.model.Categoria;
+import com.marciliojr.pirangueiro.model.Historico;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.repository.CartaoRepository;
+import com.marciliojr.pirangueiro.repository.CategoriaRepository;
+import com.marciliojr.pirangueiro.repository.ContaRepository;
+import com.marciliojr.pirangueiro.util.HashLancamentoUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serviço responsável pela importação em lote de extratos bancários (CSV e OFX).
+ *
+ * <p>O arquivo é lido linha a linha e os lançamentos são gravados em lotes JDBC,
+ * de forma que a memória usada não dependa do tamanho do extrato. Lançamentos já
+ * existentes são descartados pelo hash de (data, valor, descrição) e toda a importação
+ * gera um único registro agregado no histórico.</p>
+ *
+ * <p>Cada lote é entregue às tabelas derivadas (faturas, resumos mensais) na própria transação
+ * ({@link LancamentosNaTransacaoEvent}) e descartado em seguida. As estruturas em memória são
+ * avisadas uma única vez, depois do commit, com o resumo da importação
+ * ({@link LancamentosImportadosEvent}).</p>
+ */
+@Service
+@Slf4j
+public class ImportacaoExtratoService {
+
+    private static final int TAMANHO_LOTE = 500;
+    private static final int MAXIMO_ERROS_REPORTADOS = 50;
+
+    private static final String SQL_INSERIR_DESPESA =
+            "INSERT INTO despesa (descricao, valor, data, conta_id, cartao_id, categoria_id, observacao, pago, hash_importacao) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_INSERIR_RECEITA =
+            "INSERT INTO receita (descricao, valor, data, conta_id, categoria_id, observacao, hash_importacao) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final Pattern TAG_OFX = Pattern.compile("<(/?)([A-Za-z0-9.]+)>([^<]*)");
+
+    // Resolução estrita: datas inexistentes como 31/02 são recusadas em vez de ajustadas para o fim do mês
+    private static final List<DateTimeFormatter> FORMATOS_DATA = List.of(
+            DateTimeFormatter.ofPattern("dd/MM/uuuu").withResolverStyle(ResolverStyle.STRICT),
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd-MM-uuuu").withResolverStyle(ResolverStyle.STRICT),
+            DateTimeFormatter.ofPattern("dd/MM/uu").withResolverStyle(ResolverStyle.STRICT));
+
+    public enum FormatoExtrato {
+        CSV,
+        OFX;
+
+        public static FormatoExtrato deNomeArquivo(String nomeArquivo) {
+            if (nomeArquivo != null && nomeArquivo.toLowerCase(Locale.ROOT).endsWith(".ofx")) {
+                return OFX;
+            }
+            return CSV;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ContaRepository contaRepository;
+
+    @Autowired
+    private CartaoRepository cartaoRepository;
+
+    @Autowired
+    private HistoricoService historicoService;
+
+    @Autowired
+    private LimiteCartaoService limiteCartaoService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Importa um extrato completo dentro de uma única transação.
+     */
+    @Transactional
+    public ResultadoImportacaoDTO importar(InputStream entrada, String nomeArquivo, FormatoExtrato formato,
+                                           ParametrosImportacaoDTO parametros) throws IOException {
+        long inicio = System.currentTimeMillis();
+        validarParametros(parametros);
+
+        ContextoImportacao contexto = new ContextoImportacao(parametros);
+        contexto.resultado.setNomeArquivo(nomeArquivo);
+        contexto.resultado.setFormato(formato.name());
+
+        Charset charset = Charset.forName(parametros.getCharset() != null ? parametros.getCharset() : "UTF-8");
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, charset))) {
+            if (formato == FormatoExtrato.OFX) {
+                lerOfx(leitor, contexto);
+            } else {
+                lerCsv(leitor, contexto);
+            }
+        }
+
+        gravarLote(contexto, contexto.loteDespesas, true);
+        gravarLote(contexto, contexto.loteReceitas, false);
+        if (!contexto.tiposImportados.isEmpty()) {
+            eventPublisher.publishEvent(new LancamentosImportadosEvent(this, contexto.tiposImportados,
+                    contexto.mesesImportados, contexto.cartoesImportados, contexto.primeiroMesPorConta));
+        }
+
+        ResultadoImportacaoDTO resultado = contexto.resultado;
+        resultado.setTempoProcessamentoMs(System.currentTimeMillis() - inicio);
+        registrarHistorico(resultado);
+
+        log.info("Importação de extrato concluída - Arquivo: {}, Despesas: {}, Receitas: {}, Duplicadas: {}, Tempo: {} ms",
+                nomeArquivo, resultado.getDespesasImportadas(), resultado.getReceitasImportadas(),
+                resultado.getDuplicadasIgnoradas(), resultado.getTempoProcessamentoMs());
+        return resultado;
+    }
+
+    /**
+     * Preenche o hash de deduplicação dos lançamentos cadastrados antes da importação existir,
+     * em lotes, para que também sejam considerados na deduplicação.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preencherHashesPendentes() {
+        try {
+            int despesas = preencherHashesPendentes("despesa");
+            int receitas = preencherHashesPendentes("receita");
+            if (despesas + receitas > 0) {
+                log.info("Hash de deduplicação preenchido para {} despesas e {} receitas", despesas, receitas);
+            }
+        } catch (Exception e) {
+            log.error("Erro ao preencher hashes de deduplicação: {}", e.getMessage());
+        }
+    }
+
+    private int preencherHashesPendentes(String tabela) {
+        String consulta = "SELECT id, data, valor, descricao FROM " + tabela +
+                " WHERE hash_importacao IS NULL ORDER BY id LIMIT " + TAMANHO_LOTE;
+        String atualizacao = "UPDATE " + tabela + " SET hash_importacao = ? WHERE id = ?";
+        int total = 0;
+
+        while (true) {
+            List<Object[]> lote = jdbcTemplate.query(consulta, (rs, i) -> {
+                Date data = rs.getDate("data");
+                double valor = rs.getDouble("valor");
+                Double valorLido = rs.wasNull() ? null : valor;
+                String hash = HashLancamentoUtil.calcular(data != null ? data.toLocalDate() : null,
+                        valorLido, rs.getString("descricao"));
+                return new Object[]{hash, rs.getLong("id")};
+            });
+            if (lote.isEmpty()) {
+                return total;
+            }
+            jdbcTemplate.batchUpdate(atualizacao, lote);
+            total += lote.size();
+        }
+    }
+
+    // ==================== LEITURA DOS FORMATOS ====================
+
+    private void lerCsv(BufferedReader leitor, ContextoImportacao contexto) throws IOException {
+        String cabecalho = leitor.readLine();
+        if (cabecalho == null) {
+            throw new NegocioException("Arquivo de extrato vazio");
+        }
+        if (!cabecalho.isEmpty() && cabecalho.charAt(0) == '﻿') {
+            cabecalho = cabecalho.substring(1);
+        }
+
+        char separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+        Map<String, Integer> colunas = new HashMap<>();
+        List<String> nomesColunas = dividirCsv(cabecalho, separador);
+        for (int i = 0; i < nomesColunas.size(); i++) {
+            colunas.put(normalizarCabecalho(nomesColunas.get(i)), i);
+        }
+
+        Integer colData = colunas.get("data");
+        Integer colDescricao = colunas.containsKey("descricao") ? colunas.get("descricao") : colunas.get("historico");
+        Integer colValor = colunas.get("valor");
+        if (colData == null || colDescricao == null || colValor == null) {
+            throw new NegocioException("Cabeçalho do CSV inválido", "422",
+                    "O arquivo deve conter as colunas 'data', 'descricao' e 'valor'");
+        }
+
+        String linha;
+        int numeroLinha = 1;
+        while ((linha = leitor.readLine()) != null) {
+            numeroLinha++;
+            if (linha.isBlank()) {
+                continue;
+            }
+            contexto.resultado.setLinhasLidas(contexto.resultado.getLinhasLidas() + 1);
+            try {
+                List<String> campos = dividirCsv(linha, separador);
+                LinhaExtrato item = new LinhaExtrato();
+                item.data = lerData(campo(campos, colData));
+                item.descricao = campo(campos, colDescricao);
+                item.valor = lerValor(campo(campos, colValor));
+                item.tipo = campo(campos, colunas.get("tipo"));
+                item.categoria = campo(campos, colunas.get("categoria"));
+                item.conta = campo(campos, colunas.get("conta"));
+                item.cartao = campo(campos, colunas.get("cartao"));
+                item.observacao = campo(campos, colunas.get("observacao"));
+                processarLinha(item, contexto);
+            } catch (RuntimeException e) {
+                contexto.registrarErro("Linha " + numeroLinha + ": " + e.getMessage());
+            }
+            // Fora do tratamento da linha: a falha de um lote interrompe a importação
+            gravarLotesCompletos(contexto);
+        }
+    }
+
+    private void lerOfx(BufferedReader leitor, ContextoImportacao contexto) throws IOException {
+        Map<String, String> transacao = null;
+        String linha;
+
+        while ((linha = leitor.readLine()) != null) {
+            Matcher matcher = TAG_OFX.matcher(linha);
+            while (matcher.find()) {
+                boolean fechamento = !matcher.group(1).isEmpty();
+                String tag = matcher.group(2).toUpperCase(Locale.ROOT);
+
+                if ("STMTTRN".equals(tag)) {
+                    if (fechamento && transacao != null) {
+                        contexto.resultado.setLinhasLidas(contexto.resultado.getLinhasLidas() + 1);
+                        processarTransacaoOfx(transacao, contexto);
+                        transacao = null;
+                    } else if (!fechamento) {
+                        transacao = new HashMap<>();
+                    }
+                } else if (!fechamento && transacao != null) {
+                    transacao.put(tag, matcher.group(3).trim());
+                }
+            }
+        }
+    }
+
+    private void processarTransacaoOfx(Map<String, String> transacao, ContextoImportacao contexto) {
+        try {
+            String dataPostagem = transacao.get("DTPOSTED");
+            if (dataPostagem == null || dataPostagem.length() < 8) {
+                throw new IllegalArgumentException("transação sem DTPOSTED");
+            }
+            LinhaExtrato item = new LinhaExtrato();
+            item.data = LocalDate.parse(dataPostagem.substring(0, 8), DateTimeFormatter.BASIC_ISO_DATE);
+            item.valor = lerValor(transacao.get("TRNAMT"));
+            String memo = transacao.get("MEMO");
+            item.descricao = memo != null && !memo.isBlank() ? memo : transacao.get("NAME");
+            processarLinha(item, contexto);
+        } catch (RuntimeException e) {
+            contexto.registrarErro("Transação " + transacao.getOrDefault("FITID", "?") + ": " + e.getMessage());
+        }
+        gravarLotesCompletos(contexto);
+    }
+
+    // ==================== MAPEAMENTO E GRAVAÇÃO ====================
+
+    private void processarLinha(LinhaExtrato item, ContextoImportacao contexto) {
+        if (item.data == null || item.valor == null) {
+            throw new IllegalArgumentException("data ou valor ausente");
+        }
+        ParametrosImportacaoDTO parametros = contexto.parametros;
+        double valor = parametros.isInverterSinal() ? -item.valor : item.valor;
+
+        boolean despesa;
+        if (item.tipo != null && !item.tipo.isBlank()) {
+            despesa = ehTipoDespesa(item.tipo);
+        } else {
+            despesa = valor < 0;
+        }
+        valor = Math.abs(valor);
+        if (valor == 0) {
+            contexto.ignorarLinha();
+            return;
+        }
+
+        Long cartaoId = item.cartao != null && !item.cartao.isBlank()
+                ? contexto.buscarCartao(item.cartao)
+                : parametros.getCartaoId();
+        Long contaId = item.conta != null && !item.conta.isBlank()
+                ? contexto.buscarConta(item.conta)
+                : parametros.getContaId();
+
+        // Créditos em cartão (pagamento de fatura, estornos) não viram receita
+        if (!despesa && cartaoId != null) {
+            contexto.ignorarLinha();
+            return;
+        }
+
+        Long categoriaId = contexto.buscarCategoria(item.categoria, !despesa);
+        if (categoriaId == null) {
+            categoriaId = despesa ? parametros.getCategoriaDespesaId() : parametros.getCategoriaReceitaId();
+        }
+
+        String descricao = item.descricao != null ? item.descricao.trim() : null;
+        String hash = contexto.hashDaLinha(item.data, valor, descricao);
+
+        if (despesa) {
+            boolean pago = parametros.getPago() != null ? parametros.getPago() : cartaoId == null;
+            contexto.loteDespesas.add(new Object[]{descricao, valor, Date.valueOf(item.data), contaId, cartaoId,
+                    categoriaId, item.observacao, pago, hash});
+        } else {
+            contexto.loteReceitas.add(new Object[]{descricao, valor, Date.valueOf(item.data), contaId,
+                    categoriaId, item.observacao, hash});
+        }
+    }
+
+    private void gravarLotesCompletos(ContextoImportacao contexto) {
+        if (contexto.loteDespesas.size() >= TAMANHO_LOTE) {
+            gravarLote(contexto, contexto.loteDespesas, true);
+        }
+        if (contexto.loteReceitas.size() >= TAMANHO_LOTE) {
+            gravarLote(contexto, contexto.loteReceitas, false);
+        }
+    }
+
+    /**
+     * Grava o lote pendente. Uma falha na gravação não é atribuída a uma linha do arquivo: ela
+     * interrompe a importação e a transação inteira é desfeita.
+     */
+    private void gravarLote(ContextoImportacao contexto, List<Object[]> lote, boolean despesa) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            gravarNovos(contexto, lote, despesa);
+        } catch (DataAccessException e) {
+            log.error("Erro ao gravar lote da importação de extrato", e);
+            throw new NegocioException("Não foi possível gravar os lançamentos do extrato", "422",
+                    "Nenhum lançamento foi importado: " + e.getMostSpecificCause().getMessage());
+        }
+        lote.clear();
+    }
+
+    private void gravarNovos(ContextoImportacao contexto, List<Object[]> lote, boolean despesa) {
+        int indiceHash = despesa ? 8 : 6;
+        Set<String> existentes = buscarHashesExistentes(despesa ? "despesa" : "receita", lote, indiceHash);
+
+        List<Object[]> novos = new ArrayList<>(lote.size());
+        double total = 0.0;
+        for (Object[] linha : lote) {
+            if (existentes.contains((String) linha[indiceHash])) {
+                contexto.resultado.setDuplicadasIgnoradas(contexto.resultado.getDuplicadasIgnoradas() + 1);
+            } else {
+                novos.add(linha);
+                total += (Double) linha[1];
+            }
+        }
+
+        if (!novos.isEmpty()) {
+            List<Long> ids = inserir(despesa ? SQL_INSERIR_DESPESA : SQL_INSERIR_RECEITA, novos);
+            if (despesa) {
+                atualizarLimiteCartoes(novos);
+            }
+            registrarLancamentosImportados(contexto, novos, ids, despesa);
+            ResultadoImportacaoDTO resultado = contexto.resultado;
+            if (despesa) {
+                resultado.setDespesasImportadas(resultado.getDespesasImportadas() + novos.size());
+                resultado.setTotalDespesas(resultado.getTotalDespesas() + total);
+            } else {
+                resultado.setReceitasImportadas(resultado.getReceitasImportadas() + novos.size());
+                resultado.setTotalReceitas(resultado.getTotalReceitas() + total);
+            }
+        }
+    }
+
+    /**
+     * Insere o lote em uma única execução JDBC e retorna os IDs gerados, na ordem das linhas.
+     */
+    private List<Long> inserir(String sql, List<Object[]> linhas) {
+        KeyHolder chaves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        new ArgumentPreparedStatementSetter(linhas.get(i)).setValues(ps);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return linhas.size();
+                    }
+                }, chaves);
+        List<Long> ids = new ArrayList<>(linhas.size());
+        for (Map<String, Object> chave : chaves.getKeyList()) {
+            ids.add(((Number) chave.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * Lançamentos do extrato já aconteceram, então o limite usado é somado sem validação.
+     */
+    private void atualizarLimiteCartoes(List<Object[]> despesasInseridas) {
+        Map<Long, Double> totalPorCartao = new TreeMap<>();
+        for (Object[] linha : despesasInseridas) {
+            if (linha[4] != null && Boolean.FALSE.equals(linha[7])) {
+                totalPorCartao.merge((Long) linha[4], (Double) linha[1], Double::sum);
+            }
+        }
+        totalPorCartao.forEach(limiteCartaoService::incrementar);
+    }
+
+    /**
+     * Atualiza as faturas e os resumos mensais com os lançamentos inseridos pelo lote e acumula o
+     * resumo da importação.
+     */
+    private void registrarLancamentosImportados(ContextoImportacao contexto, List<Object[]> inseridos,
+                                                List<Long> ids, boolean despesa) {
+        List<SituacaoLancamentoDTO> novas = new ArrayList<>(inseridos.size());
+        for (int i = 0; i < inseridos.size(); i++) {
+            Object[] linha = inseridos.get(i);
+            // Sem a chave gerada (driver que não a devolve em lote), o lançamento segue sem ID
+            Long id = i < ids.size() ? ids.get(i) : null;
+            if (despesa) {
+                novas.add(new SituacaoLancamentoDTO(id, (Long) linha[3], (Long) linha[4], (Long) linha[5],
+                        ((Date) linha[2]).toLocalDate(), (Double) linha[1], (Boolean) linha[7]));
+            } else {
+                novas.add(new SituacaoLancamentoDTO(id, (Long) linha[3], null, (Long) linha[4],
+                        ((Date) linha[2]).toLocalDate(), (Double) linha[1], null));
+            }
+        }
+        TipoLancamento tipo = despesa ? TipoLancamento.DESPESA : TipoLancamento.RECEITA;
+        eventPublisher.publishEvent(new LancamentosNaTransacaoEvent(this, tipo, List.of(), novas));
+        contexto.resumir(tipo, novas);
+    }
+
+    // Hashes das linhas de uma data já gravadas ou pendentes nesta importação
+    private Set<String> buscarHashesDaData(ContextoImportacao contexto, LocalDate data) {
+        Set<String> hashes = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT hash_importacao FROM despesa WHERE data = ? AND id > ? AND hash_importacao IS NOT NULL",
+                String.class, Date.valueOf(data), contexto.ultimoIdDespesa));
+        hashes.addAll(jdbcTemplate.queryForList(
+                "SELECT hash_importacao FROM receita WHERE data = ? AND id > ? AND hash_importacao IS NOT NULL",
+                String.class, Date.valueOf(data), contexto.ultimoIdReceita));
+        Date dataLote = Date.valueOf(data);
+        contexto.loteDespesas.stream().filter(linha -> dataLote.equals(linha[2])).forEach(linha -> hashes.add((String) linha[8]));
+        contexto.loteReceitas.stream().filter(linha -> dataLote.equals(linha[2])).forEach(linha -> hashes.add((String) linha[6]));
+        return hashes;
+    }
+
+    private Set<String> buscarHashesExistentes(String tabela, List<Object[]> lote, int indiceHash) {
+        List<String> hashes = new ArrayList<>(lote.size());
+        for (Object[] linha : lote) {
+            hashes.add((String) linha[indiceHash]);
+        }
+        MapSqlParameterSource parametros = new MapSqlParameterSource("hashes", hashes);
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT hash_importacao FROM " + tabela + " WHERE hash_importacao IN (:hashes)",
+                parametros, String.class));
+    }
+
+    private void registrarHistorico(ResultadoImportacaoDTO resultado) {
+        try {
+            String info = String.format(Locale.ROOT,
+                    "ImportacaoExtrato{arquivo='%s', formato=%s, linhas=%d, despesas=%d, receitas=%d, duplicadas=%d, ignoradas=%d, totalDespesas=%.2f, totalReceitas=%.2f}",
+                    resultado.getNomeArquivo(), resultado.getFormato(), resultado.getLinhasLidas(),
+                    resultado.getDespesasImportadas(), resultado.getReceitasImportadas(),
+                    resultado.getDuplicadasIgnoradas(), resultado.getLinhasIgnoradas(),
+                    resultado.getTotalDespesas(), resultado.getTotalReceitas());
+            historicoService.registrarImportacaoExtrato(info, null);
+        } catch (Exception e) {
+            // Log do erro mas não falha a operação principal
+            log.error("Erro ao registrar histórico da importação de extrato", e);
+        }
+    }
+
+    private void validarParametros(ParametrosImportacaoDTO parametros) {
+        if (parametros.getContaId() != null && !contaRepository.existsById(parametros.getContaId())) {
+            throw new NegocioException("Conta não encontrada");
+        }
+        if (parametros.getCartaoId() != null && !cartaoRepository.existsById(parametros.getCartaoId())) {
+            throw new NegocioException("Cartão não encontrado");
+        }
+        if (parametros.getCategoriaDespesaId() != null && !categoriaRepository.existsById(parametros.getCategoriaDespesaId())) {
+            throw new NegocioException("Categoria de despesa não encontrada");
+        }
+        if (parametros.getCategoriaReceitaId() != null && !categoriaRepository.existsById(parametros.getCategoriaReceitaId())) {
+            throw new NegocioException("Categoria de receita não encontrada");
+        }
+    }
+
+    // ==================== CONVERSÕES ====================
+
+    private static boolean ehTipoDespesa(String tipo) {
+        String normalizado = normalizarCabecalho(tipo);
+        return switch (normalizado) {
+            case "despesa", "d", "debito", "debit", "saida" -> true;
+            case "receita", "c", "credito", "credit", "entrada" -> false;
+            default -> throw new IllegalArgumentException("tipo de lançamento desconhecido: " + tipo);
+        };
+    }
+
+    private static LocalDate lerData(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        for (DateTimeFormatter formato : FORMATOS_DATA) {
+            try {
+                return LocalDate.parse(texto.trim(), formato);
+            } catch (DateTimeParseException ignorada) {
+                // Tenta o próximo formato
+            }
+        }
+        throw new IllegalArgumentException("data inválida: " + texto);
+    }
+
+    /**
+     * Converte valores nos formatos "1.234,56", "1,234.56", "-45.90" e "R$ 10,00".
+     */
+    static Double lerValor(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        String limpo = texto.replace("R$", "").replace(" ", "").replace(" ", "");
+        int ultimaVirgula = limpo.lastIndexOf(',');
+        int ultimoPonto = limpo.lastIndexOf('.');
+        if (ultimaVirgula > ultimoPonto) {
+            limpo = limpo.replace(".", "").replace(',', '.');
+        } else if (ultimoPonto > ultimaVirgula && ultimaVirgula >= 0) {
+            limpo = limpo.replace(",", "");
+        }
+        try {
+            return Double.parseDouble(limpo);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("valor inválido: " + texto);
+        }
+    }
+
+    private static String campo(List<String> campos, Integer indice) {
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static List<String> dividirCsv(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                if (entreAspas && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else {
+                    entreAspas = !entreAspas;
+                }
+            } else if (c == separador && !entreAspas) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    private static String normalizarCabecalho(String texto) {
+        String semAcento = Normalizer.normalize(texto.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcento.toLowerCase(Locale.ROOT);
+    }
+
+    // ==================== ESTRUTURAS INTERNAS ====================
+
+    private static class LinhaExtrato {
+        private LocalDate data;
+        private Double valor;
+        private String descricao;
+        private String tipo;
+        private String categoria;
+        private String conta;
+        private String cartao;
+        private String observacao;
+    }
+
+    /**
+     * Estado de uma importação: lotes pendentes, contadores e caches de referência.
+     * Os caches são carregados uma única vez por importação, na primeira linha que precisar deles.
+     */
+    private class ContextoImportacao {
+        private final ParametrosImportacaoDTO parametros;
+        private final ResultadoImportacaoDTO resultado = new ResultadoImportacaoDTO();
+        private final List<Object[]> loteDespesas = new ArrayList<>(TAMANHO_LOTE);
+        private final List<Object[]> loteReceitas = new ArrayList<>(TAMANHO_LOTE);
+
+        // Lançamentos existentes antes da importação; os de ID maior foram gravados por ela
+        private final long ultimoIdDespesa;
+        private final long ultimoIdReceita;
+
+        // Ocorrências de cada linha apenas na data corrente; das demais datas só se guarda a data
+        private LocalDate dataAtual;
+        private final Map<String, Integer> ocorrenciasDaData = new HashMap<>();
+        private Set<String> hashesAnterioresDaData = Set.of();
+        private final Set<LocalDate> datasEncerradas = new HashSet<>();
+
+        // Resumo publicado ao final, limitado pelos meses, cartões e contas envolvidos
+        private final Set<TipoLancamento> tiposImportados = EnumSet.noneOf(TipoLancamento.class);
+        private final Set<YearMonth> mesesImportados = new TreeSet<>();
+        private final Set<Long> cartoesImportados = new TreeSet<>();
+        private final Map<Long, YearMonth> primeiroMesPorConta = new TreeMap<>();
+
+        private Map<String, Long> contasPorNome;
+        private Map<String, Long> cartoesPorNome;
+        private Map<String, Long> categoriasDespesaPorNome;
+        private Map<String, Long> categoriasReceitaPorNome;
+
+        private ContextoImportacao(ParametrosImportacaoDTO parametros) {
+            this.parametros = parametros;
+            this.ultimoIdDespesa = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM despesa", Long.class);
+            this.ultimoIdReceita = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM receita", Long.class);
+        }
+
+        /**
+         * Hash da linha, numerado pela ocorrência da mesma (data, valor, descrição) no arquivo.
+         * Linhas repetidas têm a mesma data e os extratos vêm ordenados por data, então a contagem é
+         * mantida só para a data corrente. Se uma data volta depois de outras, a contagem continua a
+         * partir das linhas dessa data já gravadas ou pendentes nesta importação; as descartadas como
+         * duplicadas não são contadas, então uma repetição pode ser descartada, mas nunca gravada em dobro.
+         */
+        private String hashDaLinha(LocalDate data, double valor, String descricao) {
+            if (!data.equals(dataAtual)) {
+                if (dataAtual != null) {
+                    datasEncerradas.add(dataAtual);
+                }
+                dataAtual = data;
+                ocorrenciasDaData.clear();
+                hashesAnterioresDaData = datasEncerradas.contains(data) ? buscarHashesDaData(this, data) : Set.of();
+            }
+            String hashBase = HashLancamentoUtil.calcular(data, valor, descricao);
+            Integer anteriores = ocorrenciasDaData.get(hashBase);
+            if (anteriores == null) {
+                anteriores = 0;
+                while (hashesAnterioresDaData.contains(HashLancamentoUtil.calcular(data, valor, descricao, anteriores + 1))) {
+                    anteriores++;
+                }
+            }
+            int ocorrencia = anteriores + 1;
+            ocorrenciasDaData.put(hashBase, ocorrencia);
+            return ocorrencia == 1 ? hashBase : HashLancamentoUtil.calcular(data, valor, descricao, ocorrencia);
+        }
+
+        private void resumir(TipoLancamento tipo, List<SituacaoLancamentoDTO> novas) {
+            tiposImportados.add(tipo);
+            for (SituacaoLancamentoDTO situacao : novas) {
+                YearMonth mes = YearMonth.from(situacao.data());
+                mesesImportados.add(mes);
+                if (situacao.cartaoId() != null) {
+                    cartoesImportados.add(situacao.cartaoId());
+                }
+                if (situacao.contaId() != null) {
+                    primeiroMesPorConta.merge(situacao.contaId(), mes, (atual, novo) -> atual.isBefore(novo) ? atual : novo);
+                }
+            }
+        }
+
+        private Long buscarConta(String nome) {
+            if (contasPorNome == null) {
+                contasPorNome = new HashMap<>();
+                for (Object[] linha : contaRepository.listarIdsENomes()) {
+                    contasPorNome.putIfAbsent(normalizarCabecalho((String) linha[1]), (Long) linha[0]);
+                }
+            }
+            return Optional.ofNullable(contasPorNome.get(normalizarCabecalho(nome))).orElse(parametros.getContaId());
+        }
+
+        private Long buscarCartao(String nome) {
+            if (cartoesPorNome == null) {
+                cartoesPorNome = new HashMap<>();
+                for (Cartao cartao : cartaoRepository.findAll()) {
+                    cartoesPorNome.putIfAbsent(normalizarCabecalho(cartao.getNome()), cartao.getId());
+                }
+            }
+            return Optional.ofNullable(cartoesPorNome.get(normalizarCabecalho(nome))).orElse(parametros.getCartaoId());
+        }
+
+        private Long buscarCategoria(String nome, boolean receita) {
+            if (nome == null || nome.isBlank()) {
+                return null;
+            }
+            if (categoriasDespesaPorNome == null) {
+                categoriasDespesaPorNome = new HashMap<>();
+                categoriasReceitaPorNome = new HashMap<>();
+                for (Categoria categoria : categoriaRepository.findAll()) {
+                    Map<String, Long> destino = Boolean.TRUE.equals(categoria.getTipoReceita())
+                            ? categoriasReceitaPorNome : categoriasDespesaPorNome;
+                    destino.putIfAbsent(normalizarCabecalho(categoria.getNome()), categoria.getId());
+                }
+            }
+            String chave = normalizarCabecalho(nome);
+            Long id = (receita ? categoriasReceitaPorNome : categoriasDespesaPorNome).get(chave);
+            return id != null ? id : (receita ? categoriasDespesaPorNome : categoriasReceitaPorNome).get(chave);
+        }
+
+        private void ignorarLinha() {
+            resultado.setLinhasIgnoradas(resultado.getLinhasIgnoradas() + 1);
+        }
+
+        private void registrarErro(String erro) {
+            ignorarLinha();
+            if (resultado.getErros().size() < MAXIMO_ERROS_REPORTADOS) {
+                resultado.getErros().add(erro);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent.TipoCadastro;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.Cartao;
+import com.marciliojr.pirangueiro.repository.CartaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Serviço responsável por manter o limite usado dos cartões ({@link Cartao#getLimiteUsado()}).
+ *
+ * <p>O limite usado é a soma das despesas não pagas do cartão e é atualizado de forma
+ * incremental a cada inclusão, edição, exclusão ou pagamento de despesa. A reserva de limite
+ * é um UPDATE condicional, de forma que duas compras concorrentes não conseguem ultrapassar
+ * o limite. Um job periódico reconcilia o contador com a soma real das despesas.</p>
+ *
+ * <p>Inclusões dependem apenas do UPDATE condicional. Edições, exclusões e operações em lote
+ * leem a contribuição atual das despesas com SELECT ... FOR UPDATE antes de ajustar o contador.
+ * Os bloqueios seguem sempre a mesma ordem (despesas, depois cartões, ambos por ID crescente)
+ * para evitar deadlocks.</p>
+ */
+@Service
+@Slf4j
+public class LimiteCartaoService {
+
+    private static final double TOLERANCIA = 0.005;
+
+    @Autowired
+    private CartaoRepository cartaoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Reserva limite no cartão com um único UPDATE condicional, sem ler o cartão antes.
+     * Se o valor não couber no limite disponível nenhuma linha é alterada e a reserva falha.
+     */
+    @Transactional
+    public void reservar(Long cartaoId, double valor) {
+        if (cartaoId == null || valor <= 0) {
+            return;
+        }
+        if (cartaoRepository.reservarLimite(cartaoId, valor) == 0) {
+            // Valores lidos do banco: o Cartao do contexto de persistência pode ter um limite usado antigo
+            Object[] limites = cartaoRepository.buscarLimites(cartaoId).stream().findFirst()
+                    .orElseThrow(() -> new NegocioException("Cartão não encontrado"));
+            double limite = limites[0] != null ? ((Number) limites[0]).doubleValue() : 0.0;
+            double limiteUsado = limites[1] != null ? ((Number) limites[1]).doubleValue() : 0.0;
+            throw new NegocioException(
+                    "Limite do cartão excedido",
+                    "422",
+                    String.format(
+                            "O Limite atual do cartão é: %.2f, o total atual de compras é: %.2f, e o total disponível para compras é: %.2f",
+                            limite,
+                            limiteUsado,
+                            limite - limiteUsado
+                    )
+            );
+        }
+    }
+
+    /**
+     * Devolve limite ao cartão (pagamento ou exclusão de despesa).
+     */
+    @Transactional
+    public void liberar(Long cartaoId, double valor) {
+        if (cartaoId == null || valor <= 0) {
+            return;
+        }
+        cartaoRepository.ajustarLimiteUsado(cartaoId, -valor);
+    }
+
+    /**
+     * Soma ao limite usado sem validar o limite, para lançamentos que já aconteceram
+     * (importação de extrato, desfazer pagamento em lote). É um UPDATE relativo
+     * ({@code limiteUsado + valor}), sem leitura prévia do cartão.
+     */
+    @Transactional
+    public void incrementar(Long cartaoId, double valor) {
+        if (cartaoId == null || valor == 0) {
+            return;
+        }
+        cartaoRepository.ajustarLimiteUsado(cartaoId, valor);
+    }
+
+    /**
+     * Aplica a troca da contribuição de uma despesa: libera o valor anterior e reserva o novo.
+     * Quando o cartão é o mesmo, apenas a diferença é reservada ou liberada.
+     */
+    @Transactional
+    public void substituir(Long cartaoAnteriorId, double valorAnterior, Long cartaoNovoId, double valorNovo) {
+        if (cartaoAnteriorId != null && Objects.equals(cartaoAnteriorId, cartaoNovoId)) {
+            double diferenca = valorNovo - valorAnterior;
+            if (diferenca > 0) {
+                reservar(cartaoNovoId, diferenca);
+            } else {
+                liberar(cartaoNovoId, -diferenca);
+            }
+            return;
+        }
+        // Cartões diferentes: atualiza em ordem crescente de ID para evitar deadlocks
+        if (cartaoAnteriorId != null && cartaoNovoId != null && cartaoNovoId < cartaoAnteriorId) {
+            reservar(cartaoNovoId, valorNovo);
+            liberar(cartaoAnteriorId, valorAnterior);
+        } else {
+            liberar(cartaoAnteriorId, valorAnterior);
+            reservar(cartaoNovoId, valorNovo);
+        }
+    }
+
+    /**
+     * Aplica variações de limite usado em vários cartões, em ordem crescente de ID.
+     * Variações positivas são reservadas (com validação do limite) e negativas liberadas.
+     */
+    @Transactional
+    public void aplicarVariacoes(Map<Long, Double> variacoesPorCartao) {
+        new TreeMap<>(variacoesPorCartao).forEach((cartaoId, variacao) -> {
+            if (variacao > 0) {
+                reservar(cartaoId, variacao);
+            } else {
+                liberar(cartaoId, -variacao);
+            }
+        });
+    }
+
+    /**
+     * Recalcula o limite usado de todos os cartões a partir das despesas não pagas,
+     * corrigindo apenas os cartões cujo contador divergiu. Cada correção bloqueia o cartão
+     * e recalcula a soma dentro da própria transação, para não sobrescrever uma reserva
+     * feita entre a leitura agrupada e a correção.
+     * @return quantidade de cartões corrigidos
+     */
+    public int reconciliar() {
+        Map<Long, Double> totais = new HashMap<>();
+        for (Object[] linha : cartaoRepository.calcularTotalDespesasNaoPagasAgrupadoPorCartao()) {
+            totais.put((Long) linha[0], ((Number) linha[1]).doubleValue());
+        }
+
+        int corrigidos = 0;
+        List<Cartao> cartoes = cartaoRepository.findAll();
+        for (Cartao cartao : cartoes) {
+            if (divergente(cartao.getLimiteUsado(), totais.getOrDefault(cartao.getId(), 0.0))
+                    && Boolean.TRUE.equals(transactionTemplate.execute(status -> corrigir(cartao.getId())))) {
+                corrigidos++;
+            }
+        }
+        return corrigidos;
+    }
+
+    private boolean corrigir(Long cartaoId) {
+        Cartao cartao = cartaoRepository.findByIdForUpdate(cartaoId).orElse(null);
+        if (cartao == null) {
+            return false;
+        }
+        double esperado = cartaoRepository.calcularTotalDespesasPorCartao(cartaoId);
+        Double atual = cartao.getLimiteUsado();
+        if (!divergente(atual, esperado)) {
+            return false;
+        }
+        cartaoRepository.definirLimiteUsado(cartaoId, esperado);
+        eventPublisher.publishEvent(new CadastroAlteradoEvent(this, TipoCadastro.CARTAO, cartaoId));
+        log.warn("Limite usado do cartão {} reconciliado: {} -> {}", cartaoId, atual, esperado);
+        return true;
+    }
+
+    private static boolean divergente(Double atual, double esperado) {
+        return atual == null || Math.abs(atual - esperado) > TOLERANCIA;
+    }
+
+    /**
+     * Reconciliação periódica dos contadores. Executa todos os dias às 3h30.
+     */
+    @Scheduled(cron = "${cartao.limite.reconciliacao.cron:0 30 3 * * *}")
+    public void executarReconciliacaoAgendada() {
+        try {
+            int corrigidos = reconciliar();
+            log.info("Reconciliação de limite usado dos cartões concluída - Cartões corrigidos: {}", corrigidos);
+        } catch (Exception e) {
+            log.error("Erro na reconciliação de limite usado dos cartões: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Preenche os contadores na subida da aplicação, cobrindo bases anteriores à manutenção incremental.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliarNaInicializacao() {
+        executarReconciliacaoAgendada();
+    }
+
+    /**
+     * A restauração de backup grava os cartões com o limite usado do arquivo,
+     * então os contadores são recalculados a partir das despesas restauradas.
+     */
+    @EventListener
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            executarReconciliacaoAgendada();
+        }
+    }
+}
@@ -2,10 +2,12 @@ package com.marciliojr.pirangueiro.service;
 
 import com.marciliojr.pirangueiro.model.Cartao;
 import com.marciliojr.pirangueiro.model.ExecucaoTarefa;
+import com.marciliojr.pirangueiro.model.Fatura;
 import com.marciliojr.pirangueiro.model.Notificacao;
-import com.marciliojr.pirangueiro.repository.CartaoRepository;
 import com.marciliojr.pirangueiro.repository.ExecucaoTarefaRepository;
+import com.marciliojr.pirangueiro.repository.FaturaRepository;
 import com.marciliojr.pirangueiro.repository.NotificacaoRepository;
+import com.marciliojr.pirangueiro.util.CicloFaturaUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -16,6 +18,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 @Service
@@ -24,9 +27,10 @@ public class NotificacaoService {
 
     private static final String TAREFA_VERIFICACAO_CARTOES = "VERIFICACAO_CARTOES";
     
-    private final CartaoRepository cartaoRepository;
+    private final DadosReferenciaService dadosReferenciaService;
     private final NotificacaoRepository notificacaoRepository;
     private final ExecucaoTarefaRepository execucaoTarefaRepository;
+    private final FaturaRepository faturaRepository;
 
     @Autowired
     private HistoricoService historicoService;
@@ -48,16 +52,26 @@ public class NotificacaoService {
 
     private void acaoNotificarCartao() {
         LocalDate hoje = LocalDate.now();
-        List<Cartao> cartoes = cartaoRepository.findAll();
+        List<Cartao> cartoes = dadosReferenciaService.listarCartoes();
 
         for (Cartao cartao : cartoes) {
-            if (cartao.getDiaFechamento() == hoje.getDayOfMonth()) {
-                criarNotificacao(cartao, "Hoje é o fechamento da fatura. Compras de agora irão para a próxima fatura.");
+            // Dia de fechamento ajustado ao tamanho do mês (ex: dia 31 fecha no último dia de fevereiro)
+            if (cartao.getDiaFechamento() != null
+                    && CicloFaturaUtil.dataFechamento(YearMonth.from(hoje), cartao.getDiaFechamento()).equals(hoje)) {
+                double total = faturaRepository.buscarPorReferencia(cartao.getId(), hoje.getYear(), hoje.getMonthValue())
+                        .map(Fatura::getValorTotal)
+                        .orElse(0.0);
+                criarNotificacao(cartao, String.format(
+                        "Hoje é o fechamento da fatura, no valor de R$ %.2f. Compras de agora irão para a próxima fatura.", total));
             }
 
-            if (cartao.getDiaVencimento() == hoje.getDayOfMonth()) {
-                criarNotificacao(cartao, "Hoje é o vencimento da fatura. Lembre-se de pagá-la.");
-            }
+            // Só notifica o vencimento de faturas com saldo a pagar
+            faturaRepository.buscarPorVencimento(cartao.getId(), hoje)
+                    .filter(fatura -> fatura.getStatus() != Fatura.StatusFatura.PAGA)
+                    .filter(fatura -> fatura.getValorTotal() - fatura.getValorPago() > 0.005)
+                    .ifPresent(fatura -> criarNotificacao(cartao, String.format(
+                            "Hoje é o vencimento da fatura de R$ %.2f. Lembre-se de pagá-la.",
+                            fatura.getValorTotal() - fatura.getValorPago())));
         }
 
         registrarExecucao();
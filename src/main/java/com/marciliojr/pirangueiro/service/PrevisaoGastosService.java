@@ -0,0 +1,461 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.GraficoPrevisaoGastosDTO;
+import com.marciliojr.pirangueiro.dto.GraficoPrevisaoGastosDTO.SeriePrevisaoDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.Cartao;
+import com.marciliojr.pirangueiro.model.Categoria;
+import com.marciliojr.pirangueiro.model.ResumoMensal;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.repository.ResumoMensalRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Previsão dos gastos mensais do total de despesas, de cada categoria e de cada cartão.
+ *
+ * <p>Cada série guarda os totais mensais e o estado do modelo após cada mês completo (nível,
+ * tendência e componente sazonal do Holt-Winters aditivo). Quando o total de um mês muda, o
+ * modelo é refeito apenas a partir desse mês, partindo do estado do mês anterior, e a virada do
+ * mês só acrescenta o mês encerrado. As previsões de até {@value #HORIZONTE_MAXIMO} meses ficam
+ * prontas e as consultas apenas as recortam.</p>
+ *
+ * <p>O modelo depende do histórico: Holt-Winters com dois anos ou mais, sazonal ingênuo (o mesmo
+ * mês do ano anterior) com um ano e média simples com menos. O mês atual ainda não terminou e,
+ * assim como os meses futuros com parcelas, não entra no ajuste: ele é o primeiro mês previsto.
+ * As faixas de confiança usam o erro das previsões de um passo sobre o histórico.</p>
+ *
+ * <p>Uma despesa confirmada antes do fim da carga dos resumos mensais pode já estar nos totais
+ * lidos; nesse caso as séries são descartadas e recarregadas em vez de receberem a alteração.</p>
+ */
+@Service
+@Slf4j
+public class PrevisaoGastosService {
+
+    public static final int HORIZONTE_MAXIMO = 24;
+
+    private static final int PERIODO = 12;
+
+    // Suavização fixa: uma alteração refaz só o trecho seguinte da série, sem reotimizar parâmetros
+    private static final double ALFA = 0.3;
+    private static final double BETA = 0.05;
+    private static final double GAMA = 0.3;
+
+    private static final double NIVEL_CONFIANCA = 0.95;
+    private static final double Z_CONFIANCA = 1.96;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    public enum TipoSerie {
+        TOTAL, CATEGORIA, CARTAO
+    }
+
+    public enum Modelo {
+        HOLT_WINTERS, SAZONAL_INGENUO, MEDIA
+    }
+
+    private record ChaveSerie(TipoSerie tipo, long id) {
+    }
+
+    private record Previsao(Modelo modelo, int mesesHistorico, double[] valores, double[] inferiores,
+                            double[] superiores) {
+    }
+
+    // Previsões calculadas com os meses completos até ultimoMesCompleto
+    private record Previsoes(int ultimoMesCompleto, Map<ChaveSerie, Previsao> porSerie) {
+    }
+
+    // Protegido por this; nulo até a primeira consulta ou após falha na atualização
+    private Map<ChaveSerie, Serie> series;
+
+    // Protegido por this; número da última confirmação ao fim da carga das séries
+    private long confirmacoesNaCarga;
+
+    private volatile Previsoes previsoes;
+
+    /**
+     * Previsão dos próximos meses, a partir do mês atual, para todas as séries.
+     */
+    public GraficoPrevisaoGastosDTO buscarPrevisaoGastos(int meses) {
+        validarHorizonte(meses);
+        Previsoes atuais = previsoesAtualizadas();
+
+        GraficoPrevisaoGastosDTO dto = new GraficoPrevisaoGastosDTO();
+        YearMonth primeiroMes = mesDoIndice(atuais.ultimoMesCompleto() + 1);
+        List<String> rotulos = new ArrayList<>();
+        for (int h = 0; h < meses; h++) {
+            YearMonth mes = primeiroMes.plusMonths(h);
+            rotulos.add(String.format("%02d/%04d", mes.getMonthValue(), mes.getYear()));
+        }
+        dto.setMeses(rotulos);
+        dto.setNivelConfianca(NIVEL_CONFIANCA);
+
+        List<SeriePrevisaoDTO> resultado = new ArrayList<>();
+        for (Map.Entry<ChaveSerie, Previsao> entrada : atuais.porSerie().entrySet()) {
+            String nome = nome(entrada.getKey());
+            if (nome != null) {
+                resultado.add(converter(entrada.getKey(), nome, entrada.getValue(), meses));
+            }
+        }
+        resultado.sort(Comparator.comparing((SeriePrevisaoDTO serie) -> TipoSerie.valueOf(serie.getTipo()))
+                .thenComparing(SeriePrevisaoDTO::getNome, String.CASE_INSENSITIVE_ORDER));
+        dto.setSeries(resultado);
+        return dto;
+    }
+
+    static void validarHorizonte(int meses) {
+        if (meses < 1 || meses > HORIZONTE_MAXIMO) {
+            throw new NegocioException("A previsão deve ter entre 1 e " + HORIZONTE_MAXIMO + " meses");
+        }
+    }
+
+    // Categorias e cartões excluídos não aparecem, mas continuam somando no total
+    private String nome(ChaveSerie chave) {
+        return switch (chave.tipo()) {
+            case TOTAL -> "Total de despesas";
+            case CATEGORIA -> chave.id() == ResumoMensal.SEM_REFERENCIA ? "Sem categoria"
+                    : dadosReferenciaService.buscarCategoria(chave.id()).map(Categoria::getNome).orElse(null);
+            case CARTAO -> dadosReferenciaService.buscarCartao(chave.id()).map(Cartao::getNome).orElse(null);
+        };
+    }
+
+    private static SeriePrevisaoDTO converter(ChaveSerie chave, String nome, Previsao previsao, int meses) {
+        SeriePrevisaoDTO dto = new SeriePrevisaoDTO();
+        dto.setTipo(chave.tipo().name());
+        dto.setId(chave.tipo() != TipoSerie.TOTAL ? chave.id() : null);
+        dto.setNome(nome);
+        dto.setModelo(previsao.modelo().name());
+        dto.setMesesHistorico(previsao.mesesHistorico());
+        dto.setValores(lista(previsao.valores(), meses));
+        dto.setLimitesInferiores(lista(previsao.inferiores(), meses));
+        dto.setLimitesSuperiores(lista(previsao.superiores(), meses));
+        return dto;
+    }
+
+    private static List<Double> lista(double[] valores, int quantidade) {
+        List<Double> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            lista.add(valores[i]);
+        }
+        return lista;
+    }
+
+    private Previsoes previsoesAtualizadas() {
+        int ultimoMesCompleto = indiceMes(YearMonth.now()) - 1;
+        Previsoes atuais = previsoes;
+        if (atuais != null && atuais.ultimoMesCompleto() == ultimoMesCompleto) {
+            return atuais;
+        }
+        synchronized (this) {
+            if (series == null) {
+                series = carregar();
+                // Lido depois dos resumos: alterações numeradas depois disso não estão nas séries
+                confirmacoesNaCarga = versaoDadosService.confirmacoes();
+            }
+            return publicar(ultimoMesCompleto);
+        }
+    }
+
+    // Chamado com o lock de this
+    private Previsoes publicar(int ultimoMesCompleto) {
+        Map<ChaveSerie, Previsao> porSerie = new HashMap<>();
+        for (Map.Entry<ChaveSerie, Serie> entrada : series.entrySet()) {
+            Previsao previsao = entrada.getValue().ajustar(ultimoMesCompleto);
+            if (previsao != null) {
+                porSerie.put(entrada.getKey(), previsao);
+            }
+        }
+        Previsoes novas = new Previsoes(ultimoMesCompleto, porSerie);
+        previsoes = novas;
+        return novas;
+    }
+
+    private Map<ChaveSerie, Serie> carregar() {
+        Map<ChaveSerie, Serie> novas = new HashMap<>();
+        for (Object[] linha : resumoMensalRepository.somarPorMesCategoriaECartao(TipoLancamento.DESPESA)) {
+            int mes = ((Number) linha[0]).intValue() * 12 + ((Number) linha[1]).intValue() - 1;
+            somar(novas, mes, (Long) linha[2], (Long) linha[3], ((Number) linha[4]).doubleValue(),
+                    ((Number) linha[5]).doubleValue());
+        }
+        log.info("Previsão de gastos carregada: {} séries", novas.size());
+        return novas;
+    }
+
+    private static void somar(Map<ChaveSerie, Serie> series, int mes, Long categoriaId, Long cartaoId,
+                              double total, double quantidade) {
+        series.computeIfAbsent(new ChaveSerie(TipoSerie.TOTAL, 0L), chave -> new Serie())
+                .somar(mes, total, quantidade);
+        series.computeIfAbsent(new ChaveSerie(TipoSerie.CATEGORIA, referencia(categoriaId)), chave -> new Serie())
+                .somar(mes, total, quantidade);
+        if (referencia(cartaoId) != ResumoMensal.SEM_REFERENCIA) {
+            series.computeIfAbsent(new ChaveSerie(TipoSerie.CARTAO, cartaoId), chave -> new Serie())
+                    .somar(mes, total, quantidade);
+        }
+    }
+
+    // ==================== ATUALIZAÇÃO ====================
+
+    /**
+     * Aplica as despesas confirmadas aos totais mensais e refaz os modelos das séries afetadas a
+     * partir do mês alterado.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onLancamentosAlterados(LancamentosAlteradosEvent event) {
+        if (event.getTipo() != TipoLancamento.DESPESA || series == null) {
+            return;
+        }
+        if (versaoDadosService.podeEstarNaCarga(event, confirmacoesNaCarga)) {
+            // Séries carregadas entre o commit e este ouvinte: a próxima consulta as recarrega
+            invalidar();
+            return;
+        }
+        try {
+            aplicar(event.getAnteriores(), -1);
+            aplicar(event.getNovas(), 1);
+            publicar(indiceMes(YearMonth.now()) - 1);
+        } catch (Exception e) {
+            log.error("Erro ao atualizar previsão de gastos, ela será recarregada na próxima consulta: {}",
+                    e.getMessage(), e);
+            invalidar();
+        }
+    }
+
+    private void aplicar(Collection<SituacaoLancamentoDTO> situacoes, int sinal) {
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao == null || situacao.data() == null || situacao.valor() == null) {
+                continue;
+            }
+            somar(series, indiceMes(YearMonth.from(situacao.data())), situacao.categoriaId(), situacao.cartaoId(),
+                    sinal * situacao.valor(), sinal);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        if (event.getTipos().contains(TipoLancamento.DESPESA)) {
+            invalidar();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidar();
+        }
+    }
+
+    /**
+     * Descarta as séries; a próxima consulta as recarrega dos resumos mensais.
+     */
+    public synchronized void invalidar() {
+        series = null;
+        previsoes = null;
+    }
+
+    private static int indiceMes(YearMonth mes) {
+        return mes.getYear() * 12 + mes.getMonthValue() - 1;
+    }
+
+    private static YearMonth mesDoIndice(int indice) {
+        return YearMonth.of(Math.floorDiv(indice, 12), Math.floorMod(indice, 12) + 1);
+    }
+
+    private static long referencia(Long id) {
+        return id != null ? id : ResumoMensal.SEM_REFERENCIA;
+    }
+
+    /**
+     * Totais mensais de uma série e o modelo ajustado sobre eles.
+     */
+    private static final class Serie {
+
+        // Índice do mês -> {total, quantidade}, apenas meses com lançamentos
+        private final TreeMap<Integer, double[]> meses = new TreeMap<>();
+
+        // Menor mês alterado desde o último ajuste
+        private int alteradoDesde = Integer.MAX_VALUE;
+
+        // Meses ajustados: posição t dos vetores corresponde ao mês inicio + t, até fim
+        private int inicio;
+        private int fim;
+        private double[] valores = new double[0];
+        private double[] niveis = new double[0];
+        private double[] tendencias = new double[0];
+        private double[] sazonais = new double[0];
+        // Soma dos quadrados dos erros de um passo até cada mês
+        private double[] errosAcumulados = new double[0];
+
+        private Previsao previsao;
+
+        void somar(int mes, double total, double quantidade) {
+            double[] acumulado = meses.computeIfAbsent(mes, chave -> new double[2]);
+            acumulado[0] += total;
+            acumulado[1] += quantidade;
+            if (acumulado[1] <= 0) {
+                meses.remove(mes);
+            }
+            alteradoDesde = Math.min(alteradoDesde, mes);
+        }
+
+        /**
+         * Ajusta o modelo aos meses até o último mês completo e devolve a previsão, ou nulo se a
+         * série não tem meses completos.
+         */
+        Previsao ajustar(int ultimoMesCompleto) {
+            if (meses.isEmpty() || meses.firstKey() > ultimoMesCompleto) {
+                previsao = null;
+                alteradoDesde = Integer.MAX_VALUE;
+                return null;
+            }
+            int primeiro = meses.firstKey();
+            if (previsao != null && primeiro == inicio && ultimoMesCompleto == fim && alteradoDesde > fim) {
+                return previsao;
+            }
+
+            int quantidade = ultimoMesCompleto - primeiro + 1;
+            // Posição a partir da qual valores e estado são refeitos; antes dela nada mudou
+            int refazerDe = 0;
+            if (previsao != null && primeiro == inicio && previsao.modelo() == Modelo.HOLT_WINTERS) {
+                refazerDe = Math.min(alteradoDesde, fim + 1) - inicio;
+            }
+            inicio = primeiro;
+            fim = ultimoMesCompleto;
+            alteradoDesde = Integer.MAX_VALUE;
+            redimensionar(quantidade);
+            for (int t = refazerDe; t < quantidade; t++) {
+                double[] acumulado = meses.get(inicio + t);
+                valores[t] = acumulado != null ? acumulado[0] : 0.0;
+            }
+
+            if (quantidade >= 2 * PERIODO) {
+                previsao = holtWinters(refazerDe, quantidade);
+            } else if (quantidade >= PERIODO) {
+                previsao = sazonalIngenuo(quantidade);
+            } else {
+                previsao = media(quantidade);
+            }
+            return previsao;
+        }
+
+        private void redimensionar(int quantidade) {
+            if (valores.length != quantidade) {
+                valores = Arrays.copyOf(valores, quantidade);
+                niveis = Arrays.copyOf(niveis, quantidade);
+                tendencias = Arrays.copyOf(tendencias, quantidade);
+                sazonais = Arrays.copyOf(sazonais, quantidade);
+                errosAcumulados = Arrays.copyOf(errosAcumulados, quantidade);
+            }
+        }
+
+        // Holt-Winters aditivo, inicializado com os dois primeiros anos
+        private Previsao holtWinters(int refazerDe, int n) {
+            int t0 = refazerDe;
+            if (t0 < 2 * PERIODO) {
+                double mediaPrimeiroAno = media(valores, 0, PERIODO);
+                double mediaSegundoAno = media(valores, PERIODO, 2 * PERIODO);
+                for (int t = 0; t < PERIODO; t++) {
+                    sazonais[t] = valores[t] - mediaPrimeiroAno;
+                    errosAcumulados[t] = 0.0;
+                }
+                niveis[PERIODO - 1] = mediaPrimeiroAno;
+                tendencias[PERIODO - 1] = (mediaSegundoAno - mediaPrimeiroAno) / PERIODO;
+                t0 = PERIODO;
+            }
+            for (int t = t0; t < n; t++) {
+                double erro = valores[t] - (niveis[t - 1] + tendencias[t - 1] + sazonais[t - PERIODO]);
+                niveis[t] = ALFA * (valores[t] - sazonais[t - PERIODO]) + (1 - ALFA) * (niveis[t - 1] + tendencias[t - 1]);
+                tendencias[t] = BETA * (niveis[t] - niveis[t - 1]) + (1 - BETA) * tendencias[t - 1];
+                sazonais[t] = GAMA * (valores[t] - niveis[t]) + (1 - GAMA) * sazonais[t - PERIODO];
+                errosAcumulados[t] = errosAcumulados[t - 1] + erro * erro;
+            }
+
+            double sigma = Math.sqrt(errosAcumulados[n - 1] / (n - PERIODO));
+            double[] previstos = new double[HORIZONTE_MAXIMO];
+            double[] desvios = new double[HORIZONTE_MAXIMO];
+            double somaCoeficientes = 0.0;
+            for (int h = 1; h <= HORIZONTE_MAXIMO; h++) {
+                previstos[h - 1] = niveis[n - 1] + h * tendencias[n - 1] + sazonais[n - PERIODO + (h - 1) % PERIODO];
+                // Variância do erro em h passos: sigma² (1 + soma de c_j² para j < h)
+                desvios[h - 1] = sigma * Math.sqrt(1 + somaCoeficientes);
+                double coeficiente = ALFA * (1 + h * BETA) + (h % PERIODO == 0 ? GAMA * (1 - ALFA) : 0.0);
+                somaCoeficientes += coeficiente * coeficiente;
+            }
+            return previsao(Modelo.HOLT_WINTERS, n, previstos, desvios);
+        }
+
+        // Cada mês repete o mesmo mês do último ano
+        private Previsao sazonalIngenuo(int n) {
+            double somaErros = 0.0;
+            for (int t = PERIODO; t < n; t++) {
+                double erro = valores[t] - valores[t - PERIODO];
+                somaErros += erro * erro;
+            }
+            double sigma = n > PERIODO ? Math.sqrt(somaErros / (n - PERIODO)) : desvioPadrao(n);
+
+            double[] previstos = new double[HORIZONTE_MAXIMO];
+            double[] desvios = new double[HORIZONTE_MAXIMO];
+            for (int h = 1; h <= HORIZONTE_MAXIMO; h++) {
+                previstos[h - 1] = valores[n - PERIODO + (h - 1) % PERIODO];
+                desvios[h - 1] = sigma * Math.sqrt((h - 1) / PERIODO + 1);
+            }
+            return previsao(Modelo.SAZONAL_INGENUO, n, previstos, desvios);
+        }
+
+        private Previsao media(int n) {
+            double media = media(valores, 0, n);
+            double desvio = desvioPadrao(n) * Math.sqrt(1 + 1.0 / n);
+            double[] previstos = new double[HORIZONTE_MAXIMO];
+            double[] desvios = new double[HORIZONTE_MAXIMO];
+            Arrays.fill(previstos, media);
+            Arrays.fill(desvios, desvio);
+            return previsao(Modelo.MEDIA, n, previstos, desvios);
+        }
+
+        // Gastos não são negativos: valores e limites inferiores param em zero
+        private static Previsao previsao(Modelo modelo, int n, double[] previstos, double[] desvios) {
+            double[] inferiores = new double[previstos.length];
+            double[] superiores = new double[previstos.length];
+            for (int i = 0; i < previstos.length; i++) {
+                double valor = Math.max(previstos[i], 0.0);
+                previstos[i] = valor;
+                inferiores[i] = Math.max(valor - Z_CONFIANCA * desvios[i], 0.0);
+                superiores[i] = valor + Z_CONFIANCA * desvios[i];
+            }
+            return new Previsao(modelo, n, previstos, inferiores, superiores);
+        }
+
+        private double desvioPadrao(int n) {
+            double media = media(valores, 0, n);
+            double soma = 0.0;
+            for (int t = 0; t < n; t++) {
+                soma += (valores[t] - media) * (valores[t] - media);
+            }
+            return Math.sqrt(soma / n);
+        }
+
+        private static double media(double[] valores, int de, int ate) {
+            double soma = 0.0;
+            for (int t = de; t < ate; t++) {
+                soma += valores[t];
+            }
+            return soma / (ate - de);
+        }
+    }
+}
@@ -7,13 +7,20 @@ import com.marciliojr.pirangueiro.repository.ReceitaRepository;
 import com.marciliojr.pirangueiro.dto.ReceitaDTO;
 import com.marciliojr.pirangueiro.dto.ContaDTO;
 import com.marciliojr.pirangueiro.dto.CategoriaDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.util.HashLancamentoUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +36,9 @@ public class ReceitaService {
     @Autowired
     private HistoricoService historicoService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<ReceitaDTO> listarTodas() {
         return receitaRepository.findAllWithRelationships().stream()
                 .map(this::converterParaDTO)
@@ -53,9 +63,14 @@ public class ReceitaService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public ReceitaDTO salvar(ReceitaDTO receitaDTO) {
+        List<SituacaoLancamentoDTO> situacaoAnterior = receitaDTO.getId() != null
+                ? bloquearSituacao(receitaDTO.getId()) : List.of();
         Receita receita = converterParaEntidade(receitaDTO);
         Receita salva = receitaRepository.save(receita);
+        eventPublisher.publishEvent(new LancamentosAlteradosEvent(this, TipoLancamento.RECEITA,
+                situacaoAnterior, List.of(situacao(salva))));
         
         // Registrar no histórico
         try {
@@ -74,12 +89,17 @@ public class ReceitaService {
         return converterParaDTO(salva);
     }
 
+    @Transactional
     public void excluir(Long id) {
         try {
+            List<SituacaoLancamentoDTO> situacaoAnterior = bloquearSituacao(id);
+
             // Buscar a receita antes de excluir para registrar no histórico
             Receita receita = receitaRepository.findById(id).orElse(null);
             
             receitaRepository.deleteById(id);
+            eventPublisher.publishEvent(new LancamentosAlteradosEvent(this, TipoLancamento.RECEITA,
+                    situacaoAnterior, List.of()));
             
             // Registrar exclusão no histórico
             if (receita != null) {
@@ -148,6 +168,28 @@ public class ReceitaService {
         return dto;
     }
 
+    private List<SituacaoLancamentoDTO> bloquearSituacao(Long id) {
+        return receitaRepository.bloquearSituacao(List.of(id)).stream()
+                .map(linha -> new SituacaoLancamentoDTO(
+                        ((Number) linha[0]).longValue(),
+                        linha[1] != null ? ((Number) linha[1]).longValue() : null,
+                        null,
+                        linha[2] != null ? ((Number) linha[2]).longValue() : null,
+                        linha[3] instanceof java.sql.Date data ? data.toLocalDate() : (LocalDate) linha[3],
+                        linha[4] != null ? ((Number) linha[4]).doubleValue() : null,
+                        null))
+                .collect(Collectors.toList());
+    }
+
+    private static SituacaoLancamentoDTO situacao(Receita receita) {
+        return new SituacaoLancamentoDTO(
+                receita.getId(),
+                receita.getConta() != null ? receita.getConta().getId() : null,
+                null,
+                receita.getCategoria() != null ? receita.getCategoria().getId() : null,
+                receita.getData(), receita.getValor(), null);
+    }
+
     private ContaDTO converterContaParaDTO(Conta conta) {
         ContaDTO contaDTO = new ContaDTO();
         contaDTO.setId(conta.getId());
@@ -189,6 +231,7 @@ public class ReceitaService {
         receita.setExtensaoAnexo(dto.getExtensaoAnexo());
         receita.setAnexo(dto.getAnexo());
         receita.setObservacao(dto.getObservacao());
+        receita.setHashImportacao(HashLancamentoUtil.calcular(dto.getData(), dto.getValor(), dto.getDescricao()));
         return receita;
     }
 } 
\ No newline at end of file
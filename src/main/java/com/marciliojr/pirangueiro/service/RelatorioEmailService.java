@@ -86,6 +86,11 @@ public class RelatorioEmailService {
                 resumo.put("categoriaMaiorDespesa", categoriaMaior);
             }
             
+            if (!relatorio.getSecoesIndisponiveis().isEmpty()) {
+                log.warn("Relatório para email gerado sem as seções: {}", relatorio.getSecoesIndisponiveis().keySet());
+                resumo.put("secoesIndisponiveis", relatorio.getSecoesIndisponiveis());
+            }
+            
             log.info("Resumo do relatório gerado com sucesso");
             return resumo;
             
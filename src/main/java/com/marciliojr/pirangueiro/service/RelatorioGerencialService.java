@@ -4,19 +4,51 @@ import com.marciliojr.pirangueiro.dto.*;
 import com.marciliojr.pirangueiro.model.Cartao;
 import com.marciliojr.pirangueiro.model.Categoria;
 import com.marciliojr.pirangueiro.model.Conta;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
 import com.marciliojr.pirangueiro.repository.CartaoRepository;
 import com.marciliojr.pirangueiro.repository.CategoriaRepository;
 import com.marciliojr.pirangueiro.repository.ContaRepository;
+import com.marciliojr.pirangueiro.repository.ResumoMensalRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Relatório gerencial das finanças.
+ *
+ * <p>As seções de despesas, receitas, saldos das contas, cartões e análise por categoria são
+ * independentes entre si e são calculadas ao mesmo tempo, cada uma em uma thread virtual e em sua
+ * própria transação somente leitura. Uma seção que falha ou não termina dentro do tempo limite
+ * entra zerada no relatório e é listada em {@code secoesIndisponiveis}; o resumo executivo é
+ * montado com as seções disponíveis.</p>
+ *
+ * <p>Os relatórios sem detalhes de meses encerrados vêm dos snapshots
+ * ({@link SnapshotRelatorioService}); apenas os cartões e o resumo executivo são recalculados.</p>
+ */
 @Service
+@Slf4j
 public class RelatorioGerencialService {
 
+    @Value("${relatorio.gerencial.timeout-secao-segundos:30}")
+    private int timeoutSecaoSegundos;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ExecucaoParcial execucaoParcial;
+
     @Autowired
     private DespesaService despesaService;
 
@@ -27,10 +59,10 @@ public class RelatorioGerencialService {
     private ContaService contaService;
 
     @Autowired
-    private CartaoService cartaoService;
+    private SaldoContasService saldoContasService;
 
     @Autowired
-    private CategoriaService categoriaService;
+    private UtilizacaoCartaoService utilizacaoCartaoService;
 
     @Autowired
     private ContaRepository contaRepository;
@@ -41,96 +73,182 @@ public class RelatorioGerencialService {
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private SnapshotRelatorioService snapshotRelatorioService;
+
+    private TransactionTemplate transacaoLeitura;
+
+    @PostConstruct
+    void configurarTransacaoLeitura() {
+        transacaoLeitura = new TransactionTemplate(transactionManager);
+        transacaoLeitura.setReadOnly(true);
+        transacaoLeitura.setTimeout(timeoutSecaoSegundos);
+    }
+
+    /**
+     * Relatório apenas com totais, contagens, médias e análises por categoria, todos lidos dos
+     * resumos mensais. Nenhum lançamento é carregado.
+     */
     public RelatorioGerencialDTO gerarRelatorioCompleto() {
         return gerarRelatorioCompleto(null, null);
     }
 
     public RelatorioGerencialDTO gerarRelatorioCompleto(Integer mes, Integer ano) {
+        return gerarRelatorio(mes, ano, null);
+    }
+
+    /**
+     * Relatório com uma página dos lançamentos do período em cada seção, do mais recente para o
+     * mais antigo, e as despesas não pagas de cada cartão.
+     */
+    public RelatorioGerencialDTO gerarRelatorioComDetalhes(Integer mes, Integer ano, int pagina, int tamanhoPagina) {
+        return gerarRelatorio(mes, ano, new PaginaDetalhes(pagina, tamanhoPagina));
+    }
+
+    /**
+     * Compara o mês com o mesmo mês do ano anterior. O ano anterior está sempre encerrado e vem
+     * do snapshot.
+     */
+    public ComparativoRelatorioDTO compararComAnoAnterior(int mes, int ano) {
+        ComparativoRelatorioDTO comparativo = new ComparativoRelatorioDTO();
+        comparativo.setMes(mes);
+        comparativo.setAno(ano);
+        comparativo.setAnoAnterior(ano - 1);
+
+        ComparativoRelatorioDTO.PeriodoComparado atual = periodoComparado(gerarRelatorioCompleto(mes, ano));
+        ComparativoRelatorioDTO.PeriodoComparado anterior = periodoComparado(gerarRelatorioCompleto(mes, ano - 1));
+        comparativo.setAtual(atual);
+        comparativo.setAnterior(anterior);
+        comparativo.setVariacaoReceitas(variacao(atual.getReceitaTotal(), anterior.getReceitaTotal()));
+        comparativo.setVariacaoDespesas(variacao(atual.getDespesaTotal(), anterior.getDespesaTotal()));
+        comparativo.setVariacaoSaldo(variacao(atual.getSaldo(), anterior.getSaldo()));
+        return comparativo;
+    }
+
+    private static ComparativoRelatorioDTO.PeriodoComparado periodoComparado(RelatorioGerencialDTO relatorio) {
+        ComparativoRelatorioDTO.PeriodoComparado periodo = new ComparativoRelatorioDTO.PeriodoComparado();
+        periodo.setReceitaTotal(relatorio.getResumoExecutivo().getReceitaTotal());
+        periodo.setDespesaTotal(relatorio.getResumoExecutivo().getDespesaTotal());
+        periodo.setSaldo(relatorio.getResumoExecutivo().getSaldoGeral());
+        periodo.setQuantidadeReceitas(relatorio.getSecaoReceitas().getQuantidadeReceitas());
+        periodo.setQuantidadeDespesas(relatorio.getSecaoDespesas().getQuantidadeDespesas());
+        RelatorioGerencialDTO.CategoriaAnalise maiorDespesa = relatorio.getSecaoAnaliseCategoria().getCategoriaMaiorDespesa();
+        periodo.setCategoriaMaiorDespesa(maiorDespesa != null ? maiorDespesa.getNomeCategoria() : null);
+        return periodo;
+    }
+
+    private static Double variacao(Double atual, Double anterior) {
+        return anterior == 0 ? null : (atual - anterior) / Math.abs(anterior) * 100;
+    }
+
+    // Página dos lançamentos incluída no relatório; nula quando os detalhes não foram solicitados
+    private record PaginaDetalhes(int pagina, int tamanhoPagina) {
+    }
+
+    private RelatorioGerencialDTO gerarRelatorio(Integer mes, Integer ano, PaginaDetalhes detalhes) {
+        // Todas as seções começam juntas, então o prazo é o mesmo para todas
+        ExecucaoParcial.Execucao execucao = execucaoParcial.iniciar("relatório gerencial", timeoutSecaoSegundos);
+
+        // Os cartões mostram o limite usado atual, então não entram no snapshot do mês
+        Future<RelatorioGerencialDTO.SecaoCartoes> cartoes = calcular(execucao, () -> gerarSecaoCartoes(mes, ano, detalhes != null));
+
+        RelatorioGerencialDTO relatorio = detalhes == null && snapshotRelatorioService.periodoFechado(mes, ano)
+                ? snapshotRelatorioService.obter(mes, ano, () -> gerarSecoesDoPeriodo(mes, ano, null, execucao))
+                : gerarSecoesDoPeriodo(mes, ano, detalhes, execucao);
+
+        relatorio.setSecaoCartoes(execucao.aguardar("cartoes", cartoes, relatorio.getSecoesIndisponiveis(), RelatorioGerencialService::secaoCartoesVazia));
+        relatorio.setResumoExecutivo(gerarResumoExecutivo(relatorio));
+
+        return relatorio;
+    }
+
+    // Seções que dependem apenas dos lançamentos do período, calculadas em paralelo
+    private RelatorioGerencialDTO gerarSecoesDoPeriodo(Integer mes, Integer ano, PaginaDetalhes detalhes,
+                                                       ExecucaoParcial.Execucao execucao) {
         RelatorioGerencialDTO relatorio = new RelatorioGerencialDTO();
         
         // Metadata
         relatorio.setDataGeracao(LocalDateTime.now());
         relatorio.setVersao("1.0");
 
-        // Gerar cada seção com filtros de período
-        relatorio.setSecaoDespesas(gerarSecaoDespesas(mes, ano));
-        relatorio.setSecaoReceitas(gerarSecaoReceitas(mes, ano));
-        relatorio.setSecaoSaldosContas(gerarSecaoSaldosContas(mes, ano));
-        relatorio.setSecaoCartoes(gerarSecaoCartoes(mes, ano));
-        relatorio.setSecaoAnaliseCategoria(gerarSecaoAnaliseCategoria(mes, ano));
-        relatorio.setResumoExecutivo(gerarResumoExecutivo(relatorio));
+        Future<RelatorioGerencialDTO.SecaoDespesas> despesas = calcular(execucao, () -> gerarSecaoDespesas(mes, ano, detalhes));
+        Future<RelatorioGerencialDTO.SecaoReceitas> receitas = calcular(execucao, () -> gerarSecaoReceitas(mes, ano, detalhes));
+        Future<RelatorioGerencialDTO.SecaoSaldosContas> saldosContas = calcular(execucao, () -> gerarSecaoSaldosContas(mes, ano));
+        Future<RelatorioGerencialDTO.SecaoAnaliseCategoria> analiseCategoria = calcular(execucao, () -> gerarSecaoAnaliseCategoria(mes, ano));
+
+        Map<String, String> indisponiveis = new LinkedHashMap<>();
+        relatorio.setSecaoDespesas(execucao.aguardar("despesas", despesas, indisponiveis, RelatorioGerencialService::secaoDespesasVazia));
+        relatorio.setSecaoReceitas(execucao.aguardar("receitas", receitas, indisponiveis, RelatorioGerencialService::secaoReceitasVazia));
+        relatorio.setSecaoSaldosContas(execucao.aguardar("saldosContas", saldosContas, indisponiveis, RelatorioGerencialService::secaoSaldosContasVazia));
+        relatorio.setSecaoAnaliseCategoria(execucao.aguardar("analiseCategoria", analiseCategoria, indisponiveis, RelatorioGerencialService::secaoAnaliseCategoriaVazia));
+        relatorio.setSecoesIndisponiveis(indisponiveis);
 
         return relatorio;
     }
 
-    private RelatorioGerencialDTO.SecaoDespesas gerarSecaoDespesas() {
-        return gerarSecaoDespesas(null, null);
+    // Cada seção em sua própria transação somente leitura
+    private <T> Future<T> calcular(ExecucaoParcial.Execucao execucao, Supplier<T> secao) {
+        return execucao.calcular(() -> transacaoLeitura.execute(status -> secao.get()));
     }
 
-    private RelatorioGerencialDTO.SecaoDespesas gerarSecaoDespesas(Integer mes, Integer ano) {
+    private RelatorioGerencialDTO.SecaoDespesas gerarSecaoDespesas(Integer mes, Integer ano, PaginaDetalhes detalhes) {
         RelatorioGerencialDTO.SecaoDespesas secao = new RelatorioGerencialDTO.SecaoDespesas();
         
-        List<DespesaDTO> todasDespesas;
-        if (mes != null && ano != null) {
-            // Filtrar por mês e ano específicos
-            todasDespesas = despesaService.buscarComFiltrosSemPaginar(null, mes, ano);
-        } else if (ano != null) {
-            // Filtrar apenas por ano
-            todasDespesas = despesaService.buscarComFiltrosSemPaginar(null, null, ano);
-        } else {
-            // Sem filtro - todas as despesas
-            todasDespesas = despesaService.listarTodas();
+        if (detalhes != null) {
+            Page<DespesaDTO> pagina = despesaService.buscarComFiltros(null, mesDoFiltro(mes, ano), ano,
+                    detalhes.pagina(), detalhes.tamanhoPagina());
+            secao.setTodasDespesas(pagina.getContent());
+            secao.setPaginacaoDetalhes(paginacao(pagina));
         }
-        
-        secao.setTodasDespesas(todasDespesas);
-        secao.setQuantidadeDespesas(todasDespesas.size());
-        
-        Double totalDespesas = todasDespesas.stream()
-                .mapToDouble(DespesaDTO::getValor)
-                .sum();
+
+        // Totais a partir dos resumos mensais
+        Object[] totais = somarPeriodo(TipoLancamento.DESPESA, mes, ano);
+        Double totalDespesas = ((Number) totais[0]).doubleValue();
+        int quantidade = ((Number) totais[1]).intValue();
+        secao.setQuantidadeDespesas(quantidade);
         secao.setTotalDespesas(totalDespesas);
         
-        Double valorMedio = todasDespesas.isEmpty() ? 0.0 : totalDespesas / todasDespesas.size();
+        Double valorMedio = quantidade == 0 ? 0.0 : totalDespesas / quantidade;
         secao.setValorMedioDespesas(valorMedio);
         
         return secao;
     }
 
-    private RelatorioGerencialDTO.SecaoReceitas gerarSecaoReceitas() {
-        return gerarSecaoReceitas(null, null);
-    }
-
-    private RelatorioGerencialDTO.SecaoReceitas gerarSecaoReceitas(Integer mes, Integer ano) {
+    private RelatorioGerencialDTO.SecaoReceitas gerarSecaoReceitas(Integer mes, Integer ano, PaginaDetalhes detalhes) {
         RelatorioGerencialDTO.SecaoReceitas secao = new RelatorioGerencialDTO.SecaoReceitas();
         
-        List<ReceitaDTO> todasReceitas;
-        if (mes != null && ano != null) {
-            // Filtrar por mês e ano específicos
-            todasReceitas = receitaService.buscarPorMesEAno(mes, ano);
-        } else if (ano != null) {
-            // Filtrar apenas por ano - precisaremos filtrar manualmente
-            todasReceitas = receitaService.listarTodas().stream()
-                    .filter(receita -> receita.getData().getYear() == ano)
-                    .collect(Collectors.toList());
-        } else {
-            // Sem filtro - todas as receitas
-            todasReceitas = receitaService.listarTodas();
+        if (detalhes != null) {
+            Page<ReceitaDTO> pagina = receitaService.buscarComFiltros(null, mesDoFiltro(mes, ano), ano,
+                    detalhes.pagina(), detalhes.tamanhoPagina(), null, null);
+            secao.setTodasReceitas(pagina.getContent());
+            secao.setPaginacaoDetalhes(paginacao(pagina));
         }
-        
-        secao.setTodasReceitas(todasReceitas);
-        secao.setQuantidadeReceitas(todasReceitas.size());
-        
-        Double totalReceitas = todasReceitas.stream()
-                .mapToDouble(ReceitaDTO::getValor)
-                .sum();
+
+        // Totais a partir dos resumos mensais
+        Object[] totais = somarPeriodo(TipoLancamento.RECEITA, mes, ano);
+        Double totalReceitas = ((Number) totais[0]).doubleValue();
+        int quantidade = ((Number) totais[1]).intValue();
+        secao.setQuantidadeReceitas(quantidade);
         secao.setTotalReceitas(totalReceitas);
         
-        Double valorMedio = todasReceitas.isEmpty() ? 0.0 : totalReceitas / todasReceitas.size();
+        Double valorMedio = quantidade == 0 ? 0.0 : totalReceitas / quantidade;
         secao.setValorMedioReceitas(valorMedio);
         
         return secao;
     }
 
+    private static RelatorioGerencialDTO.PaginacaoDetalhes paginacao(Page<?> pagina) {
+        RelatorioGerencialDTO.PaginacaoDetalhes paginacao = new RelatorioGerencialDTO.PaginacaoDetalhes();
+        paginacao.setPagina(pagina.getNumber());
+        paginacao.setTamanhoPagina(pagina.getSize());
+        paginacao.setTotalElementos(pagina.getTotalElements());
+        paginacao.setTotalPaginas(pagina.getTotalPages());
+        return paginacao;
+    }
+
     private RelatorioGerencialDTO.SecaoSaldosContas gerarSecaoSaldosContas() {
         return gerarSecaoSaldosContas(null, null);
     }
@@ -144,9 +262,15 @@ public class RelatorioGerencialService {
         Double totalReceitasGeral = 0.0;
         Double totalDespesasGeral = 0.0;
         
+        // Saldos de todas as contas do período calculados de uma vez
+        Map<Long, SaldoContaDTO> saldosPorConta = saldoContasService.listarSaldos(mes, ano).stream()
+                .collect(Collectors.toMap(SaldoContaDTO::getContaId, saldo -> saldo));
+        
         for (ContaDTO conta : todasContas) {
-            // Usar o filtro de período no cálculo do saldo
-            SaldoContaDTO saldoConta = contaService.calcularSaldoConta(conta.getId(), mes, ano);
+            SaldoContaDTO saldoConta = saldosPorConta.get(conta.getId());
+            if (saldoConta == null) {
+                saldoConta = saldoContasService.buscarSaldo(conta.getId(), mes, ano);
+            }
             
             RelatorioGerencialDTO.SaldoContaDetalhado detalhe = new RelatorioGerencialDTO.SaldoContaDetalhado();
             detalhe.setContaId(conta.getId());
@@ -178,31 +302,28 @@ public class RelatorioGerencialService {
         return secao;
     }
 
-    private RelatorioGerencialDTO.SecaoCartoes gerarSecaoCartoes() {
-        return gerarSecaoCartoes(null, null);
-    }
-
-    private RelatorioGerencialDTO.SecaoCartoes gerarSecaoCartoes(Integer mes, Integer ano) {
+    private RelatorioGerencialDTO.SecaoCartoes gerarSecaoCartoes(Integer mes, Integer ano, boolean incluirDetalhes) {
         RelatorioGerencialDTO.SecaoCartoes secao = new RelatorioGerencialDTO.SecaoCartoes();
         
-        List<CartaoDTO> todosCartoes = cartaoService.listarTodos();
+        List<CartaoLimiteDTO> utilizacoes = utilizacaoCartaoService.listarUtilizacoes();
+        Map<Long, List<DespesaDTO>> despesasNaoPagasPorCartao = incluirDetalhes
+                ? buscarDespesasNaoPagasPorCartao(mes, ano) : null;
         List<RelatorioGerencialDTO.CartaoDetalhado> cartoesDetalhados = new ArrayList<>();
         
         Double limiteTotal = 0.0;
         Double limiteUsadoTotal = 0.0;
         
-        for (CartaoDTO cartao : todosCartoes) {
+        for (CartaoLimiteDTO utilizacao : utilizacoes) {
             RelatorioGerencialDTO.CartaoDetalhado detalhe = new RelatorioGerencialDTO.CartaoDetalhado();
             
-            Double limiteUsado = cartaoService.calcularLimiteUsado(cartao.getId());
-            Double limiteDisponivel = cartaoService.calcularLimiteDisponivel(cartao.getId());
-            Double percentualUtilizacao = (limiteUsado / cartao.getLimite()) * 100;
+            Double limiteUsado = utilizacao.getLimiteUsado();
+            Double percentualUtilizacao = utilizacao.getPercentualUtilizado();
             
-            detalhe.setCartaoId(cartao.getId());
-            detalhe.setNomeCartao(cartao.getNome());
-            detalhe.setLimite(cartao.getLimite());
+            detalhe.setCartaoId(utilizacao.getCartaoId());
+            detalhe.setNomeCartao(utilizacao.getNomeCartao());
+            detalhe.setLimite(utilizacao.getLimiteTotal());
             detalhe.setLimiteUsado(limiteUsado);
-            detalhe.setLimiteDisponivel(limiteDisponivel);
+            detalhe.setLimiteDisponivel(utilizacao.getLimiteDisponivel());
             detalhe.setPercentualUtilizacao(percentualUtilizacao);
             
             // Definir status de utilização
@@ -216,34 +337,12 @@ public class RelatorioGerencialService {
                 detalhe.setStatusUtilizacao("CRITICA");
             }
             
-            // Buscar despesas não pagas do cartão (o campo 'pago' é usado apenas para limite)
-            List<DespesaDTO> despesasNaoPagas;
-            if (mes != null && ano != null) {
-                // Filtrar despesas não pagas por período específico
-                despesasNaoPagas = despesaService.buscarComFiltrosSemPaginar(null, mes, ano).stream()
-                        .filter(despesa -> despesa.getCartao() != null && 
-                                despesa.getCartao().getId().equals(cartao.getId()) && 
-                                !Boolean.TRUE.equals(despesa.getPago()))
-                        .collect(Collectors.toList());
-            } else if (ano != null) {
-                // Filtrar despesas não pagas apenas por ano
-                despesasNaoPagas = despesaService.buscarComFiltrosSemPaginar(null, null, ano).stream()
-                        .filter(despesa -> despesa.getCartao() != null && 
-                                despesa.getCartao().getId().equals(cartao.getId()) && 
-                                !Boolean.TRUE.equals(despesa.getPago()))
-                        .collect(Collectors.toList());
-            } else {
-                // Todas as despesas não pagas
-                despesasNaoPagas = despesaService.listarTodas().stream()
-                        .filter(despesa -> despesa.getCartao() != null && 
-                                despesa.getCartao().getId().equals(cartao.getId()) && 
-                                !Boolean.TRUE.equals(despesa.getPago()))
-                        .collect(Collectors.toList());
+            if (despesasNaoPagasPorCartao != null) {
+                detalhe.setDespesasNaoPagas(despesasNaoPagasPorCartao.getOrDefault(utilizacao.getCartaoId(), new ArrayList<>()));
             }
-            detalhe.setDespesasNaoPagas(despesasNaoPagas);
             
             cartoesDetalhados.add(detalhe);
-            limiteTotal += cartao.getLimite();
+            limiteTotal += utilizacao.getLimiteTotal();
             limiteUsadoTotal += limiteUsado;
         }
         
@@ -256,6 +355,13 @@ public class RelatorioGerencialService {
         return secao;
     }
 
+    // Despesas de cartão não pagas do período agrupadas por cartão, lidas uma vez para todos os cartões
+    // (o campo 'pago' é usado apenas para limite)
+    private Map<Long, List<DespesaDTO>> buscarDespesasNaoPagasPorCartao(Integer mes, Integer ano) {
+        return despesaService.buscarNaoPagasDeCartao(mesDoFiltro(mes, ano), ano).stream()
+                .collect(Collectors.groupingBy(despesa -> despesa.getCartao().getId()));
+    }
+
     private RelatorioGerencialDTO.SecaoAnaliseCategoria gerarSecaoAnaliseCategoria() {
         return gerarSecaoAnaliseCategoria(null, null);
     }
@@ -263,94 +369,16 @@ public class RelatorioGerencialService {
     private RelatorioGerencialDTO.SecaoAnaliseCategoria gerarSecaoAnaliseCategoria(Integer mes, Integer ano) {
         RelatorioGerencialDTO.SecaoAnaliseCategoria secao = new RelatorioGerencialDTO.SecaoAnaliseCategoria();
         
-        // Buscar despesas e receitas filtradas por período
-        List<DespesaDTO> todasDespesas;
-        List<ReceitaDTO> todasReceitas;
-        
-        if (mes != null && ano != null) {
-            todasDespesas = despesaService.buscarComFiltrosSemPaginar(null, mes, ano);
-            todasReceitas = receitaService.buscarPorMesEAno(mes, ano);
-        } else if (ano != null) {
-            todasDespesas = despesaService.buscarComFiltrosSemPaginar(null, null, ano);
-            todasReceitas = receitaService.listarTodas().stream()
-                    .filter(receita -> receita.getData().getYear() == ano)
-                    .collect(Collectors.toList());
-        } else {
-            todasDespesas = despesaService.listarTodas();
-            todasReceitas = receitaService.listarTodas();
-        }
-        
-        // Análise categorias de despesas
-        Map<Long, List<DespesaDTO>> despesasPorCategoria = todasDespesas.stream()
-                .filter(despesa -> despesa.getCategoria() != null)
-                .collect(Collectors.groupingBy(despesa -> despesa.getCategoria().getId()));
-        
-        Double totalDespesas = todasDespesas.stream().mapToDouble(DespesaDTO::getValor).sum();
-        
-        List<RelatorioGerencialDTO.CategoriaAnalise> analiseCategoriaDespesas = new ArrayList<>();
-        RelatorioGerencialDTO.CategoriaAnalise categoriaMaiorDespesa = null;
-        Double maiorValorDespesa = 0.0;
-        
-        for (Map.Entry<Long, List<DespesaDTO>> entry : despesasPorCategoria.entrySet()) {
-            CategoriaDTO categoria = categoriaService.buscarPorId(entry.getKey());
-            List<DespesaDTO> despesasCategoria = entry.getValue();
-            
-            Double valorCategoria = despesasCategoria.stream().mapToDouble(DespesaDTO::getValor).sum();
-            Double percentual = totalDespesas > 0 ? (valorCategoria / totalDespesas) * 100 : 0.0;
-            
-            RelatorioGerencialDTO.CategoriaAnalise analise = new RelatorioGerencialDTO.CategoriaAnalise();
-            analise.setCategoriaId(categoria.getId());
-            analise.setNomeCategoria(categoria.getNome());
-            analise.setCorCategoria(categoria.getCor());
-            analise.setValor(valorCategoria);
-            analise.setPercentual(percentual);
-            analise.setQuantidade(despesasCategoria.size());
-            analise.setValorMedio(valorCategoria / despesasCategoria.size());
-            analise.setTipoReceita(false);
-            
-            analiseCategoriaDespesas.add(analise);
-            
-            if (valorCategoria > maiorValorDespesa) {
-                maiorValorDespesa = valorCategoria;
-                categoriaMaiorDespesa = analise;
-            }
-        }
-        
-        // Análise categorias de receitas
-        Map<Long, List<ReceitaDTO>> receitasPorCategoria = todasReceitas.stream()
-                .filter(receita -> receita.getCategoria() != null)
-                .collect(Collectors.groupingBy(receita -> receita.getCategoria().getId()));
-        
-        Double totalReceitas = todasReceitas.stream().mapToDouble(ReceitaDTO::getValor).sum();
-        
-        List<RelatorioGerencialDTO.CategoriaAnalise> analiseCategoriaReceitas = new ArrayList<>();
-        RelatorioGerencialDTO.CategoriaAnalise categoriaMaiorReceita = null;
-        Double maiorValorReceita = 0.0;
-        
-        for (Map.Entry<Long, List<ReceitaDTO>> entry : receitasPorCategoria.entrySet()) {
-            CategoriaDTO categoria = categoriaService.buscarPorId(entry.getKey());
-            List<ReceitaDTO> receitasCategoria = entry.getValue();
-            
-            Double valorCategoria = receitasCategoria.stream().mapToDouble(ReceitaDTO::getValor).sum();
-            Double percentual = totalReceitas > 0 ? (valorCategoria / totalReceitas) * 100 : 0.0;
-            
-            RelatorioGerencialDTO.CategoriaAnalise analise = new RelatorioGerencialDTO.CategoriaAnalise();
-            analise.setCategoriaId(categoria.getId());
-            analise.setNomeCategoria(categoria.getNome());
-            analise.setCorCategoria(categoria.getCor());
-            analise.setValor(valorCategoria);
-            analise.setPercentual(percentual);
-            analise.setQuantidade(receitasCategoria.size());
-            analise.setValorMedio(valorCategoria / receitasCategoria.size());
-            analise.setTipoReceita(true);
-            
-            analiseCategoriaReceitas.add(analise);
-            
-            if (valorCategoria > maiorValorReceita) {
-                maiorValorReceita = valorCategoria;
-                categoriaMaiorReceita = analise;
-            }
-        }
+        List<RelatorioGerencialDTO.CategoriaAnalise> analiseCategoriaDespesas =
+                analisarCategorias(TipoLancamento.DESPESA, mes, ano);
+        List<RelatorioGerencialDTO.CategoriaAnalise> analiseCategoriaReceitas =
+                analisarCategorias(TipoLancamento.RECEITA, mes, ano);
+
+        // As análises vêm ordenadas do maior para o menor valor
+        RelatorioGerencialDTO.CategoriaAnalise categoriaMaiorDespesa =
+                analiseCategoriaDespesas.isEmpty() ? null : analiseCategoriaDespesas.get(0);
+        RelatorioGerencialDTO.CategoriaAnalise categoriaMaiorReceita =
+                analiseCategoriaReceitas.isEmpty() ? null : analiseCategoriaReceitas.get(0);
         
         secao.setAnaliseCategoriaDespesas(analiseCategoriaDespesas);
         secao.setAnaliseCategoriaReceitas(analiseCategoriaReceitas);
@@ -360,6 +388,83 @@ public class RelatorioGerencialService {
         return secao;
     }
 
+    private List<RelatorioGerencialDTO.CategoriaAnalise> analisarCategorias(TipoLancamento tipo, Integer mes, Integer ano) {
+        Double total = ((Number) somarPeriodo(tipo, mes, ano)[0]).doubleValue();
+
+        List<RelatorioGerencialDTO.CategoriaAnalise> analises = new ArrayList<>();
+        for (Object[] dado : resumoMensalRepository.somarPorCategoria(tipo, ano, mesDoFiltro(mes, ano))) {
+            Double valorCategoria = ((Number) dado[3]).doubleValue();
+            int quantidade = ((Number) dado[4]).intValue();
+
+            RelatorioGerencialDTO.CategoriaAnalise analise = new RelatorioGerencialDTO.CategoriaAnalise();
+            analise.setCategoriaId((Long) dado[0]);
+            analise.setNomeCategoria((String) dado[1]);
+            analise.setCorCategoria((String) dado[2]);
+            analise.setValor(valorCategoria);
+            analise.setPercentual(total > 0 ? (valorCategoria / total) * 100 : 0.0);
+            analise.setQuantidade(quantidade);
+            analise.setValorMedio(valorCategoria / quantidade);
+            analise.setTipoReceita(tipo == TipoLancamento.RECEITA);
+
+            analises.add(analise);
+        }
+        return analises;
+    }
+
+    // Retorna [total, quantidade] do período filtrado
+    private Object[] somarPeriodo(TipoLancamento tipo, Integer mes, Integer ano) {
+        return resumoMensalRepository.somarPorPeriodo(tipo, ano, mesDoFiltro(mes, ano)).get(0);
+    }
+
+    // O mês só filtra quando acompanhado do ano, como nas listagens de lançamentos
+    private static Integer mesDoFiltro(Integer mes, Integer ano) {
+        return ano != null ? mes : null;
+    }
+
+    // ==================== SEÇÕES INDISPONÍVEIS ====================
+
+    private static RelatorioGerencialDTO.SecaoDespesas secaoDespesasVazia() {
+        RelatorioGerencialDTO.SecaoDespesas secao = new RelatorioGerencialDTO.SecaoDespesas();
+        secao.setTotalDespesas(0.0);
+        secao.setQuantidadeDespesas(0);
+        secao.setValorMedioDespesas(0.0);
+        return secao;
+    }
+
+    private static RelatorioGerencialDTO.SecaoReceitas secaoReceitasVazia() {
+        RelatorioGerencialDTO.SecaoReceitas secao = new RelatorioGerencialDTO.SecaoReceitas();
+        secao.setTotalReceitas(0.0);
+        secao.setQuantidadeReceitas(0);
+        secao.setValorMedioReceitas(0.0);
+        return secao;
+    }
+
+    private static RelatorioGerencialDTO.SecaoSaldosContas secaoSaldosContasVazia() {
+        RelatorioGerencialDTO.SecaoSaldosContas secao = new RelatorioGerencialDTO.SecaoSaldosContas();
+        secao.setSaldosDetalhados(new ArrayList<>());
+        secao.setSaldoTotalContas(0.0);
+        secao.setTotalReceitasContas(0.0);
+        secao.setTotalDespesasContas(0.0);
+        return secao;
+    }
+
+    private static RelatorioGerencialDTO.SecaoCartoes secaoCartoesVazia() {
+        RelatorioGerencialDTO.SecaoCartoes secao = new RelatorioGerencialDTO.SecaoCartoes();
+        secao.setCartoesDetalhados(new ArrayList<>());
+        secao.setLimiteTotal(0.0);
+        secao.setLimiteUsadoTotal(0.0);
+        secao.setLimiteDisponivelTotal(0.0);
+        secao.setPercentualUtilizacaoGeral(0.0);
+        return secao;
+    }
+
+    private static RelatorioGerencialDTO.SecaoAnaliseCategoria secaoAnaliseCategoriaVazia() {
+        RelatorioGerencialDTO.SecaoAnaliseCategoria secao = new RelatorioGerencialDTO.SecaoAnaliseCategoria();
+        secao.setAnaliseCategoriaDespesas(new ArrayList<>());
+        secao.setAnaliseCategoriaReceitas(new ArrayList<>());
+        return secao;
+    }
+
     private RelatorioGerencialDTO.ResumoExecutivo gerarResumoExecutivo(RelatorioGerencialDTO relatorio) {
         RelatorioGerencialDTO.ResumoExecutivo resumo = new RelatorioGerencialDTO.ResumoExecutivo();
         
@@ -376,7 +481,11 @@ public class RelatorioGerencialService {
         resumo.setPercentualEconomia(percentualEconomia);
         
         // Definir situação financeira
-        if (percentualEconomia >= 20) {
+        Map<String, String> indisponiveis = relatorio.getSecoesIndisponiveis();
+        if (indisponiveis.containsKey("receitas") || indisponiveis.containsKey("despesas")) {
+            resumo.setSituacaoFinanceira("INDISPONIVEL");
+            resumo.setRecomendacoes("Não foi possível calcular receitas e despesas do período. Gere o relatório novamente.");
+        } else if (percentualEconomia >= 20) {
             resumo.setSituacaoFinanceira("SAUDAVEL");
             resumo.setRecomendacoes("Situação financeira excelente! Continue mantendo este nível de economia.");
         } else if (percentualEconomia >= 10) {
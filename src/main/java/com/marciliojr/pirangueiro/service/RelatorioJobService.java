@@ -0,0 +1,442 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.dto.ReceitaDTO;
+import com.marciliojr.pirangueiro.dto.RelatorioGerencialDTO;
+import com.marciliojr.pirangueiro.dto.RelatorioJobDTO;
+import com.marciliojr.pirangueiro.dto.RelatorioJobDTO.StatusJob;
+import com.marciliojr.pirangueiro.dto.RelatorioJobDTO.TipoRelatorio;
+import com.marciliojr.pirangueiro.dto.SolicitacaoRelatorioDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.util.PDFGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Geração de relatórios em segundo plano, com os arquivos guardados em disco.
+ *
+ * <p>Um pedido recebe um identificador e é gerado por um conjunto limitado de trabalhadores; a
+ * situação pode ser consultada ou acompanhada por eventos (SSE) e o arquivo baixado ao final.
+ * Os pedidos são identificados pelos parâmetros e pela versão dos dados do período
+ * ({@link VersaoDadosService}): pedidos iguais com os mesmos dados reaproveitam o mesmo trabalho
+ * e o mesmo arquivo.
+ * Quando os dados mudam, os arquivos gerados com a versão anterior são apagados e os pedidos
+ * passam a {@link StatusJob#EXPIRADO}.</p>
+ *
+ * <p>O relatório gerencial usa a versão de todo o histórico, pois a seção de cartões considera
+ * lançamentos de qualquer mês. Como as versões recomeçam com a aplicação, os arquivos de uma
+ * execução anterior são apagados na inicialização; os demais arquivos do diretório são preservados.</p>
+ */
+@Service
+@Slf4j
+public class RelatorioJobService {
+
+    private static final long TIMEOUT_EVENTOS_MS = Duration.ofMinutes(10).toMillis();
+
+    private static final String PREFIXO_TEMPORARIO = "gerando-";
+
+    // Nome dos arquivos de pedido: o identificador do pedido seguido da extensão do tipo
+    private static final Pattern NOME_ARQUIVO_PEDIDO =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    @Value("${relatorio.jobs.trabalhadores:2}")
+    private int trabalhadores;
+
+    @Value("${relatorio.jobs.fila:20}")
+    private int tamanhoFila;
+
+    @Value("${relatorio.jobs.retencao-horas:24}")
+    private long retencaoHoras;
+
+    @Value("${relatorio.jobs.diretorio:${java.io.tmpdir}/pirangueiro-relatorios}")
+    private String diretorioArquivos;
+
+    @Autowired
+    private ExportacaoRelatorioService exportacaoRelatorioService;
+
+    @Autowired
+    private RelatorioGerencialService relatorioGerencialService;
+
+    @Autowired
+    private PDFGenerator pdfGenerator;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    private ThreadPoolExecutor executor;
+
+    private Path diretorio;
+
+    private Cache<String, Job> jobs;
+
+    // Pedido vigente para cada combinação de parâmetros e versão dos dados
+    private final Map<String, String> jobsPorChave = new ConcurrentHashMap<>();
+
+    /**
+     * Arquivo pronto de um relatório.
+     */
+    public record ArtefatoRelatorio(Path arquivo, String nomeArquivo, String tipoConteudo) {
+    }
+
+    private final class Job {
+        private final String id = UUID.randomUUID().toString();
+        private final TipoRelatorio tipo;
+        private final Integer mes;
+        private final Integer ano;
+        private final boolean incluirDetalhes;
+        private final String versao;
+        private final String chave;
+        private final Path arquivo;
+        private final LocalDateTime dataCriacao = LocalDateTime.now();
+        private final List<SseEmitter> emissores = new CopyOnWriteArrayList<>();
+
+        private volatile StatusJob status = StatusJob.PENDENTE;
+        private volatile String mensagemErro;
+        private volatile LocalDateTime dataConclusao;
+
+        private Job(TipoRelatorio tipo, Integer mes, Integer ano, boolean incluirDetalhes, String versao,
+                    String chave) {
+            this.tipo = tipo;
+            this.mes = mes;
+            this.ano = ano;
+            this.incluirDetalhes = incluirDetalhes;
+            this.versao = versao;
+            this.chave = chave;
+            // Um arquivo por pedido: a limpeza de um pedido expirado não alcança o pedido que o substituiu
+            this.arquivo = diretorio.resolve(id + tipo.getExtensao());
+        }
+
+        private boolean finalizado() {
+            return status != StatusJob.PENDENTE && status != StatusJob.EM_ANDAMENTO;
+        }
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        diretorio = Paths.get(diretorioArquivos);
+        Files.createDirectories(diretorio);
+        try (Stream<Path> anteriores = Files.list(diretorio)) {
+            anteriores.filter(Files::isRegularFile)
+                    .filter(RelatorioJobService::arquivoDoServico)
+                    .forEach(RelatorioJobService::apagar);
+        }
+
+        jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofHours(retencaoHoras))
+                .<String, Job>removalListener((id, job, causa) -> {
+                    if (job != null && causa.wasEvicted()) {
+                        jobsPorChave.remove(job.chave, job.id);
+                        apagar(job.arquivo);
+                    }
+                })
+                .build();
+
+        executor = new ThreadPoolExecutor(trabalhadores, trabalhadores, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(tamanhoFila));
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Registra o pedido ou devolve o pedido igual já registrado para os mesmos dados.
+     */
+    public RelatorioJobDTO solicitar(SolicitacaoRelatorioDTO solicitacao) {
+        if (solicitacao == null || solicitacao.getTipo() == null) {
+            throw new NegocioException("O tipo do relatório é obrigatório");
+        }
+        Integer mes = solicitacao.getMes();
+        Integer ano = solicitacao.getAno();
+        if (mes != null && (mes < 1 || mes > 12)) {
+            throw new NegocioException("Mês inválido: " + mes);
+        }
+        if (ano != null && (ano < 1900 || ano > 2100)) {
+            throw new NegocioException("Ano inválido: " + ano);
+        }
+        // O mês só filtra junto com o ano
+        if (ano == null) {
+            mes = null;
+        }
+        TipoRelatorio tipo = solicitacao.getTipo();
+        boolean incluirDetalhes = tipo == TipoRelatorio.RELATORIO_GERENCIAL_JSON
+                && Boolean.TRUE.equals(solicitacao.getIncluirDetalhes());
+
+        String versao = versaoDados(tipo, mes, ano);
+        String chave = tipo + "|" + mes + "|" + ano + "|" + incluirDetalhes + "|" + versao;
+
+        synchronized (jobsPorChave) {
+            Job existente = Optional.ofNullable(jobsPorChave.get(chave)).map(jobs::getIfPresent).orElse(null);
+            if (existente != null && existente.status != StatusJob.ERRO && existente.status != StatusJob.EXPIRADO) {
+                return converter(existente);
+            }
+
+            Job job = new Job(tipo, mes, ano, incluirDetalhes, versao, chave);
+            jobs.put(job.id, job);
+            jobsPorChave.put(chave, job.id);
+            try {
+                executor.execute(() -> gerar(job));
+            } catch (RejectedExecutionException e) {
+                jobs.invalidate(job.id);
+                jobsPorChave.remove(chave, job.id);
+                throw new NegocioException("Fila de relatórios cheia, tente novamente em instantes");
+            }
+            return converter(job);
+        }
+    }
+
+    public Optional<RelatorioJobDTO> buscar(String id) {
+        return Optional.ofNullable(jobs.getIfPresent(id))
+                .map(job -> {
+                    expirarSeObsoleto(job);
+                    return converter(job);
+                });
+    }
+
+    /**
+     * Arquivo do pedido, se concluído e gerado com os dados atuais.
+     */
+    public Optional<ArtefatoRelatorio> buscarArtefato(String id) {
+        Job job = jobs.getIfPresent(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        expirarSeObsoleto(job);
+        if (job.status != StatusJob.CONCLUIDO || !Files.exists(job.arquivo)) {
+            return Optional.empty();
+        }
+        return Optional.of(new ArtefatoRelatorio(job.arquivo, nomeArquivo(job), job.tipo.getTipoConteudo()));
+    }
+
+    /**
+     * Envia a situação atual e cada mudança até o fim do pedido.
+     */
+    public Optional<SseEmitter> acompanhar(String id) {
+        Job job = jobs.getIfPresent(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        expirarSeObsoleto(job);
+
+        SseEmitter emissor = new SseEmitter(TIMEOUT_EVENTOS_MS);
+        emissor.onCompletion(() -> job.emissores.remove(emissor));
+        emissor.onTimeout(() -> job.emissores.remove(emissor));
+        emissor.onError(erro -> job.emissores.remove(emissor));
+        job.emissores.add(emissor);
+        enviar(job, emissor);
+        return Optional.of(emissor);
+    }
+
+    // ==================== GERAÇÃO ====================
+
+    private void gerar(Job job) {
+        job.status = StatusJob.EM_ANDAMENTO;
+        notificar(job);
+
+        Path temporario = null;
+        try {
+            temporario = Files.createTempFile(diretorio, PREFIXO_TEMPORARIO, job.tipo.getExtensao());
+            try (OutputStream saida = new BufferedOutputStream(Files.newOutputStream(temporario))) {
+                escrever(job, saida);
+            }
+            Files.move(temporario, job.arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.dataConclusao = LocalDateTime.now();
+            job.status = StatusJob.CONCLUIDO;
+            // Dados alterados durante a geração
+            expirarSeObsoleto(job);
+        } catch (Exception e) {
+            log.error("Erro ao gerar relatório {} ({}): {}", job.id, job.tipo, e.getMessage(), e);
+            if (temporario != null) {
+                apagar(temporario);
+            }
+            job.mensagemErro = e.getMessage();
+            job.dataConclusao = LocalDateTime.now();
+            job.status = StatusJob.ERRO;
+            jobsPorChave.remove(job.chave, job.id);
+        } finally {
+            notificar(job);
+        }
+    }
+
+    private void escrever(Job job, OutputStream saida) throws Exception {
+        switch (job.tipo) {
+            case PDF_DESPESAS -> {
+                try (Stream<DespesaDTO> despesas = exportacaoRelatorioService.lerDespesas(job.mes, job.ano)) {
+                    pdfGenerator.escreverPDFDespesas(despesas::iterator, "Relatório de Despesas" + periodo(job), saida);
+                }
+            }
+            case PDF_RECEITAS -> {
+                try (Stream<ReceitaDTO> receitas = exportacaoRelatorioService.lerReceitas(job.mes, job.ano)) {
+                    pdfGenerator.escreverPDFReceitas(receitas::iterator, "Relatório de Receitas" + periodo(job), saida);
+                }
+            }
+            case RELATORIO_GERENCIAL_JSON -> {
+                RelatorioGerencialDTO relatorio = relatorioGerencialService.gerarRelatorioCompleto(job.mes, job.ano);
+                exportacaoRelatorioService.escreverJson(relatorio, job.mes, job.ano, job.incluirDetalhes, saida);
+            }
+        }
+    }
+
+    private static String periodo(Job job) {
+        if (job.mes != null && job.ano != null) {
+            return String.format(" - %02d/%04d", job.mes, job.ano);
+        }
+        return job.ano != null ? " - " + job.ano : "";
+    }
+
+    private static String nomeArquivo(Job job) {
+        String nome = switch (job.tipo) {
+            case PDF_DESPESAS -> "despesas";
+            case PDF_RECEITAS -> "receitas";
+            case RELATORIO_GERENCIAL_JSON -> "relatorio_gerencial";
+        };
+        if (job.mes != null && job.ano != null) {
+            nome += String.format("_%02d_%04d", job.mes, job.ano);
+        } else if (job.ano != null) {
+            nome += "_" + job.ano;
+        }
+        return nome + job.tipo.getExtensao();
+    }
+
+    // ==================== INVALIDAÇÃO ====================
+
+    private String versaoDados(TipoRelatorio tipo, Integer mes, Integer ano) {
+        return tipo == TipoRelatorio.RELATORIO_GERENCIAL_JSON
+                ? versaoDadosService.versao(null, null)
+                : versaoDadosService.versao(mes, ano);
+    }
+
+    private void expirarSeObsoleto(Job job) {
+        if (job.status != StatusJob.CONCLUIDO || job.versao.equals(versaoDados(job.tipo, job.mes, job.ano))) {
+            return;
+        }
+        job.status = StatusJob.EXPIRADO;
+        jobsPorChave.remove(job.chave, job.id);
+        apagar(job.arquivo);
+        notificar(job);
+    }
+
+    /**
+     * Roda depois da atualização das versões dos dados.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onLancamentosAlterados(LancamentosAlteradosEvent event) {
+        descartarObsoletos();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        descartarObsoletos();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCadastroAlterado(CadastroAlteradoEvent event) {
+        descartarObsoletos();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        descartarObsoletos();
+    }
+
+    public void descartarObsoletos() {
+        jobs.asMap().values().forEach(this::expirarSeObsoleto);
+    }
+
+    // ==================== EVENTOS ====================
+
+    private void notificar(Job job) {
+        job.emissores.forEach(emissor -> enviar(job, emissor));
+    }
+
+    private void enviar(Job job, SseEmitter emissor) {
+        try {
+            emissor.send(SseEmitter.event().name("status").data(converter(job)));
+            if (job.finalizado()) {
+                emissor.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado
+            job.emissores.remove(emissor);
+        }
+    }
+
+    private static RelatorioJobDTO converter(Job job) {
+        RelatorioJobDTO dto = new RelatorioJobDTO();
+        dto.setId(job.id);
+        dto.setTipo(job.tipo);
+        dto.setMes(job.mes);
+        dto.setAno(job.ano);
+        dto.setIncluirDetalhes(job.incluirDetalhes);
+        dto.setStatus(job.status);
+        dto.setMensagemErro(job.mensagemErro);
+        dto.setDataCriacao(job.dataCriacao);
+        dto.setDataConclusao(job.dataConclusao);
+        if (job.status == StatusJob.CONCLUIDO) {
+            dto.setNomeArquivo(nomeArquivo(job));
+            try {
+                dto.setTamanhoBytes(Files.size(job.arquivo));
+            } catch (IOException e) {
+                dto.setTamanhoBytes(null);
+            }
+        }
+        return dto;
+    }
+
+    /**
+     * Diz se o arquivo foi criado por este serviço: um temporário de geração ou o arquivo de um
+     * pedido. O diretório é configurável e pode ser compartilhado, então os demais são preservados.
+     */
+    private static boolean arquivoDoServico(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        for (TipoRelatorio tipo : TipoRelatorio.values()) {
+            if (nome.endsWith(tipo.getExtensao())) {
+                String base = nome.substring(0, nome.length() - tipo.getExtensao().length());
+                return base.startsWith(PREFIXO_TEMPORARIO) || NOME_ARQUIVO_PEDIDO.matcher(base).matches();
+            }
+        }
+        return false;
+    }
+
+    private static void apagar(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Não foi possível apagar o arquivo de relatório {}: {}", arquivo, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosNaTransacaoEvent;
+import com.marciliojr.pirangueiro.model.ResumoMensal;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.repository.ResumoMensalRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Serviço responsável pelos resumos mensais de despesas e receitas ({@link ResumoMensal}).
+ *
+ * <p>As escritas de lançamentos publicam a situação anterior e a nova de cada despesa ou receita
+ * ({@link LancamentosNaTransacaoEvent}). As variações são agrupadas por chave do resumo e aplicadas com
+ * UPDATE atômico na mesma transação da escrita; a linha é criada no primeiro lançamento da chave.
+ * As chaves são atualizadas sempre na mesma ordem para evitar deadlocks entre escritas concorrentes.</p>
+ *
+ * <p>A reconstrução recalcula todos os resumos a partir das tabelas de lançamentos. Ela roda na
+ * primeira subida da aplicação, após a restauração de backup e sob demanda pela administração.</p>
+ */
+@Service
+@Slf4j
+public class ResumoMensalService {
+
+    private static final String SQL_INCREMENTAR =
+            "UPDATE resumo_mensal SET total = total + ?, quantidade = quantidade + ? " +
+            "WHERE tipo = ? AND ano = ? AND mes = ? AND categoria_id = ? AND conta_id = ? AND cartao_id = ? AND pago = ?";
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO resumo_mensal (tipo, ano, mes, categoria_id, conta_id, cartao_id, pago, total, quantidade) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_RECONSTRUIR_DESPESAS =
+            "INSERT INTO resumo_mensal (tipo, ano, mes, categoria_id, conta_id, cartao_id, pago, total, quantidade) " +
+            "SELECT 'DESPESA', YEAR(data), MONTH(data), COALESCE(categoria_id, 0), COALESCE(conta_id, 0), " +
+            "COALESCE(cartao_id, 0), CASE WHEN pago IS NULL THEN -1 WHEN pago = TRUE THEN 1 ELSE 0 END, " +
+            "SUM(valor), COUNT(*) " +
+            "FROM despesa WHERE data IS NOT NULL AND valor IS NOT NULL " +
+            "GROUP BY YEAR(data), MONTH(data), COALESCE(categoria_id, 0), COALESCE(conta_id, 0), " +
+            "COALESCE(cartao_id, 0), CASE WHEN pago IS NULL THEN -1 WHEN pago = TRUE THEN 1 ELSE 0 END";
+
+    private static final String SQL_RECONSTRUIR_RECEITAS =
+            "INSERT INTO resumo_mensal (tipo, ano, mes, categoria_id, conta_id, cartao_id, pago, total, quantidade) " +
+            "SELECT 'RECEITA', YEAR(data), MONTH(data), COALESCE(categoria_id, 0), COALESCE(conta_id, 0), " +
+            "0, -1, SUM(valor), COUNT(*) " +
+            "FROM receita WHERE data IS NOT NULL AND valor IS NOT NULL " +
+            "GROUP BY YEAR(data), MONTH(data), COALESCE(categoria_id, 0), COALESCE(conta_id, 0)";
+
+    private static final Comparator<Chave> ORDEM_CHAVES = Comparator.comparingInt(Chave::ano)
+            .thenComparingInt(Chave::mes)
+            .thenComparingLong(Chave::categoriaId)
+            .thenComparingLong(Chave::contaId)
+            .thenComparingLong(Chave::cartaoId)
+            .thenComparingInt(Chave::pago);
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Transação própria: a reconstrução depois do commit não pode participar da transação já encerrada
+    private TransactionTemplate transacaoPropria;
+
+    @PostConstruct
+    void configurarTransacao() {
+        transacaoPropria = new TransactionTemplate(transactionManager);
+        transacaoPropria.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private record Chave(int ano, int mes, long categoriaId, long contaId, long cartaoId, int pago) {
+    }
+
+    /**
+     * Participa da transação da escrita dos lançamentos, depois das faturas.
+     */
+    @EventListener
+    @Order(2)
+    public void onLancamentosAlterados(LancamentosNaTransacaoEvent event) {
+        registrarAlteracao(event.getTipo(), event.getAnteriores(), event.getNovas());
+    }
+
+    /**
+     * Aplica aos resumos a troca da situação anterior dos lançamentos pela nova. Inclusões informam
+     * apenas a situação nova e exclusões apenas a anterior.
+     */
+    @Transactional
+    public void registrarAlteracao(TipoLancamento tipo, Collection<SituacaoLancamentoDTO> anteriores,
+                                   Collection<SituacaoLancamentoDTO> novas) {
+        Map<Chave, double[]> variacoes = new TreeMap<>(ORDEM_CHAVES);
+        acumular(tipo, anteriores, -1, variacoes);
+        acumular(tipo, novas, 1, variacoes);
+
+        variacoes.forEach((chave, variacao) -> {
+            if (Math.abs(variacao[0]) > 1e-9 || variacao[1] != 0) {
+                aplicar(tipo, chave, variacao[0], (long) variacao[1]);
+            }
+        });
+    }
+
+    private void acumular(TipoLancamento tipo, Collection<SituacaoLancamentoDTO> situacoes, int sinal,
+                          Map<Chave, double[]> variacoes) {
+        if (situacoes == null) {
+            return;
+        }
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao == null || situacao.data() == null || situacao.valor() == null) {
+                continue;
+            }
+            Chave chave = new Chave(
+                    situacao.data().getYear(),
+                    situacao.data().getMonthValue(),
+                    referencia(situacao.categoriaId()),
+                    referencia(situacao.contaId()),
+                    tipo == TipoLancamento.DESPESA ? referencia(situacao.cartaoId()) : ResumoMensal.SEM_REFERENCIA,
+                    tipo == TipoLancamento.DESPESA ? situacaoPagamento(situacao.pago()) : ResumoMensal.PAGO_NAO_INFORMADO);
+            double[] variacao = variacoes.computeIfAbsent(chave, c -> new double[2]);
+            variacao[0] += sinal * situacao.valor();
+            variacao[1] += sinal;
+        }
+    }
+
+    private void aplicar(TipoLancamento tipo, Chave chave, double total, long quantidade) {
+        if (incrementar(tipo, chave, total, quantidade) == 0) {
+            try {
+                jdbcTemplate.update(SQL_INSERIR, tipo.name(), chave.ano(), chave.mes(), chave.categoriaId(),
+                        chave.contaId(), chave.cartaoId(), chave.pago(), total, quantidade);
+            } catch (DuplicateKeyException e) {
+                // Criada por uma transação concorrente entre o UPDATE e o INSERT
+                incrementar(tipo, chave, total, quantidade);
+            }
+        }
+    }
+
+    private int incrementar(TipoLancamento tipo, Chave chave, double total, long quantidade) {
+        return jdbcTemplate.update(SQL_INCREMENTAR, total, quantidade, tipo.name(), chave.ano(), chave.mes(),
+                chave.categoriaId(), chave.contaId(), chave.cartaoId(), chave.pago());
+    }
+
+    private static long referencia(Long id) {
+        return id != null ? id : ResumoMensal.SEM_REFERENCIA;
+    }
+
+    private static int situacaoPagamento(Boolean pago) {
+        if (pago == null) {
+            return ResumoMensal.PAGO_NAO_INFORMADO;
+        }
+        return pago ? ResumoMensal.PAGO : ResumoMensal.NAO_PAGO;
+    }
+
+    /**
+     * Recalcula todos os resumos a partir das despesas e receitas.
+     * @return quantidade de linhas de resumo geradas
+     */
+    @Transactional
+    public int reconstruir() {
+        resumoMensalRepository.deleteAllInBatch();
+        int linhas = jdbcTemplate.update(SQL_RECONSTRUIR_DESPESAS);
+        linhas += jdbcTemplate.update(SQL_RECONSTRUIR_RECEITAS);
+        return linhas;
+    }
+
+    /**
+     * Gera os resumos de bases anteriores à manutenção incremental.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void inicializarResumos() {
+        try {
+            if (resumoMensalRepository.count() == 0) {
+                Integer linhas = transactionTemplate.execute(status -> reconstruir());
+                log.info("Resumos mensais gerados a partir dos lançamentos existentes: {}", linhas);
+            }
+        } catch (Exception e) {
+            log.error("Erro ao gerar resumos mensais: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A restauração de backup recria os lançamentos, então os resumos são reconstruídos depois do
+     * commit, em transação própria. Roda antes dos demais ouvintes da restauração para que os caches
+     * montados a partir dos resumos (cubo, previsão, saldos) sejam descartados só depois da reconstrução.
+     * Uma falha aqui não desfaz a restauração já concluída.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (!event.isSucesso()) {
+            return;
+        }
+        try {
+            Integer linhas = transacaoPropria.execute(status -> reconstruir());
+            log.info("Resumos mensais reconstruídos após restauração de backup: {}", linhas);
+        } catch (Exception e) {
+            log.error("Erro ao reconstruir resumos mensais após restauração de backup: {}", e.getMessage(), e);
+        }
+    }
+}
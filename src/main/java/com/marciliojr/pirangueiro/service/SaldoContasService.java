@@ -0,0 +1,182 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.marciliojr.pirangueiro.dto.SaldoContaDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import com.marciliojr.pirangueiro.model.Conta;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.repository.ResumoMensalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saldos de todas as contas de um período, calculados juntos a partir dos resumos mensais.
+ *
+ * <p>Uma única consulta agrupada por tipo e conta traz receitas, despesas e despesas de cartão
+ * não pagas; o total de cartão não pago não depende da conta e é somado uma vez. Os totais ficam
+ * em cache por período e servem tanto o relatório gerencial quanto o saldo de uma conta; os dados
+ * das contas vêm do cache de cadastros. Após o commit de uma escrita de lançamentos são descartados
+ * os períodos que incluem algum mês alterado; a restauração de backup descarta tudo.</p>
+ */
+@Service
+public class SaldoContasService {
+
+    private static final long TAMANHO_MAXIMO = 200;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    private final Cache<Periodo, Totais> cache = Caffeine.newBuilder()
+            .maximumSize(TAMANHO_MAXIMO)
+            .build();
+
+    // Incrementada a cada descarte
+    private final AtomicLong geracao = new AtomicLong();
+
+    /**
+     * Filtro dos resumos: mês e ano só filtram juntos, nulos consideram todo o histórico.
+     */
+    private record Periodo(Integer ano, Integer mes) {
+
+        static Periodo de(Integer mes, Integer ano) {
+            return mes != null && ano != null ? new Periodo(ano, mes) : new Periodo(null, null);
+        }
+
+        boolean inclui(YearMonth mesAlterado) {
+            return ano == null || (ano == mesAlterado.getYear() && mes == mesAlterado.getMonthValue());
+        }
+    }
+
+    /**
+     * Totais do período por conta. O total de despesas de cartão não pagas é o mesmo para todas.
+     */
+    private record Totais(Map<Long, Double> receitas, Map<Long, Double> despesas, double despesasCartaoNaoPagas) {
+    }
+
+    /**
+     * Saldos de todas as contas, na ordem da listagem de contas.
+     */
+    public List<SaldoContaDTO> listarSaldos(Integer mes, Integer ano) {
+        Totais totais = totais(mes, ano);
+        return dadosReferenciaService.listarContas().stream()
+                .map(conta -> montar(conta, totais, mes, ano))
+                .toList();
+    }
+
+    public SaldoContaDTO buscarSaldo(Long contaId, Integer mes, Integer ano) {
+        Conta conta = dadosReferenciaService.buscarConta(contaId)
+                .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
+        return montar(conta, totais(mes, ano), mes, ano);
+    }
+
+    private Totais totais(Integer mes, Integer ano) {
+        Periodo periodo = Periodo.de(mes, ano);
+        Totais totais = cache.getIfPresent(periodo);
+        if (totais != null) {
+            return totais;
+        }
+
+        long geracaoInicial = geracao.get();
+        totais = calcular(periodo);
+        if (geracao.get() == geracaoInicial) {
+            cache.put(periodo, totais);
+        }
+        return totais;
+    }
+
+    private Totais calcular(Periodo periodo) {
+        Map<Long, Double> receitas = new HashMap<>();
+        Map<Long, Double> despesas = new HashMap<>();
+        double despesasCartaoNaoPagas = 0.0;
+
+        for (Object[] linha : resumoMensalRepository.somarPorTipoEConta(periodo.ano(), periodo.mes())) {
+            TipoLancamento tipo = (TipoLancamento) linha[0];
+            Long contaId = (Long) linha[1];
+            double total = ((Number) linha[2]).doubleValue();
+            if (tipo == TipoLancamento.RECEITA) {
+                receitas.merge(contaId, total, Double::sum);
+            } else {
+                despesas.merge(contaId, total, Double::sum);
+                despesasCartaoNaoPagas += ((Number) linha[3]).doubleValue();
+            }
+        }
+        return new Totais(Map.copyOf(receitas), Map.copyOf(despesas), despesasCartaoNaoPagas);
+    }
+
+    private static SaldoContaDTO montar(Conta conta, Totais totais, Integer mes, Integer ano) {
+        Double totalReceitas = totais.receitas().getOrDefault(conta.getId(), 0.0);
+        Double totalDespesas = totais.despesas().getOrDefault(conta.getId(), 0.0);
+        Double totalDespesasCartao = totais.despesasCartaoNaoPagas();
+
+        // Somar despesas diretas da conta + despesas de cartão não pagas
+        Double totalDespesasCompleto = totalDespesas + totalDespesasCartao;
+
+        SaldoContaDTO saldo = new SaldoContaDTO();
+        saldo.setContaId(conta.getId());
+        saldo.setNomeConta(conta.getNome());
+        saldo.setTotalReceitas(totalReceitas);
+        saldo.setTotalDespesas(totalDespesasCompleto);
+        saldo.setTotalDespesasConta(totalDespesas);
+        saldo.setTotalDespesasCartao(totalDespesasCartao);
+        saldo.setSaldo(totalReceitas - totalDespesasCompleto);
+        saldo.setMes(mes);
+        saldo.setAno(ano);
+        return saldo;
+    }
+
+    // ==================== INVALIDAÇÃO ====================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosAlterados(LancamentosAlteradosEvent event) {
+        Set<YearMonth> meses = new HashSet<>();
+        adicionarMeses(event.getAnteriores(), meses);
+        adicionarMeses(event.getNovas(), meses);
+        descartar(meses);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        descartar(event.getMeses());
+    }
+
+    private void descartar(Set<YearMonth> meses) {
+        geracao.incrementAndGet();
+        cache.asMap().keySet().removeIf(periodo -> meses.stream().anyMatch(periodo::inclui));
+    }
+
+    private static void adicionarMeses(Collection<SituacaoLancamentoDTO> situacoes, Set<YearMonth> meses) {
+        if (situacoes == null) {
+            return;
+        }
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao != null && situacao.data() != null) {
+                meses.add(YearMonth.from(situacao.data()));
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidarTudo();
+        }
+    }
+
+    public void invalidarTudo() {
+        geracao.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,163 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marciliojr.pirangueiro.dto.RelatorioGerencialDTO;
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent.TipoCadastro;
+import com.marciliojr.pirangueiro.event.LancamentosNaTransacaoEvent;
+import com.marciliojr.pirangueiro.model.SnapshotRelatorio;
+import com.marciliojr.pirangueiro.repository.SnapshotRelatorioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Snapshots do relatório gerencial dos meses encerrados.
+ *
+ * <p>O relatório de um mês anterior ao atual é servido do snapshot enquanto nenhum lançamento do
+ * mês for alterado. As escritas de lançamentos marcam os meses afetados como sujos na própria
+ * transação, depois dos resumos mensais; alterações de categorias e contas (nomes e cores aparecem
+ * no relatório) e a restauração de backup marcam todos. Um mês sujo é recalculado na próxima
+ * consulta.</p>
+ */
+@Service
+@Slf4j
+public class SnapshotRelatorioService {
+
+    @Autowired
+    private SnapshotRelatorioRepository snapshotRelatorioRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Apenas meses anteriores ao atual têm snapshot.
+     */
+    public boolean periodoFechado(Integer mes, Integer ano) {
+        return mes != null && ano != null && YearMonth.of(ano, mes).isBefore(YearMonth.now());
+    }
+
+    /**
+     * Devolve o relatório guardado do mês ou o calcula e guarda. Relatórios com seções
+     * indisponíveis não são guardados.
+     */
+    public RelatorioGerencialDTO obter(int mes, int ano, Supplier<RelatorioGerencialDTO> calcular) {
+        SnapshotRelatorio snapshot = buscarOuCriar(mes, ano);
+        if (!snapshot.getSujo()) {
+            RelatorioGerencialDTO guardado = ler(snapshot);
+            if (guardado != null) {
+                return guardado;
+            }
+        }
+
+        RelatorioGerencialDTO relatorio = calcular.get();
+        if (relatorio.getSecoesIndisponiveis() == null || relatorio.getSecoesIndisponiveis().isEmpty()) {
+            gravar(snapshot, relatorio);
+        }
+        return relatorio;
+    }
+
+    // O registro existe antes do cálculo para que as escritas concorrentes o marquem como sujo
+    private SnapshotRelatorio buscarOuCriar(int mes, int ano) {
+        return snapshotRelatorioRepository.findByAnoAndMes(ano, mes).orElseGet(() -> {
+            SnapshotRelatorio novo = new SnapshotRelatorio();
+            novo.setAno(ano);
+            novo.setMes(mes);
+            try {
+                return snapshotRelatorioRepository.save(novo);
+            } catch (DataIntegrityViolationException e) {
+                // Criado por outra requisição ao mesmo tempo
+                return snapshotRelatorioRepository.findByAnoAndMes(ano, mes).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    private RelatorioGerencialDTO ler(SnapshotRelatorio snapshot) {
+        try {
+            return objectMapper.readValue(snapshot.getConteudo(), RelatorioGerencialDTO.class);
+        } catch (Exception e) {
+            log.warn("Snapshot do relatório de {}/{} ilegível, recalculando: {}",
+                    snapshot.getMes(), snapshot.getAno(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void gravar(SnapshotRelatorio snapshot, RelatorioGerencialDTO relatorio) {
+        try {
+            String conteudo = objectMapper.writeValueAsString(relatorio);
+            Integer gravados = transactionTemplate.execute(status -> snapshotRelatorioRepository.gravar(
+                    snapshot.getId(), conteudo, LocalDateTime.now(), snapshot.getAlteracoes()));
+            if (gravados == null || gravados == 0) {
+                log.debug("Snapshot do relatório de {}/{} alterado durante o cálculo, não gravado",
+                        snapshot.getMes(), snapshot.getAno());
+            }
+        } catch (Exception e) {
+            log.error("Erro ao gravar snapshot do relatório de {}/{}: {}",
+                    snapshot.getMes(), snapshot.getAno(), e.getMessage());
+        }
+    }
+
+    // ==================== INVALIDAÇÃO ====================
+
+    /**
+     * Participa da transação da escrita dos lançamentos, depois dos resumos mensais.
+     */
+    @EventListener
+    @Order(3)
+    @Transactional
+    public void onLancamentosAlterados(LancamentosNaTransacaoEvent event) {
+        Set<YearMonth> meses = new TreeSet<>();
+        adicionarMeses(event.getAnteriores(), meses);
+        adicionarMeses(event.getNovas(), meses);
+        meses.forEach(mes -> snapshotRelatorioRepository.marcarSujo(mes.getYear(), mes.getMonthValue()));
+    }
+
+    private static void adicionarMeses(Collection<SituacaoLancamentoDTO> situacoes, Set<YearMonth> meses) {
+        if (situacoes == null) {
+            return;
+        }
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao != null && situacao.data() != null) {
+                meses.add(YearMonth.from(situacao.data()));
+            }
+        }
+    }
+
+    @EventListener
+    @Transactional
+    public void onCadastroAlterado(CadastroAlteradoEvent event) {
+        if (event.getTipoCadastro() != TipoCadastro.CARTAO) {
+            invalidarTodos();
+        }
+    }
+
+    @EventListener
+    @Transactional
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidarTodos();
+        }
+    }
+
+    @Transactional
+    public int invalidarTodos() {
+        return snapshotRelatorioRepository.marcarTodosSujos();
+    }
+}
@@ -0,0 +1,47 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.CartaoLimiteDTO;
+import com.marciliojr.pirangueiro.model.Cartao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Consulta da utilização do limite dos cartões: limite, usado, disponível e percentual.
+ *
+ * <p>O limite usado é mantido na própria linha do cartão ({@link LimiteCartaoService}), então a
+ * utilização de todos os cartões sai da listagem de cartões, sem somar despesas por cartão.</p>
+ */
+@Service
+public class UtilizacaoCartaoService {
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    public List<CartaoLimiteDTO> listarUtilizacoes() {
+        return dadosReferenciaService.listarCartoes().stream()
+                .map(UtilizacaoCartaoService::calcular)
+                .toList();
+    }
+
+    public CartaoLimiteDTO buscarUtilizacao(Long cartaoId) {
+        return dadosReferenciaService.buscarCartao(cartaoId)
+                .map(UtilizacaoCartaoService::calcular)
+                .orElseThrow(() -> new RuntimeException("Cartão não encontrado"));
+    }
+
+    private static CartaoLimiteDTO calcular(Cartao cartao) {
+        double limite = cartao.getLimite() != null ? cartao.getLimite() : 0.0;
+        double limiteUsado = cartao.getLimiteUsado() != null ? cartao.getLimiteUsado() : 0.0;
+
+        CartaoLimiteDTO dto = new CartaoLimiteDTO();
+        dto.setCartaoId(cartao.getId());
+        dto.setNomeCartao(cartao.getNome());
+        dto.setLimiteTotal(limite);
+        dto.setLimiteUsado(limiteUsado);
+        dto.setLimiteDisponivel(limite - limiteUsado);
+        dto.setPercentualUtilizado(limite > 0 ? limiteUsado / limite * 100 : 0.0);
+        return dto;
+    }
+}
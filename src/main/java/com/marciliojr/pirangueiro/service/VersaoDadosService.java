@@ -0,0 +1,150 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.SituacaoLancamentoDTO;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.event.CadastroAlteradoEvent;
+import com.marciliojr.pirangueiro.event.LancamentosAlteradosEvent;
+import com.marciliojr.pirangueiro.event.LancamentosImportadosEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versões dos dados por período, para identificar resultados calculados com dados já alterados.
+ *
+ * <p>Após o commit de uma escrita de lançamentos mudam as versões de cada mês alterado, do ano
+ * desse mês e de todo o histórico. Alterações de cadastros (nomes e cores aparecem nos relatórios)
+ * e a restauração de backup mudam todas as versões. As versões ficam em memória e recomeçam quando
+ * a aplicação reinicia.</p>
+ *
+ * <p>As versões mudam antes dos demais ouvintes do commit, que podem então compará-las. A versão
+ * de todo o histórico também forma o ETag das consultas de leitura.</p>
+ *
+ * <p>As escritas de lançamentos também são numeradas imediatamente antes do commit
+ * ({@link #confirmacoes()}). Estruturas em memória carregadas do banco e atualizadas após o commit
+ * guardam esse número ao fim da carga: uma alteração numerada depois disso não estava nos dados
+ * lidos e pode ser aplicada; uma numerada antes pode já estar neles
+ * ({@link #podeEstarNaCarga}), e aplicá-la de novo a contaria duas vezes.</p>
+ */
+@Service
+public class VersaoDadosService {
+
+    // Muda com cadastros e backup, compõe todas as versões
+    private final AtomicLong base = new AtomicLong();
+
+    private final AtomicLong historico = new AtomicLong();
+    private final Map<Integer, AtomicLong> anos = new ConcurrentHashMap<>();
+    private final Map<YearMonth, AtomicLong> meses = new ConcurrentHashMap<>();
+
+    private final AtomicLong confirmacoes = new AtomicLong();
+
+    /**
+     * Versão dos dados do período. Mês e ano juntos indicam um mês, apenas o ano indica o ano
+     * inteiro e nulos indicam todo o histórico.
+     */
+    public String versao(Integer mes, Integer ano) {
+        long periodo;
+        if (mes != null && ano != null) {
+            periodo = contador(meses, YearMonth.of(ano, mes));
+        } else if (ano != null) {
+            periodo = contador(anos, ano);
+        } else {
+            periodo = historico.get();
+        }
+        return base.get() + "." + periodo;
+    }
+
+    /**
+     * Número da última escrita de lançamentos que chegou ao commit. Lido ao fim de uma carga,
+     * delimita as alterações que podem estar nos dados carregados.
+     */
+    public long confirmacoes() {
+        return confirmacoes.get();
+    }
+
+    /**
+     * Indica se a alteração pode já estar nos dados de uma carga que terminou com
+     * {@code confirmacoesNaCarga}. Nesse caso a estrutura deve ser recarregada em vez de somar
+     * a alteração.
+     */
+    public boolean podeEstarNaCarga(LancamentosAlteradosEvent event, long confirmacoesNaCarga) {
+        return event.getConfirmacao() == 0 || event.getConfirmacao() <= confirmacoesNaCarga;
+    }
+
+    private static <K> long contador(Map<K, AtomicLong> contadores, K chave) {
+        AtomicLong contador = contadores.get(chave);
+        return contador != null ? contador.get() : 0L;
+    }
+
+    // Antes do commit: a alteração só fica visível no banco depois de numerada
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void numerarConfirmacao(LancamentosAlteradosEvent event) {
+        event.setConfirmacao(confirmacoes.incrementAndGet());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onLancamentosAlterados(LancamentosAlteradosEvent event) {
+        Set<YearMonth> alterados = new HashSet<>();
+        adicionarMeses(event.getAnteriores(), alterados);
+        adicionarMeses(event.getNovas(), alterados);
+        registrarAlteracao(alterados);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onLancamentosImportados(LancamentosImportadosEvent event) {
+        registrarAlteracao(event.getMeses());
+    }
+
+    private void registrarAlteracao(Set<YearMonth> alterados) {
+        Set<Integer> anosAlterados = new HashSet<>();
+        for (YearMonth mes : alterados) {
+            meses.computeIfAbsent(mes, chave -> new AtomicLong()).incrementAndGet();
+            anosAlterados.add(mes.getYear());
+        }
+        anosAlterados.forEach(ano -> anos.computeIfAbsent(ano, chave -> new AtomicLong()).incrementAndGet());
+        historico.incrementAndGet();
+    }
+
+    private static void adicionarMeses(Collection<SituacaoLancamentoDTO> situacoes, Set<YearMonth> meses) {
+        if (situacoes == null) {
+            return;
+        }
+        for (SituacaoLancamentoDTO situacao : situacoes) {
+            if (situacao != null && situacao.data() != null) {
+                meses.add(YearMonth.from(situacao.data()));
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCadastroAlterado(CadastroAlteradoEvent event) {
+        invalidarTudo();
+    }
+
+    // Logo depois da reconstrução dos resumos mensais, que roda primeiro
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onBackupImportFinalizado(BackupImportFinalizadoEvent event) {
+        if (event.isSucesso()) {
+            invalidarTudo();
+        }
+    }
+
+    public void invalidarTudo() {
+        base.incrementAndGet();
+    }
+}
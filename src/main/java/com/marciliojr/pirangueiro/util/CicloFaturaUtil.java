@@ -0,0 +1,50 @@
+package com.marciliojr.pirangueiro.util;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Utilitário para o cálculo dos ciclos de fatura de cartão de crédito.
+ *
+ * <p>A fatura de referência (mês/ano) é a que fecha naquele mês. O período vai do dia seguinte
+ * ao fechamento anterior até o dia de fechamento, inclusive. Dias de fechamento e vencimento
+ * maiores que o tamanho do mês (ex: 31 em fevereiro) são ajustados para o último dia do mês.</p>
+ */
+public final class CicloFaturaUtil {
+
+    private static final int DIA_PADRAO = 31;
+
+    private CicloFaturaUtil() {
+    }
+
+    /**
+     * Mês de referência da fatura em que uma compra feita em {@code data} é lançada.
+     */
+    public static YearMonth referenciaDaData(LocalDate data, Integer diaFechamento) {
+        YearMonth mes = YearMonth.from(data);
+        return data.isAfter(dataFechamento(mes, diaFechamento)) ? mes.plusMonths(1) : mes;
+    }
+
+    public static LocalDate dataFechamento(YearMonth referencia, Integer diaFechamento) {
+        return diaNoMes(referencia, diaFechamento);
+    }
+
+    public static LocalDate dataInicio(YearMonth referencia, Integer diaFechamento) {
+        return dataFechamento(referencia.minusMonths(1), diaFechamento).plusDays(1);
+    }
+
+    /**
+     * O vencimento cai no mesmo mês do fechamento quando o dia de vencimento é posterior
+     * ao de fechamento; caso contrário, no mês seguinte.
+     */
+    public static LocalDate dataVencimento(YearMonth referencia, Integer diaFechamento, Integer diaVencimento) {
+        LocalDate fechamento = dataFechamento(referencia, diaFechamento);
+        LocalDate vencimento = diaNoMes(referencia, diaVencimento);
+        return vencimento.isAfter(fechamento) ? vencimento : diaNoMes(referencia.plusMonths(1), diaVencimento);
+    }
+
+    private static LocalDate diaNoMes(YearMonth mes, Integer dia) {
+        int diaEfetivo = dia != null && dia > 0 ? dia : DIA_PADRAO;
+        return mes.atDay(Math.min(diaEfetivo, mes.lengthOfMonth()));
+    }
+}
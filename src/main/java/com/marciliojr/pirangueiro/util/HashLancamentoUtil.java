@@ -0,0 +1,61 @@
+package com.marciliojr.pirangueiro.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Utilitário para calcular o hash de deduplicação de lançamentos (despesas e receitas).
+ *
+ * <p>O hash é calculado a partir de (data, valor, descrição) normalizados, de forma que
+ * o mesmo lançamento importado duas vezes, ou cadastrado manualmente e depois importado
+ * pelo extrato, gere sempre o mesmo valor.</p>
+ */
+public final class HashLancamentoUtil {
+
+    private HashLancamentoUtil() {
+    }
+
+    /**
+     * Calcula o hash da primeira ocorrência de um lançamento.
+     */
+    public static String calcular(LocalDate data, Double valor, String descricao) {
+        return calcular(data, valor, descricao, 1);
+    }
+
+    /**
+     * Calcula o hash da n-ésima ocorrência de um lançamento idêntico no mesmo extrato.
+     * A primeira ocorrência não recebe sufixo, mantendo compatibilidade com lançamentos manuais.
+     */
+    public static String calcular(LocalDate data, Double valor, String descricao, int ocorrencia) {
+        StringBuilder chave = new StringBuilder();
+        chave.append(data != null ? data.toString() : "");
+        chave.append('|');
+        chave.append(valor != null ? String.format(Locale.ROOT, "%.2f", Math.abs(valor)) : "");
+        chave.append('|');
+        chave.append(normalizarDescricao(descricao));
+        if (ocorrencia > 1) {
+            chave.append("|#").append(ocorrencia);
+        }
+        return sha256(chave.toString());
+    }
+
+    private static String normalizarDescricao(String descricao) {
+        if (descricao == null) {
+            return "";
+        }
+        return descricao.replaceAll("\\s+", " ").trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String sha256(String texto) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algoritmo SHA-256 indisponível", e);
+        }
+    }
+}
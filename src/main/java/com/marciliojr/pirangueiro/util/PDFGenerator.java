@@ -4,188 +4,136 @@ import com.lowagie.text.*;
 import com.lowagie.text.pdf.*;
 import com.marciliojr.pirangueiro.dto.ReceitaDTO;
 import com.marciliojr.pirangueiro.dto.DespesaDTO;
-import com.marciliojr.pirangueiro.dto.LimiteGastosDTO;
 import org.springframework.stereotype.Component;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-
+import java.util.function.Function;
+
+/**
+ * Gera os relatórios de lançamentos em PDF.
+ *
+ * <p>As tabelas são escritas em blocos: a cada {@link #LINHAS_POR_BLOCO} linhas a parte pronta é
+ * enviada ao documento e descartada da memória, e o cabeçalho se repete em cada página. Com uma
+ * fonte de linhas lida por cursor, o consumo de memória não cresce com a quantidade de lançamentos.</p>
+ */
 @Component
 public class PDFGenerator {
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
-    public byte[] gerarPDFReceitas(List<ReceitaDTO> receitas, String titulo) throws DocumentException {
-        Document document = new Document(PageSize.A4);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-        try {
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            adicionarTitulo(document, titulo);
-            adicionarCabecalhoReceitas(document);
-            adicionarConteudoReceitas(document, receitas);
-            adicionarRodape(document);
-
-        } finally {
-            document.close();
-        }
-
-        return out.toByteArray();
+    private static final int LINHAS_POR_BLOCO = 200;
+
+    private static final Font FONTE_TITULO = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    private static final Font FONTE_CABECALHO = FontFactory.getFont(FontFactory.HELVETICA_BOLD);
+    private static final Font FONTE_CONTEUDO = FontFactory.getFont(FontFactory.HELVETICA);
+    private static final Font FONTE_RODAPE = FontFactory.getFont(FontFactory.HELVETICA, 10);
+
+    private static final String[] CABECALHO_RECEITAS = {"ID", "Descrição", "Valor", "Data", "Categoria"};
+    private static final float[] LARGURAS_RECEITAS = {1, 3, 2, 2, 2};
+
+    private static final String[] CABECALHO_DESPESAS = {"ID", "Descrição", "Valor", "Data", "Categoria", "Cartão"};
+    private static final float[] LARGURAS_DESPESAS = {1, 3, 2, 2, 2, 2};
+
+    /**
+     * Escreve o PDF das receitas na saída informada, que não é fechada.
+     */
+    public void escreverPDFReceitas(Iterable<ReceitaDTO> receitas, String titulo, OutputStream out)
+            throws DocumentException {
+        escreverPDF(out, titulo, CABECALHO_RECEITAS, LARGURAS_RECEITAS, receitas, receita -> new String[]{
+                texto(receita.getId()),
+                receita.getDescricao(),
+                valor(receita.getValor()),
+                receita.getData() != null ? receita.getData().format(formatter) : "-",
+                receita.getCategoria() != null ? receita.getCategoria().getNome() : "-"
+        });
     }
 
-    public byte[] gerarPDFDespesas(List<DespesaDTO> despesas, String titulo) throws DocumentException {
-        Document document = new Document(PageSize.A4);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-        try {
-            PdfWriter.getInstance(document, out);
-            document.open();
-
-            adicionarTitulo(document, titulo);
-            adicionarCabecalhoDespesas(document);
-            adicionarConteudoDespesas(document, despesas);
-            adicionarRodape(document);
-
-        } finally {
-            document.close();
-        }
-
-        return out.toByteArray();
+    /**
+     * Escreve o PDF das despesas na saída informada, que não é fechada.
+     */
+    public void escreverPDFDespesas(Iterable<DespesaDTO> despesas, String titulo, OutputStream out)
+            throws DocumentException {
+        escreverPDF(out, titulo, CABECALHO_DESPESAS, LARGURAS_DESPESAS, despesas, despesa -> new String[]{
+                texto(despesa.getId()),
+                despesa.getDescricao(),
+                valor(despesa.getValor()),
+                despesa.getData() != null ? despesa.getData().format(formatter) : "-",
+                despesa.getCategoria() != null ? despesa.getCategoria().getNome() : "-",
+                despesa.getCartao() != null ? despesa.getCartao().getNome() : "-"
+        });
     }
 
-    public byte[] gerarPDFLimitesGastos(List<LimiteGastosDTO> limites, String titulo) throws DocumentException {
+    private <T> void escreverPDF(OutputStream out, String titulo, String[] cabecalho, float[] larguras,
+                                 Iterable<T> linhas, Function<T, String[]> colunas) throws DocumentException {
         Document document = new Document(PageSize.A4);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
 
         try {
-            PdfWriter.getInstance(document, out);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
             document.open();
 
             adicionarTitulo(document, titulo);
-            adicionarCabecalhoLimites(document);
-            adicionarConteudoLimites(document, limites);
+            adicionarTabela(document, cabecalho, larguras, linhas, colunas);
             adicionarRodape(document);
 
         } finally {
             document.close();
         }
-
-        return out.toByteArray();
     }
 
     private void adicionarTitulo(Document document, String titulo) throws DocumentException {
-        Font font = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-        Paragraph paragraph = new Paragraph(titulo, font);
+        Paragraph paragraph = new Paragraph(titulo, FONTE_TITULO);
         paragraph.setAlignment(Element.ALIGN_CENTER);
         paragraph.setSpacingAfter(20);
         document.add(paragraph);
     }
 
-    private void adicionarCabecalhoReceitas(Document document) throws DocumentException {
-        PdfPTable table = new PdfPTable(5);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{1, 3, 2, 2, 2});
-
-        adicionarCelula(table, "ID", true);
-        adicionarCelula(table, "Descrição", true);
-        adicionarCelula(table, "Valor", true);
-        adicionarCelula(table, "Data", true);
-        adicionarCelula(table, "Categoria", true);
-
-        document.add(table);
-    }
-
-    private void adicionarConteudoReceitas(Document document, List<ReceitaDTO> receitas) throws DocumentException {
-        PdfPTable table = new PdfPTable(5);
+    private <T> void adicionarTabela(Document document, String[] cabecalho, float[] larguras, Iterable<T> linhas,
+                                     Function<T, String[]> colunas) throws DocumentException {
+        PdfPTable table = new PdfPTable(larguras.length);
         table.setWidthPercentage(100);
-        table.setWidths(new float[]{1, 3, 2, 2, 2});
-
-        for (ReceitaDTO receita : receitas) {
-            adicionarCelula(table, receita.getId().toString(), false);
-            adicionarCelula(table, receita.getDescricao(), false);
-            adicionarCelula(table, String.format("R$ %.2f", receita.getValor()), false);
-            adicionarCelula(table, receita.getData().format(formatter), false);
-            adicionarCelula(table, receita.getCategoria().getNome(), false);
-        }
+        table.setWidths(larguras);
+        // Cabeçalho repetido em cada página; as linhas já enviadas ao documento saem da tabela
+        table.setHeaderRows(1);
+        table.setComplete(false);
 
-        document.add(table);
-    }
-
-    private void adicionarCabecalhoDespesas(Document document) throws DocumentException {
-        PdfPTable table = new PdfPTable(6);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{1, 3, 2, 2, 2, 2});
-
-        adicionarCelula(table, "ID", true);
-        adicionarCelula(table, "Descrição", true);
-        adicionarCelula(table, "Valor", true);
-        adicionarCelula(table, "Data", true);
-        adicionarCelula(table, "Categoria", true);
-        adicionarCelula(table, "Cartão", true);
-
-        document.add(table);
-    }
-
-    private void adicionarConteudoDespesas(Document document, List<DespesaDTO> despesas) throws DocumentException {
-        PdfPTable table = new PdfPTable(6);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{1, 3, 2, 2, 2, 2});
-
-        for (DespesaDTO despesa : despesas) {
-            adicionarCelula(table, despesa.getId().toString(), false);
-            adicionarCelula(table, despesa.getDescricao(), false);
-            adicionarCelula(table, String.format("R$ %.2f", despesa.getValor()), false);
-            adicionarCelula(table, despesa.getData().format(formatter), false);
-            adicionarCelula(table, despesa.getCategoria().getNome(), false);
-            adicionarCelula(table, despesa.getCartao() != null ? despesa.getCartao().getNome() : "-", false);
+        for (String titulo : cabecalho) {
+            adicionarCelula(table, titulo, true);
         }
 
-        document.add(table);
-    }
-
-    private void adicionarCabecalhoLimites(Document document) throws DocumentException {
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{1, 3, 2, 2});
-
-        adicionarCelula(table, "ID", true);
-        adicionarCelula(table, "Descrição", true);
-        adicionarCelula(table, "Valor", true);
-        adicionarCelula(table, "Data", true);
-
-        document.add(table);
-    }
-
-    private void adicionarConteudoLimites(Document document, List<LimiteGastosDTO> limites) throws DocumentException {
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{1, 3, 2, 2});
-
-        for (LimiteGastosDTO limite : limites) {
-            adicionarCelula(table, limite.getId().toString(), false);
-            adicionarCelula(table, limite.getDescricao(), false);
-            adicionarCelula(table, String.format("R$ %.2f", limite.getValor()), false);
-            adicionarCelula(table, limite.getData().format(formatter), false);
+        int adicionadas = 0;
+        for (T linha : linhas) {
+            for (String coluna : colunas.apply(linha)) {
+                adicionarCelula(table, coluna, false);
+            }
+            if (++adicionadas % LINHAS_POR_BLOCO == 0) {
+                document.add(table);
+            }
         }
 
+        table.setComplete(true);
         document.add(table);
     }
 
     private void adicionarCelula(PdfPTable table, String texto, boolean negrito) {
-        Font font = negrito ? FontFactory.getFont(FontFactory.HELVETICA_BOLD) : FontFactory.getFont(FontFactory.HELVETICA);
-        PdfPCell cell = new PdfPCell(new Phrase(texto, font));
+        PdfPCell cell = new PdfPCell(new Phrase(texto != null ? texto : "", negrito ? FONTE_CABECALHO : FONTE_CONTEUDO));
         cell.setHorizontalAlignment(Element.ALIGN_CENTER);
         cell.setPadding(5);
         table.addCell(cell);
     }
 
     private void adicionarRodape(Document document) throws DocumentException {
-        Font font = FontFactory.getFont(FontFactory.HELVETICA, 10);
-        Paragraph paragraph = new Paragraph("Relatório gerado em " + java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")), font);
+        Paragraph paragraph = new Paragraph("Relatório gerado em " + java.time.LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")), FONTE_RODAPE);
         paragraph.setAlignment(Element.ALIGN_CENTER);
         paragraph.setSpacingBefore(20);
         document.add(paragraph);
     }
-} 
\ No newline at end of file
+
+    private static String texto(Long id) {
+        return id != null ? id.toString() : "-";
+    }
+
+    private static String valor(Double valor) {
+        return valor != null ? String.format("R$ %.2f", valor) : "-";
+    }
+}
@@ -0,0 +1,347 @@
+package com.marciliojr.pirangueiro.util;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Gera planilhas CSV e XLSX linha a linha, sem manter as linhas em memória.
+ *
+ * <p>O XLSX é escrito direto no formato SpreadsheetML: cada aba é uma entrada do zip gravada
+ * enquanto as linhas chegam, com os textos na própria célula (sem tabela de strings
+ * compartilhadas). Quando uma aba atinge o limite de linhas do Excel, as linhas seguintes
+ * continuam em uma nova aba. Os arquivos que descrevem a pasta de trabalho vêm depois das abas,
+ * quando a quantidade delas já é conhecida.</p>
+ *
+ * <p>O CSV segue o padrão do Excel em português: separador ";", vírgula decimal e BOM UTF-8.
+ * Textos que o Excel leria como fórmula recebem um apóstrofo no início (injeção de CSV); números
+ * negativos continuam números.</p>
+ */
+@Component
+public class PlanilhaGenerator {
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_DATA_HORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private static final char SEPARADOR_CSV = ';';
+
+    // Primeiros caracteres que fazem o Excel e o LibreOffice interpretarem um campo CSV como fórmula
+    private static final String INICIO_FORMULA = "=+-@\t\r";
+
+    // Linhas escritas entre cada envio ao cliente
+    private static final int LINHAS_POR_ENVIO = 500;
+
+    private static final int MAXIMO_LINHAS_ABA = 1_048_576;
+
+    // Datas do Excel são dias desde 30/12/1899
+    private static final LocalDate EPOCA_EXCEL = LocalDate.of(1899, 12, 30);
+
+    // Índices de cellXfs em xl/styles.xml
+    private static final int ESTILO_DATA = 1;
+    private static final int ESTILO_DATA_HORA = 2;
+    private static final int ESTILO_DECIMAL = 3;
+
+    private static final String CABECALHO_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String NS_PLANILHA = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_RELACOES = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    public enum Formato {
+        CSV("text/csv", ".csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ".xlsx");
+
+        private final String tipoConteudo;
+        private final String extensao;
+
+        Formato(String tipoConteudo, String extensao) {
+            this.tipoConteudo = tipoConteudo;
+            this.extensao = extensao;
+        }
+
+        public String getTipoConteudo() {
+            return tipoConteudo;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+    }
+
+    /**
+     * Coluna da planilha. O valor pode ser texto, número, data, data e hora ou booleano.
+     */
+    public record Coluna<T>(String titulo, Function<T, ?> valor) {
+    }
+
+    /**
+     * Escreve a planilha no formato informado. A saída não é fechada.
+     */
+    public <T> void escrever(Formato formato, String nomeAba, List<Coluna<T>> colunas, Iterable<T> linhas,
+                             OutputStream out) throws IOException {
+        if (formato == Formato.XLSX) {
+            escreverXLSX(nomeAba, colunas, linhas, out);
+        } else {
+            escreverCSV(colunas, linhas, out);
+        }
+    }
+
+    // ==================== CSV ====================
+
+    public <T> void escreverCSV(List<Coluna<T>> colunas, Iterable<T> linhas, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        escreverLinhaCSV(writer, colunas.stream().map(Coluna::titulo).toList());
+
+        int escritas = 0;
+        for (T linha : linhas) {
+            escreverLinhaCSV(writer, colunas.stream().map(coluna -> coluna.valor().apply(linha)).toList());
+            if (++escritas % LINHAS_POR_ENVIO == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private void escreverLinhaCSV(Writer writer, List<?> valores) throws IOException {
+        for (int i = 0; i < valores.size(); i++) {
+            if (i > 0) {
+                writer.write(SEPARADOR_CSV);
+            }
+            writer.write(campoCSV(valores.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String campoCSV(Object valor) {
+        String texto;
+        if (valor == null) {
+            return "";
+        } else if (valor instanceof Double || valor instanceof Float || valor instanceof BigDecimal) {
+            texto = decimal((Number) valor).replace('.', ',');
+        } else if (valor instanceof LocalDateTime dataHora) {
+            texto = dataHora.format(FORMATO_DATA_HORA);
+        } else if (valor instanceof LocalDate data) {
+            texto = data.format(FORMATO_DATA);
+        } else if (valor instanceof Boolean booleano) {
+            texto = booleano ? "Sim" : "Não";
+        } else if (valor instanceof Number numero) {
+            texto = numero.toString();
+        } else {
+            texto = valor.toString();
+            if (!texto.isEmpty() && INICIO_FORMULA.indexOf(texto.charAt(0)) >= 0) {
+                texto = "'" + texto;
+            }
+        }
+
+        if (texto.indexOf(SEPARADOR_CSV) >= 0 || texto.indexOf('"') >= 0
+                || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+            return '"' + texto.replace("\"", "\"\"") + '"';
+        }
+        return texto;
+    }
+
+    // ==================== XLSX ====================
+
+    public <T> void escreverXLSX(String nomeAba, List<Coluna<T>> colunas, Iterable<T> linhas, OutputStream out)
+            throws IOException {
+        // O zip é finalizado (finish) e não fechado, para não fechar a saída
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        String[] referencias = referenciasColunas(colunas.size());
+
+        entrada(zip, writer, "xl/styles.xml", ESTILOS);
+
+        int abas = 1;
+        iniciarAba(zip, writer, abas, colunas, referencias);
+        int linhaAtual = 1;
+        for (T linha : linhas) {
+            if (linhaAtual == MAXIMO_LINHAS_ABA) {
+                terminarAba(zip, writer);
+                iniciarAba(zip, writer, ++abas, colunas, referencias);
+                linhaAtual = 1;
+            }
+            linhaAtual++;
+            writer.write("<row r=\"" + linhaAtual + "\">");
+            for (int i = 0; i < colunas.size(); i++) {
+                escreverCelula(writer, referencias[i] + linhaAtual, colunas.get(i).valor().apply(linha));
+            }
+            writer.write("</row>");
+            if (linhaAtual % LINHAS_POR_ENVIO == 0) {
+                writer.flush();
+            }
+        }
+        terminarAba(zip, writer);
+
+        entrada(zip, writer, "[Content_Types].xml", tiposConteudo(abas));
+        entrada(zip, writer, "_rels/.rels", RELACOES_PACOTE);
+        entrada(zip, writer, "xl/workbook.xml", pastaTrabalho(nomeAba, abas));
+        entrada(zip, writer, "xl/_rels/workbook.xml.rels", relacoesPastaTrabalho(abas));
+        zip.finish();
+        zip.flush();
+    }
+
+    private <T> void iniciarAba(ZipOutputStream zip, Writer writer, int numero, List<Coluna<T>> colunas,
+                                String[] referencias) throws IOException {
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + numero + ".xml"));
+        writer.write(CABECALHO_XML);
+        writer.write("<worksheet xmlns=\"" + NS_PLANILHA + "\"><sheetViews><sheetView workbookViewId=\"0\">"
+                + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+                + "</sheetView></sheetViews><sheetData><row r=\"1\">");
+        for (int i = 0; i < colunas.size(); i++) {
+            escreverCelula(writer, referencias[i] + 1, colunas.get(i).titulo());
+        }
+        writer.write("</row>");
+    }
+
+    private void terminarAba(ZipOutputStream zip, Writer writer) throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private void escreverCelula(Writer writer, String referencia, Object valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        if (valor instanceof Number numero && Double.isFinite(numero.doubleValue())) {
+            boolean decimal = valor instanceof Double || valor instanceof Float || valor instanceof BigDecimal;
+            writer.write("<c r=\"" + referencia + "\"" + (decimal ? " s=\"" + ESTILO_DECIMAL + "\"" : "")
+                    + "><v>" + decimal(numero) + "</v></c>");
+        } else if (valor instanceof LocalDateTime dataHora) {
+            double serial = ChronoUnit.DAYS.between(EPOCA_EXCEL, dataHora.toLocalDate())
+                    + dataHora.toLocalTime().toSecondOfDay() / 86400.0;
+            writer.write("<c r=\"" + referencia + "\" s=\"" + ESTILO_DATA_HORA + "\"><v>" + serial + "</v></c>");
+        } else if (valor instanceof LocalDate data) {
+            writer.write("<c r=\"" + referencia + "\" s=\"" + ESTILO_DATA + "\"><v>"
+                    + ChronoUnit.DAYS.between(EPOCA_EXCEL, data) + "</v></c>");
+        } else if (valor instanceof Boolean booleano) {
+            writer.write("<c r=\"" + referencia + "\" t=\"b\"><v>" + (booleano ? 1 : 0) + "</v></c>");
+        } else {
+            writer.write("<c r=\"" + referencia + "\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            escreverTextoXml(writer, valor.toString());
+            writer.write("</t></is></c>");
+        }
+    }
+
+    private static void escreverTextoXml(Writer writer, String texto) throws IOException {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&' -> writer.write("&amp;");
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    // Caracteres de controle não são permitidos em XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void entrada(ZipOutputStream zip, Writer writer, String nome, String conteudo) throws IOException {
+        zip.putNextEntry(new ZipEntry(nome));
+        writer.write(conteudo);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private static String[] referenciasColunas(int quantidade) {
+        String[] referencias = new String[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            StringBuilder letras = new StringBuilder();
+            for (int n = i + 1; n > 0; n = (n - 1) / 26) {
+                letras.insert(0, (char) ('A' + (n - 1) % 26));
+            }
+            referencias[i] = letras.toString();
+        }
+        return referencias;
+    }
+
+    private static String decimal(Number numero) {
+        if (numero instanceof BigDecimal bigDecimal) {
+            return bigDecimal.toPlainString();
+        }
+        if (numero instanceof Double || numero instanceof Float) {
+            return BigDecimal.valueOf(numero.doubleValue()).toPlainString();
+        }
+        return numero.toString();
+    }
+
+    // ==================== ESTRUTURA DA PASTA DE TRABALHO ====================
+
+    private static final String ESTILOS = CABECALHO_XML
+            + "<styleSheet xmlns=\"" + NS_PLANILHA + "\">"
+            + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+            + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"4\">"
+            + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"22\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"4\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "</cellXfs></styleSheet>";
+
+    private static final String RELACOES_PACOTE = CABECALHO_XML
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"" + NS_RELACOES + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>";
+
+    private static String tiposConteudo(int abas) {
+        StringBuilder xml = new StringBuilder(CABECALHO_XML)
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= abas; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private static String pastaTrabalho(String nomeAba, int abas) {
+        // Nomes de aba têm até 31 caracteres e não aceitam []:*?/\
+        String nome = nomeAba.replaceAll("[\\[\\]:*?/\\\\]", " ");
+        StringBuilder xml = new StringBuilder(CABECALHO_XML)
+                .append("<workbook xmlns=\"").append(NS_PLANILHA).append("\" xmlns:r=\"").append(NS_RELACOES)
+                .append("\"><sheets>");
+        for (int i = 1; i <= abas; i++) {
+            String sufixo = i > 1 ? " (" + i + ")" : "";
+            String nomeCompleto = nome.substring(0, Math.min(nome.length(), 31 - sufixo.length())) + sufixo;
+            xml.append("<sheet name=\"").append(nomeCompleto.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;"))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private static String relacoesPastaTrabalho(int abas) {
+        StringBuilder xml = new StringBuilder(CABECALHO_XML)
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= abas; i++) {
+            xml.append("<Relationship Id=\"rId").append(i).append("\" Type=\"").append(NS_RELACOES)
+                    .append("/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(abas + 1).append("\" Type=\"").append(NS_RELACOES)
+                .append("/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+}
@@ -0,0 +1,119 @@
+package com.marciliojr.pirangueiro.config;
+
+import com.marciliojr.pirangueiro.dto.CategoriaDTO;
+import com.marciliojr.pirangueiro.repository.CategoriaRepository;
+import com.marciliojr.pirangueiro.service.CategoriaService;
+import com.marciliojr.pirangueiro.service.DadosReferenciaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("Testes das requisições condicionais e da compressão")
+class RespostaCondicionalFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private DadosReferenciaService dadosReferenciaService;
+
+    @AfterEach
+    void limparDados() {
+        categoriaRepository.deleteAll();
+        dadosReferenciaService.invalidarTudo();
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 enquanto os dados não mudam e novo ETag depois de uma escrita")
+    void deveResponderNaoModificadoAteAEscrita() throws Exception {
+        criarCategoria("Mercado");
+
+        MvcResult primeira = mockMvc.perform(get("/api/categorias"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn();
+        String etag = primeira.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").endsWith("\"").doesNotStartWith("W/");
+
+        mockMvc.perform(get("/api/categorias").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        criarCategoria("Farmácia");
+        MvcResult depois = mockMvc.perform(get("/api/categorias").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(depois.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(depois.getResponse().getContentAsString(StandardCharsets.UTF_8)).contains("Farmácia");
+
+        // Os trabalhos de relatório ficam fora do filtro e não recebem ETag
+        mockMvc.perform(get("/api/relatorios/jobs/inexistente"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Deve comprimir com gzip e usar um ETag próprio para a versão comprimida")
+    void deveComprimirComEtagPropria() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            criarCategoria("Categoria " + i);
+        }
+
+        MvcResult identidade = mockMvc.perform(get("/api/categorias"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        MvcResult comprimida = mockMvc.perform(get("/api/categorias").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+
+        String etagGzip = comprimida.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etagGzip).endsWith("-gzip\"").isNotEqualTo(identidade.getResponse().getHeader(HttpHeaders.ETAG));
+        byte[] corpo = comprimida.getResponse().getContentAsByteArray();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(corpo))) {
+            assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo(identidade.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        }
+
+        mockMvc.perform(get("/api/categorias").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, etagGzip))
+                .andExpect(status().isNotModified());
+        // Sem gzip, o ETag da versão comprimida não vale
+        mockMvc.perform(get("/api/categorias").header(HttpHeaders.IF_NONE_MATCH, etagGzip))
+                .andExpect(status().isOk());
+    }
+
+    private void criarCategoria(String nome) {
+        CategoriaDTO categoria = new CategoriaDTO();
+        categoria.setNome(nome);
+        categoria.setCor("#000000");
+        categoria.setTipoReceita(false);
+        categoriaService.salvar(categoria);
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 
@@ -29,6 +30,9 @@ class CartaoRepositoryTest {
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Categoria categoriaAlimentacao;
 
     @BeforeEach
@@ -285,6 +289,38 @@ class CartaoRepositoryTest {
         assertThat(percentualSalario).isEqualTo(10.0); // Apenas 10% do salário no cartão
     }
 
+    @Test
+    @DisplayName("Deve reservar limite apenas quando o valor cabe no limite do cartão")
+    void deveReservarLimiteApenasQuandoCabeNoLimite() {
+        Cartao cartao = criarCartao("Cartão Teste", 800.0, 15, 10);
+
+        assertThat(cartaoRepository.reservarLimite(cartao.getId(), 500.0)).isEqualTo(1);
+        assertThat(cartaoRepository.reservarLimite(cartao.getId(), 300.0)).isEqualTo(1);
+        assertThat(cartaoRepository.reservarLimite(cartao.getId(), 0.01)).isZero(); // Excederia o limite
+
+        cartaoRepository.ajustarLimiteUsado(cartao.getId(), -200.0); // Pagamento de uma despesa
+        entityManager.clear();
+
+        assertThat(cartaoRepository.findById(cartao.getId()).get().getLimiteUsado()).isEqualTo(600.0);
+    }
+
+    @Test
+    @DisplayName("Deve somar despesas não pagas agrupadas por cartão para reconciliação")
+    void deveSomarDespesasNaoPagasAgrupadasPorCartao() {
+        Cartao visa = criarCartao("Visa", 800.0, 15, 10);
+        Cartao master = criarCartao("Master", 200.0, 5, 10);
+        criarDespesaCartao("Supermercado", 200.0, visa, false);
+        criarDespesaCartao("Farmácia", 50.0, visa, false);
+        criarDespesaCartao("Restaurante", 100.0, visa, true);
+        criarDespesaCartao("Posto", 80.0, master, false);
+
+        List<Object[]> totais = cartaoRepository.calcularTotalDespesasNaoPagasAgrupadoPorCartao();
+
+        assertThat(totais)
+            .extracting(linha -> linha[0], linha -> ((Number) linha[1]).doubleValue())
+            .containsExactlyInAnyOrder(tuple(visa.getId(), 250.0), tuple(master.getId(), 80.0));
+    }
+
     private Cartao criarCartao(String nome, Double limite, Integer diaFechamento, Integer diaVencimento) {
         if (limite != null && limite < 0) {
             throw new IllegalArgumentException("Limite não pode ser negativo");
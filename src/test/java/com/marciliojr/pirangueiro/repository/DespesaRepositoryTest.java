@@ -288,6 +288,43 @@ class DespesaRepositoryTest {
         assertThat(despesasMesInexistente).isEmpty();
     }
 
+    @Test
+    @DisplayName("Deve marcar como pagas em lote apenas as despesas do cartão filtrado")
+    void deveMarcarDespesasComoPagasEmLote() {
+        Despesa supermercado = criarDespesa("Supermercado", 150.0, null, cartaoCredito, categoriaAlimentacao);
+        Despesa restaurante = criarDespesa("Restaurante", 45.0, null, cartaoCredito, categoriaAlimentacao);
+        Despesa aluguel = criarDespesa("Aluguel", 400.0, contaCorrente, null, categoriaMoradia);
+
+        List<Long> ids = despesaRepository.buscarIdsPorFiltro(
+            null, null, null, null, null, null, cartaoCredito.getId(), null, false);
+        assertThat(ids).containsExactlyInAnyOrder(supermercado.getId(), restaurante.getId());
+        assertThat(despesaRepository.somarValorPorIds(ids)).isEqualTo(195.0);
+
+        int atualizadas = despesaRepository.atualizarPagoEmLote(ids, true);
+
+        assertThat(atualizadas).isEqualTo(2);
+        assertThat(despesaRepository.findById(supermercado.getId()).get().getPago()).isTrue();
+        assertThat(despesaRepository.findById(aluguel.getId()).get().getPago()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve recategorizar e excluir despesas em lote")
+    void deveRecategorizarEExcluirDespesasEmLote() {
+        Despesa uber = criarDespesa("Uber", 15.0, contaCorrente, null, categoriaAlimentacao);
+        Despesa onibus = criarDespesa("Ônibus", 5.0, contaCorrente, null, categoriaAlimentacao);
+        List<Long> ids = List.of(uber.getId(), onibus.getId(), 999L);
+
+        assertThat(despesaRepository.buscarIdsExistentes(ids))
+            .containsExactlyInAnyOrder(uber.getId(), onibus.getId());
+
+        despesaRepository.atualizarCategoriaEmLote(ids, categoriaTransporte);
+        assertThat(despesaRepository.findByCategoria(categoriaTransporte)).hasSize(2);
+
+        int excluidas = despesaRepository.excluirEmLote(ids);
+        assertThat(excluidas).isEqualTo(2);
+        assertThat(despesaRepository.findAll()).isEmpty();
+    }
+
     private Despesa criarDespesa(String descricao, Double valor, Conta conta, Cartao cartao, Categoria categoria) {
         // Validação de valor negativo
         if (valor != null && valor < 0) {
@@ -0,0 +1,183 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.dto.ConsultaPivotDTO.Dimensao;
+import com.marciliojr.pirangueiro.dto.ConsultaPivotDTO.Medida;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes do armazém colunar e das consultas pivot")
+class ArmazemColunarServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private CartaoDTO nubank;
+    private CategoriaDTO mercado;
+    private CategoriaDTO lazer;
+
+    @BeforeEach
+    void criarDados() {
+        resumoMensalRepository.deleteAllInBatch();
+        nubank = criarCartao("Nubank", 10000.0);
+        mercado = criarCategoria("Mercado");
+        lazer = criarCategoria("Lazer");
+        armazemColunarService.recarregar();
+    }
+
+    @Test
+    @DisplayName("Deve agrupar por categoria e dia da semana aplicando os filtros e as medidas pedidas")
+    void deveAgruparPorCategoriaEDiaDaSemana() {
+        // 03/06/2024 foi uma segunda-feira
+        despesaService.salvar(novaDespesa(nubank, mercado, 100.0, LocalDate.of(2024, 6, 3), true));
+        despesaService.salvar(novaDespesa(null, mercado, 40.0, LocalDate.of(2024, 6, 10), false));
+        despesaService.salvar(novaDespesa(null, mercado, 15.5, LocalDate.of(2024, 6, 4), false));
+        despesaService.salvar(novaDespesa(nubank, lazer, 60.0, LocalDate.of(2024, 6, 3), false));
+        despesaService.salvar(novaDespesa(null, lazer, 999.0, LocalDate.of(2024, 8, 1), false));
+
+        ConsultaPivotDTO consulta = new ConsultaPivotDTO();
+        consulta.setTipo(TipoLancamento.DESPESA);
+        consulta.setDimensoes(List.of(Dimensao.CATEGORIA, Dimensao.DIA_DA_SEMANA));
+        consulta.setMedidas(List.of(Medida.SOMA, Medida.QUANTIDADE, Medida.MEDIA, Medida.MAXIMO));
+        consulta.setDataInicio(LocalDate.of(2024, 6, 1));
+        consulta.setDataFim(LocalDate.of(2024, 6, 30));
+
+        ResultadoPivotDTO resultado = armazemColunarService.consultar(consulta);
+
+        assertThat(resultado.getLancamentosLidos()).isEqualTo(5);
+        assertThat(resultado.getLancamentosConsiderados()).isEqualTo(4);
+        assertThat(resultado.getLinhas()).extracting(linha -> linha.getDimensoes().get("CATEGORIA"))
+                .containsExactly("Mercado", "Mercado", "Lazer");
+        assertThat(resultado.getLinhas()).extracting(linha -> linha.getDimensoes().get("DIA_DA_SEMANA"))
+                .containsExactly(1, 2, 1);
+        ResultadoPivotDTO.LinhaPivotDTO segundas = resultado.getLinhas().get(0);
+        assertThat(segundas.getMedidas()).containsEntry("SOMA", 140.0).containsEntry("QUANTIDADE", 2.0)
+                .containsEntry("MEDIA", 70.0).containsEntry("MAXIMO", 100.0);
+
+        // Filtro por cartão e situação de pagamento, agrupando por cartão
+        consulta.setDimensoes(List.of(Dimensao.CARTAO, Dimensao.PAGO));
+        consulta.setMedidas(List.of());
+        consulta.setCartaoIds(List.of(nubank.getId()));
+        consulta.setPago(false);
+        ResultadoPivotDTO porCartao = armazemColunarService.consultar(consulta);
+        assertThat(porCartao.getLinhas()).hasSize(1);
+        assertThat(porCartao.getLinhas().get(0).getDimensoes()).containsEntry("CARTAO", "Nubank").containsEntry("PAGO", false);
+        assertThat(porCartao.getLinhas().get(0).getMedidas()).containsOnlyKeys("SOMA", "QUANTIDADE")
+                .containsEntry("SOMA", 60.0);
+    }
+
+    @Test
+    @DisplayName("Deve chegar ao mesmo resultado com grupos em vetores densos e em mapa")
+    void deveAgruparIgualEmVetoresDensosEEmMapa() {
+        // 01/07/2024 foi uma segunda-feira; duas semanas de compras, uma por dia
+        for (int dia = 1; dia <= 14; dia++) {
+            despesaService.salvar(novaDespesa(null, dia % 2 == 0 ? mercado : lazer, (double) dia,
+                    LocalDate.of(2024, 7, dia), false));
+        }
+
+        ConsultaPivotDTO consulta = new ConsultaPivotDTO();
+        consulta.setTipo(TipoLancamento.DESPESA);
+        consulta.setMedidas(List.of(Medida.SOMA, Medida.QUANTIDADE, Medida.MINIMO));
+
+        // Sete grupos para catorze lançamentos: vetores densos
+        consulta.setDimensoes(List.of(Dimensao.DIA_DA_SEMANA));
+        ResultadoPivotDTO porDia = armazemColunarService.consultar(consulta);
+        assertThat(porDia.getLinhas()).extracting(linha -> linha.getDimensoes().get("DIA_DA_SEMANA"))
+                .containsExactly(1, 2, 3, 4, 5, 6, 7);
+        assertThat(porDia.getLinhas().get(0).getMedidas()).containsEntry("SOMA", 9.0)
+                .containsEntry("QUANTIDADE", 2.0).containsEntry("MINIMO", 1.0);
+
+        // Mais grupos possíveis do que o limite para catorze lançamentos: mapa
+        consulta.setDimensoes(List.of(Dimensao.DIA_DA_SEMANA, Dimensao.MES, Dimensao.CATEGORIA));
+        ResultadoPivotDTO porDiaMesECategoria = armazemColunarService.consultar(consulta);
+        assertThat(porDiaMesECategoria.getLinhas()).hasSize(14);
+        assertThat(porDiaMesECategoria.getLinhas().stream()
+                .filter(linha -> linha.getDimensoes().get("DIA_DA_SEMANA").equals(1))
+                .mapToDouble(linha -> linha.getMedidas().get("SOMA")).sum()).isEqualTo(9.0);
+    }
+
+    @Test
+    @DisplayName("Deve manter os vetores a cada edição e exclusão e chegar ao mesmo resultado de uma recarga completa")
+    void deveManterArmazemIgualARecarga() {
+        DespesaDTO feira = despesaService.salvar(novaDespesa(null, mercado, 100.0, LocalDate.of(2024, 3, 5), false));
+        DespesaDTO cinema = despesaService.salvar(novaDespesa(nubank, lazer, 30.0, LocalDate.of(2024, 3, 15), false));
+        despesaService.salvar(novaDespesa(null, mercado, 20.0, LocalDate.of(2024, 4, 10), false));
+
+        feira.setValor(80.0);
+        feira.setData(LocalDate.of(2024, 4, 5));
+        despesaService.salvar(feira);
+        despesaService.excluir(cinema.getId());
+
+        ConsultaPivotDTO consulta = new ConsultaPivotDTO();
+        consulta.setTipo(TipoLancamento.DESPESA);
+        consulta.setDimensoes(List.of(Dimensao.MES, Dimensao.CATEGORIA));
+        consulta.setMedidas(List.of(Medida.SOMA, Medida.QUANTIDADE, Medida.MINIMO));
+
+        ResultadoPivotDTO incremental = armazemColunarService.consultar(consulta);
+        assertThat(incremental.getLancamentosLidos()).isEqualTo(2);
+        assertThat(incremental.getLinhas()).hasSize(1);
+        assertThat(incremental.getLinhas().get(0).getDimensoes()).containsEntry("MES", "2024-04").containsEntry("CATEGORIA", "Mercado");
+        assertThat(incremental.getLinhas().get(0).getMedidas()).containsEntry("SOMA", 100.0).containsEntry("MINIMO", 20.0);
+
+        armazemColunarService.recarregar();
+        ResultadoPivotDTO recarregado = armazemColunarService.consultar(consulta);
+        assertThat(recarregado.getLinhas()).isEqualTo(incremental.getLinhas());
+
+        consulta.setTipo(null);
+        assertThatThrownBy(() -> armazemColunarService.consultar(consulta)).isInstanceOf(NegocioException.class);
+    }
+
+    @Test
+    @DisplayName("Não deve aplicar de novo alterações que já estavam nos vetores lidos por uma recarga após o commit")
+    void naoDeveAplicarDuasVezesAlteracaoJaCarregada() {
+        DespesaDTO feira = despesaService.salvar(novaDespesa(null, mercado, 100.0, LocalDate.of(2024, 5, 5), false));
+
+        // Edição e inclusão na mesma transação, com recarga entre o commit e o ouvinte do armazém
+        transactionTemplate.executeWithoutResult(status -> {
+            feira.setValor(80.0);
+            despesaService.salvar(feira);
+            despesaService.salvar(novaDespesa(nubank, lazer, 30.0, LocalDate.of(2024, 5, 6), false));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    armazemColunarService.recarregar();
+                }
+            });
+        });
+
+        ConsultaPivotDTO consulta = new ConsultaPivotDTO();
+        consulta.setTipo(TipoLancamento.DESPESA);
+        consulta.setMedidas(List.of(Medida.SOMA, Medida.QUANTIDADE));
+        ResultadoPivotDTO resultado = armazemColunarService.consultar(consulta);
+        assertThat(resultado.getLancamentosLidos()).isEqualTo(2);
+        assertThat(resultado.getLinhas().get(0).getMedidas()).containsEntry("SOMA", 110.0).containsEntry("QUANTIDADE", 2.0);
+
+        // Escritas seguintes voltam a ser aplicadas pelo ID do lançamento
+        despesaService.excluir(feira.getId());
+        assertThat(armazemColunarService.consultar(consulta).getLinhas().get(0).getMedidas()).containsEntry("SOMA", 30.0);
+    }
+
+    private DespesaDTO novaDespesa(CartaoDTO cartao, CategoriaDTO categoria, Double valor, LocalDate data, boolean pago) {
+        DespesaDTO despesa = novaCompra(cartao, categoria, valor, data);
+        despesa.setPago(pago);
+        return despesa;
+    }
+}
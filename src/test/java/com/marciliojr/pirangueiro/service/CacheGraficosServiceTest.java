@@ -0,0 +1,141 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.service.CuboAnaliticoService.TotalCategoria;
+import com.marciliojr.pirangueiro.service.CuboAnaliticoService.TotalMes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes do cache de respostas dos gráficos")
+class CacheGraficosServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private GraficosService graficosService;
+
+    @BeforeEach
+    void limparCaches() {
+        resumoMensalRepository.deleteAllInBatch();
+        cuboAnaliticoService.invalidar();
+        cacheGraficosService.invalidarTudo();
+    }
+
+    @Test
+    @DisplayName("Deve descartar apenas os gráficos dos meses alterados")
+    void deveDescartarApenasMesesAlterados() {
+        despesaService.salvar(novaDespesa("Compra", 100.0, LocalDate.of(2024, 3, 10)));
+
+        GraficoReceitasDespesasCategoriaDTO marco = graficosService.buscarDadosGraficoReceitasDespesasCategoria(3, 2024);
+        GraficoReceitasDespesasCategoriaDTO janeiro = graficosService.buscarDadosGraficoReceitasDespesasCategoria(1, 2024);
+        assertThat(graficosService.buscarDadosGraficoReceitasDespesasCategoria(3, 2024)).isSameAs(marco);
+        assertThat(marco.getTotalDespesas()).isEqualTo(100.0);
+
+        // Receita de março descarta março; janeiro continua no cache
+        receitaService.salvar(novaReceita("Pagamento", 500.0, LocalDate.of(2024, 3, 1)));
+        GraficoReceitasDespesasCategoriaDTO marcoAtualizado = graficosService.buscarDadosGraficoReceitasDespesasCategoria(3, 2024);
+        assertThat(marcoAtualizado).isNotSameAs(marco);
+        assertThat(marcoAtualizado.getTotalReceitas()).isEqualTo(500.0);
+        assertThat(graficosService.buscarDadosGraficoReceitasDespesasCategoria(1, 2024)).isSameAs(janeiro);
+
+        // Receitas não entram na sazonalidade de gastos
+        GraficoSazonalidadeGastosDTO sazonalidade = graficosService.buscarSazonalidadeGastos();
+        receitaService.salvar(novaReceita("Pagamento", 50.0, LocalDate.of(2023, 7, 1)));
+        assertThat(graficosService.buscarSazonalidadeGastos()).isSameAs(sazonalidade);
+        despesaService.salvar(novaDespesa("Compra", 80.0, LocalDate.of(2023, 7, 1)));
+        // De julho/2023 a março/2024, um ano para cada mês
+        assertThat(graficosService.buscarSazonalidadeGastos().getMediasGastos())
+                .containsExactly(0.0, 0.0, 100.0, 80.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+    }
+
+    @Test
+    @DisplayName("Deve descartar o dashboard de qualquer mês quando o limite usado de um cartão muda")
+    void deveDescartarDashboardQuandoLimiteDoCartaoMuda() {
+        CartaoDTO nubank = criarCartao("Nubank", 1000.0);
+
+        DashboardFinanceiroDTO dashboard = graficosService.getDashboardFinanceiro(1, 2024);
+        assertThat(dashboard.getLimitesCartoes().get(0).getLimiteUsado()).isZero();
+
+        despesaService.salvar(novaDespesaNoCartao(nubank, 300.0, LocalDate.of(2024, 6, 10)));
+
+        DashboardFinanceiroDTO atualizado = graficosService.getDashboardFinanceiro(1, 2024);
+        assertThat(atualizado.getLimitesCartoes().get(0).getLimiteUsado()).isEqualTo(300.0);
+        assertThat(atualizado.getSaldoAtual()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve calcular todos os gráficos no bundle com os mesmos valores dos endpoints individuais")
+    void deveCalcularBundleIgualAosEndpoints() {
+        LocalDate hoje = LocalDate.now();
+        despesaService.salvar(novaDespesa("Compra", 120.0, hoje.withDayOfMonth(1)));
+        despesaService.salvar(novaDespesa("Compra", 80.0, hoje.withDayOfMonth(1).minusMonths(2)));
+        receitaService.salvar(novaReceita("Pagamento", 1000.0, hoje.withDayOfMonth(1)));
+
+        GraficosBundleDTO bundle = graficosService.buscarBundle(hoje.getMonthValue(), hoje.getYear(), 12, 6, null, null);
+
+        assertThat(bundle.getGraficosIndisponiveis()).isEmpty();
+        assertThat(bundle.getDashboardFinanceiro().getSaldoAtual()).isEqualTo(880.0);
+        assertThat(bundle.getReceitasDespesasCategoria().getTotalDespesas()).isEqualTo(120.0);
+        assertThat(bundle.getTendenciaGastos().getValores()).containsExactly(80.0, 120.0);
+        assertThat(bundle.getPrevisaoGastos().getMeses()).hasSize(6);
+        assertThat(bundle.getSazonalidadeGastos()).isNotNull();
+        assertThat(bundle.getDespesasPorCartao()).isNotNull();
+
+        // Os gráficos calculados no bundle ficam no cache dos endpoints individuais
+        assertThat(graficosService.getDashboardFinanceiro(hoje.getMonthValue(), hoje.getYear()))
+                .isSameAs(bundle.getDashboardFinanceiro());
+        assertThat(graficosService.buscarTendenciaGastos()).isSameAs(bundle.getTendenciaGastos());
+        assertThat(graficosService.buscarGraficoReceitasDespesasPorMes(null, null)).isSameAs(bundle.getReceitasDespesas());
+
+        assertThatThrownBy(() -> graficosService.buscarBundle(1, 2024, 12, 6, hoje, hoje.minusDays(1)))
+                .isInstanceOf(NegocioException.class);
+        assertThatThrownBy(() -> graficosService.buscarBundle(1, 2024, 12, 0, null, null))
+                .isInstanceOf(NegocioException.class);
+        assertThatThrownBy(() -> graficosService.buscarBundle(13, 2024, 12, 6, null, null))
+                .isInstanceOf(NegocioException.class);
+    }
+
+    @Test
+    @DisplayName("Um Error na leitura compartilhada do cubo não deve bloquear os demais gráficos do bundle")
+    void naoDeveBloquearGraficosQuandoLeituraDoCuboFalhaComError() {
+        Object cuboOriginal = ReflectionTestUtils.getField(graficosService, "cuboAnaliticoService");
+        Object timeoutOriginal = ReflectionTestUtils.getField(graficosService, "timeoutBundleSegundos");
+        CuboAnaliticoService cuboComErro = new CuboAnaliticoService() {
+            @Override
+            public List<TotalCategoria> totaisPorCategoria(TipoLancamento tipo, YearMonth mes) {
+                return List.of();
+            }
+
+            @Override
+            public TotalMes totalDoMes(TipoLancamento tipo, YearMonth mes) {
+                // Dá tempo para os dois gráficos do mês pedirem a mesma leitura
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                throw new Error("Cubo indisponível");
+            }
+        };
+        ReflectionTestUtils.setField(graficosService, "cuboAnaliticoService", cuboComErro);
+        ReflectionTestUtils.setField(graficosService, "timeoutBundleSegundos", 10);
+        GraficosBundleDTO bundle;
+        try {
+            bundle = graficosService.buscarBundle(2, 2024, 12, 6, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+        } finally {
+            ReflectionTestUtils.setField(graficosService, "cuboAnaliticoService", cuboOriginal);
+            ReflectionTestUtils.setField(graficosService, "timeoutBundleSegundos", timeoutOriginal);
+        }
+
+        // Os dois gráficos do mês compartilham a leitura que falhou e terminam com o erro, não por tempo
+        assertThat(bundle.getGraficosIndisponiveis().get("dashboardFinanceiro")).contains("Cubo indisponível");
+        assertThat(bundle.getGraficosIndisponiveis().get("receitasDespesasCategoria")).contains("Cubo indisponível");
+    }
+}
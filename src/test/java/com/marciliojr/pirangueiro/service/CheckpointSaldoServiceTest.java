@@ -0,0 +1,73 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.CheckpointSaldo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes dos saldos por data a partir de checkpoints mensais")
+class CheckpointSaldoServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private CheckpointSaldoService checkpointSaldoService;
+
+    @Test
+    @DisplayName("Deve calcular o saldo em uma data com o checkpoint do mês anterior e os lançamentos do mês")
+    void deveCalcularSaldoEmData() {
+        ContaDTO conta = criarConta("Conta Checkpoint");
+        receitaService.salvar(novaReceitaNaConta(conta, 1000.0, LocalDate.of(2024, 1, 5)));
+        despesaService.salvar(novaDespesaNaConta(conta, 300.0, LocalDate.of(2024, 1, 20), true));
+        receitaService.salvar(novaReceitaNaConta(conta, 500.0, LocalDate.of(2024, 3, 1)));
+        despesaService.salvar(novaDespesaNaConta(conta, 100.0, LocalDate.of(2024, 3, 15), true));
+
+        assertThat(checkpointSaldoService.calcularSaldoEm(conta.getId(), LocalDate.of(2023, 12, 31)).getSaldo())
+                .isEqualTo(0.0);
+        assertThat(checkpointSaldoService.calcularSaldoEm(conta.getId(), LocalDate.of(2024, 1, 10)).getSaldo())
+                .isEqualTo(1000.0);
+        assertThat(checkpointSaldoService.calcularSaldoEm(conta.getId(), LocalDate.of(2024, 3, 10)).getSaldo())
+                .isEqualTo(1200.0);
+
+        // Janeiro e fevereiro ficam gravados como checkpoints
+        assertThat(checkpointSaldoRepository.findAll()).extracting(CheckpointSaldo::getMes, CheckpointSaldo::getSaldoFinal)
+                .contains(tuple(1, 700.0), tuple(2, 700.0));
+
+        SaldoEmDataDTO fimMarco = checkpointSaldoService.calcularSaldoEm(conta.getId(), LocalDate.of(2024, 3, 31));
+        assertThat(fimMarco.getSaldo()).isEqualTo(1100.0);
+        assertThat(fimMarco.getNomeConta()).isEqualTo("Conta Checkpoint");
+    }
+
+    @Test
+    @DisplayName("Deve refazer os checkpoints a partir do mês alterado e listar a série mensal")
+    void deveRefazerCheckpointsEListarSerie() {
+        ContaDTO conta = criarConta("Conta Checkpoint");
+        receitaService.salvar(novaReceitaNaConta(conta, 1000.0, LocalDate.of(2024, 1, 5)));
+        despesaService.salvar(novaDespesaNaConta(conta, 200.0, LocalDate.of(2024, 3, 10), true));
+
+        List<SaldoMensalDTO> serie = checkpointSaldoService.listarSaldosMensais(conta.getId(),
+                YearMonth.of(2023, 12), YearMonth.of(2024, 4));
+        assertThat(serie).extracting(SaldoMensalDTO::getSaldoFinal)
+                .containsExactly(0.0, 1000.0, 1000.0, 800.0, 800.0);
+
+        // Lançamento em fevereiro remove os checkpoints de fevereiro em diante
+        despesaService.salvar(novaDespesaNaConta(conta, 50.0, LocalDate.of(2024, 2, 1), true));
+        assertThat(checkpointSaldoRepository.findAll()).extracting(CheckpointSaldo::getMes).containsExactly(1);
+
+        assertThat(checkpointSaldoService.listarSaldosMensais(conta.getId(), YearMonth.of(2024, 1), YearMonth.of(2024, 4)))
+                .extracting(SaldoMensalDTO::getSaldoFinal)
+                .containsExactly(1000.0, 950.0, 750.0, 750.0);
+        assertThat(checkpointSaldoService.calcularSaldoEm(conta.getId(), LocalDate.of(2024, 3, 9)).getSaldo())
+                .isEqualTo(950.0);
+
+        assertThatThrownBy(() -> checkpointSaldoService.listarSaldosMensais(conta.getId(),
+                YearMonth.of(2024, 5), YearMonth.of(2024, 4)))
+                .isInstanceOf(NegocioException.class);
+    }
+}
@@ -0,0 +1,140 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.service.CuboAnaliticoService.TotalCategoria;
+import com.marciliojr.pirangueiro.service.CuboAnaliticoService.TotaisMesDoAno;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes do cubo analítico em memória")
+class CuboAnaliticoServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private GraficosService graficosService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private CartaoDTO nubank;
+    private CartaoDTO inter;
+    private CategoriaDTO mercado;
+
+    @BeforeEach
+    void criarDados() {
+        resumoMensalRepository.deleteAllInBatch();
+        nubank = criarCartao("Nubank", 10000.0);
+        inter = criarCartao("Inter", 10000.0);
+        mercado = criarCategoria("Mercado");
+        cuboAnaliticoService.recarregar();
+    }
+
+    @Test
+    @DisplayName("Deve montar as séries de cada cartão a partir das escritas aplicadas em memória")
+    void deveMontarSeriesDosCartoes() {
+        YearMonth atual = YearMonth.now();
+        despesaService.salvar(novaCompra(nubank, mercado, 100.0, atual.atDay(1)));
+        despesaService.salvar(novaCompra(nubank, mercado, 50.0, atual.minusMonths(1).atDay(1)));
+        despesaService.salvar(novaCompra(inter, mercado, 30.0, atual.atDay(1)));
+
+        GraficoDespesasCartaoDTO grafico = graficosService.buscarDespesasPorCartaoAoLongoDoTempo(2);
+
+        assertThat(grafico.getMeses()).hasSize(3);
+        assertThat(grafico.getSeries()).extracting(GraficoDespesasCartaoDTO.SerieCartaoDTO::getNomeCartao)
+                .containsExactly("Inter", "Nubank");
+        assertThat(grafico.getSeries().get(1).getValores()).containsExactly(0.0, 50.0, 100.0);
+        assertThat(grafico.getValorTotalPeriodo()).isEqualTo(180.0);
+    }
+
+    @Test
+    @DisplayName("Deve calcular média, mediana e desvio padrão dos totais de cada mês do ano entre os anos")
+    void deveCalcularSazonalidade() {
+        despesaService.salvar(novaCompra(null, mercado, 100.0, LocalDate.of(2023, 1, 10)));
+        despesaService.salvar(novaCompra(null, mercado, 50.0, LocalDate.of(2023, 1, 20)));
+        despesaService.salvar(novaCompra(null, mercado, 30.0, LocalDate.of(2024, 1, 5)));
+        despesaService.salvar(novaCompra(null, mercado, 80.0, LocalDate.of(2024, 7, 5)));
+
+        // De janeiro/2023 a julho/2024: julho de 2023 entra com total zero
+        List<TotaisMesDoAno> meses = cuboAnaliticoService.totaisAnuaisPorMesDoAno(TipoLancamento.DESPESA);
+        assertThat(meses).hasSize(12);
+        assertThat(meses.get(0).totaisAnuais()).containsExactly(150.0, 30.0);
+        assertThat(meses.get(6).totaisAnuais()).containsExactly(0.0, 80.0);
+        assertThat(meses.get(7).totaisAnuais()).containsExactly(0.0);
+
+        GraficoSazonalidadeGastosDTO sazonalidade = graficosService.buscarSazonalidadeGastos();
+        assertThat(sazonalidade.getMediasGastos().get(0)).isEqualTo(90.0);
+        assertThat(sazonalidade.getMedianasGastos().get(0)).isEqualTo(90.0);
+        assertThat(sazonalidade.getDesviosPadraoGastos().get(0)).isEqualTo(60.0);
+        assertThat(sazonalidade.getMediasGastos().get(6)).isEqualTo(40.0);
+        assertThat(sazonalidade.getQuantidadesAnos()).containsExactly(2, 2, 2, 2, 2, 2, 2, 1, 1, 1, 1, 1);
+        assertThat(sazonalidade.getMesMaiorGasto()).isEqualTo("JANEIRO");
+        assertThat(sazonalidade.getMenorMedia()).isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("Deve refletir novas categorias, nomes alterados e chegar ao mesmo resultado de uma recarga completa")
+    void deveManterCuboIgualARecarga() {
+        despesaService.salvar(novaCompra(null, mercado, 40.0, LocalDate.of(2024, 6, 1)));
+
+        // Categoria criada depois da carga entra como nova dimensão
+        CategoriaDTO lazer = criarCategoria("Lazer");
+        DespesaDTO cinema = despesaService.salvar(novaCompra(null, lazer, 60.0, LocalDate.of(2024, 6, 2)));
+        cinema.setValor(70.0);
+        despesaService.salvar(cinema);
+
+        mercado.setNome("Supermercado");
+        categoriaService.salvar(mercado);
+
+        List<TotalCategoria> incremental = cuboAnaliticoService.totaisPorCategoria(TipoLancamento.DESPESA, YearMonth.of(2024, 6));
+        assertThat(incremental).extracting(TotalCategoria::nome).containsExactly("Lazer", "Supermercado");
+        assertThat(incremental).extracting(TotalCategoria::total).containsExactly(70.0, 40.0);
+
+        cuboAnaliticoService.recarregar();
+        assertThat(cuboAnaliticoService.totaisPorCategoria(TipoLancamento.DESPESA, YearMonth.of(2024, 6)))
+                .containsExactlyElementsOf(incremental);
+        assertThat(cuboAnaliticoService.totalDoMes(TipoLancamento.DESPESA, YearMonth.of(2024, 6)).quantidade())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Não deve somar de novo uma alteração que já estava nos resumos lidos por uma recarga após o commit")
+    void naoDeveAplicarDuasVezesAlteracaoJaCarregada() {
+        despesaService.salvar(novaCompra(null, mercado, 40.0, LocalDate.of(2024, 8, 1)));
+
+        // Recarga entre o commit e o ouvinte do cubo, como faria uma consulta concorrente
+        transactionTemplate.executeWithoutResult(status -> {
+            despesaService.salvar(novaCompra(null, mercado, 25.0, LocalDate.of(2024, 8, 2)));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    cuboAnaliticoService.recarregar();
+                }
+            });
+        });
+
+        CuboAnaliticoService.TotalMes agosto = cuboAnaliticoService.totalDoMes(TipoLancamento.DESPESA, YearMonth.of(2024, 8));
+        assertThat(agosto.total()).isEqualTo(65.0);
+        assertThat(agosto.quantidade()).isEqualTo(2);
+
+        // Escritas seguintes voltam a ser aplicadas em memória
+        despesaService.salvar(novaCompra(null, mercado, 10.0, LocalDate.of(2024, 8, 3)));
+        assertThat(cuboAnaliticoService.totalDoMes(TipoLancamento.DESPESA, YearMonth.of(2024, 8)).total()).isEqualTo(75.0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes do cache de categorias, contas e cartões")
+class DadosReferenciaServiceTest extends ServicoTesteBase {
+
+    @BeforeEach
+    void limparCache() {
+        dadosReferenciaService.invalidarTudo();
+    }
+
+    @Test
+    @DisplayName("Deve servir as listagens do cache e descartar apenas o cadastro alterado")
+    void deveServirListagensDoCache() {
+        CategoriaDTO mercado = criarCategoria("Mercado");
+        criarCartao("Nubank", 1000.0);
+
+        long acertosAntes = acertos();
+        assertThat(categoriaService.listarTodas()).extracting(CategoriaDTO::getNome).containsExactly("Mercado");
+        assertThat(categoriaService.listarTodas()).hasSize(1);
+        assertThat(cartaoService.listarTodos()).hasSize(1);
+        assertThat(acertos() - acertosAntes).isEqualTo(1);
+
+        // Alterações feitas fora dos serviços não aparecem até a invalidação
+        categoriaRepository.deleteAll();
+        assertThat(categoriaService.listarTodas()).hasSize(1);
+
+        mercado.setId(null);
+        mercado.setNome("Lazer");
+        categoriaService.salvar(mercado);
+        assertThat(categoriaService.listarTodas()).extracting(CategoriaDTO::getNome).containsExactly("Lazer");
+
+        // A lista de cartões não foi descartada pela alteração de categoria
+        long acertosCartoes = acertos();
+        assertThat(cartaoService.listarTodos()).hasSize(1);
+        assertThat(acertos() - acertosCartoes).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve refletir o limite usado do cartão após cada despesa")
+    void deveAtualizarLimiteUsadoAposDespesa() {
+        CartaoDTO nubank = criarCartao("Nubank", 1000.0);
+        assertThat(cartaoService.buscarPorId(nubank.getId()).getLimiteUsado()).isZero();
+        assertThat(cartaoService.listarTodos().get(0).getLimiteUsado()).isZero();
+
+        DespesaDTO salva = despesaService.salvar(novaDespesaNoCartao(nubank, 150.0, LocalDate.of(2024, 6, 1)));
+
+        assertThat(cartaoService.buscarPorId(nubank.getId()).getLimiteUsado()).isEqualTo(150.0);
+        assertThat(cartaoService.listarTodos().get(0).getLimiteUsado()).isEqualTo(150.0);
+
+        despesaService.excluir(salva.getId());
+        assertThat(cartaoService.calcularLimiteUsado(nubank.getId())).isZero();
+        assertThat(cartaoService.listarTodos().get(0).getLimiteUsado()).isZero();
+    }
+
+    private long acertos() {
+        return (Long) dadosReferenciaService.estatisticas().get("acertos");
+    }
+}
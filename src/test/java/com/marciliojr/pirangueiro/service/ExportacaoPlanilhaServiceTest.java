@@ -0,0 +1,102 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.util.PlanilhaGenerator.Formato;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes da exportação de planilhas CSV e XLSX")
+class ExportacaoPlanilhaServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private ExportacaoPlanilhaService exportacaoPlanilhaService;
+
+    @Test
+    @DisplayName("Deve exportar em CSV as despesas com os filtros da busca")
+    void deveExportarDespesasEmCsv() throws Exception {
+        despesaService.salvar(novaDespesa("Mercado; semana 1", 150.5, LocalDate.of(2024, 5, 3)));
+        despesaService.salvar(novaDespesa("Mercado \"grande\"", 80.0, LocalDate.of(2023, 5, 20)));
+        despesaService.salvar(novaDespesa("Farmácia", 40.0, LocalDate.of(2024, 5, 10)));
+        despesaService.salvar(novaDespesa("Mercado", 20.0, LocalDate.of(2024, 6, 1)));
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        // Mês sem ano filtra maio de qualquer ano, como na busca
+        exportacaoPlanilhaService.exportarDespesas(Formato.CSV, "MERCADO", 5, null, saida);
+
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(linhas).hasSize(3);
+        assertThat(linhas[0]).startsWith("\uFEFFID;Descrição;Valor;Data;");
+        assertThat(linhas[1]).contains(";\"Mercado; semana 1\";150,5;03/05/2024;");
+        assertThat(linhas[2]).contains(";\"Mercado \"\"grande\"\"\";80,0;20/05/2023;");
+    }
+
+    @Test
+    @DisplayName("Deve neutralizar textos que o Excel leria como fórmula sem alterar valores negativos")
+    void deveNeutralizarFormulasNoCsv() throws Exception {
+        despesaService.salvar(novaDespesa("=HYPERLINK(\"http://exemplo.com\")", -15.5, LocalDate.of(2024, 7, 1)));
+        despesaService.salvar(novaDespesa("@SUM(A1)", 10.0, LocalDate.of(2024, 7, 2)));
+        despesaService.salvar(novaDespesa("-Estorno", 5.0, LocalDate.of(2024, 7, 3)));
+        despesaService.salvar(novaDespesa("\tTab", 1.0, LocalDate.of(2024, 7, 4)));
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoPlanilhaService.exportarDespesas(Formato.CSV, null, 7, 2024, saida);
+
+        String csv = saida.toString(StandardCharsets.UTF_8);
+        assertThat(csv).contains(";\"'=HYPERLINK(\"\"http://exemplo.com\"\")\";-15,5;01/07/2024;")
+                .contains(";'@SUM(A1);10,0;")
+                .contains(";'-Estorno;5,0;")
+                .contains(";'\tTab;1,0;");
+    }
+
+    @Test
+    @DisplayName("Deve exportar em XLSX com as abas e os valores tipados")
+    void deveExportarDespesasEmXlsx() throws Exception {
+        despesaService.salvar(novaDespesa("Aluguel <casa> & garagem", 1200.0, LocalDate.of(2024, 1, 5)));
+        despesaService.salvar(novaDespesa("Luz", 90.0, LocalDate.of(2024, 2, 5)));
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoPlanilhaService.exportarDespesas(Formato.XLSX, null, null, 2024, saida);
+
+        Map<String, String> entradas = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(saida.toByteArray()))) {
+            for (ZipEntry entrada; (entrada = zip.getNextEntry()) != null; ) {
+                entradas.put(entrada.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        assertThat(entradas).containsKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml");
+        assertThat(entradas.get("xl/workbook.xml")).contains("name=\"Despesas\"");
+
+        String aba = entradas.get("xl/worksheets/sheet1.xml");
+        assertThat(aba).contains("<row r=\"3\">").doesNotContain("<row r=\"4\">");
+        assertThat(aba).contains("Aluguel &lt;casa&gt; &amp; garagem");
+        // Valor decimal e data como número de série do Excel (05/01/2024 = 45296)
+        assertThat(aba).contains("<c r=\"C3\" s=\"3\"><v>1200.0</v></c>");
+        assertThat(aba).contains("<c r=\"D3\" s=\"1\"><v>45296</v></c>");
+    }
+
+    @Test
+    @DisplayName("Deve recusar formato ou mês inválido")
+    void deveRecusarParametrosInvalidos() {
+        assertThat(exportacaoPlanilhaService.validar("XLSX", null)).isEqualTo(Formato.XLSX);
+        assertThat(exportacaoPlanilhaService.nomeArquivo("despesas", 3, 2024, Formato.CSV))
+                .isEqualTo("despesas_03_2024.csv");
+        assertThatThrownBy(() -> exportacaoPlanilhaService.validar("ods", null))
+                .isInstanceOf(NegocioException.class);
+        assertThatThrownBy(() -> exportacaoPlanilhaService.validar("csv", 13))
+                .isInstanceOf(NegocioException.class);
+    }
+}
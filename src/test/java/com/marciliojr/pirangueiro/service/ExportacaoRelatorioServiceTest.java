@@ -0,0 +1,105 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.util.PDFGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes da exportação do relatório gerencial em JSON")
+class ExportacaoRelatorioServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private ExportacaoRelatorioService exportacaoRelatorioService;
+
+    @Autowired
+    private RelatorioGerencialService relatorioGerencialService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PDFGenerator pdfGenerator;
+
+    @Test
+    @DisplayName("Deve escrever os totais e os lançamentos do período no formato do relatório gerencial")
+    void deveExportarTotaisELancamentosDoPeriodo() throws Exception {
+        CategoriaDTO mercado = criarCategoria("Mercado");
+        despesaService.salvar(novaDespesa("Feira", 100.0, LocalDate.of(2024, 2, 5), mercado));
+        despesaService.salvar(novaDespesa("Padaria", 20.0, LocalDate.of(2024, 2, 20), mercado));
+        despesaService.salvar(novaDespesa("Fora do período", 70.0, LocalDate.of(2024, 3, 1), mercado));
+        receitaService.salvar(novaReceita("Salário", 1000.0, LocalDate.of(2024, 2, 1)));
+
+        RelatorioGerencialDTO relatorio = relatorioGerencialService.gerarRelatorioCompleto(2, 2024);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoRelatorioService.escreverJson(relatorio, 2, 2024, true, saida);
+
+        RelatorioGerencialDTO exportado = objectMapper.readValue(saida.toByteArray(), RelatorioGerencialDTO.class);
+        assertThat(exportado.getSecaoDespesas().getTotalDespesas()).isEqualTo(120.0);
+        assertThat(exportado.getSecaoDespesas().getTodasDespesas()).extracting(DespesaDTO::getDescricao)
+                .containsExactly("Padaria", "Feira");
+        assertThat(exportado.getSecaoDespesas().getTodasDespesas().get(0).getCategoria().getNome()).isEqualTo("Mercado");
+        assertThat(exportado.getSecaoReceitas().getTodasReceitas()).extracting(ReceitaDTO::getValor)
+                .containsExactly(1000.0);
+        assertThat(exportado.getResumoExecutivo().getSaldoGeral()).isEqualTo(880.0);
+        assertThat(exportado.getSecaoAnaliseCategoria().getCategoriaMaiorDespesa().getNomeCategoria())
+                .isEqualTo("Mercado");
+
+        ByteArrayOutputStream somenteTotais = new ByteArrayOutputStream();
+        exportacaoRelatorioService.escreverJson(relatorio, 2, 2024, false, somenteTotais);
+        assertThat(objectMapper.readValue(somenteTotais.toByteArray(), RelatorioGerencialDTO.class)
+                .getSecaoDespesas().getTodasDespesas()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve ler as despesas do período por cursor e escrevê-las em PDF com a tabela em blocos")
+    void deveEscreverPdfDasDespesasDoPeriodo() throws Exception {
+        CategoriaDTO mercado = criarCategoria("Mercado");
+        despesaService.salvar(novaDespesa("Feira", 100.0, LocalDate.of(2024, 2, 5), mercado));
+        despesaService.salvar(novaDespesa("Sem categoria", 20.0, LocalDate.of(2024, 2, 20), null));
+        despesaService.salvar(novaDespesa("Fora do período", 70.0, LocalDate.of(2024, 3, 1), mercado));
+
+        try (Stream<DespesaDTO> despesas = exportacaoRelatorioService.lerDespesas(2, 2024)) {
+            assertThat(despesas.map(DespesaDTO::getDescricao)).containsExactly("Sem categoria", "Feira");
+        }
+
+        List<DespesaDTO> muitas = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            DespesaDTO despesa = novaDespesa("Despesa " + id, 10.0, LocalDate.of(2024, 2, 1), mercado);
+            despesa.setId(id);
+            muitas.add(despesa);
+        }
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (Stream<DespesaDTO> despesas = muitas.stream()) {
+            pdfGenerator.escreverPDFDespesas(despesas::iterator, "Relatório de Despesas", saida);
+        }
+
+        PdfReader leitor = new PdfReader(saida.toByteArray());
+        try {
+            assertThat(leitor.getNumberOfPages()).isGreaterThan(1);
+            PdfTextExtractor extrator = new PdfTextExtractor(leitor);
+            // Cabeçalho repetido na última página e última linha presente
+            String ultimaPagina = extrator.getTextFromPage(leitor.getNumberOfPages());
+            assertThat(ultimaPagina).contains("Descrição").contains("Despesa 1000");
+        } finally {
+            leitor.close();
+        }
+    }
+
+    private DespesaDTO novaDespesa(String descricao, Double valor, LocalDate data, CategoriaDTO categoria) {
+        DespesaDTO despesa = novaDespesa(descricao, valor, data);
+        despesa.setCategoria(categoria);
+        return despesa;
+    }
+}
@@ -0,0 +1,150 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.CartaoDTO;
+import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.dto.FaturaDTO;
+import com.marciliojr.pirangueiro.dto.SelecaoDespesasDTO;
+import com.marciliojr.pirangueiro.model.Fatura;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes das faturas materializadas")
+class FaturaServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private FaturaService faturaService;
+
+    private CartaoDTO cartao;
+
+    @BeforeEach
+    void prepararCartao() {
+        cartao = criarCartao("Cartão Fatura", 10000.0);
+    }
+
+    @Test
+    @DisplayName("Deve manter total, valor pago e quantidade da fatura a cada alteração de despesa")
+    void deveManterTotaisIncrementalmente() {
+        DespesaDTO mercado = despesaService.salvar(compra("Mercado", 100.0, LocalDate.of(2024, 2, 10)));
+        despesaService.salvar(compra("Farmácia", 50.0, LocalDate.of(2024, 2, 29)));
+
+        FaturaDTO fatura = faturaService.buscarPorReferencia(cartao.getId(), 2, 2024);
+        assertThat(fatura.getValorTotal()).isEqualTo(150.0);
+        assertThat(fatura.getValorPago()).isZero();
+        assertThat(fatura.getQuantidadeDespesas()).isEqualTo(2);
+
+        DespesaDTO pagamento = compra("Mercado", 100.0, LocalDate.of(2024, 2, 10));
+        pagamento.setId(mercado.getId());
+        pagamento.setPago(true);
+        despesaService.salvar(pagamento);
+
+        fatura = faturaService.buscarPorReferencia(cartao.getId(), 2, 2024);
+        assertThat(fatura.getValorPago()).isEqualTo(100.0);
+        assertThat(fatura.getValorPendente()).isEqualTo(50.0);
+
+        despesaService.excluir(mercado.getId());
+
+        fatura = faturaService.buscarPorReferencia(cartao.getId(), 2, 2024);
+        assertThat(fatura.getValorTotal()).isEqualTo(50.0);
+        assertThat(fatura.getValorPago()).isZero();
+        assertThat(fatura.getQuantidadeDespesas()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve ajustar o dia de fechamento ao tamanho do mês e lançar compras após o fechamento na fatura seguinte")
+    void deveCalcularCicloComFechamentoAjustado() {
+        despesaService.salvar(compra("Último dia", 10.0, LocalDate.of(2023, 2, 28)));
+        despesaService.salvar(compra("Primeiro dia", 20.0, LocalDate.of(2023, 3, 1)));
+
+        FaturaDTO fevereiro = faturaService.buscarPorReferencia(cartao.getId(), 2, 2023);
+        assertThat(fevereiro.getDataInicio()).isEqualTo(LocalDate.of(2023, 2, 1));
+        assertThat(fevereiro.getDataFechamento()).isEqualTo(LocalDate.of(2023, 2, 28));
+        assertThat(fevereiro.getDataVencimento()).isEqualTo(LocalDate.of(2023, 3, 10));
+        assertThat(fevereiro.getValorTotal()).isEqualTo(10.0);
+
+        FaturaDTO marco = faturaService.buscarPorReferencia(cartao.getId(), 3, 2023);
+        assertThat(marco.getDataInicio()).isEqualTo(LocalDate.of(2023, 3, 1));
+        assertThat(marco.getValorTotal()).isEqualTo(20.0);
+        assertThat(despesaService.buscarDespesasPorCartaoEPeriodoFatura(cartao.getId(), 3, 2023)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Deve distribuir as parcelas nas faturas e fechar as faturas de ciclos encerrados")
+    void deveDistribuirParcelasEFecharCiclos() {
+        DespesaDTO compra = compra("Notebook", 300.0, LocalDate.of(2024, 1, 15));
+        compra.setQuantidadeParcelas(3);
+        despesaService.salvar(compra);
+
+        List<FaturaDTO> faturas = faturaService.listarPorCartao(cartao.getId());
+        assertThat(faturas).extracting(FaturaDTO::getMes).containsExactly(3, 2, 1);
+        assertThat(faturas).extracting(FaturaDTO::getValorTotal).containsOnly(100.0);
+        assertThat(faturas).extracting(FaturaDTO::getStatus).containsOnly(Fatura.StatusFatura.FECHADA);
+
+        SelecaoDespesasDTO selecao = new SelecaoDespesasDTO();
+        selecao.setCartaoId(cartao.getId());
+        despesaService.atualizarPagoEmLote(selecao, true);
+
+        assertThat(faturaService.listarPorCartao(cartao.getId()))
+                .extracting(FaturaDTO::getStatus).containsOnly(Fatura.StatusFatura.PAGA);
+    }
+
+    @Test
+    @DisplayName("Alterações em ciclo encerrado devem atualizar a própria fatura e recalcular o status")
+    void alteracoesEmCicloEncerradoDevemRecalcularStatus() {
+        DespesaDTO paga = compra("Passagem", 200.0, LocalDate.of(2024, 5, 10));
+        paga.setPago(true);
+        despesaService.salvar(paga);
+        assertThat(faturaService.buscarPorReferencia(cartao.getId(), 5, 2024).getStatus())
+                .isEqualTo(Fatura.StatusFatura.PAGA);
+
+        DespesaDTO esquecida = despesaService.salvar(compra("Hotel", 80.0, LocalDate.of(2024, 5, 20)));
+        FaturaDTO reaberta = faturaService.buscarPorReferencia(cartao.getId(), 5, 2024);
+        assertThat(reaberta.getStatus()).isEqualTo(Fatura.StatusFatura.FECHADA);
+        assertThat(reaberta.getValorTotal()).isEqualTo(280.0);
+        assertThat(reaberta.getValorPendente()).isEqualTo(80.0);
+        // A fatura seguinte não recebe a despesa do ciclo encerrado
+        assertThat(faturaService.buscarPorReferencia(cartao.getId(), 6, 2024).getQuantidadeDespesas()).isZero();
+
+        despesaService.excluir(esquecida.getId());
+        FaturaDTO quitada = faturaService.buscarPorReferencia(cartao.getId(), 5, 2024);
+        assertThat(quitada.getStatus()).isEqualTo(Fatura.StatusFatura.PAGA);
+        assertThat(quitada.getValorTotal()).isEqualTo(200.0);
+
+        List<FaturaDTO> incrementais = faturaService.listarPorCartao(cartao.getId());
+        faturaService.reconstruir(cartao.getId());
+        assertThat(faturaService.listarPorCartao(cartao.getId()))
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .containsExactlyElementsOf(incrementais);
+    }
+
+    @Test
+    @DisplayName("A reconstrução a partir das despesas deve chegar aos mesmos totais da manutenção incremental")
+    void reconstrucaoDeveSerIgualAManutencaoIncremental() {
+        for (int dia = 1; dia <= 28; dia++) {
+            DespesaDTO despesa = compra("Compra " + dia, (double) dia, LocalDate.of(2024, 4, dia));
+            despesa.setPago(dia % 2 == 0);
+            despesaService.salvar(despesa);
+        }
+        List<FaturaDTO> incrementais = faturaService.listarPorCartao(cartao.getId());
+
+        faturaService.reconstruir(cartao.getId());
+        List<FaturaDTO> reconstruidas = faturaService.listarPorCartao(cartao.getId());
+
+        assertThat(reconstruidas).usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .containsExactlyElementsOf(incrementais);
+        assertThat(reconstruidas.get(0).getValorTotal()).isEqualTo(406.0);
+        assertThat(reconstruidas.get(0).getValorPago()).isEqualTo(210.0);
+    }
+
+    private DespesaDTO compra(String descricao, Double valor, LocalDate data) {
+        DespesaDTO despesa = novaDespesa(descricao, valor, data);
+        despesa.setCartao(cartao);
+        return despesa;
+    }
+}
@@ -0,0 +1,126 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.model.Historico;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes da gravação do histórico em segundo plano")
+class HistoricoServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Deve gravar o histórico das operações confirmadas e descartar o das desfeitas")
+    void deveGravarApenasOperacoesConfirmadas() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(despesaService.salvar(novaDespesa(10.0 + i)).getId());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            despesaService.salvar(novaDespesa(999.0));
+            status.setRollbackOnly();
+        });
+
+        historicoService.descarregar();
+
+        List<Historico> historicos = historicoRepository.findAll();
+        assertThat(historicos).hasSize(20)
+                .allMatch(h -> h.getTipoOperacao() == Historico.TipoOperacao.CRIACAO_DESPESA)
+                .allMatch(h -> h.getDataHora() != null);
+        assertThat(historicos).extracting(Historico::getEntidadeId).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    @DisplayName("Deve gravar sem usuário quando o usuário informado não existe mais")
+    void deveGravarSemUsuarioInexistente() {
+        historicoService.registrarOperacao(Historico.TipoOperacao.EDICAO_CONTA, "CONTA", 7L, "Conta 7", 999_999L);
+        historicoService.registrarOperacoesEmLote(Historico.TipoOperacao.EXCLUSAO_DESPESA, "DESPESA",
+                List.of(1L, 2L, 3L), "Exclusão em lote", null);
+
+        historicoService.descarregar();
+
+        assertThat(historicoRepository.findByEntidadeAndEntidadeIdOrderByDataHoraDesc("CONTA", 7L))
+                .singleElement()
+                .satisfies(h -> {
+                    assertThat(h.getUsuario()).isNull();
+                    assertThat(h.getInfo()).isEqualTo("Conta 7");
+                });
+        assertThat(historicoRepository.count()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Não deve perder registros feitos enquanto a aplicação encerra")
+    void naoDevePerderRegistrosNoEncerramento() throws Exception {
+        // Instância própria: encerrar a do contexto pararia a gravação dos demais testes
+        HistoricoService servico = new HistoricoService();
+        // Gravação lenta, para que ainda haja registros na fila quando o encerramento começar
+        JdbcTemplate lento = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+                return super.batchUpdate(sql, batchArgs);
+            }
+        };
+        ReflectionTestUtils.setField(servico, "jdbcTemplate", lento);
+        ReflectionTestUtils.setField(servico, "capacidadeFila", 50);
+        ReflectionTestUtils.setField(servico, "tamanhoLote", 20);
+        ReflectionTestUtils.setField(servico, "esperaFilaMs", 50L);
+        ReflectionTestUtils.setField(servico, "timeoutDescargaSegundos", 30);
+        servico.iniciarGravador();
+
+        int threads = 4;
+        int porThread = 300;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch metade = new CountDownLatch(threads);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = t * 10_000L;
+            futuros.add(executor.submit(() -> {
+                for (int i = 0; i < porThread; i++) {
+                    if (i == porThread / 2) {
+                        metade.countDown();
+                    }
+                    servico.registrarOperacao(Historico.TipoOperacao.EDICAO_CONTA, "CONTA", base + i, "Conta", null);
+                }
+            }));
+        }
+        assertThat(metade.await(30, TimeUnit.SECONDS)).isTrue();
+        servico.encerrar();
+        for (Future<?> futuro : futuros) {
+            futuro.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(historicoRepository.count()).isEqualTo(threads * porThread);
+
+        // Depois do encerramento o registro é gravado por quem registra
+        servico.registrarOperacao(Historico.TipoOperacao.EDICAO_CONTA, "CONTA", 1L, "Após encerrar", null);
+        assertThat(historicoRepository.count()).isEqualTo(threads * porThread + 1);
+    }
+
+    private DespesaDTO novaDespesa(Double valor) {
+        return novaDespesa("Despesa", valor, LocalDate.of(2024, 3, 10));
+    }
+}
@@ -0,0 +1,220 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.BackupDTO;
+import com.marciliojr.pirangueiro.dto.ParametrosImportacaoDTO;
+import com.marciliojr.pirangueiro.dto.ResultadoImportacaoDTO;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import com.marciliojr.pirangueiro.model.Despesa;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import com.marciliojr.pirangueiro.service.ImportacaoExtratoService.FormatoExtrato;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes da importação de extratos CSV e OFX")
+class ImportacaoExtratoServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private ImportacaoExtratoService importacaoExtratoService;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Test
+    @DisplayName("Deve converter valores com vírgula decimal, separador de milhar, sinal e símbolo da moeda")
+    void deveConverterValores() {
+        assertThat(ImportacaoExtratoService.lerValor("1.234,56")).isEqualTo(1234.56);
+        assertThat(ImportacaoExtratoService.lerValor("1,234.56")).isEqualTo(1234.56);
+        assertThat(ImportacaoExtratoService.lerValor("-45.90")).isEqualTo(-45.90);
+        assertThat(ImportacaoExtratoService.lerValor("-1.000,00")).isEqualTo(-1000.0);
+        assertThat(ImportacaoExtratoService.lerValor("R$ 10,00")).isEqualTo(10.0);
+        assertThat(ImportacaoExtratoService.lerValor("  ")).isNull();
+        assertThatThrownBy(() -> ImportacaoExtratoService.lerValor("dez reais"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Deve importar o CSV, separar despesas e receitas pelo sinal e relatar linhas inválidas")
+    void deveImportarCsv() throws Exception {
+        String csv = "\uFEFFData;Descrição;Valor\n" +
+                "05/03/2024;\"Mercado; semana 1\";-1.234,56\n" +
+                "06/03/2024;Salário;3.500,00\n" +
+                "\n" +
+                "07/03/2024;Tarifa;0,00\n" +
+                "31/02/2024;Data inválida;-10,00\n" +
+                "2024-03-08;Farmácia;-45,90\n";
+
+        ResultadoImportacaoDTO resultado = importar(csv, "extrato.csv", FormatoExtrato.CSV);
+
+        assertThat(resultado.getLinhasLidas()).isEqualTo(5);
+        assertThat(resultado.getDespesasImportadas()).isEqualTo(2);
+        assertThat(resultado.getReceitasImportadas()).isEqualTo(1);
+        assertThat(resultado.getTotalDespesas()).isCloseTo(1280.46, within(0.001));
+        assertThat(resultado.getTotalReceitas()).isEqualTo(3500.0);
+        assertThat(resultado.getLinhasIgnoradas()).isEqualTo(2);
+        assertThat(resultado.getErros()).singleElement().asString().startsWith("Linha 6:");
+
+        List<Despesa> despesas = despesaRepository.findAll();
+        despesas.sort(Comparator.comparing(Despesa::getData));
+        assertThat(despesas).extracting(Despesa::getDescricao, Despesa::getValor, Despesa::getData)
+                .containsExactly(
+                        tuple("Mercado; semana 1", 1234.56, LocalDate.of(2024, 3, 5)),
+                        tuple("Farmácia", 45.90, LocalDate.of(2024, 3, 8)));
+        assertThat(despesas).allMatch(d -> Boolean.TRUE.equals(d.getPago()));
+    }
+
+    @Test
+    @DisplayName("Deve ignorar pelo hash os lançamentos já importados, mantendo repetições legítimas do arquivo")
+    void deveIgnorarDuplicadas() throws Exception {
+        String csv = "data,descricao,valor\n" +
+                "2024-04-01,Padaria,-8.50\n" +
+                "2024-04-01,Padaria,-8.50\n" +
+                "2024-04-02,Uber,-23.10\n";
+
+        ResultadoImportacaoDTO primeira = importar(csv, "extrato.csv", FormatoExtrato.CSV);
+        assertThat(primeira.getDespesasImportadas()).isEqualTo(3);
+        assertThat(primeira.getDuplicadasIgnoradas()).isZero();
+
+        // Mesmo arquivo de novo, com uma linha nova e uma terceira padaria no mesmo dia
+        ResultadoImportacaoDTO segunda = importar(csv + "2024-04-01,Padaria,-8.50\n2024-04-03,Cinema,-40.00\n",
+                "extrato.csv", FormatoExtrato.CSV);
+        assertThat(segunda.getDuplicadasIgnoradas()).isEqualTo(3);
+        assertThat(segunda.getDespesasImportadas()).isEqualTo(2);
+        assertThat(despesaRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve continuar deduplicando os lançamentos restaurados de um backup")
+    void deveDeduplicarDepoisDeRestaurarBackup() throws Exception {
+        String csv = "data,descricao,valor\n" +
+                "2024-04-01,Padaria,-8.50\n" +
+                "2024-04-01,Padaria,-8.50\n" +
+                "2024-04-02,Salário,3000.00\n" +
+                "2024-04-03,Uber,-23.10\n";
+        importar(csv, "extrato.csv", FormatoExtrato.CSV);
+
+        BackupDTO backup = backupService.deserializarBackup(backupService.serializarBackup(backupService.gerarBackupCompleto()));
+        // Backup gerado antes do hash existir
+        backup.getDespesas().stream().filter(d -> "Uber".equals(d.getDescricao()))
+                .forEach(d -> d.setHashImportacao(null));
+        backupService.restaurarBackup(backup);
+
+        ResultadoImportacaoDTO depois = importar(csv, "extrato.csv", FormatoExtrato.CSV);
+        assertThat(depois.getDespesasImportadas()).isZero();
+        assertThat(depois.getReceitasImportadas()).isZero();
+        assertThat(depois.getDuplicadasIgnoradas()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Deve gravar em vários lotes e deduplicar também entre lotes")
+    void deveGravarEmLotes() throws Exception {
+        StringBuilder csv = new StringBuilder("data;descricao;valor\n");
+        for (int i = 0; i < 1_200; i++) {
+            csv.append("10/01/2024;Compra ").append(i).append(";-").append(i + 1).append(",00\n");
+        }
+
+        ResultadoImportacaoDTO primeira = importar(csv.toString(), "grande.csv", FormatoExtrato.CSV);
+        assertThat(primeira.getDespesasImportadas()).isEqualTo(1_200);
+        assertThat(primeira.getTotalDespesas()).isEqualTo(1_200 * 1_201 / 2.0);
+        assertThat(despesaRepository.count()).isEqualTo(1_200);
+
+        ResultadoImportacaoDTO segunda = importar(csv.toString(), "grande.csv", FormatoExtrato.CSV);
+        assertThat(segunda.getDespesasImportadas()).isZero();
+        assertThat(segunda.getDuplicadasIgnoradas()).isEqualTo(1_200);
+    }
+
+    @Test
+    @DisplayName("Deve numerar as repetições de uma data que volta depois de outras datas, mesmo entre lotes")
+    void deveNumerarRepeticoesDeDataForaDeOrdem() throws Exception {
+        StringBuilder csv = new StringBuilder("data;descricao;valor\n");
+        csv.append("01/04/2024;Padaria;-8,50\n");
+        for (int i = 0; i < 600; i++) {
+            csv.append("02/04/2024;Compra ").append(i).append(";-1,00\n");
+        }
+        // O primeiro 01/04 já foi gravado em um lote anterior; o segundo ainda está pendente
+        csv.append("01/04/2024;Padaria;-8,50\n");
+        csv.append("01/04/2024;Padaria;-8,50\n");
+
+        ResultadoImportacaoDTO primeira = importar(csv.toString(), "extrato.csv", FormatoExtrato.CSV);
+        assertThat(primeira.getDespesasImportadas()).isEqualTo(603);
+        assertThat(primeira.getDuplicadasIgnoradas()).isZero();
+
+        ResultadoImportacaoDTO segunda = importar(csv.toString(), "extrato.csv", FormatoExtrato.CSV);
+        assertThat(segunda.getDespesasImportadas()).isZero();
+        assertThat(segunda.getDuplicadasIgnoradas()).isEqualTo(603);
+        assertThat(despesaRepository.count()).isEqualTo(603);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar o cubo carregado com os lançamentos importados em vários lotes")
+    void deveAtualizarCuboDepoisDaImportacao() throws Exception {
+        YearMonth janeiro = YearMonth.of(2024, 1);
+        assertThat(cuboAnaliticoService.totalDoMes(TipoLancamento.DESPESA, janeiro).quantidade()).isZero();
+
+        StringBuilder csv = new StringBuilder("data;descricao;valor\n");
+        for (int i = 0; i < 1_200; i++) {
+            csv.append("10/01/2024;Compra ").append(i).append(";-2,00\n");
+        }
+        importar(csv.toString(), "grande.csv", FormatoExtrato.CSV);
+
+        assertThat(cuboAnaliticoService.totalDoMes(TipoLancamento.DESPESA, janeiro))
+                .satisfies(total -> {
+                    assertThat(total.quantidade()).isEqualTo(1_200);
+                    assertThat(total.total()).isEqualTo(2_400.0);
+                });
+    }
+
+    @Test
+    @DisplayName("Deve interromper a importação inteira quando a gravação de um lote falha")
+    void deveInterromperQuandoLoteFalha() {
+        StringBuilder csv = new StringBuilder("data;descricao;valor\n");
+        for (int i = 0; i < 1_200; i++) {
+            // Descrição maior que a coluna: o primeiro lote falha no banco, não na leitura da linha
+            String descricao = i == 10 ? "x".repeat(300) : "Compra " + i;
+            csv.append("10/01/2024;").append(descricao).append(";-1,00\n");
+        }
+
+        assertThatThrownBy(() -> importar(csv.toString(), "grande.csv", FormatoExtrato.CSV))
+                .isInstanceOf(NegocioException.class)
+                .hasMessage("Não foi possível gravar os lançamentos do extrato");
+        assertThat(despesaRepository.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve importar as transações do OFX usando MEMO ou NAME como descrição")
+    void deveImportarOfx() throws Exception {
+        String ofx = "OFXHEADER:100\nDATA:OFXSGML\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>\n" +
+                "<STMTTRN><TRNTYPE>DEBIT<DTPOSTED>20240315120000[-3:BRT]<TRNAMT>-99.90<FITID>1<MEMO>Internet</STMTTRN>\n" +
+                "<STMTTRN>\n<TRNTYPE>CREDIT\n<DTPOSTED>20240320\n<TRNAMT>150.00\n<FITID>2\n<NAME>Reembolso\n</STMTTRN>\n" +
+                "<STMTTRN><TRNTYPE>DEBIT<TRNAMT>-5.00<FITID>3<MEMO>Sem data</STMTTRN>\n" +
+                "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n";
+
+        ResultadoImportacaoDTO resultado = importar(ofx, "extrato.ofx", FormatoExtrato.OFX);
+
+        assertThat(resultado.getLinhasLidas()).isEqualTo(3);
+        assertThat(resultado.getDespesasImportadas()).isEqualTo(1);
+        assertThat(resultado.getReceitasImportadas()).isEqualTo(1);
+        assertThat(resultado.getErros()).singleElement().asString().startsWith("Transação 3:");
+        assertThat(despesaRepository.findAll()).singleElement()
+                .satisfies(d -> {
+                    assertThat(d.getDescricao()).isEqualTo("Internet");
+                    assertThat(d.getData()).isEqualTo(LocalDate.of(2024, 3, 15));
+                });
+        assertThat(receitaRepository.findAll()).singleElement()
+                .satisfies(r -> assertThat(r.getDescricao()).isEqualTo("Reembolso"));
+    }
+
+    private ResultadoImportacaoDTO importar(String conteudo, String nomeArquivo, FormatoExtrato formato) throws Exception {
+        return importacaoExtratoService.importar(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)),
+                nomeArquivo, formato, new ParametrosImportacaoDTO());
+    }
+}
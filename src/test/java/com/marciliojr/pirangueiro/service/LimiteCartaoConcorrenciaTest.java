@@ -0,0 +1,164 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.CartaoDTO;
+import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes de concorrência do limite do cartão")
+class LimiteCartaoConcorrenciaTest extends ServicoTesteBase {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private LimiteCartaoService limiteCartaoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private CartaoDTO cartao;
+
+    @BeforeEach
+    void prepararCartao() {
+        CartaoDTO novo = novoCartao("Cartão Concorrência", 1000.0);
+        novo.setDiaFechamento(15);
+        cartao = cartaoService.salvar(novo);
+    }
+
+    @Test
+    @DisplayName("Compras paralelas no mesmo cartão nunca devem ultrapassar o limite")
+    void comprasParalelasNaoDevemUltrapassarLimite() throws Exception {
+        int tentativas = 2000; // R$ 2000 em compras de R$ 1 contra limite de R$ 1000
+        AtomicInteger aprovadas = new AtomicInteger();
+        AtomicInteger recusadas = new AtomicInteger();
+        List<Throwable> errosInesperados = Collections.synchronizedList(new ArrayList<>());
+
+        executarEmParalelo(tentativas, i -> {
+            try {
+                despesaService.salvar(novaDespesa("Compra " + i, 1.0));
+                aprovadas.incrementAndGet();
+            } catch (NegocioException e) {
+                recusadas.incrementAndGet();
+            } catch (Throwable e) {
+                errosInesperados.add(e);
+            }
+        });
+
+        assertThat(errosInesperados).isEmpty();
+        assertThat(aprovadas.get()).isEqualTo(1000);
+        assertThat(recusadas.get()).isEqualTo(1000);
+        // Nenhuma reserva perdida: o contador é exatamente a soma das despesas gravadas, no limite
+        assertThat(limiteUsado()).isEqualTo(1000.0);
+        assertThat(despesaRepository.count()).isEqualTo(1000);
+        assertThat(cartaoRepository.calcularTotalDespesasPorCartao(cartao.getId())).isEqualTo(1000.0);
+    }
+
+    @Test
+    @DisplayName("Inclusões, pagamentos e exclusões paralelos devem manter o contador igual à soma das despesas")
+    void operacoesMistasDevemManterContadorConsistente() throws Exception {
+        List<DespesaDTO> existentes = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            existentes.add(despesaService.salvar(novaDespesa("Existente " + i, 2.0)));
+        }
+        List<Throwable> errosInesperados = Collections.synchronizedList(new ArrayList<>());
+
+        executarEmParalelo(900, i -> {
+            try {
+                DespesaDTO alvo = existentes.get(i % existentes.size());
+                switch (i % 3) {
+                    case 0 -> despesaService.salvar(novaDespesa("Nova " + i, 1.5));
+                    case 1 -> {
+                        DespesaDTO pagamento = novaDespesa(alvo.getDescricao(), alvo.getValor());
+                        pagamento.setId(alvo.getId());
+                        pagamento.setPago(i % 2 == 0);
+                        despesaService.salvar(pagamento);
+                    }
+                    default -> despesaService.excluir(alvo.getId());
+                }
+            } catch (NegocioException e) {
+                // Limite excedido ou despesa já excluída por outra thread
+            } catch (Throwable e) {
+                errosInesperados.add(e);
+            }
+        });
+
+        assertThat(errosInesperados).isEmpty();
+        Double somaNaoPagas = cartaoRepository.calcularTotalDespesasPorCartao(cartao.getId());
+        assertThat(limiteUsado()).isCloseTo(somaNaoPagas, within(0.001));
+        assertThat(limiteUsado()).isLessThanOrEqualTo(cartao.getLimite());
+        assertThat(limiteCartaoService.reconciliar()).isZero();
+
+        // A fatura do ciclo atual acompanha as mesmas alterações concorrentes
+        double somaDespesas = despesaRepository.findAll().stream().mapToDouble(d -> d.getValor()).sum();
+        double totalFaturas = faturaRepository.findAll().stream().mapToDouble(f -> f.getValorTotal()).sum();
+        assertThat(totalFaturas).isCloseTo(somaDespesas, within(0.001));
+    }
+
+    @Test
+    @DisplayName("Reserva recusada deve informar o limite usado atual, não o do cartão já carregado na transação")
+    void reservaRecusadaDeveInformarLimiteUsadoAtual() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // Cartão carregado no contexto de persistência com o limite usado ainda zerado
+            assertThat(cartaoRepository.findById(cartao.getId()).orElseThrow().getLimiteUsado()).isZero();
+
+            // Outra transação consome 900 do limite e confirma
+            CompletableFuture.runAsync(() -> limiteCartaoService.reservar(cartao.getId(), 900.0)).join();
+
+            assertThatThrownBy(() -> limiteCartaoService.reservar(cartao.getId(), 200.0))
+                    .isInstanceOf(NegocioException.class)
+                    .extracting(e -> ((NegocioException) e).getDetalhe()).asString()
+                    .contains("900")
+                    .contains("100");
+            // A reserva recusada marcou a transação para rollback
+            status.setRollbackOnly();
+        });
+        assertThat(limiteUsado()).isEqualTo(900.0);
+    }
+
+    private void executarEmParalelo(int quantidade, IntConsumerComExcecao tarefa) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            int indice = i;
+            futuros.add(executor.submit(() -> {
+                largada.await();
+                tarefa.aceitar(indice);
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> futuro : futuros) {
+            futuro.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private DespesaDTO novaDespesa(String descricao, Double valor) {
+        DespesaDTO despesa = novaDespesa(descricao, valor, LocalDate.now());
+        despesa.setCartao(cartao);
+        return despesa;
+    }
+
+    private double limiteUsado() {
+        return cartaoRepository.findById(cartao.getId()).orElseThrow().getLimiteUsado();
+    }
+
+    @FunctionalInterface
+    private interface IntConsumerComExcecao {
+        void aceitar(int indice) throws Exception;
+    }
+}
@@ -0,0 +1,141 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.dto.GraficoPrevisaoGastosDTO.SeriePrevisaoDTO;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes da previsão de gastos")
+class PrevisaoGastosServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void prepararPrevisao() {
+        previsaoGastosService.invalidar();
+    }
+
+    @Test
+    @DisplayName("Deve prever com Holt-Winters o pico sazonal com dois anos ou mais de histórico")
+    void devePreverPicoSazonal() {
+        YearMonth atual = YearMonth.now();
+        // Três anos completos: 100 por mês e 400 em dezembro
+        for (int i = 36; i >= 1; i--) {
+            YearMonth mes = atual.minusMonths(i);
+            despesaService.salvar(novaDespesa(mes.getMonthValue() == 12 ? 400.0 : 100.0, mes, null, null));
+        }
+
+        GraficoPrevisaoGastosDTO previsao = previsaoGastosService.buscarPrevisaoGastos(12);
+        assertThat(previsao.getMeses()).hasSize(12);
+        assertThat(previsao.getMeses().get(0))
+                .isEqualTo(String.format("%02d/%04d", atual.getMonthValue(), atual.getYear()));
+
+        SeriePrevisaoDTO total = previsao.getSeries().get(0);
+        assertThat(total.getTipo()).isEqualTo("TOTAL");
+        assertThat(total.getModelo()).isEqualTo("HOLT_WINTERS");
+        assertThat(total.getMesesHistorico()).isEqualTo(36);
+
+        int posicaoDezembro = 12 - atual.getMonthValue();
+        for (int h = 0; h < 12; h++) {
+            double valor = total.getValores().get(h);
+            assertThat(total.getLimitesInferiores().get(h)).isLessThanOrEqualTo(valor);
+            assertThat(total.getLimitesSuperiores().get(h)).isGreaterThanOrEqualTo(valor);
+            if (h == posicaoDezembro) {
+                assertThat(valor).isCloseTo(400.0, within(1.0));
+            } else {
+                assertThat(valor).isCloseTo(100.0, within(1.0));
+            }
+        }
+
+        assertThatThrownBy(() -> previsaoGastosService.buscarPrevisaoGastos(25))
+                .isInstanceOf(NegocioException.class);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar as séries de total, categoria e cartão e chegar ao mesmo resultado de uma recarga")
+    void deveAtualizarSeriesIgualARecarga() {
+        CategoriaDTO mercado = criarCategoria("Mercado");
+        CartaoDTO nubank = criarCartao("Nubank", 10000.0);
+        YearMonth atual = YearMonth.now();
+        for (int i = 30; i >= 1; i--) {
+            despesaService.salvar(novaDespesa(50.0 + i, atual.minusMonths(i), mercado, null));
+        }
+        despesaService.salvar(novaDespesa(80.0, atual.minusMonths(3), null, nubank));
+
+        GraficoPrevisaoGastosDTO antes = previsaoGastosService.buscarPrevisaoGastos(6);
+        assertThat(antes.getSeries()).extracting(SeriePrevisaoDTO::getTipo, SeriePrevisaoDTO::getNome, SeriePrevisaoDTO::getModelo)
+                .containsExactly(
+                        tuple("TOTAL", "Total de despesas", "HOLT_WINTERS"),
+                        tuple("CATEGORIA", "Mercado", "HOLT_WINTERS"),
+                        tuple("CATEGORIA", "Sem categoria", "MEDIA"),
+                        tuple("CARTAO", "Nubank", "MEDIA"));
+
+        // Alterações no histórico e no mês atual, aplicadas aos modelos já ajustados
+        despesaService.salvar(novaDespesa(500.0, atual.minusMonths(4), mercado, null));
+        despesaService.salvar(novaDespesa(70.0, atual, null, nubank));
+        GraficoPrevisaoGastosDTO incremental = previsaoGastosService.buscarPrevisaoGastos(6);
+        assertThat(incremental.getSeries().get(0).getValores()).isNotEqualTo(antes.getSeries().get(0).getValores());
+
+        previsaoGastosService.invalidar();
+        GraficoPrevisaoGastosDTO recarga = previsaoGastosService.buscarPrevisaoGastos(6);
+
+        assertThat(incremental.getSeries()).hasSameSizeAs(recarga.getSeries());
+        for (int i = 0; i < recarga.getSeries().size(); i++) {
+            SeriePrevisaoDTO esperada = recarga.getSeries().get(i);
+            SeriePrevisaoDTO obtida = incremental.getSeries().get(i);
+            assertThat(obtida.getNome()).isEqualTo(esperada.getNome());
+            assertThat(obtida.getMesesHistorico()).isEqualTo(esperada.getMesesHistorico());
+            for (int h = 0; h < 6; h++) {
+                assertThat(obtida.getValores().get(h)).isCloseTo(esperada.getValores().get(h), within(1e-6));
+                assertThat(obtida.getLimitesSuperiores().get(h))
+                        .isCloseTo(esperada.getLimitesSuperiores().get(h), within(1e-6));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Não deve somar de novo uma despesa que já estava nos resumos lidos por uma carga após o commit")
+    void naoDeveAplicarDuasVezesDespesaJaCarregada() {
+        YearMonth atual = YearMonth.now();
+        for (int i = 6; i >= 1; i--) {
+            despesaService.salvar(novaDespesa(100.0, atual.minusMonths(i), null, null));
+        }
+
+        // Séries carregadas entre o commit e o ouvinte da previsão, como faria uma consulta concorrente
+        transactionTemplate.executeWithoutResult(status -> {
+            despesaService.salvar(novaDespesa(600.0, atual.minusMonths(1), null, null));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    previsaoGastosService.invalidar();
+                    previsaoGastosService.buscarPrevisaoGastos(1);
+                }
+            });
+        });
+
+        SeriePrevisaoDTO total = previsaoGastosService.buscarPrevisaoGastos(1).getSeries().get(0);
+        assertThat(total.getModelo()).isEqualTo("MEDIA");
+        assertThat(total.getValores().get(0)).isCloseTo(200.0, within(1e-6));
+    }
+
+    private DespesaDTO novaDespesa(Double valor, YearMonth mes, CategoriaDTO categoria, CartaoDTO cartao) {
+        return novaCompra(cartao, categoria, valor, mes.atDay(10));
+    }
+}
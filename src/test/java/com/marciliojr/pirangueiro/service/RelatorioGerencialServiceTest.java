@@ -0,0 +1,155 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.CartaoDTO;
+import com.marciliojr.pirangueiro.dto.ComparativoRelatorioDTO;
+import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.dto.ReceitaDTO;
+import com.marciliojr.pirangueiro.dto.RelatorioGerencialDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes do relatório gerencial")
+class RelatorioGerencialServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private RelatorioGerencialService relatorioGerencialService;
+
+    @Test
+    @DisplayName("Deve gerar totais e médias sem carregar os lançamentos e paginar os detalhes quando solicitados")
+    void deveGerarTotaisSemDetalhesEPaginarDetalhes() {
+        CartaoDTO nubank = criarCartao("Nubank", 1000.0);
+        for (int dia = 1; dia <= 5; dia++) {
+            despesaService.salvar(novaDespesa(nubank, dia * 10.0, LocalDate.of(2024, 8, dia), dia % 2 == 0));
+        }
+        despesaService.salvar(novaDespesa("Compra", 200.0, LocalDate.of(2024, 9, 1)));
+
+        RelatorioGerencialDTO resumido = relatorioGerencialService.gerarRelatorioCompleto(8, 2024);
+
+        assertThat(resumido.getSecoesIndisponiveis()).isEmpty();
+        assertThat(resumido.getSecaoDespesas().getTotalDespesas()).isEqualTo(150.0);
+        assertThat(resumido.getSecaoDespesas().getQuantidadeDespesas()).isEqualTo(5);
+        assertThat(resumido.getSecaoDespesas().getValorMedioDespesas()).isEqualTo(30.0);
+        assertThat(resumido.getSecaoDespesas().getTodasDespesas()).isNull();
+        assertThat(resumido.getSecaoReceitas().getTodasReceitas()).isNull();
+        assertThat(resumido.getSecaoCartoes().getCartoesDetalhados()).singleElement()
+                .satisfies(cartao -> assertThat(cartao.getDespesasNaoPagas()).isNull());
+
+        RelatorioGerencialDTO detalhado = relatorioGerencialService.gerarRelatorioComDetalhes(8, 2024, 1, 2);
+
+        assertThat(detalhado.getSecaoDespesas().getTotalDespesas()).isEqualTo(150.0);
+        assertThat(detalhado.getSecaoDespesas().getTodasDespesas()).extracting(DespesaDTO::getValor)
+                .containsExactly(30.0, 20.0);
+        RelatorioGerencialDTO.PaginacaoDetalhes paginacao = detalhado.getSecaoDespesas().getPaginacaoDetalhes();
+        assertThat(paginacao.getTotalElementos()).isEqualTo(5);
+        assertThat(paginacao.getTotalPaginas()).isEqualTo(3);
+        assertThat(detalhado.getSecaoCartoes().getCartoesDetalhados().get(0).getDespesasNaoPagas())
+                .extracting(DespesaDTO::getValor).containsExactly(50.0, 30.0, 10.0);
+    }
+
+    @Test
+    @DisplayName("Deve entregar as demais seções e marcar o resumo como indisponível quando uma seção falha ou excede o prazo")
+    void deveMarcarSecoesIndisponiveis() {
+        despesaService.salvar(novaDespesa("Compra", 100.0, LocalDate.of(2024, 8, 10)));
+
+        // Despesas falham e receitas demoram mais que o prazo de 1s; os detalhes usam esses serviços
+        DespesaService despesaOriginal = (DespesaService) ReflectionTestUtils.getField(relatorioGerencialService, "despesaService");
+        DespesaService despesasComErro = new DespesaService() {
+            @Override
+            public Page<DespesaDTO> buscarComFiltros(String descricao, Integer mes, Integer ano, int pagina, int tamanhoPagina) {
+                throw new IllegalStateException("banco indisponível");
+            }
+
+            // Usado pela seção de cartões, que deve continuar disponível
+            @Override
+            public List<DespesaDTO> buscarNaoPagasDeCartao(Integer mes, Integer ano) {
+                return despesaOriginal.buscarNaoPagasDeCartao(mes, ano);
+            }
+        };
+        ReceitaService receitasLentas = new ReceitaService() {
+            @Override
+            public Page<ReceitaDTO> buscarComFiltros(String descricao, Integer mes, Integer ano, int pagina,
+                                                     int tamanhoPagina, String ordenacao, String direcao) {
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(10));
+                return Page.empty();
+            }
+        };
+        Object receitaOriginal = ReflectionTestUtils.getField(relatorioGerencialService, "receitaService");
+        Object timeoutOriginal = ReflectionTestUtils.getField(relatorioGerencialService, "timeoutSecaoSegundos");
+        ReflectionTestUtils.setField(relatorioGerencialService, "despesaService", despesasComErro);
+        ReflectionTestUtils.setField(relatorioGerencialService, "receitaService", receitasLentas);
+        ReflectionTestUtils.setField(relatorioGerencialService, "timeoutSecaoSegundos", 1);
+        RelatorioGerencialDTO relatorio;
+        try {
+            relatorio = relatorioGerencialService.gerarRelatorioComDetalhes(8, 2024, 0, 10);
+        } finally {
+            ReflectionTestUtils.setField(relatorioGerencialService, "despesaService", despesaOriginal);
+            ReflectionTestUtils.setField(relatorioGerencialService, "receitaService", receitaOriginal);
+            ReflectionTestUtils.setField(relatorioGerencialService, "timeoutSecaoSegundos", timeoutOriginal);
+        }
+
+        assertThat(relatorio.getSecoesIndisponiveis())
+                .containsEntry("despesas", "Erro ao calcular: banco indisponível")
+                .containsEntry("receitas", "Tempo limite de 1s excedido")
+                .doesNotContainKeys("saldosContas", "analiseCategoria", "cartoes");
+        assertThat(relatorio.getSecaoDespesas().getTotalDespesas()).isZero();
+        assertThat(relatorio.getSecaoReceitas().getTotalReceitas()).isZero();
+        assertThat(relatorio.getSecaoAnaliseCategoria()).isNotNull();
+        assertThat(relatorio.getResumoExecutivo().getSituacaoFinanceira()).isEqualTo("INDISPONIVEL");
+    }
+
+    @Test
+    @DisplayName("Deve servir o mês encerrado do snapshot até uma escrita no mês marcá-lo como sujo")
+    void deveServirMesEncerradoDoSnapshot() {
+        despesaService.salvar(novaDespesa("Compra", 100.0, LocalDate.of(2023, 3, 10)));
+        despesaService.salvar(novaDespesa("Compra", 80.0, LocalDate.of(2022, 3, 10)));
+
+        assertThat(relatorioGerencialService.gerarRelatorioCompleto(3, 2023).getSecaoDespesas().getTotalDespesas())
+                .isEqualTo(100.0);
+        assertThat(snapshotRelatorioRepository.findByAnoAndMes(2023, 3)).hasValueSatisfying(snapshot ->
+                assertThat(snapshot.getSujo()).isFalse());
+
+        // Resumos apagados sem passar pelas escritas: o mês continua vindo do snapshot
+        resumoMensalRepository.deleteAllInBatch();
+        RelatorioGerencialDTO doSnapshot = relatorioGerencialService.gerarRelatorioCompleto(3, 2023);
+        assertThat(doSnapshot.getSecaoDespesas().getTotalDespesas()).isEqualTo(100.0);
+        assertThat(doSnapshot.getResumoExecutivo().getDespesaTotal()).isEqualTo(100.0);
+        assertThat(doSnapshot.getSecaoCartoes()).isNotNull();
+
+        // Uma escrita no mês marca o snapshot e o relatório é recalculado
+        despesaService.salvar(novaDespesa("Compra", 50.0, LocalDate.of(2023, 3, 20)));
+        assertThat(snapshotRelatorioRepository.findByAnoAndMes(2023, 3)).hasValueSatisfying(snapshot ->
+                assertThat(snapshot.getSujo()).isTrue());
+        assertThat(relatorioGerencialService.gerarRelatorioCompleto(3, 2023).getSecaoDespesas().getTotalDespesas())
+                .isEqualTo(50.0);
+    }
+
+    @Test
+    @DisplayName("Deve comparar o mês com o mesmo mês do ano anterior")
+    void deveCompararComAnoAnterior() {
+        despesaService.salvar(novaDespesa("Compra", 150.0, LocalDate.of(2023, 3, 10)));
+        despesaService.salvar(novaDespesa("Compra", 100.0, LocalDate.of(2022, 3, 10)));
+
+        ComparativoRelatorioDTO comparativo = relatorioGerencialService.compararComAnoAnterior(3, 2023);
+
+        assertThat(comparativo.getAtual().getDespesaTotal()).isEqualTo(150.0);
+        assertThat(comparativo.getAnterior().getDespesaTotal()).isEqualTo(100.0);
+        assertThat(comparativo.getVariacaoDespesas()).isEqualTo(50.0);
+        assertThat(comparativo.getVariacaoReceitas()).isNull();
+    }
+
+    private DespesaDTO novaDespesa(CartaoDTO cartao, Double valor, LocalDate data, boolean pago) {
+        DespesaDTO despesa = novaDespesaNoCartao(cartao, valor, data);
+        despesa.setPago(pago);
+        return despesa;
+    }
+}
@@ -0,0 +1,103 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import com.marciliojr.pirangueiro.dto.RelatorioJobDTO;
+import com.marciliojr.pirangueiro.dto.RelatorioJobDTO.StatusJob;
+import com.marciliojr.pirangueiro.dto.RelatorioJobDTO.TipoRelatorio;
+import com.marciliojr.pirangueiro.dto.SolicitacaoRelatorioDTO;
+import com.marciliojr.pirangueiro.exception.NegocioException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes da geração de relatórios em segundo plano")
+class RelatorioJobServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private RelatorioJobService relatorioJobService;
+
+    @Test
+    @DisplayName("Deve gerar o PDF em segundo plano, reaproveitar pedidos iguais e expirar quando o período muda")
+    void deveGerarReaproveitarEExpirar() throws Exception {
+        despesaService.salvar(novaDespesa("Despesa", 100.0, LocalDate.of(2024, 7, 5)));
+
+        RelatorioJobDTO pedido = relatorioJobService.solicitar(novaSolicitacao(TipoRelatorio.PDF_DESPESAS, 7, 2024));
+        RelatorioJobDTO concluido = aguardarFim(pedido.getId());
+
+        assertThat(concluido.getStatus()).isEqualTo(StatusJob.CONCLUIDO);
+        assertThat(concluido.getNomeArquivo()).isEqualTo("despesas_07_2024.pdf");
+        Path arquivo = relatorioJobService.buscarArtefato(pedido.getId()).orElseThrow().arquivo();
+        assertThat(new String(Files.readAllBytes(arquivo), 0, 4)).isEqualTo("%PDF");
+
+        // Mesmo pedido com os mesmos dados: mesmo trabalho
+        assertThat(relatorioJobService.solicitar(novaSolicitacao(TipoRelatorio.PDF_DESPESAS, 7, 2024)).getId())
+                .isEqualTo(pedido.getId());
+
+        // Alteração em outro mês não afeta o arquivo
+        despesaService.salvar(novaDespesa("Despesa", 30.0, LocalDate.of(2024, 8, 1)));
+        assertThat(relatorioJobService.buscar(pedido.getId()).orElseThrow().getStatus()).isEqualTo(StatusJob.CONCLUIDO);
+
+        despesaService.salvar(novaDespesa("Despesa", 50.0, LocalDate.of(2024, 7, 20)));
+        assertThat(relatorioJobService.buscar(pedido.getId()).orElseThrow().getStatus()).isEqualTo(StatusJob.EXPIRADO);
+        assertThat(Files.exists(arquivo)).isFalse();
+        assertThat(relatorioJobService.buscarArtefato(pedido.getId())).isEmpty();
+
+        RelatorioJobDTO novoPedido = relatorioJobService.solicitar(novaSolicitacao(TipoRelatorio.PDF_DESPESAS, 7, 2024));
+        assertThat(novoPedido.getId()).isNotEqualTo(pedido.getId());
+        assertThat(aguardarFim(novoPedido.getId()).getStatus()).isEqualTo(StatusJob.CONCLUIDO);
+
+        assertThatThrownBy(() -> relatorioJobService.solicitar(novaSolicitacao(null, 7, 2024)))
+                .isInstanceOf(NegocioException.class);
+    }
+
+    @Test
+    @DisplayName("Na inicialização deve apagar só os arquivos de relatório, preservando os demais do diretório")
+    void deveApagarSoOsPropriosArquivosNaInicializacao(@TempDir Path diretorio) throws Exception {
+        Path pedidoAnterior = Files.writeString(diretorio.resolve(UUID.randomUUID() + ".pdf"), "%PDF");
+        Path temporario = Files.writeString(diretorio.resolve("gerando-123.json"), "{}");
+        Path alheio = Files.writeString(diretorio.resolve("notas.pdf"), "manter");
+        Path outraExtensao = Files.writeString(diretorio.resolve(UUID.randomUUID() + ".txt"), "manter");
+
+        RelatorioJobService servico = new RelatorioJobService();
+        ReflectionTestUtils.setField(servico, "diretorioArquivos", diretorio.toString());
+        ReflectionTestUtils.setField(servico, "trabalhadores", 1);
+        ReflectionTestUtils.setField(servico, "tamanhoFila", 1);
+        ReflectionTestUtils.setField(servico, "retencaoHoras", 1L);
+        servico.iniciar();
+        servico.encerrar();
+
+        assertThat(pedidoAnterior).doesNotExist();
+        assertThat(temporario).doesNotExist();
+        assertThat(alheio).exists();
+        assertThat(outraExtensao).exists();
+    }
+
+    private RelatorioJobDTO aguardarFim(String id) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < limite) {
+            RelatorioJobDTO job = relatorioJobService.buscar(id).orElseThrow();
+            if (job.getStatus() != StatusJob.PENDENTE && job.getStatus() != StatusJob.EM_ANDAMENTO) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Relatório " + id + " não terminou a tempo");
+    }
+
+    private SolicitacaoRelatorioDTO novaSolicitacao(TipoRelatorio tipo, Integer mes, Integer ano) {
+        SolicitacaoRelatorioDTO solicitacao = new SolicitacaoRelatorioDTO();
+        solicitacao.setTipo(tipo);
+        solicitacao.setMes(mes);
+        solicitacao.setAno(ano);
+        return solicitacao;
+    }
+}
@@ -0,0 +1,175 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.event.BackupImportFinalizadoEvent;
+import com.marciliojr.pirangueiro.model.Despesa;
+import com.marciliojr.pirangueiro.model.ResumoMensal;
+import com.marciliojr.pirangueiro.model.ResumoMensal.TipoLancamento;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes dos resumos mensais de despesas e receitas")
+class ResumoMensalServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private ResumoMensalService resumoMensalService;
+
+    @Autowired
+    private GraficosService graficosService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private ContaDTO conta;
+    private CategoriaDTO mercado;
+    private CategoriaDTO lazer;
+    private CategoriaDTO salario;
+
+    @BeforeEach
+    void criarDados() {
+        resumoMensalRepository.deleteAllInBatch();
+
+        conta = criarConta("Conta Resumo");
+
+        mercado = criarCategoria("Mercado");
+        lazer = criarCategoria("Lazer");
+        salario = criarCategoriaReceita("Salário");
+        cuboAnaliticoService.invalidar();
+        cacheGraficosService.invalidarTudo();
+        saldoContasService.invalidarTudo();
+    }
+
+    @Test
+    @DisplayName("Deve manter os resumos a cada inclusão, edição e exclusão de lançamentos")
+    void deveManterResumosIncrementalmente() {
+        DespesaDTO feira = despesaService.salvar(novaDespesa("Feira", 100.0, LocalDate.of(2024, 3, 5), mercado));
+        despesaService.salvar(novaDespesa("Padaria", 20.0, LocalDate.of(2024, 3, 10), mercado));
+        despesaService.salvar(novaDespesa("Cinema", 30.0, LocalDate.of(2024, 3, 15), lazer));
+        ReceitaDTO pagamento = receitaService.salvar(receitaDeSalario("Pagamento", 1000.0, LocalDate.of(2024, 3, 1)));
+
+        // Edição move a despesa de mês e muda o valor
+        feira.setValor(80.0);
+        feira.setData(LocalDate.of(2024, 4, 5));
+        despesaService.salvar(feira);
+
+        pagamento.setValor(1200.0);
+        receitaService.salvar(pagamento);
+
+        GraficoReceitasDespesasCategoriaDTO marco = graficosService.buscarDadosGraficoReceitasDespesasCategoria(3, 2024);
+        assertThat(marco.getTotalDespesas()).isEqualTo(50.0);
+        assertThat(marco.getTotalReceitas()).isEqualTo(1200.0);
+        assertThat(marco.getDespesas()).extracting(DadosGraficoDTO::getCategoria).containsExactly("Lazer", "Mercado");
+        assertThat(marco.getDespesas()).extracting(DadosGraficoDTO::getPercentual).containsExactly(60.0, 40.0);
+
+        GraficoReceitasDespesasCategoriaDTO abril = graficosService.buscarDadosGraficoReceitasDespesasCategoria(4, 2024);
+        assertThat(abril.getTotalDespesas()).isEqualTo(80.0);
+
+        despesaService.excluir(feira.getId());
+
+        SaldoContaDTO saldo = contaService.calcularSaldoConta(conta.getId(), null, null);
+        assertThat(saldo.getTotalReceitas()).isEqualTo(1200.0);
+        assertThat(saldo.getTotalDespesasConta()).isEqualTo(50.0);
+        assertThat(graficosService.buscarDadosGraficoReceitasDespesasCategoria(4, 2024).getDespesas()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve mover os valores entre categorias na alteração em lote")
+    void deveAtualizarResumosNaAlteracaoDeCategoriaEmLote() {
+        despesaService.salvar(novaDespesa("Feira", 100.0, LocalDate.of(2024, 5, 5), mercado));
+        despesaService.salvar(novaDespesa("Padaria", 20.0, LocalDate.of(2024, 5, 10), mercado));
+
+        SelecaoDespesasDTO selecao = new SelecaoDespesasDTO();
+        selecao.setCategoriaId(mercado.getId());
+        despesaService.alterarCategoriaEmLote(selecao, lazer.getId());
+
+        GraficoReceitasDespesasCategoriaDTO maio = graficosService.buscarDadosGraficoReceitasDespesasCategoria(5, 2024);
+        assertThat(maio.getDespesas()).extracting(DadosGraficoDTO::getCategoria).containsExactly("Lazer");
+        assertThat(maio.getDespesas()).extracting(DadosGraficoDTO::getValor).containsExactly(120.0);
+    }
+
+    @Test
+    @DisplayName("A reconstrução a partir dos lançamentos deve chegar aos mesmos resumos da manutenção incremental")
+    void reconstrucaoDeveSerIgualAManutencaoIncremental() {
+        for (int dia = 1; dia <= 28; dia++) {
+            DespesaDTO despesa = novaDespesa("Compra " + dia, (double) dia, LocalDate.of(2024, 1 + dia % 3, dia),
+                    dia % 2 == 0 ? mercado : lazer);
+            despesa.setPago(dia % 4 == 0);
+            despesaService.salvar(despesa);
+            receitaService.salvar(receitaDeSalario("Receita " + dia, dia * 10.0, LocalDate.of(2024, 1 + dia % 2, dia)));
+        }
+        List<ResumoMensal> incrementais = resumosComLancamentos();
+
+        resumoMensalService.reconstruir();
+        List<ResumoMensal> reconstruidos = resumosComLancamentos();
+
+        assertThat(reconstruidos).usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .containsExactlyElementsOf(incrementais);
+        assertThat(reconstruidos.stream()
+                .filter(resumo -> resumo.getTipo() == ResumoMensal.TipoLancamento.DESPESA)
+                .mapToDouble(ResumoMensal::getTotal).sum()).isEqualTo(406.0);
+    }
+
+    @Test
+    @DisplayName("A restauração de backup deve reconstruir os resumos antes de descartar o cubo")
+    void deveReconstruirResumosAntesDoCuboNaRestauracao() {
+        despesaService.salvar(novaDespesa("Feira", 100.0, LocalDate.of(2024, 6, 5), mercado));
+        YearMonth junho = YearMonth.of(2024, 6);
+        assertThat(cuboAnaliticoService.totalDoMes(TipoLancamento.DESPESA, junho).total()).isEqualTo(100.0);
+
+        // Como a restauração: grava as despesas sem passar pelos serviços e avisa na mesma transação
+        transactionTemplate.executeWithoutResult(status -> {
+            Despesa restaurada = new Despesa();
+            restaurada.setDescricao("Restaurada");
+            restaurada.setValor(50.0);
+            restaurada.setData(LocalDate.of(2024, 6, 20));
+            restaurada.setConta(contaRepository.findById(conta.getId()).orElseThrow());
+            restaurada.setCategoria(categoriaRepository.findById(lazer.getId()).orElseThrow());
+            restaurada.setPago(false);
+            despesaRepository.save(restaurada);
+            eventPublisher.publishEvent(new BackupImportFinalizadoEvent(this, "teste", true, "ok", null));
+        });
+
+        CuboAnaliticoService.TotalMes total = cuboAnaliticoService.totalDoMes(TipoLancamento.DESPESA, junho);
+        assertThat(total.total()).isEqualTo(150.0);
+        assertThat(total.quantidade()).isEqualTo(2);
+    }
+
+    private List<ResumoMensal> resumosComLancamentos() {
+        return resumoMensalRepository.findAll().stream()
+                .filter(resumo -> resumo.getQuantidade() > 0)
+                .sorted(Comparator.comparing((ResumoMensal resumo) -> resumo.getTipo())
+                        .thenComparing(ResumoMensal::getAno)
+                        .thenComparing(ResumoMensal::getMes)
+                        .thenComparing(ResumoMensal::getCategoriaId)
+                        .thenComparing(ResumoMensal::getPago))
+                .toList();
+    }
+
+    private DespesaDTO novaDespesa(String descricao, Double valor, LocalDate data, CategoriaDTO categoria) {
+        DespesaDTO despesa = novaDespesa(descricao, valor, data);
+        despesa.setConta(conta);
+        despesa.setCategoria(categoria);
+        return despesa;
+    }
+
+    private ReceitaDTO receitaDeSalario(String descricao, Double valor, LocalDate data) {
+        ReceitaDTO receita = novaReceita(descricao, valor, data);
+        receita.setConta(conta);
+        receita.setCategoria(salario);
+        return receita;
+    }
+}
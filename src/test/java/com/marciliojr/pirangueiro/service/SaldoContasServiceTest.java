@@ -0,0 +1,67 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes do cálculo conjunto dos saldos das contas")
+class SaldoContasServiceTest extends ServicoTesteBase {
+
+    @Test
+    @DisplayName("Deve calcular o saldo de todas as contas com as despesas de cartão não pagas somadas a cada uma")
+    void deveCalcularSaldosDeTodasAsContas() {
+        ContaDTO corrente = criarConta("Corrente");
+        ContaDTO poupanca = criarConta("Poupança");
+        CartaoDTO cartao = criarCartao("Cartão Saldo", 1000.0);
+
+        receitaService.salvar(novaReceitaNaConta(corrente, 1000.0, LocalDate.of(2024, 5, 1)));
+        receitaService.salvar(novaReceitaNaConta(poupanca, 300.0, LocalDate.of(2024, 5, 2)));
+        despesaService.salvar(novaDespesaNaConta(corrente, 200.0, LocalDate.of(2024, 5, 3), true));
+        despesaService.salvar(novaDespesaNoCartao(cartao, 50.0, LocalDate.of(2024, 5, 4)));
+        DespesaDTO paga = novaDespesaNoCartao(cartao, 70.0, LocalDate.of(2024, 5, 5));
+        paga.setPago(true);
+        despesaService.salvar(paga);
+        despesaService.salvar(novaDespesaNaConta(corrente, 40.0, LocalDate.of(2024, 6, 1), true));
+
+        List<SaldoContaDTO> saldos = saldoContasService.listarSaldos(5, 2024);
+
+        assertThat(saldos).extracting(SaldoContaDTO::getNomeConta).containsExactly("Corrente", "Poupança");
+        assertThat(saldos).extracting(SaldoContaDTO::getTotalDespesasConta).containsExactly(200.0, 0.0);
+        assertThat(saldos).extracting(SaldoContaDTO::getTotalDespesasCartao).containsExactly(50.0, 50.0);
+        assertThat(saldos).extracting(SaldoContaDTO::getSaldo).containsExactly(750.0, 250.0);
+        assertThat(saldos).allSatisfy(saldo -> {
+            assertThat(saldo.getMes()).isEqualTo(5);
+            assertThat(saldo.getAno()).isEqualTo(2024);
+        });
+
+        SaldoContaDTO geral = contaService.calcularSaldoConta(corrente.getId(), null, null);
+        assertThat(geral.getTotalDespesasConta()).isEqualTo(240.0);
+        assertThat(geral.getSaldo()).isEqualTo(710.0);
+
+        assertThatThrownBy(() -> saldoContasService.buscarSaldo(-1L, 5, 2024))
+                .hasMessage("Conta não encontrada");
+    }
+
+    @Test
+    @DisplayName("Deve descartar apenas os períodos afetados após a gravação de um lançamento")
+    void deveDescartarPeriodosAfetados() {
+        ContaDTO corrente = criarConta("Corrente");
+        receitaService.salvar(novaReceitaNaConta(corrente, 500.0, LocalDate.of(2024, 5, 1)));
+        receitaService.salvar(novaReceitaNaConta(corrente, 100.0, LocalDate.of(2024, 6, 1)));
+
+        assertThat(saldoContasService.buscarSaldo(corrente.getId(), 5, 2024).getSaldo()).isEqualTo(500.0);
+        assertThat(saldoContasService.buscarSaldo(corrente.getId(), 6, 2024).getSaldo()).isEqualTo(100.0);
+        assertThat(saldoContasService.buscarSaldo(corrente.getId(), null, null).getSaldo()).isEqualTo(600.0);
+
+        despesaService.salvar(novaDespesaNaConta(corrente, 30.0, LocalDate.of(2024, 6, 10), true));
+
+        assertThat(saldoContasService.buscarSaldo(corrente.getId(), 5, 2024).getSaldo()).isEqualTo(500.0);
+        assertThat(saldoContasService.buscarSaldo(corrente.getId(), 6, 2024).getSaldo()).isEqualTo(70.0);
+        assertThat(saldoContasService.buscarSaldo(corrente.getId(), null, null).getSaldo()).isEqualTo(570.0);
+    }
+}
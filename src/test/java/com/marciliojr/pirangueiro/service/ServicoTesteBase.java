@@ -0,0 +1,210 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.*;
+import com.marciliojr.pirangueiro.model.TipoConta;
+import com.marciliojr.pirangueiro.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+/**
+ * Base dos testes de serviço: contexto completo com o perfil de testes, limpeza das tabelas e
+ * dos caches em memória depois de cada teste e montagem dos cadastros e lançamentos usados nos
+ * cenários. Cada classe de teste mantém apenas a preparação própria do seu cenário.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+abstract class ServicoTesteBase {
+
+    @Autowired
+    protected DespesaService despesaService;
+
+    @Autowired
+    protected ReceitaService receitaService;
+
+    @Autowired
+    protected CartaoService cartaoService;
+
+    @Autowired
+    protected CategoriaService categoriaService;
+
+    @Autowired
+    protected ContaService contaService;
+
+    @Autowired
+    protected HistoricoService historicoService;
+
+    @Autowired
+    protected CuboAnaliticoService cuboAnaliticoService;
+
+    @Autowired
+    protected ArmazemColunarService armazemColunarService;
+
+    @Autowired
+    protected CacheGraficosService cacheGraficosService;
+
+    @Autowired
+    protected DadosReferenciaService dadosReferenciaService;
+
+    @Autowired
+    protected PrevisaoGastosService previsaoGastosService;
+
+    @Autowired
+    protected SaldoContasService saldoContasService;
+
+    @Autowired
+    protected DespesaRepository despesaRepository;
+
+    @Autowired
+    protected ReceitaRepository receitaRepository;
+
+    @Autowired
+    protected CartaoRepository cartaoRepository;
+
+    @Autowired
+    protected CategoriaRepository categoriaRepository;
+
+    @Autowired
+    protected ContaRepository contaRepository;
+
+    @Autowired
+    protected FaturaRepository faturaRepository;
+
+    @Autowired
+    protected HistoricoRepository historicoRepository;
+
+    @Autowired
+    protected ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    protected SnapshotRelatorioRepository snapshotRelatorioRepository;
+
+    @Autowired
+    protected CheckpointSaldoRepository checkpointSaldoRepository;
+
+    /**
+     * Roda depois da limpeza da própria classe. As exclusões pelos repositórios não publicam
+     * eventos, então os caches em memória são descartados aqui.
+     */
+    @AfterEach
+    void limparBase() {
+        historicoService.descarregar();
+        checkpointSaldoRepository.deleteAllInBatch();
+        snapshotRelatorioRepository.deleteAllInBatch();
+        historicoRepository.deleteAll();
+        despesaRepository.deleteAll();
+        receitaRepository.deleteAll();
+        faturaRepository.deleteAll();
+        resumoMensalRepository.deleteAllInBatch();
+        cartaoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+        contaRepository.deleteAll();
+
+        cuboAnaliticoService.invalidar();
+        armazemColunarService.invalidar();
+        cacheGraficosService.invalidarTudo();
+        dadosReferenciaService.invalidarTudo();
+        previsaoGastosService.invalidar();
+        saldoContasService.invalidarTudo();
+    }
+
+    // ==================== CADASTROS ====================
+
+    protected ContaDTO novaConta(String nome) {
+        ContaDTO conta = new ContaDTO();
+        conta.setNome(nome);
+        conta.setTipo(TipoConta.CORRENTE);
+        return conta;
+    }
+
+    protected ContaDTO criarConta(String nome) {
+        return contaService.salvar(novaConta(nome), null);
+    }
+
+    /**
+     * Cartão que fecha no último dia do mês, para que as compras caiam na fatura do próprio mês.
+     */
+    protected CartaoDTO novoCartao(String nome, Double limite) {
+        CartaoDTO cartao = new CartaoDTO();
+        cartao.setNome(nome);
+        cartao.setLimite(limite);
+        cartao.setDiaFechamento(31);
+        cartao.setDiaVencimento(10);
+        return cartao;
+    }
+
+    protected CartaoDTO criarCartao(String nome, Double limite) {
+        return cartaoService.salvar(novoCartao(nome, limite));
+    }
+
+    protected CategoriaDTO novaCategoria(String nome, boolean tipoReceita) {
+        CategoriaDTO categoria = new CategoriaDTO();
+        categoria.setNome(nome);
+        categoria.setCor("#000000");
+        categoria.setTipoReceita(tipoReceita);
+        return categoria;
+    }
+
+    protected CategoriaDTO criarCategoria(String nome) {
+        return categoriaService.salvar(novaCategoria(nome, false));
+    }
+
+    protected CategoriaDTO criarCategoriaReceita(String nome) {
+        return categoriaService.salvar(novaCategoria(nome, true));
+    }
+
+    // ==================== LANÇAMENTOS ====================
+
+    /**
+     * Despesa não paga, sem conta, cartão ou categoria.
+     */
+    protected DespesaDTO novaDespesa(String descricao, Double valor, LocalDate data) {
+        DespesaDTO despesa = new DespesaDTO();
+        despesa.setDescricao(descricao);
+        despesa.setValor(valor);
+        despesa.setData(data);
+        despesa.setPago(false);
+        return despesa;
+    }
+
+    protected DespesaDTO novaDespesaNaConta(ContaDTO conta, Double valor, LocalDate data, boolean pago) {
+        DespesaDTO despesa = novaDespesa("Despesa", valor, data);
+        despesa.setConta(conta);
+        despesa.setPago(pago);
+        return despesa;
+    }
+
+    protected DespesaDTO novaDespesaNoCartao(CartaoDTO cartao, Double valor, LocalDate data) {
+        return novaCompra(cartao, null, valor, data);
+    }
+
+    /**
+     * Compra não paga; cartão e categoria são opcionais.
+     */
+    protected DespesaDTO novaCompra(CartaoDTO cartao, CategoriaDTO categoria, Double valor, LocalDate data) {
+        DespesaDTO despesa = novaDespesa("Compra", valor, data);
+        despesa.setCartao(cartao);
+        despesa.setCategoria(categoria);
+        return despesa;
+    }
+
+    /**
+     * Receita sem conta ou categoria.
+     */
+    protected ReceitaDTO novaReceita(String descricao, Double valor, LocalDate data) {
+        ReceitaDTO receita = new ReceitaDTO();
+        receita.setDescricao(descricao);
+        receita.setValor(valor);
+        receita.setData(data);
+        return receita;
+    }
+
+    protected ReceitaDTO novaReceitaNaConta(ContaDTO conta, Double valor, LocalDate data) {
+        ReceitaDTO receita = novaReceita("Receita", valor, data);
+        receita.setConta(conta);
+        return receita;
+    }
+}
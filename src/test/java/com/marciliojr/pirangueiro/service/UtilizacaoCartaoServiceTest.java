@@ -0,0 +1,47 @@
+package com.marciliojr.pirangueiro.service;
+
+import com.marciliojr.pirangueiro.dto.CartaoDTO;
+import com.marciliojr.pirangueiro.dto.CartaoLimiteDTO;
+import com.marciliojr.pirangueiro.dto.DespesaDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Testes da utilização do limite dos cartões")
+class UtilizacaoCartaoServiceTest extends ServicoTesteBase {
+
+    @Autowired
+    private UtilizacaoCartaoService utilizacaoCartaoService;
+
+    @Test
+    @DisplayName("Deve calcular limite usado, disponível e percentual de todos os cartões")
+    void deveCalcularUtilizacaoDosCartoes() {
+        CartaoDTO nubank = criarCartao("Nubank", 1000.0);
+        CartaoDTO inter = criarCartao("Inter", 2000.0);
+        despesaService.salvar(novaDespesa(nubank, 250.0, false));
+        despesaService.salvar(novaDespesa(nubank, 100.0, true));
+        despesaService.salvar(novaDespesa(inter, 500.0, false));
+
+        List<CartaoLimiteDTO> utilizacoes = utilizacaoCartaoService.listarUtilizacoes();
+
+        assertThat(utilizacoes).extracting(CartaoLimiteDTO::getNomeCartao).containsExactlyInAnyOrder("Nubank", "Inter");
+        CartaoLimiteDTO utilizacaoNubank = utilizacoes.stream()
+                .filter(utilizacao -> utilizacao.getCartaoId().equals(nubank.getId()))
+                .findFirst().orElseThrow();
+        assertThat(utilizacaoNubank.getLimiteUsado()).isEqualTo(250.0);
+        assertThat(utilizacaoNubank.getLimiteDisponivel()).isEqualTo(750.0);
+        assertThat(utilizacaoNubank.getPercentualUtilizado()).isEqualTo(25.0);
+        assertThat(cartaoService.calcularLimiteDisponivel(inter.getId())).isEqualTo(1500.0);
+    }
+
+    private DespesaDTO novaDespesa(CartaoDTO cartao, Double valor, boolean pago) {
+        DespesaDTO despesa = novaDespesaNoCartao(cartao, valor, LocalDate.of(2024, 6, 1));
+        despesa.setPago(pago);
+        return despesa;
+    }
+}